@@ -5,7 +5,11 @@
  */
 package io.jooby;
 
+import io.jooby.internal.AssetCache;
+import io.jooby.internal.CachedAsset;
+
 import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
@@ -15,12 +19,24 @@ import java.util.List;
  *
  * It has built-in support for static-static as well as SPAs (single page applications).
  *
+ * Production applications might want to turn on the asset cache via {@link #setCacheSize(long)}
+ * and serve pre-built compressed files via {@link #setPrecompressed(boolean)}.
+ *
  * @author edgar
  * @since 2.0.0
  */
 public class AssetHandler implements Route.Handler {
   private static final int ONE_SEC = 1000;
 
+  /** Pre-built encodings in order of preference. */
+  private static final String[] ENCODINGS = {"br", "gzip"};
+
+  /** File extension of pre-built encodings. */
+  private static final String[] EXTENSIONS = {".br", ".gz"};
+
+  /** Default max size of a cached asset. */
+  public static final int CACHE_MAX_ASSET_SIZE = 256 * 1024;
+
   private final AssetSource[] sources;
 
   private boolean etag = true;
@@ -33,6 +49,14 @@ public class AssetHandler implements Route.Handler {
 
   private String fallback;
 
+  private boolean precompressed;
+
+  private long cacheSize;
+
+  private long cacheMaxAssetSize = CACHE_MAX_ASSET_SIZE;
+
+  private AssetCache cache;
+
   /**
    * Creates a new asset handler that fallback to the given fallback asset when the asset
    * is not found. Instead of produces a <code>404</code> its fallback to the given asset.
@@ -67,6 +91,7 @@ public class AssetHandler implements Route.Handler {
     Asset asset = resolve(filepath);
     if (asset == null) {
       if (fallback != null) {
+        filepath = fallback;
         asset = resolve(fallback);
       }
       // Still null?
@@ -76,6 +101,11 @@ public class AssetHandler implements Route.Handler {
       }
     }
 
+    MediaType contentType = asset.getContentType();
+    if (precompressed) {
+      asset = precompressed(ctx, filepath, asset);
+    }
+
     // handle If-None-Match
     if (this.etag) {
       String ifnm = ctx.header("If-None-Match").value((String) null);
@@ -98,7 +128,11 @@ public class AssetHandler implements Route.Handler {
           asset.close();
           return ctx;
         }
-        ctx.setResponseHeader("Last-Modified", Instant.ofEpochMilli(lastModified));
+        if (asset instanceof CachedAsset) {
+          ctx.setResponseHeader("Last-Modified", ((CachedAsset) asset).getLastModifiedHeader());
+        } else {
+          ctx.setResponseHeader("Last-Modified", Instant.ofEpochMilli(lastModified));
+        }
       }
     }
 
@@ -111,10 +145,42 @@ public class AssetHandler implements Route.Handler {
     if (length != -1) {
       ctx.setResponseLength(length);
     }
-    ctx.setResponseType(asset.getContentType());
+    ctx.setResponseType(contentType);
+    if (asset instanceof CachedAsset) {
+      ByteBuffer content = cache.content((CachedAsset) asset);
+      if (content != null) {
+        return ctx.send(content);
+      }
+    }
     return ctx.send(asset.stream());
   }
 
+  /**
+   * Pick a pre-built compressed version of the asset (<code>.br</code> or <code>.gz</code> file)
+   * accepted by client.
+   */
+  private Asset precompressed(Context ctx, String filepath, Asset asset) throws Exception {
+    String acceptEncoding = ctx.header("Accept-Encoding").value("");
+    boolean vary = false;
+    for (int i = 0; i < ENCODINGS.length; i++) {
+      Asset encoded = resolve(filepath + EXTENSIONS[i]);
+      if (encoded != null) {
+        vary = true;
+        if (CompressionOptions.quality(acceptEncoding, ENCODINGS[i]) > 0) {
+          asset.close();
+          ctx.setResponseHeader("Vary", "Accept-Encoding");
+          ctx.setResponseHeader("Content-Encoding", ENCODINGS[i]);
+          return encoded;
+        }
+        encoded.close();
+      }
+    }
+    if (vary) {
+      ctx.setResponseHeader("Vary", "Accept-Encoding");
+    }
+    return asset;
+  }
+
   /**
    * Turn on/off e-tag support.
    *
@@ -159,7 +225,51 @@ public class AssetHandler implements Route.Handler {
     return this;
   }
 
+  /**
+   * Serve pre-built compressed files. When client accepts <code>br</code> or <code>gzip</code>
+   * encodings, a sibling file with <code>.br</code> or <code>.gz</code> extension is sent (if
+   * exists) with the corresponding <code>Content-Encoding</code> header. Default is: false.
+   *
+   * @param precompressed True for turning on.
+   * @return This handler.
+   */
+  public AssetHandler setPrecompressed(boolean precompressed) {
+    this.precompressed = precompressed;
+    return this;
+  }
+
+  /**
+   * Turn on the asset cache. Sources are indexed at startup, asset metadata and headers are
+   * computed once and content of small assets is kept in memory (least recently used assets are
+   * evicted when cache size is exceeded). Must be set before adding the handler to a route.
+   *
+   * Changes on asset sources are not detected, so it is not recommended for development.
+   * Default is: <code>0</code> (no cache).
+   *
+   * @param cacheSize Max size in bytes of cached content.
+   * @return This handler.
+   */
+  public AssetHandler setCacheSize(long cacheSize) {
+    this.cacheSize = cacheSize;
+    return this;
+  }
+
+  /**
+   * Set max size of a cached asset. Larger assets are streamed from source. Default is:
+   * <code>256kb</code>.
+   *
+   * @param cacheMaxAssetSize Max size in bytes of a cached asset.
+   * @return This handler.
+   */
+  public AssetHandler setCacheMaxAssetSize(long cacheMaxAssetSize) {
+    this.cacheMaxAssetSize = cacheMaxAssetSize;
+    return this;
+  }
+
   private Asset resolve(String filepath) {
+    if (cache != null) {
+      return cache.resolve(filepath);
+    }
     for (AssetSource source : sources) {
       Asset asset = source.resolve(filepath);
       if (asset != null) {
@@ -172,6 +282,9 @@ public class AssetHandler implements Route.Handler {
   @Override public Route.Handler setRoute(Route route) {
     List<String> keys = route.getPathKeys();
     this.filekey = keys.size() == 0 ? route.getPattern().substring(1) : keys.get(0);
+    if (cacheSize > 0) {
+      this.cache = new AssetCache(sources, cacheSize, cacheMaxAssetSize);
+    }
     // NOTE: It send an inputstream we don't need a renderer
     route.setReturnType(Context.class);
     return this;
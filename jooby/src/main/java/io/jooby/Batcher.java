@@ -0,0 +1,280 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import io.jooby.internal.SharedTimer;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Micro-batching of concurrent requests. Keys requested within a small time window (max delay)
+ * or until max batch size is reached are loaded with a single call to a batch function, like one
+ * <code>SELECT ... WHERE id IN (...)</code> instead of one query per request.
+ *
+ * Usage:
+ *
+ * <pre>{@code
+ * {
+ *   Batcher<Long, Item> items = new Batcher<>(getWorker(), ids -> repository.findAll(ids))
+ *       .setMaxBatchSize(100)
+ *       .setMaxDelay(Duration.ofMillis(2));
+ *
+ *   get("/items/{id}", ctx -> items.load(ctx.path("id").longValue()));
+ * }
+ * }</pre>
+ *
+ * {@link #load(Object)} returns a {@link CompletionStage}, so routes are non-blocking: the
+ * request is completed once the batch function returns. Keys missing from the batch result
+ * complete with a {@link StatusCode#NOT_FOUND} error. Duplicated keys within a batch are loaded
+ * once.
+ *
+ * Enqueueing is lock-free. Batch sizes are available via {@link #getBatchSizeHistogram()}.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ * @author edgar
+ * @since 2.0.0
+ */
+public class Batcher<K, V> {
+
+  /**
+   * Batch function.
+   *
+   * @param <K> Key type.
+   * @param <V> Value type.
+   */
+  public interface Loader<K, V> {
+    /**
+     * Load the given keys.
+     *
+     * @param keys Unique keys, in request order.
+     * @return Values by key. Missing keys complete with {@link StatusCode#NOT_FOUND}.
+     * @throws Exception If something goes wrong, every request of the batch fails with it.
+     */
+    @Nonnull Map<K, V> load(@Nonnull List<K> keys) throws Exception;
+  }
+
+  private static class Entry<K, V> {
+    private final K key;
+
+    private final CompletableFuture<V> result = new CompletableFuture<>();
+
+    Entry(K key) {
+      this.key = key;
+    }
+  }
+
+  /** Default max batch size. */
+  public static final int MAX_BATCH_SIZE = 100;
+
+  /** Histogram buckets: 1, 2, 3-4, 5-8, ..., up to 2^30. */
+  private static final int BUCKETS = 32;
+
+  private final Executor executor;
+
+  private final Loader<K, V> loader;
+
+  private int maxBatchSize = MAX_BATCH_SIZE;
+
+  private long maxDelay = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final Queue<Entry<K, V>> pending = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger size = new AtomicInteger();
+
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+
+  private final LongAdder requests = new LongAdder();
+
+  private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+  /**
+   * Creates a new batcher.
+   *
+   * @param executor Executor where the batch function runs, like the application worker.
+   * @param loader Batch function.
+   */
+  public Batcher(@Nonnull Executor executor, @Nonnull Loader<K, V> loader) {
+    this.executor = executor;
+    this.loader = loader;
+  }
+
+  /**
+   * Max number of keys per batch. A batch is sent as soon as it reaches this size. Default is:
+   * {@link #MAX_BATCH_SIZE}.
+   *
+   * @param maxBatchSize Max number of keys per batch.
+   * @return This batcher.
+   */
+  public @Nonnull Batcher<K, V> setMaxBatchSize(int maxBatchSize) {
+    if (maxBatchSize <= 0) {
+      throw new IllegalArgumentException("Max batch size must be greater than zero: "
+          + maxBatchSize);
+    }
+    this.maxBatchSize = maxBatchSize;
+    return this;
+  }
+
+  /**
+   * Max time a key waits for other keys before the batch is sent. This is the max latency added
+   * to a request. Default is: 1 millisecond.
+   *
+   * @param maxDelay Max delay.
+   * @return This batcher.
+   */
+  public @Nonnull Batcher<K, V> setMaxDelay(@Nonnull Duration maxDelay) {
+    this.maxDelay = maxDelay.toNanos();
+    return this;
+  }
+
+  /**
+   * Load a value. The key is added to the current batch.
+   *
+   * @param key Key.
+   * @return Value, completed once the batch function returns. Completed with the executor error
+   *     when the executor rejects the batch.
+   */
+  public @Nonnull CompletionStage<V> load(@Nonnull K key) {
+    Entry<K, V> entry = new Entry<>(key);
+    pending.offer(entry);
+    requests.increment();
+    if (size.incrementAndGet() == maxBatchSize) {
+      dispatch();
+    } else {
+      schedule();
+    }
+    return entry.result;
+  }
+
+  /**
+   * Number of requests (keys) loaded since creation.
+   *
+   * @return Number of requests.
+   */
+  public long getRequests() {
+    return requests.sum();
+  }
+
+  /**
+   * Number of batch calls since creation.
+   *
+   * @return Number of batch calls.
+   */
+  public long getBatches() {
+    long batches = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      batches += histogram.get(i);
+    }
+    return batches;
+  }
+
+  /**
+   * Batch size histogram. Keys are the upper bound of power of two buckets (1, 2, 4, 8, ...),
+   * values are the number of batches whose size is greater than the previous bucket and less or
+   * equal to the key. Empty buckets are omitted.
+   *
+   * @return Batch size histogram.
+   */
+  public @Nonnull Map<Integer, Long> getBatchSizeHistogram() {
+    Map<Integer, Long> result = new LinkedHashMap<>();
+    for (int i = 0; i < BUCKETS; i++) {
+      long count = histogram.get(i);
+      if (count > 0) {
+        result.put(1 << i, count);
+      }
+    }
+    return Collections.unmodifiableMap(result);
+  }
+
+  @Override public String toString() {
+    return "requests: " + getRequests() + ", batches: " + getBatchSizeHistogram();
+  }
+
+  private void flush() {
+    List<Entry<K, V>> batch = new ArrayList<>();
+    Entry<K, V> entry;
+    while (batch.size() < maxBatchSize && (entry = pending.poll()) != null) {
+      batch.add(entry);
+    }
+    if (batch.isEmpty()) {
+      return;
+    }
+    int remaining = size.addAndGet(-batch.size());
+    if (remaining >= maxBatchSize) {
+      /** Next batch is full too, send it in parallel: */
+      dispatch();
+    } else if (remaining > 0) {
+      schedule();
+    }
+    histogram.incrementAndGet(bucket(batch.size()));
+
+    Map<K, List<CompletableFuture<V>>> futures = new LinkedHashMap<>();
+    for (Entry<K, V> it : batch) {
+      futures.computeIfAbsent(it.key, k -> new ArrayList<>(1)).add(it.result);
+    }
+    try {
+      Map<K, V> values = loader.load(new ArrayList<>(futures.keySet()));
+      futures.forEach((key, results) -> {
+        V value = values.get(key);
+        for (CompletableFuture<V> result : results) {
+          if (value == null) {
+            result.completeExceptionally(new StatusCodeException(StatusCode.NOT_FOUND,
+                "Not found: " + key));
+          } else {
+            result.complete(value);
+          }
+        }
+      });
+    } catch (Throwable x) {
+      for (Entry<K, V> it : batch) {
+        it.result.completeExceptionally(x);
+      }
+    }
+  }
+
+  private void schedule() {
+    /** First key of the window starts the timer: */
+    if (scheduled.compareAndSet(false, true)) {
+      SharedTimer.get().schedule(() -> {
+        scheduled.set(false);
+        dispatch();
+      }, maxDelay, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private void dispatch() {
+    try {
+      executor.execute(this::flush);
+    } catch (RuntimeException x) {
+      /** Executor rejected the batch, fail keys waiting for it instead of leaving them behind: */
+      Entry<K, V> entry;
+      while ((entry = pending.poll()) != null) {
+        size.decrementAndGet();
+        entry.result.completeExceptionally(x);
+      }
+    }
+  }
+
+  private static int bucket(int size) {
+    return size <= 1 ? 0 : Math.min(BUCKETS - 1, 32 - Integer.numberOfLeadingZeros(size - 1));
+  }
+}
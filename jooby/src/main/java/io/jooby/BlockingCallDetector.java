@@ -0,0 +1,131 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+
+/**
+ * Detect blocking calls on IO threads. A blocking call (JDBC, <code>Thread.sleep</code>,
+ * <code>InputStream.read</code>, etc.) in a route running on an IO thread (event loop) stalls every
+ * connection of that IO thread.
+ *
+ * When turned on, a watchdog checks how long IO threads have been inside a route handler. Past the
+ * threshold it samples the stack trace of the IO thread and reports it, naming the route:
+ *
+ * <pre>{@code
+ * {
+ *   setExecutionMode(ExecutionMode.EVENT_LOOP);
+ *
+ *   setRouterOptions(new RouterOptions()
+ *       .setBlockingCallDetector(new BlockingCallDetector()
+ *           .setThreshold(Duration.ofMillis(50))
+ *       )
+ *   );
+ * }
+ * }</pre>
+ *
+ * Reports are logged as warnings, or sent to a {@link Listener}. In strict mode, handlers running
+ * longer than the threshold fail with a {@link StatusCode#SERVER_ERROR} response (or an aborted
+ * connection when the handler already started the response), useful for tests.
+ *
+ * Routes running on worker threads are never reported. Servers without IO threads (like Jetty)
+ * are never reported either. Detector is off by default and costs nothing when off.
+ *
+ * @author edgar
+ * @since 2.0.0
+ */
+public class BlockingCallDetector {
+
+  /**
+   * Blocking call listener. Called from the watchdog thread while the IO thread is still blocked,
+   * so it must be short and never block.
+   */
+  public interface Listener {
+    /**
+     * Called when an IO thread has been running a route handler for longer than the threshold.
+     * Called once per request.
+     *
+     * @param route Blocking route.
+     * @param thread Blocked IO thread.
+     * @param elapsed Time spent in the route handler, so far.
+     * @param stackTrace Stack trace of the IO thread.
+     */
+    void onBlockingCall(@Nonnull Route route, @Nonnull Thread thread, @Nonnull Duration elapsed,
+        @Nonnull StackTraceElement[] stackTrace);
+  }
+
+  private Duration threshold = Duration.ofMillis(100);
+
+  private boolean strict;
+
+  private Listener listener;
+
+  /**
+   * Max time an IO thread can spend in a route handler. Default is: 100 milliseconds.
+   *
+   * @return Max time an IO thread can spend in a route handler.
+   */
+  public @Nonnull Duration getThreshold() {
+    return threshold;
+  }
+
+  /**
+   * Set max time an IO thread can spend in a route handler.
+   *
+   * @param threshold Max time an IO thread can spend in a route handler.
+   * @return This detector.
+   */
+  public @Nonnull BlockingCallDetector setThreshold(@Nonnull Duration threshold) {
+    this.threshold = threshold;
+    return this;
+  }
+
+  /**
+   * True when handlers running longer than the threshold fail. Default is: <code>false</code>.
+   *
+   * @return True for strict mode.
+   */
+  public boolean isStrict() {
+    return strict;
+  }
+
+  /**
+   * Turn on/off strict mode. In strict mode, handlers running longer than the threshold on an IO
+   * thread produce a {@link StatusCode#SERVER_ERROR} response, instead of their own response.
+   * Handlers that already started (or sent) the response get the connection aborted, see
+   * {@link Context#abort()}.
+   *
+   * @param strict True for strict mode.
+   * @return This detector.
+   */
+  public @Nonnull BlockingCallDetector setStrict(boolean strict) {
+    this.strict = strict;
+    return this;
+  }
+
+  /**
+   * Blocking call listener or <code>null</code> when blocking calls are logged.
+   *
+   * @return Listener or <code>null</code>.
+   */
+  public @Nullable Listener getListener() {
+    return listener;
+  }
+
+  /**
+   * Set a blocking call listener, like for reporting metrics. Default is: <code>null</code>,
+   * blocking calls are logged as warnings.
+   *
+   * @param listener Listener or <code>null</code>.
+   * @return This detector.
+   */
+  public @Nonnull BlockingCallDetector setListener(@Nullable Listener listener) {
+    this.listener = listener;
+    return this;
+  }
+}
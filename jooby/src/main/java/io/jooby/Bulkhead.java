@@ -0,0 +1,377 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import io.jooby.internal.ServiceUnavailable;
+import io.jooby.internal.SharedTimer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bulkhead executor. Isolates a group of routes by limiting how many requests run at the same
+ * time (max concurrency) and how many wait for their turn (max queue size). Requests over the
+ * limit are rejected with <code>503</code> and a <code>Retry-After</code> header, in the calling
+ * thread (usually the event loop) and without reaching the underlying executor.
+ *
+ * Usage:
+ *
+ * <pre>{@code
+ * {
+ *   Bulkhead reports = new Bulkhead(getWorker())
+ *       .setMaxConcurrency(4)
+ *       .setMaxQueueSize(16)
+ *       .setQueueTimeout(Duration.ofSeconds(2));
+ *
+ *   dispatch(reports, () -> {
+ *     get("/reports", ctx -> ...);
+ *   });
+ *
+ *   // or by name for MVC routes: @Dispatch("reports")
+ *   executor("reports", reports);
+ * }
+ * }</pre>
+ *
+ * Slow routes inside the bulkhead never hold more than <code>maxConcurrency</code> threads of the
+ * underlying executor, so they don't starve routes outside of it. A request holds its slot until
+ * the handler returns and the response completes, so asynchronous routes (completion stages,
+ * reactive streams, etc.) are limited too.
+ *
+ * Max concurrency might be adaptive, see {@link #setLimit(ConcurrencyLimit)}.
+ *
+ * Admission and metrics are lock-free counters: {@link #getRunning()}, {@link #getQueued()},
+ * {@link #getRejected()} and {@link #getTimedOut()}.
+ *
+ * @author edgar
+ * @since 2.0.0
+ */
+public class Bulkhead implements Executor {
+
+  private static class Task {
+    private final Runnable action;
+
+    /** Request of a routed task or <code>null</code> for plain tasks. */
+    private final Context ctx;
+
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    private ScheduledFuture<?> timeout;
+
+    Task(Runnable action, Context ctx) {
+      this.action = action;
+      this.ctx = ctx;
+    }
+
+    boolean claim() {
+      if (claimed.compareAndSet(false, true)) {
+        if (timeout != null) {
+          timeout.cancel(false);
+        }
+        return true;
+      }
+      return false;
+    }
+  }
+
+  /** Default max concurrency. */
+  public static final int MAX_CONCURRENCY = 10;
+
+  /** Default max queue size. */
+  public static final int MAX_QUEUE_SIZE = 100;
+
+  private final Executor executor;
+
+  private ConcurrencyLimit limit = ConcurrencyLimit.fixed(MAX_CONCURRENCY);
+
+  private int maxQueueSize = MAX_QUEUE_SIZE;
+
+  private Duration queueTimeout;
+
+  private Duration retryAfter = ServiceUnavailable.RETRY_AFTER;
+
+  /** Running plus queued tasks. */
+  private final AtomicInteger admitted = new AtomicInteger();
+
+  private final AtomicInteger running = new AtomicInteger();
+
+  private final AtomicInteger queued = new AtomicInteger();
+
+  private final Queue<Task> queue = new ConcurrentLinkedQueue<>();
+
+  private final LongAdder rejected = new LongAdder();
+
+  private final LongAdder timedOut = new LongAdder();
+
+  /**
+   * Creates a new bulkhead.
+   *
+   * @param executor Executor where tasks run, like the application worker.
+   */
+  public Bulkhead(@Nonnull Executor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * Max number of tasks running at the same time. Default is: {@link #MAX_CONCURRENCY}.
+   *
+   * @param maxConcurrency Max number of tasks running at the same time.
+   * @return This bulkhead.
+   */
+  public @Nonnull Bulkhead setMaxConcurrency(int maxConcurrency) {
+    return setLimit(ConcurrencyLimit.fixed(maxConcurrency));
+  }
+
+  /**
+   * Set the concurrency limit. Use an adaptive limit for adjusting max concurrency from observed
+   * latency, like {@link ConcurrencyLimit#gradient()} or {@link ConcurrencyLimit#aimd()}.
+   * Latency is measured from the time the task starts running until the response completes (or
+   * until it returns, for tasks submitted via {@link #execute(Runnable)}). Time spent in queue
+   * isn't part of it.
+   *
+   * @param limit Concurrency limit.
+   * @return This bulkhead.
+   */
+  public @Nonnull Bulkhead setLimit(@Nonnull ConcurrencyLimit limit) {
+    this.limit = limit;
+    return this;
+  }
+
+  /**
+   * Max number of tasks waiting for execution. Default is: {@link #MAX_QUEUE_SIZE}. Set it to
+   * <code>0</code> to reject requests as soon as max concurrency is reached.
+   *
+   * @param maxQueueSize Max number of tasks waiting for execution.
+   * @return This bulkhead.
+   */
+  public @Nonnull Bulkhead setMaxQueueSize(int maxQueueSize) {
+    this.maxQueueSize = maxQueueSize;
+    return this;
+  }
+
+  /**
+   * Max time a request waits in queue. Requests waiting longer are rejected with <code>503</code>.
+   * Default is: no timeout.
+   *
+   * Timeout applies to requests dispatched by the router. Tasks submitted directly via
+   * {@link #execute(Runnable)} wait until they run.
+   *
+   * @param queueTimeout Max time a request waits in queue or <code>null</code> for no timeout.
+   * @return This bulkhead.
+   */
+  public @Nonnull Bulkhead setQueueTimeout(@Nullable Duration queueTimeout) {
+    this.queueTimeout = queueTimeout;
+    return this;
+  }
+
+  /**
+   * Value of the <code>Retry-After</code> header of rejected requests. Default is: 1 second.
+   *
+   * @param retryAfter Retry after value.
+   * @return This bulkhead.
+   */
+  public @Nonnull Bulkhead setRetryAfter(@Nonnull Duration retryAfter) {
+    this.retryAfter = retryAfter;
+    return this;
+  }
+
+  /**
+   * Current max concurrency.
+   *
+   * @return Current max concurrency.
+   */
+  public int getLimit() {
+    return limit.getLimit();
+  }
+
+  /**
+   * Number of running tasks.
+   *
+   * @return Number of running tasks.
+   */
+  public int getRunning() {
+    return running.get();
+  }
+
+  /**
+   * Number of tasks waiting in queue.
+   *
+   * @return Number of tasks waiting in queue.
+   */
+  public int getQueued() {
+    return queued.get();
+  }
+
+  /**
+   * Number of tasks rejected because the bulkhead was full.
+   *
+   * @return Number of rejected tasks.
+   */
+  public long getRejected() {
+    return rejected.sum();
+  }
+
+  /**
+   * Number of requests rejected after waiting in queue for longer than queue timeout.
+   *
+   * @return Number of timed out requests.
+   */
+  public long getTimedOut() {
+    return timedOut.sum();
+  }
+
+  /**
+   * Execute a task or queue it when max concurrency is reached. Routes using this bulkhead as
+   * worker (see {@link Router#setWorker(Executor)}) are dispatched via
+   * {@link #dispatch(Context, Runnable)}.
+   *
+   * @param task Task to execute.
+   * @throws RejectedExecutionException When bulkhead is full. The router maps it to
+   *     {@link StatusCode#SERVICE_UNAVAILABLE}.
+   */
+  @Override public void execute(@Nonnull Runnable task) {
+    if (!tryAcquire()) {
+      throw new RejectedExecutionException("Bulkhead is full: " + this);
+    }
+    schedule(new Task(task, null));
+  }
+
+  /**
+   * Dispatch a request to this bulkhead. Admission happens in the caller thread: when the bulkhead
+   * is full, the request is rejected with a {@link StatusCodeException} of
+   * {@link StatusCode#SERVICE_UNAVAILABLE} and a <code>Retry-After</code> response header.
+   *
+   * The request holds its slot until the action returns and the response completes.
+   *
+   * @param ctx Web context.
+   * @param action Action to run.
+   * @return Web context.
+   */
+  public @Nonnull Context dispatch(@Nonnull Context ctx, @Nonnull Runnable action) {
+    if (!tryAcquire()) {
+      throw serviceUnavailable(ctx);
+    }
+    return ctx.dispatch(task -> schedule(new Task(task, ctx)), action);
+  }
+
+  @Override public String toString() {
+    return "running: " + running.get() + "/" + limit + ", queued: " + queued.get() + "/"
+        + maxQueueSize;
+  }
+
+  private boolean tryAcquire() {
+    int max = limit.getLimit() + maxQueueSize;
+    for (;;) {
+      int current = admitted.get();
+      if (current >= max) {
+        rejected.increment();
+        return false;
+      }
+      if (admitted.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private StatusCodeException serviceUnavailable(Context ctx) {
+    return ServiceUnavailable.reject(ctx, retryAfter);
+  }
+
+  private void schedule(Task task) {
+    if (running.incrementAndGet() <= limit.getLimit()) {
+      run(task);
+    } else {
+      running.decrementAndGet();
+      queued.incrementAndGet();
+      if (task.ctx != null && queueTimeout != null) {
+        task.timeout = SharedTimer.get().schedule(() -> timeout(task), queueTimeout.toMillis(),
+            TimeUnit.MILLISECONDS);
+      }
+      queue.offer(task);
+      /** A slot might be released while queuing: */
+      drain();
+    }
+  }
+
+  private void run(Task task) {
+    try {
+      executor.execute(() -> {
+        long start = System.nanoTime();
+        /** Release once the action returns and, for requests, once the response completes: */
+        AtomicInteger pending = new AtomicInteger(task.ctx == null ? 1 : 2);
+        Runnable done = () -> {
+          if (pending.decrementAndGet() == 0) {
+            limit.onSample(System.nanoTime() - start, running.get());
+            release();
+          }
+        };
+        try {
+          if (task.ctx != null) {
+            task.ctx.onComplete(done);
+          }
+          task.action.run();
+        } finally {
+          done.run();
+        }
+      });
+    } catch (RuntimeException x) {
+      release();
+      throw x;
+    }
+  }
+
+  private void release() {
+    running.decrementAndGet();
+    admitted.decrementAndGet();
+    drain();
+  }
+
+  private void drain() {
+    while (!queue.isEmpty()) {
+      if (running.incrementAndGet() > limit.getLimit()) {
+        running.decrementAndGet();
+        return;
+      }
+      Task task = poll();
+      if (task == null) {
+        running.decrementAndGet();
+        return;
+      }
+      run(task);
+    }
+  }
+
+  private Task poll() {
+    Task task = queue.poll();
+    while (task != null && !task.claim()) {
+      /** Timed out already: */
+      task = queue.poll();
+    }
+    if (task != null) {
+      queued.decrementAndGet();
+    }
+    return task;
+  }
+
+  private void timeout(Task task) {
+    if (task.claimed.compareAndSet(false, true)) {
+      queue.remove(task);
+      queued.decrementAndGet();
+      admitted.decrementAndGet();
+      timedOut.increment();
+      task.ctx.sendError(serviceUnavailable(task.ctx));
+    }
+  }
+}
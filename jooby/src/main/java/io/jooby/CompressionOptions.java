@@ -0,0 +1,298 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import com.typesafe.config.Config;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Response compression options. Compression is enabled via {@link ServerOptions#setGzip(boolean)}
+ * and these options are applied by all the web servers:
+ *
+ * - minSize: responses with a known length smaller than this value are sent as they are.
+ * - types: compressible content types. Supports wildcards like <code>text/*</code>. Structured
+ *   syntax types like <code>application/problem+json</code> match <code>application/json</code>.
+ * - level: compression level from <code>1</code> (fastest) to <code>9</code> (best).
+ * - algorithms: supported algorithms in order of preference. Used when client accepts more than
+ *   one algorithm with same quality.
+ *
+ * Responses with a <code>Content-Encoding</code> header (already compressed) or
+ * <code>Content-Range</code> header (partial content) are never compressed.
+ *
+ * @author edgar
+ * @since 2.0.0
+ */
+public class CompressionOptions {
+
+  /** Gzip algorithm. */
+  public static final String GZIP = "gzip";
+
+  /** Deflate algorithm. */
+  public static final String DEFLATE = "deflate";
+
+  /** Default min size: <code>512</code> bytes. */
+  public static final int MIN_SIZE = 512;
+
+  /** Default compression level: <code>6</code>. */
+  public static final int LEVEL = 6;
+
+  /** Default compressible types. */
+  public static final List<String> TYPES = Collections.unmodifiableList(Arrays.asList(
+      "text/*",
+      "application/json",
+      "application/javascript",
+      "application/xml",
+      "image/svg+xml"
+  ));
+
+  private int minSize = MIN_SIZE;
+
+  private int level = LEVEL;
+
+  private List<String> types = TYPES;
+
+  private List<String> algorithms = Arrays.asList(GZIP, DEFLATE);
+
+  /**
+   * Creates compression options from config object. Reads entries under
+   * <code>server.compression</code>: <code>minSize</code>, <code>level</code>,
+   * <code>types</code> and <code>algorithms</code>.
+   *
+   * @param conf Configuration object.
+   * @return Compression options.
+   */
+  public static @Nonnull CompressionOptions from(@Nonnull Config conf) {
+    CompressionOptions options = new CompressionOptions();
+    if (conf.hasPath("server.compression.minSize")) {
+      options.setMinSize((int) conf.getMemorySize("server.compression.minSize").toBytes());
+    }
+    if (conf.hasPath("server.compression.level")) {
+      options.setLevel(conf.getInt("server.compression.level"));
+    }
+    if (conf.hasPath("server.compression.types")) {
+      options.setTypes(conf.getStringList("server.compression.types"));
+    }
+    if (conf.hasPath("server.compression.algorithms")) {
+      options.setAlgorithms(conf.getStringList("server.compression.algorithms"));
+    }
+    return options;
+  }
+
+  /**
+   * Min response size in bytes. Default is: <code>512</code>.
+   *
+   * @return Min response size in bytes.
+   */
+  public int getMinSize() {
+    return minSize;
+  }
+
+  /**
+   * Set min response size in bytes. Responses with a known length smaller than this value are
+   * sent as they are.
+   *
+   * @param minSize Min response size in bytes.
+   * @return This options.
+   */
+  public @Nonnull CompressionOptions setMinSize(int minSize) {
+    this.minSize = minSize;
+    return this;
+  }
+
+  /**
+   * Compression level. Default is: <code>6</code>.
+   *
+   * @return Compression level.
+   */
+  public int getLevel() {
+    return level;
+  }
+
+  /**
+   * Set compression level from <code>1</code> (fastest) to <code>9</code> (best).
+   *
+   * @param level Compression level.
+   * @return This options.
+   */
+  public @Nonnull CompressionOptions setLevel(int level) {
+    if (level < 1 || level > 9) {
+      throw new IllegalArgumentException("Compression level must be between 1 and 9: " + level);
+    }
+    this.level = level;
+    return this;
+  }
+
+  /**
+   * Compressible content types.
+   *
+   * @return Compressible content types.
+   */
+  public @Nonnull List<String> getTypes() {
+    return types;
+  }
+
+  /**
+   * Set compressible content types. Supports wildcards like <code>text/*</code>.
+   *
+   * @param types Compressible content types.
+   * @return This options.
+   */
+  public @Nonnull CompressionOptions setTypes(@Nonnull List<String> types) {
+    List<String> result = new ArrayList<>(types.size());
+    for (String type : types) {
+      result.add(type.trim().toLowerCase());
+    }
+    this.types = result;
+    return this;
+  }
+
+  /**
+   * Set compressible content types. Supports wildcards like <code>text/*</code>.
+   *
+   * @param types Compressible content types.
+   * @return This options.
+   */
+  public @Nonnull CompressionOptions setTypes(@Nonnull String... types) {
+    return setTypes(Arrays.asList(types));
+  }
+
+  /**
+   * Supported algorithms in order of preference. Default is: <code>gzip, deflate</code>.
+   *
+   * @return Supported algorithms in order of preference.
+   */
+  public @Nonnull List<String> getAlgorithms() {
+    return algorithms;
+  }
+
+  /**
+   * Set supported algorithms in order of preference. Supported values are <code>gzip</code> and
+   * <code>deflate</code>.
+   *
+   * @param algorithms Algorithms in order of preference.
+   * @return This options.
+   */
+  public @Nonnull CompressionOptions setAlgorithms(@Nonnull List<String> algorithms) {
+    List<String> result = new ArrayList<>(algorithms.size());
+    for (String algorithm : algorithms) {
+      String value = algorithm.trim().toLowerCase();
+      if (!value.equals(GZIP) && !value.equals(DEFLATE)) {
+        throw new IllegalArgumentException("Unsupported compression algorithm: " + algorithm);
+      }
+      result.add(value);
+    }
+    this.algorithms = result;
+    return this;
+  }
+
+  /**
+   * Set supported algorithms in order of preference. Supported values are <code>gzip</code> and
+   * <code>deflate</code>.
+   *
+   * @param algorithms Algorithms in order of preference.
+   * @return This options.
+   */
+  public @Nonnull CompressionOptions setAlgorithms(@Nonnull String... algorithms) {
+    return setAlgorithms(Arrays.asList(algorithms));
+  }
+
+  /**
+   * True when a response of the given type and length must be compressed.
+   *
+   * @param contentType Response content type or <code>null</code>.
+   * @param contentLength Response length or <code>-1</code> when unknown.
+   * @return True when a response of the given type and length must be compressed.
+   */
+  public boolean isCompressible(@Nullable String contentType, long contentLength) {
+    if (contentType == null || (contentLength >= 0 && contentLength < minSize)) {
+      return false;
+    }
+    int end = contentType.indexOf(';');
+    String type = (end > 0 ? contentType.substring(0, end) : contentType).trim().toLowerCase();
+    int slash = type.indexOf('/');
+    if (slash <= 0) {
+      return false;
+    }
+    // application/problem+json => application/json
+    int plus = type.lastIndexOf('+');
+    String base = plus > slash ? type.substring(0, slash + 1) + type.substring(plus + 1) : null;
+    for (String pattern : types) {
+      if (pattern.equals(type) || pattern.equals(base)) {
+        return true;
+      }
+      if (pattern.endsWith("/*") && type.regionMatches(0, pattern, 0, pattern.length() - 1)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Choose a compression algorithm from <code>Accept-Encoding</code> header. Algorithm with
+   * highest quality wins, ties are resolved using algorithm preference.
+   *
+   * @param acceptEncoding Accept-Encoding header or <code>null</code>.
+   * @return Compression algorithm or <code>null</code> when none was accepted.
+   */
+  public @Nullable String negotiate(@Nullable String acceptEncoding) {
+    if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+      return null;
+    }
+    String result = null;
+    float best = 0;
+    for (String algorithm : algorithms) {
+      float q = quality(acceptEncoding, algorithm);
+      if (q > best) {
+        best = q;
+        result = algorithm;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Quality of the given encoding from <code>Accept-Encoding</code> header.
+   *
+   * @param acceptEncoding Accept-Encoding header.
+   * @param algorithm Encoding name.
+   * @return Quality value or <code>0</code> when encoding isn't accepted.
+   */
+  public static float quality(@Nonnull String acceptEncoding, @Nonnull String algorithm) {
+    float any = 0;
+    for (String token : acceptEncoding.split(",")) {
+      int sep = token.indexOf(';');
+      String name = (sep > 0 ? token.substring(0, sep) : token).trim();
+      float q = 1;
+      if (sep > 0) {
+        String param = token.substring(sep + 1).trim();
+        if (param.startsWith("q=")) {
+          try {
+            q = Float.parseFloat(param.substring(2).trim());
+          } catch (NumberFormatException x) {
+            q = 0;
+          }
+        }
+      }
+      if (name.equalsIgnoreCase(algorithm)) {
+        return q;
+      }
+      if (name.equals("*")) {
+        any = q;
+      }
+    }
+    return any;
+  }
+
+  @Override public String toString() {
+    return "{minSize: " + minSize + ", level: " + level + ", algorithms: " + algorithms + "}";
+  }
+}
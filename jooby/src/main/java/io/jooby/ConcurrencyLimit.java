@@ -0,0 +1,349 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Concurrency limit of a {@link Bulkhead}, a route or the whole application. The limit might be
+ * fixed or adaptive: adaptive limits adjust the allowed concurrency from the latency of completed
+ * requests, like TCP congestion control does with the congestion window.
+ *
+ * Usage:
+ *
+ * <pre>{@code
+ * {
+ *   // global, for routes without their own limit:
+ *   setRouterOptions(new RouterOptions()
+ *       .setConcurrencyLimit(ConcurrencyLimit.gradient())
+ *   );
+ *
+ *   // per route:
+ *   get("/reports", ctx -> ...)
+ *       .setConcurrencyLimit(ConcurrencyLimit.aimd());
+ *
+ *   // with a queue:
+ *   Bulkhead bulkhead = new Bulkhead(getWorker())
+ *       .setLimit(ConcurrencyLimit.gradient());
+ *
+ *   dispatch(bulkhead, () -> {
+ *     ...
+ *   });
+ * }
+ * }</pre>
+ *
+ * Route and global limits have no queue: requests over the limit are rejected with
+ * {@link StatusCode#SERVICE_UNAVAILABLE} and a <code>Retry-After</code> header in the IO thread,
+ * before dispatch, like a full {@link Bulkhead}. Latency is the round trip time, from admission
+ * until the response completes.
+ *
+ * Implementations must be thread-safe and should never block: {@link #getLimit()} is called on
+ * every request and {@link #onSample(long, int)} on every completed request.
+ *
+ * @author edgar
+ * @since 2.0.0
+ */
+public interface ConcurrencyLimit {
+
+  /**
+   * Additive increase/multiplicative decrease limit. Limit grows by one while requests complete in
+   * time and the limit is in use. Limit is multiplied by the backoff ratio when a request takes
+   * longer than the timeout.
+   */
+  class Aimd implements ConcurrencyLimit {
+    private final AtomicLong limit;
+
+    private int minLimit = 1;
+
+    private int maxLimit = 1000;
+
+    private double backoffRatio = 0.9;
+
+    private long timeout = Duration.ofSeconds(1).toNanos();
+
+    /**
+     * Creates a new AIMD limit.
+     *
+     * @param initialLimit Initial limit.
+     */
+    public Aimd(int initialLimit) {
+      this.limit = new AtomicLong(initialLimit);
+    }
+
+    /**
+     * Min limit. Default is: <code>1</code>.
+     *
+     * @param minLimit Min limit.
+     * @return This limit.
+     */
+    public @Nonnull Aimd setMinLimit(int minLimit) {
+      this.minLimit = minLimit;
+      return this;
+    }
+
+    /**
+     * Max limit. Default is: <code>1000</code>.
+     *
+     * @param maxLimit Max limit.
+     * @return This limit.
+     */
+    public @Nonnull Aimd setMaxLimit(int maxLimit) {
+      this.maxLimit = maxLimit;
+      return this;
+    }
+
+    /**
+     * Ratio applied to the limit on slow requests. Default is: <code>0.9</code>.
+     *
+     * @param backoffRatio Value between <code>0.5</code> and <code>1</code>.
+     * @return This limit.
+     */
+    public @Nonnull Aimd setBackoffRatio(double backoffRatio) {
+      this.backoffRatio = backoffRatio;
+      return this;
+    }
+
+    /**
+     * Requests slower than this timeout decrease the limit. Default is: 1 second.
+     *
+     * @param timeout Request timeout.
+     * @return This limit.
+     */
+    public @Nonnull Aimd setTimeout(@Nonnull Duration timeout) {
+      this.timeout = timeout.toNanos();
+      return this;
+    }
+
+    @Override public int getLimit() {
+      return (int) limit.get();
+    }
+
+    @Override public void onSample(long rtt, int inflight) {
+      limit.updateAndGet(current -> {
+        if (rtt > timeout) {
+          return Math.max(minLimit, (long) (current * backoffRatio));
+        }
+        /** Grow only when the limit is in use: */
+        if (inflight * 2 >= current) {
+          return Math.min(maxLimit, current + 1);
+        }
+        return current;
+      });
+    }
+
+    @Override public String toString() {
+      return "aimd(" + limit.get() + ")";
+    }
+  }
+
+  /**
+   * Gradient limit. Compares the latency without load (min latency) with the latency of recent
+   * requests. When recent requests are slower, requests are queuing downstream and the limit
+   * decreases proportionally; otherwise the limit grows by the square root of the current limit.
+   * Every {@link #setProbeInterval(int)} samples the limit is halved and min latency is measured
+   * again, so the limit follows permanent latency changes.
+   */
+  class Gradient implements ConcurrencyLimit {
+    /** Limit as double bits. */
+    private final AtomicLong limit;
+
+    /** Recent latency, as double bits. */
+    private final AtomicLong rtt = new AtomicLong(Double.doubleToLongBits(0));
+
+    private final AtomicLong minRtt = new AtomicLong(Long.MAX_VALUE);
+
+    private final AtomicLong samples = new AtomicLong();
+
+    private int minLimit = 1;
+
+    private int maxLimit = 1000;
+
+    private double smoothing = 0.2;
+
+    private double tolerance = 1.5;
+
+    private int window = 10;
+
+    private int probeInterval = 1000;
+
+    /**
+     * Creates a new gradient limit.
+     *
+     * @param initialLimit Initial limit.
+     */
+    public Gradient(int initialLimit) {
+      this.limit = new AtomicLong(Double.doubleToLongBits(initialLimit));
+    }
+
+    /**
+     * Min limit. Default is: <code>1</code>.
+     *
+     * @param minLimit Min limit.
+     * @return This limit.
+     */
+    public @Nonnull Gradient setMinLimit(int minLimit) {
+      this.minLimit = minLimit;
+      return this;
+    }
+
+    /**
+     * Max limit. Default is: <code>1000</code>.
+     *
+     * @param maxLimit Max limit.
+     * @return This limit.
+     */
+    public @Nonnull Gradient setMaxLimit(int maxLimit) {
+      this.maxLimit = maxLimit;
+      return this;
+    }
+
+    /**
+     * How fast the limit moves to a new value. Default is: <code>0.2</code>.
+     *
+     * @param smoothing Value between <code>0</code> and <code>1</code>.
+     * @return This limit.
+     */
+    public @Nonnull Gradient setSmoothing(double smoothing) {
+      this.smoothing = smoothing;
+      return this;
+    }
+
+    /**
+     * How much slower recent requests can be before the limit decreases. Default is:
+     * <code>1.5</code>, recent requests might be 50% slower than the min latency.
+     *
+     * @param tolerance Value greater or equal to <code>1</code>.
+     * @return This limit.
+     */
+    public @Nonnull Gradient setTolerance(double tolerance) {
+      this.tolerance = tolerance;
+      return this;
+    }
+
+    /**
+     * Number of samples of the recent latency average. Default is: <code>10</code>.
+     *
+     * @param window Number of samples of the recent latency average.
+     * @return This limit.
+     */
+    public @Nonnull Gradient setWindow(int window) {
+      this.window = window;
+      return this;
+    }
+
+    /**
+     * Number of samples after which the limit is halved and min latency is measured again. Default
+     * is: <code>1000</code>.
+     *
+     * @param probeInterval Number of samples between probes.
+     * @return This limit.
+     */
+    public @Nonnull Gradient setProbeInterval(int probeInterval) {
+      this.probeInterval = probeInterval;
+      return this;
+    }
+
+    @Override public int getLimit() {
+      return (int) Double.longBitsToDouble(limit.get());
+    }
+
+    @Override public void onSample(long sample, int inflight) {
+      if (samples.incrementAndGet() % probeInterval == 0) {
+        /** Probe: halve the limit and measure min latency again, without load: */
+        minRtt.set(Long.MAX_VALUE);
+        limit.updateAndGet(bits -> Double.doubleToLongBits(
+            Math.max(minLimit, Double.longBitsToDouble(bits) / 2)));
+        return;
+      }
+      minRtt.accumulateAndGet(sample, Math::min);
+      double recent = update(rtt, value -> value == 0 ? sample : value + (sample - value) / window);
+      long noLoad = minRtt.get();
+      long current = limit.get();
+      double value = Double.longBitsToDouble(current);
+      /** Application isn't using the limit, don't move it: */
+      if (inflight < value / 2) {
+        return;
+      }
+      double gradient = Math.max(0.5, Math.min(1.0, tolerance * noLoad / recent));
+      double newLimit = value * gradient + Math.sqrt(value);
+      newLimit = value * (1 - smoothing) + newLimit * smoothing;
+      newLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+      /** A concurrent sample already moved the limit, skip this one: */
+      limit.compareAndSet(current, Double.doubleToLongBits(newLimit));
+    }
+
+    @Override public String toString() {
+      return "gradient(" + getLimit() + ")";
+    }
+
+    private static double update(AtomicLong bits, DoubleUnaryOperator fn) {
+      long current;
+      double value;
+      do {
+        current = bits.get();
+        value = fn.applyAsDouble(Double.longBitsToDouble(current));
+      } while (!bits.compareAndSet(current, Double.doubleToLongBits(value)));
+      return value;
+    }
+  }
+
+  /**
+   * Current limit.
+   *
+   * @return Current limit.
+   */
+  int getLimit();
+
+  /**
+   * Called every time a request completes.
+   *
+   * @param rtt Request latency in nanoseconds.
+   * @param inflight Number of requests in flight when the request completed, including it.
+   */
+  void onSample(long rtt, int inflight);
+
+  /**
+   * Fixed limit.
+   *
+   * @param limit Limit.
+   * @return Fixed limit.
+   */
+  static @Nonnull ConcurrencyLimit fixed(int limit) {
+    return new ConcurrencyLimit() {
+      @Override public int getLimit() {
+        return limit;
+      }
+
+      @Override public void onSample(long rtt, int inflight) {
+      }
+
+      @Override public String toString() {
+        return "fixed(" + limit + ")";
+      }
+    };
+  }
+
+  /**
+   * AIMD limit with an initial limit of <code>20</code>.
+   *
+   * @return AIMD limit.
+   */
+  static @Nonnull Aimd aimd() {
+    return new Aimd(20);
+  }
+
+  /**
+   * Gradient limit with an initial limit of <code>20</code>.
+   *
+   * @return Gradient limit.
+   */
+  static @Nonnull Gradient gradient() {
+    return new Gradient(20);
+  }
+}
@@ -17,6 +17,7 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
@@ -631,6 +632,67 @@ public interface Context extends Registry {
    */
   @Nonnull MessageDecoder decoder(@Nonnull MediaType contentType);
 
+  /* **********************************************************************************************
+   * Deadline methods
+   * **********************************************************************************************
+   */
+
+  /**
+   * Set a deadline for this request. Work dispatched to an executor that is still waiting in queue
+   * once the deadline expires is dropped and a {@link StatusCode#GATEWAY_TIMEOUT} response is
+   * sent. Asynchronous responses (reactive streams, completion stages, etc.) are cancelled.
+   *
+   * Blocking code can't be interrupted, it checks the deadline via {@link #getRemainingTime()} or
+   * registers a cancel action with {@link #onCancel(Runnable)}.
+   *
+   * Deadlines are usually set per route (see {@link Route#setTimeout(Duration)}) or from a client
+   * header (see {@link RouterOptions#setDeadlineHeader(String)}).
+   *
+   * @param timeout Time from now the request must complete.
+   * @return This context.
+   */
+  @Nonnull Context setDeadline(@Nonnull Duration timeout);
+
+  /**
+   * Remaining time before the request deadline expires.
+   *
+   * @return Remaining time, {@link Duration#ZERO} once expired or <code>null</code> when the
+   *     request has no deadline.
+   */
+  @Nullable Duration getRemainingTime();
+
+  /**
+   * True when the request deadline has expired. Always false when there is no deadline.
+   *
+   * @return True when the request deadline has expired.
+   */
+  boolean isExpired();
+
+  /**
+   * Register an action to run when the request deadline expires or the client goes away before the
+   * response is sent, like cancelling a database query. Actions run from a timer or IO thread, so
+   * they must be short and never block. Each action runs at most once.
+   *
+   * Netty finds out right away when the client goes away. Undertow and Jetty don't read from the
+   * connection while the request is in progress, so they find out once a write fails.
+   *
+   * @param action Cancel action.
+   * @return This context.
+   */
+  @Nonnull Context onCancel(@Nonnull Runnable action);
+
+  /**
+   * Register an action to run once the exchange is done: the response was sent, aborted or the
+   * client went away. Useful for releasing resources held by asynchronous responses. Actions
+   * registered after completion run right away.
+   *
+   * Actions usually run from an IO thread, so they must be short and never block.
+   *
+   * @param action Completion action.
+   * @return This context.
+   */
+  @Nonnull Context onComplete(@Nonnull Runnable action);
+
   /* **********************************************************************************************
    * Dispatch methods
    * **********************************************************************************************
@@ -643,6 +705,26 @@ public interface Context extends Registry {
    */
   boolean isInIoThread();
 
+  /**
+   * Executor for the IO thread (event loop) handling this request. Async code might continue on
+   * it and write the response from the IO thread, without handing the write over to it:
+   *
+   * <pre>{@code
+   *
+   *   get("/", ctx -> {
+   *     return client.fetch(...)
+   *         .thenApplyAsync(result -> render(result), ctx.getIoExecutor());
+   *   });
+   *
+   * }</pre>
+   *
+   * Task submitted to this executor run in the IO thread, so they must never block. Servers
+   * without an event loop (like Jetty) return the executor of the server thread pool.
+   *
+   * @return Executor for the IO thread handling this request.
+   */
+  @Nonnull Executor getIoExecutor();
+
   /**
    * Dispatch context to a worker threads. Worker threads allow to execute blocking code.
    * The default worker thread pool is provided by web server or by application code using the
@@ -703,6 +785,16 @@ public interface Context extends Registry {
    */
   @Nonnull Context detach(@Nonnull Route.Handler next) throws Exception;
 
+  /**
+   * Perform a websocket handshake and upgrade a HTTP GET into a websocket protocol.
+   *
+   * NOTE: This method is part of Public API, but shouldn't be used by client code.
+   *
+   * @param handler Web socket initializer.
+   * @return This context.
+   */
+  @Nonnull Context upgrade(@Nonnull WebSocket.Initializer handler);
+
   /*
    * **********************************************************************************************
    * **** Response methods *************************************************************************
@@ -991,6 +1083,24 @@ public interface Context extends Registry {
    */
   @Nonnull Context send(@Nonnull ByteBuffer data);
 
+  /**
+   * Send response data. Buffers are written in order, without merging them into a single buffer
+   * (gathering write). The response length is set to the sum of buffers remaining bytes.
+   *
+   * @param data Response.
+   * @return This context.
+   */
+  @Nonnull Context send(@Nonnull ByteBuffer[] data);
+
+  /**
+   * Send response data. Buffers are written in order, without merging them into a single buffer
+   * (gathering write). The response length is set to the sum of buffers remaining bytes.
+   *
+   * @param data Response.
+   * @return This context.
+   */
+  @Nonnull Context send(@Nonnull List<ByteBuffer> data);
+
   /**
    * Send response data.
    *
@@ -1064,6 +1174,16 @@ public interface Context extends Registry {
    */
   @Nonnull Context sendError(@Nonnull Throwable cause, @Nonnull StatusCode statusCode);
 
+  /**
+   * Abort the response by closing the connection, without completing the response. Use it when
+   * an error shows up after the response was started (status code and part of the body already
+   * sent), so clients see a broken response instead of a truncated one. Does nothing if the
+   * response was already completed.
+   *
+   * @return This context.
+   */
+  @Nonnull Context abort();
+
   /**
    * True if response already started.
    *
@@ -7,6 +7,8 @@ package io.jooby;
 
 import io.jooby.internal.HashValue;
 import io.jooby.internal.MissingValue;
+import io.jooby.internal.RequestDeadline;
+import io.jooby.internal.ResponseOutputStream;
 import io.jooby.internal.SingleValue;
 import io.jooby.internal.UrlParser;
 import io.netty.buffer.ByteBuf;
@@ -18,10 +20,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -87,6 +91,29 @@ public interface DefaultContext extends Context {
     return Value.create(name, flash().get(name));
   }
 
+  @Override default @Nonnull Context setDeadline(@Nonnull Duration timeout) {
+    RequestDeadline.set(this, timeout);
+    return this;
+  }
+
+  @Override default @Nullable Duration getRemainingTime() {
+    RequestDeadline deadline = RequestDeadline.get(this);
+    return deadline == null ? null : deadline.getRemainingTime();
+  }
+
+  @Override default boolean isExpired() {
+    RequestDeadline deadline = RequestDeadline.get(this);
+    return deadline != null && deadline.isExpired();
+  }
+
+  @Override default @Nonnull Context onCancel(@Nonnull Runnable action) {
+    RequestDeadline deadline = RequestDeadline.get(this);
+    if (deadline != null) {
+      deadline.onCancel(action);
+    }
+    return this;
+  }
+
   @Override default @Nonnull Session session() {
     Session session = sessionOrNull();
     if (session == null) {
@@ -363,19 +390,18 @@ public interface DefaultContext extends Context {
   }
 
   @Override default @Nonnull Context render(@Nonnull Object value) {
+    ResponseOutputStream output = new ResponseOutputStream(this, ServerOptions._16KB);
     try {
       Route route = getRoute();
       MessageEncoder encoder = route.getEncoder();
-      byte[] bytes = encoder.encode(this, value);
-      if (bytes == null) {
-        if (!isResponseStarted()) {
-          throw new IllegalStateException("The response was not encoded");
-        }
-      } else {
-        send(bytes);
+      if (encoder.encode(this, value, output)) {
+        output.close();
+      } else if (!isResponseStarted()) {
+        throw new IllegalStateException("The response was not encoded");
       }
       return this;
     } catch (Exception x) {
+      output.abort();
       throw SneakyThrows.propagate(x);
     }
   }
@@ -442,6 +468,26 @@ public interface DefaultContext extends Context {
     return send(data.nioBuffer());
   }
 
+  @Override default @Nonnull Context send(@Nonnull ByteBuffer[] data) {
+    if (data.length == 1) {
+      return send(data[0]);
+    }
+    int length = 0;
+    for (ByteBuffer buffer : data) {
+      length += buffer.remaining();
+    }
+    ByteBuffer result = ByteBuffer.allocate(length);
+    for (ByteBuffer buffer : data) {
+      result.put(buffer.duplicate());
+    }
+    result.flip();
+    return send(result);
+  }
+
+  @Override default @Nonnull Context send(@Nonnull List<ByteBuffer> data) {
+    return send(data.toArray(new ByteBuffer[data.size()]));
+  }
+
   @Override default @Nonnull Context send(@Nonnull AttachedFile file) {
     setResponseHeader("Content-Disposition", file.getContentDisposition());
     InputStream content = file.stream();
@@ -84,5 +84,34 @@ public enum ExecutionMode {
    * }
    * }</pre>
    */
-  DEFAULT
+  DEFAULT,
+
+  /**
+   * Works like {@link ExecutionMode#DEFAULT} but blocking handlers run in a new virtual thread per
+   * request (Java 21 or higher), instead of the worker thread pool. Reactive handlers run in the
+   * event loop thread.
+   *
+   * Blocking calls (database, remote services, etc.) park the virtual thread and release the
+   * carrier thread, so the number of concurrent blocking requests isn't limited by the size of the
+   * worker thread pool. Thread-local state like {@link RequestScope} is bound to the virtual thread
+   * of the request.
+   *
+   * On Java versions without virtual threads, blocking handlers run in the worker thread pool and
+   * a warning is logged at startup.
+   *
+   * Examples:
+   * <pre>{@code
+   * {
+   *
+   *   mode(VIRTUAL);
+   *
+   *   get("/blocking", ctx -> {
+   *     // remote call: another service, database, etc..
+   *     return "I'm running on a virtual thread";
+   *   });
+   * }
+   *
+   * }</pre>
+   */
+  VIRTUAL
 }
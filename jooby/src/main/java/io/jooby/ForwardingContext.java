@@ -17,6 +17,7 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Date;
 import java.util.List;
@@ -287,10 +288,37 @@ public class ForwardingContext implements Context {
     return context.decoder(contentType);
   }
 
+  @Nonnull @Override public Context setDeadline(@Nonnull Duration timeout) {
+    context.setDeadline(timeout);
+    return this;
+  }
+
+  @Nullable @Override public Duration getRemainingTime() {
+    return context.getRemainingTime();
+  }
+
+  @Override public boolean isExpired() {
+    return context.isExpired();
+  }
+
+  @Nonnull @Override public Context onCancel(@Nonnull Runnable action) {
+    context.onCancel(action);
+    return this;
+  }
+
+  @Nonnull @Override public Context onComplete(@Nonnull Runnable action) {
+    context.onComplete(action);
+    return this;
+  }
+
   @Override public boolean isInIoThread() {
     return context.isInIoThread();
   }
 
+  @Nonnull @Override public Executor getIoExecutor() {
+    return context.getIoExecutor();
+  }
+
   @Override @Nonnull public Context dispatch(@Nonnull Runnable action) {
     context.dispatch(action);
     return this;
@@ -306,6 +334,11 @@ public class ForwardingContext implements Context {
     return this;
   }
 
+  @Nonnull @Override public Context upgrade(@Nonnull WebSocket.Initializer handler) {
+    context.upgrade(handler);
+    return this;
+  }
+
   @Nonnull @Override public Context setResponseHeader(@Nonnull String name, @Nonnull Date value) {
     context.setResponseHeader(name, value);
     return this;
@@ -470,6 +503,16 @@ public class ForwardingContext implements Context {
     return this;
   }
 
+  @Override @Nonnull public Context send(@Nonnull ByteBuffer[] data) {
+    context.send(data);
+    return this;
+  }
+
+  @Override @Nonnull public Context send(@Nonnull List<ByteBuffer> data) {
+    context.send(data);
+    return this;
+  }
+
   @Nonnull @Override public Context send(@Nonnull ByteBuf data) {
     context.send(data);
     return this;
@@ -516,6 +559,11 @@ public class ForwardingContext implements Context {
     return this;
   }
 
+  @Nonnull @Override public Context abort() {
+    context.abort();
+    return this;
+  }
+
   @Override public boolean isResponseStarted() {
     return context.isResponseStarted();
   }
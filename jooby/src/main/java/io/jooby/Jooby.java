@@ -266,6 +266,16 @@ public class Jooby implements Router, Registry {
     return this;
   }
 
+  @Nonnull @Override
+  public Route sse(@Nonnull String pattern, @Nonnull ServerSentEmitter.Handler handler) {
+    return router.sse(pattern, handler);
+  }
+
+  @Nonnull @Override
+  public Route ws(@Nonnull String pattern, @Nonnull WebSocket.Initializer handler) {
+    return router.ws(pattern, handler);
+  }
+
   @Nonnull @Override public Jooby mvc(@Nonnull Class router) {
     this.router.mvc(router, () -> require(router));
     return this;
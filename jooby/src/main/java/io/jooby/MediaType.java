@@ -60,6 +60,9 @@ public final class MediaType implements Comparable<MediaType> {
   /** MULTIPART_FORM_DATA. */
   public static final String MULTIPART_FORMDATA = "multipart/form-data";
 
+  /** TEXT_EVENT_STREAM. */
+  public static final String SERVER_SENT_EVENTS = "text/event-stream";
+
   /** ALL. */
   public static final String ALL = "*/*";
 
@@ -90,6 +93,9 @@ public final class MediaType implements Comparable<MediaType> {
   /** MULTIPART_FORM_DATA. */
   public static final MediaType multipartFormdata = new MediaType(MULTIPART_FORMDATA, UTF_8);
 
+  /** TEXT_EVENT_STREAM. */
+  public static final MediaType serverSentEvents = new MediaType(SERVER_SENT_EVENTS, UTF_8);
+
   /** ALL. */
   public static final MediaType all = new MediaType(ALL, null);
 
@@ -0,0 +1,128 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-wide memory budget for request bodies. It is shared by all the connections of a server
+ * and it is lock-free.
+ *
+ * Web servers reserve memory for a request body before keeping it in memory. Once the budget is
+ * exhausted, new bodies are written (spilled) to {@link Router#getTmpdir()}. Reserved and spilled
+ * bytes are released when the request completes.
+ *
+ * @author edgar
+ * @since 2.0.0
+ */
+public class MemoryBudget {
+
+  private final long limit;
+
+  private final AtomicLong memory = new AtomicLong();
+
+  private final AtomicLong spilled = new AtomicLong();
+
+  /**
+   * Creates a new memory budget.
+   *
+   * @param limit Max number of bytes to keep in memory.
+   */
+  public MemoryBudget(long limit) {
+    this.limit = limit;
+  }
+
+  /**
+   * Try to reserve the given number of bytes.
+   *
+   * @param bytes Number of bytes to reserve.
+   * @return True when bytes were reserved, false when the budget is exhausted and the body must
+   *     be spilled to disk.
+   */
+  public boolean reserve(long bytes) {
+    while (true) {
+      long current = memory.get();
+      long next = current + bytes;
+      if (next > limit || next < 0) {
+        return false;
+      }
+      if (memory.compareAndSet(current, next)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Release previously reserved bytes.
+   *
+   * @param bytes Number of bytes to release.
+   * @return This budget.
+   */
+  public @Nonnull MemoryBudget release(long bytes) {
+    if (bytes > 0) {
+      memory.addAndGet(-bytes);
+    }
+    return this;
+  }
+
+  /**
+   * Record bytes written to disk because the budget was exhausted.
+   *
+   * @param bytes Number of bytes written to disk.
+   * @return This budget.
+   */
+  public @Nonnull MemoryBudget spill(long bytes) {
+    if (bytes > 0) {
+      spilled.addAndGet(bytes);
+    }
+    return this;
+  }
+
+  /**
+   * Release previously spilled bytes, usually after deleting the temporary file.
+   *
+   * @param bytes Number of bytes to release.
+   * @return This budget.
+   */
+  public @Nonnull MemoryBudget releaseSpilled(long bytes) {
+    if (bytes > 0) {
+      spilled.addAndGet(-bytes);
+    }
+    return this;
+  }
+
+  /**
+   * Max number of bytes to keep in memory.
+   *
+   * @return Max number of bytes to keep in memory.
+   */
+  public long getLimit() {
+    return limit;
+  }
+
+  /**
+   * Gauge: number of request body bytes currently held in memory.
+   *
+   * @return Number of request body bytes currently held in memory.
+   */
+  public long getMemory() {
+    return memory.get();
+  }
+
+  /**
+   * Gauge: number of request body bytes currently spilled to disk.
+   *
+   * @return Number of request body bytes currently spilled to disk.
+   */
+  public long getSpilled() {
+    return spilled.get();
+  }
+
+  @Override public String toString() {
+    return "memory: " + memory.get() + "/" + limit + ", spilled: " + spilled.get();
+  }
+}
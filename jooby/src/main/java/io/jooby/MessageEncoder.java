@@ -6,11 +6,16 @@
 package io.jooby;
 
 import javax.annotation.Nonnull;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 
 /**
  * Render a route output as byte array.
  *
+ * Encoders that produce large outputs should override
+ * {@link #encode(Context, Object, OutputStream)} and write directly into the response, instead of
+ * producing a byte array.
+ *
  * @author edgar
  * @since 2.0.0
  */
@@ -34,6 +39,33 @@ public interface MessageEncoder {
    */
   @Nonnull byte[] encode(@Nonnull Context ctx, @Nonnull Object value) throws Exception;
 
+  /**
+   * Encode a value by writing it into the given output. Output is provided by the web server: small
+   * outputs are buffered and sent with a <code>Content-Length</code> header, large outputs are sent
+   * using chunked transfer encoding. Output is closed by caller.
+   *
+   * Encoders that return <code>true</code> without writing into the output must send the response
+   * by themselves.
+   *
+   * Default implementation calls {@link #encode(Context, Object)} and sends the byte array, so
+   * existing encoders work as they are.
+   *
+   * @param ctx Web context.
+   * @param value Value to render.
+   * @param output Response output.
+   * @return True when value was encoded, <code>false</code> if given object isn't supported it.
+   * @throws Exception If something goes wrong.
+   */
+  default boolean encode(@Nonnull Context ctx, @Nonnull Object value,
+      @Nonnull OutputStream output) throws Exception {
+    byte[] bytes = encode(ctx, value);
+    if (bytes == null) {
+      return false;
+    }
+    ctx.send(bytes);
+    return true;
+  }
+
   /**
    * Execute this renderer only if the <code>Accept</code> header matches the content-type
    * parameter.
@@ -42,11 +74,20 @@ public interface MessageEncoder {
    * @return A new renderer with accept header matching.
    */
   @Nonnull default MessageEncoder accept(@Nonnull MediaType contentType) {
-    return (ctx, value) -> {
-      if (ctx.accept(contentType)) {
-        return encode(ctx, value);
+    MessageEncoder encoder = this;
+    return new MessageEncoder() {
+      @Override public byte[] encode(@Nonnull Context ctx, @Nonnull Object value)
+          throws Exception {
+        if (ctx.accept(contentType)) {
+          return encoder.encode(ctx, value);
+        }
+        return null;
+      }
+
+      @Override public boolean encode(@Nonnull Context ctx, @Nonnull Object value,
+          @Nonnull OutputStream output) throws Exception {
+        return ctx.accept(contentType) && encoder.encode(ctx, value, output);
       }
-      return null;
     };
   }
 
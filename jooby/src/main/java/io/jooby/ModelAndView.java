@@ -23,6 +23,9 @@ public class ModelAndView {
   /** View data. */
   private final Map<String, Object> model;
 
+  /** Stream output while rendering. */
+  private boolean streaming;
+
   /**
    * Creates a new model and view.
    *
@@ -84,6 +87,32 @@ public class ModelAndView {
     return view;
   }
 
+  /**
+   * True when the view is sent while rendering. See {@link #setStreaming(boolean)}.
+   *
+   * @return True when the view is sent while rendering.
+   */
+  public boolean isStreaming() {
+    return streaming;
+  }
+
+  /**
+   * Send the view while rendering, using chunked transfer encoding. Output is sent every time the
+   * response buffer fills up or when the template explicitly flushes the output (like Freemarker
+   * <code>&lt;#flush&gt;</code> directive). This reduces time-to-first-byte of large pages: the
+   * <code>&lt;head&gt;</code> section reaches the browser before the page is fully rendered.
+   *
+   * Default is <code>false</code>: small views are sent with a <code>Content-Length</code> header,
+   * large views switch to chunked transfer encoding once they exceed the response buffer.
+   *
+   * @param streaming True for sending the view while rendering.
+   * @return This model and view.
+   */
+  public ModelAndView setStreaming(boolean streaming) {
+    this.streaming = streaming;
+    return this;
+  }
+
   @Override public String toString() {
     return view;
   }
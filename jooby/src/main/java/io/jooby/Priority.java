@@ -0,0 +1,37 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+/**
+ * Route priority. Used by {@link PriorityExecutor} to pick which waiting request runs next.
+ *
+ * <pre>{@code
+ * {
+ *   setWorker(new PriorityExecutor(16));
+ *
+ *   post("/login", ctx -> ...)
+ *       .setPriority(Priority.HIGH);
+ *
+ *   get("/export", ctx -> ...)
+ *       .setPriority(Priority.LOW);
+ * }
+ * }</pre>
+ *
+ * MVC routes set it with {@link io.jooby.annotations.Dispatch#priority()}.
+ *
+ * @author edgar
+ * @since 2.0.0
+ */
+public enum Priority {
+  /** Interactive requests, like login or checkout. */
+  HIGH,
+
+  /** Default priority. */
+  NORMAL,
+
+  /** Batch requests, like exports or reports. */
+  LOW
+}
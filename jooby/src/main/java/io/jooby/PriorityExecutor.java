@@ -0,0 +1,306 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Worker executor with one queue per {@link Priority}. Waiting requests are picked by weighted
+ * round robin: with default weights, for every 13 tasks 8 are {@link Priority#HIGH}, 4 are
+ * {@link Priority#NORMAL} and 1 is {@link Priority#LOW}, as long as there are tasks of each
+ * priority. Idle capacity is never wasted: when a queue is empty the next one is used.
+ *
+ * A task waiting longer than max wait (aging) runs before any other, so low priority requests
+ * are delayed under load but never starved.
+ *
+ * Usage:
+ *
+ * <pre>{@code
+ * {
+ *   setWorker(new PriorityExecutor(16));
+ *
+ *   post("/login", ctx -> ...)
+ *       .setPriority(Priority.HIGH);
+ *
+ *   get("/export", ctx -> ...)
+ *       .setPriority(Priority.LOW);
+ * }
+ * }</pre>
+ *
+ * Queues are lock-free and tasks keep their submission order within a priority. Tasks submitted
+ * via {@link #execute(Runnable)} have {@link Priority#NORMAL} priority.
+ *
+ * @author edgar
+ * @since 2.0.0
+ */
+public class PriorityExecutor extends AbstractExecutorService {
+
+  private static class Task {
+    private final Runnable action;
+
+    private final long enqueued = System.nanoTime();
+
+    Task(Runnable action) {
+      this.action = action;
+    }
+  }
+
+  private static final Priority[] PRIORITIES = Priority.values();
+
+  @SuppressWarnings("unchecked")
+  private final Queue<Task>[] queues = new Queue[PRIORITIES.length];
+
+  private final Executor[] executors = new Executor[PRIORITIES.length];
+
+  private final int[] weights = {8, 4, 1};
+
+  /** Priority to poll first, one entry per turn. */
+  private volatile Priority[] schedule = schedule(weights);
+
+  private final AtomicLong turn = new AtomicLong();
+
+  /** One permit per queued task. */
+  private final Semaphore available = new Semaphore(0);
+
+  private final Thread[] threads;
+
+  private final CountDownLatch terminated;
+
+  private volatile boolean shutdown;
+
+  private volatile long maxWait = TimeUnit.SECONDS.toNanos(1);
+
+  /**
+   * Creates a new priority executor.
+   *
+   * @param threads Number of worker threads.
+   */
+  public PriorityExecutor(int threads) {
+    this(threads, "worker");
+  }
+
+  /**
+   * Creates a new priority executor.
+   *
+   * @param threads Number of worker threads.
+   * @param name Thread name prefix.
+   */
+  public PriorityExecutor(int threads, @Nonnull String name) {
+    for (Priority priority : PRIORITIES) {
+      queues[priority.ordinal()] = new ConcurrentLinkedQueue<>();
+      executors[priority.ordinal()] = task -> execute(priority, task);
+    }
+    this.threads = new Thread[threads];
+    this.terminated = new CountDownLatch(threads);
+    for (int i = 0; i < threads; i++) {
+      this.threads[i] = new Thread(this::work, name + "-" + i);
+      this.threads[i].start();
+    }
+  }
+
+  /**
+   * Set the weight of a priority. Default weights are: <code>8</code> for
+   * {@link Priority#HIGH}, <code>4</code> for {@link Priority#NORMAL} and <code>1</code> for
+   * {@link Priority#LOW}.
+   *
+   * @param priority Priority.
+   * @param weight Weight. Must be greater than zero.
+   * @return This executor.
+   */
+  public @Nonnull PriorityExecutor setWeight(@Nonnull Priority priority, int weight) {
+    if (weight <= 0) {
+      throw new IllegalArgumentException("Weight must be greater than zero: " + weight);
+    }
+    synchronized (weights) {
+      weights[priority.ordinal()] = weight;
+      schedule = schedule(weights);
+    }
+    return this;
+  }
+
+  /**
+   * Max time a task waits before it runs ahead of any other task. Default is: 1 second.
+   *
+   * @param maxWait Max wait time.
+   * @return This executor.
+   */
+  public @Nonnull PriorityExecutor setMaxWait(@Nonnull Duration maxWait) {
+    this.maxWait = maxWait.toNanos();
+    return this;
+  }
+
+  /**
+   * Executor for the given priority.
+   *
+   * @param priority Priority.
+   * @return Executor for the given priority.
+   */
+  public @Nonnull Executor executor(@Nonnull Priority priority) {
+    return executors[priority.ordinal()];
+  }
+
+  /**
+   * Execute a task with the given priority.
+   *
+   * @param priority Priority.
+   * @param task Task.
+   */
+  public void execute(@Nonnull Priority priority, @Nonnull Runnable task) {
+    if (shutdown) {
+      throw new RejectedExecutionException("Executor has been shutdown");
+    }
+    queues[priority.ordinal()].offer(new Task(task));
+    available.release();
+  }
+
+  @Override public void execute(@Nonnull Runnable task) {
+    execute(Priority.NORMAL, task);
+  }
+
+  @Override public void shutdown() {
+    if (!shutdown) {
+      shutdown = true;
+      /** Wake up all the threads, they exit once queues are empty: */
+      available.release(threads.length);
+    }
+  }
+
+  @Nonnull @Override public List<Runnable> shutdownNow() {
+    shutdown();
+    List<Runnable> pending = new ArrayList<>();
+    for (Queue<Task> queue : queues) {
+      Task task;
+      while ((task = queue.poll()) != null) {
+        pending.add(task.action);
+      }
+    }
+    for (Thread thread : threads) {
+      thread.interrupt();
+    }
+    return pending;
+  }
+
+  @Override public boolean isShutdown() {
+    return shutdown;
+  }
+
+  @Override public boolean isTerminated() {
+    return terminated.getCount() == 0;
+  }
+
+  @Override public boolean awaitTermination(long timeout, @Nonnull TimeUnit unit)
+      throws InterruptedException {
+    return terminated.await(timeout, unit);
+  }
+
+  @Override public String toString() {
+    StringBuilder buff = new StringBuilder();
+    for (Priority priority : PRIORITIES) {
+      buff.append(priority.name().toLowerCase()).append(": ")
+          .append(weights[priority.ordinal()]).append(", ");
+    }
+    return buff.append("threads: ").append(threads.length).toString();
+  }
+
+  private void work() {
+    try {
+      while (true) {
+        available.acquireUninterruptibly();
+        Task task = poll();
+        while (task == null) {
+          if (shutdown && isEmpty()) {
+            return;
+          }
+          /** Permit was taken, but task was polled by another thread from a different queue: */
+          Thread.yield();
+          task = poll();
+        }
+        try {
+          task.action.run();
+        } catch (Throwable x) {
+          Thread thread = Thread.currentThread();
+          thread.getUncaughtExceptionHandler().uncaughtException(thread, x);
+        }
+      }
+    } finally {
+      terminated.countDown();
+    }
+  }
+
+  private Task poll() {
+    long now = System.nanoTime();
+    long maxWait = this.maxWait;
+    /** Aging, lower priorities first: */
+    for (int i = queues.length - 1; i > 0; i--) {
+      Task head = queues[i].peek();
+      if (head != null && now - head.enqueued > maxWait) {
+        Task task = queues[i].poll();
+        if (task != null) {
+          return task;
+        }
+      }
+    }
+    Priority[] schedule = this.schedule;
+    int next = (int) Math.floorMod(turn.getAndIncrement(), (long) schedule.length);
+    Task task = queues[schedule[next].ordinal()].poll();
+    if (task != null) {
+      return task;
+    }
+    for (Queue<Task> queue : queues) {
+      task = queue.poll();
+      if (task != null) {
+        return task;
+      }
+    }
+    return null;
+  }
+
+  private boolean isEmpty() {
+    for (Queue<Task> queue : queues) {
+      if (!queue.isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Smooth weighted round robin: spread each priority over the schedule, instead of running all
+   * the turns of a priority in a row.
+   */
+  private static Priority[] schedule(int[] weights) {
+    int total = 0;
+    for (int weight : weights) {
+      total += weight;
+    }
+    Priority[] schedule = new Priority[total];
+    int[] current = new int[weights.length];
+    for (int i = 0; i < total; i++) {
+      int best = 0;
+      for (int j = 0; j < weights.length; j++) {
+        current[j] += weights[j];
+        if (current[j] > current[best]) {
+          best = j;
+        }
+      }
+      current[best] -= total;
+      schedule[i] = PRIORITIES[best];
+    }
+    return schedule;
+  }
+}
@@ -11,12 +11,14 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.Serializable;
 import java.lang.reflect.Type;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Route contains information about the HTTP method, path pattern, which content types consumes and
@@ -273,6 +275,12 @@ public class Route {
     }
   };
 
+  /**
+   * Context attribute set when {@link Route.Before} filters were executed ahead of the route
+   * pipeline, like for <code>Expect: 100-continue</code> requests. Filters are not executed twice.
+   */
+  public static final String BEFORE_EXECUTED = "beforeExecuted";
+
   /**
    * Favicon handler as a silent 404 error.
    */
@@ -310,6 +318,16 @@ public class Route {
 
   private List<MediaType> consumes = EMPTY_LIST;
 
+  private Duration timeout;
+
+  private Priority priority = Priority.NORMAL;
+
+  private SingleFlight singleFlight;
+
+  private ConcurrencyLimit concurrencyLimit;
+
+  private Executor executor;
+
   /**
    * Creates a new route.
    *
@@ -622,6 +640,115 @@ public class Route {
     return this;
   }
 
+  /**
+   * Max time to produce a response or <code>null</code> when route has no timeout.
+   *
+   * @return Route timeout or <code>null</code>.
+   */
+  public @Nullable Duration getTimeout() {
+    return timeout;
+  }
+
+  /**
+   * Set max time to produce a response. Requests not completed in time are cancelled, see
+   * {@link Context#setDeadline(Duration)}. Default is: {@link RouterOptions#getRequestTimeout()}.
+   *
+   * @param timeout Max time to produce a response.
+   * @return This route.
+   */
+  public @Nonnull Route setTimeout(@Nullable Duration timeout) {
+    this.timeout = timeout;
+    return this;
+  }
+
+  /**
+   * Route priority. Default is: {@link Priority#NORMAL}.
+   *
+   * @return Route priority.
+   */
+  public @Nonnull Priority getPriority() {
+    return priority;
+  }
+
+  /**
+   * Set route priority. Priority applies when route is dispatched to a {@link PriorityExecutor},
+   * otherwise it is ignored.
+   *
+   * @param priority Route priority.
+   * @return This route.
+   */
+  public @Nonnull Route setPriority(@Nonnull Priority priority) {
+    this.priority = priority;
+    return this;
+  }
+
+  /**
+   * Single flight or <code>null</code> when identical requests aren't coalesced.
+   *
+   * @return Single flight or <code>null</code>.
+   */
+  public @Nullable SingleFlight getSingleFlight() {
+    return singleFlight;
+  }
+
+  /**
+   * Coalesce identical concurrent requests: only one of them runs, the others get the same
+   * response. See {@link SingleFlight}.
+   *
+   * @param singleFlight Single flight or <code>null</code> to turn it off.
+   * @return This route.
+   */
+  public @Nonnull Route setSingleFlight(@Nullable SingleFlight singleFlight) {
+    this.singleFlight = singleFlight;
+    return this;
+  }
+
+  /**
+   * Concurrency limit or <code>null</code> when route uses the global limit.
+   *
+   * @return Concurrency limit or <code>null</code>.
+   */
+  public @Nullable ConcurrencyLimit getConcurrencyLimit() {
+    return concurrencyLimit;
+  }
+
+  /**
+   * Set max number of requests in flight for this route. Requests over the limit are rejected with
+   * {@link StatusCode#SERVICE_UNAVAILABLE} and a <code>Retry-After</code> header (see
+   * {@link RouterOptions#setRetryAfter(Duration)}) before reaching the route executor. Routes
+   * sharing the same limit instance share the requests in flight. Default is:
+   * {@link RouterOptions#getConcurrencyLimit()}.
+   *
+   * @param concurrencyLimit Concurrency limit, like {@link ConcurrencyLimit#gradient()}.
+   * @return This route.
+   */
+  public @Nonnull Route setConcurrencyLimit(@Nullable ConcurrencyLimit concurrencyLimit) {
+    this.concurrencyLimit = concurrencyLimit;
+    return this;
+  }
+
+  /**
+   * Executor the route was dispatched to or <code>null</code> when the route has none. Set by the
+   * router at startup.
+   *
+   * @return Route executor or <code>null</code>.
+   */
+  public @Nullable Executor getExecutor() {
+    return executor;
+  }
+
+  /**
+   * Set the executor the route was dispatched to. This is informative, it doesn't change where the
+   * route runs (see {@link Router#dispatch(Executor, Runnable)}).
+   *
+   * @param executor Route executor or <code>null</code>.
+   * @return This route.
+   */
+  public @Nonnull Route setExecutor(@Nullable Executor executor) {
+    this.executor = executor;
+    return this;
+  }
+
   @Override public String toString() {
     return method + " " + pattern;
   }
@@ -630,7 +757,7 @@ public class Route {
     Route.Handler pipeline = decorator == null ? handler : decorator.then(handler);
 
     if (before != null) {
-      pipeline = before.then(pipeline);
+      pipeline = beforeOnce(before).then(pipeline);
     }
 
     if (after != null) {
@@ -639,4 +766,11 @@ public class Route {
     return pipeline;
   }
 
+  private static Route.Before beforeOnce(Route.Before before) {
+    return ctx -> {
+      if (ctx.getAttributes().remove(BEFORE_EXECUTED) == null) {
+        before.apply(ctx);
+      }
+    };
+  }
 }
@@ -51,6 +51,25 @@ public interface Router extends Registry {
 
     void execute(@Nonnull Context context);
 
+    /**
+     * Run the header-time checks of an <code>Expect: 100-continue</code> request, before the
+     * request body is read. Checks are: route (404/405), request size (by
+     * <code>Content-Length</code>), content type (route consumes) and route {@link Route.Before}
+     * filters. Filters might block, so they run on the route executor (the worker when route has
+     * none) and are not executed again by {@link #execute(Context)}.
+     *
+     * If a check fails, an error response is sent and the server must not read (nor wait for) the
+     * request body. Otherwise, <code>onContinue</code> is called (from the caller or the route
+     * executor thread): the server is free to send the <code>100 Continue</code> response and
+     * call {@link #execute(Context)} once the body is available.
+     *
+     * @param context Web context.
+     * @param maxRequestSize Max request size in bytes or <code>-1</code> for unlimited.
+     * @param onContinue Callback to run when the request body must be read.
+     */
+    void expectContinue(@Nonnull Context context, long maxRequestSize,
+        @Nonnull Runnable onContinue);
+
     /**
      * Path pattern variables.
      *
@@ -268,6 +287,9 @@ public interface Router extends Registry {
   /**
    * Set a worker thread pool. This thread pool is used to run application blocking code.
    *
+   * Use a {@link PriorityExecutor} to run interactive routes ahead of batch routes, see
+   * {@link Route#setPriority(Priority)}.
+   *
    * @param worker Worker thread pool.
    * @return This router.
    */
@@ -445,6 +467,44 @@ public interface Router extends Registry {
     return route(TRACE, pattern, handler);
   }
 
+  /**
+   * Add a server-sent event handler. Handler is called once per client with an open
+   * {@link ServerSentEmitter}:
+   *
+   * <pre>{@code
+   * {
+   *   sse("/events", sse -> {
+   *     sse.send("Hello");
+   *   });
+   * }
+   * }</pre>
+   *
+   * @param pattern Path pattern.
+   * @param handler Server-Sent event handler.
+   * @return A route.
+   */
+  @Nonnull Route sse(@Nonnull String pattern, @Nonnull ServerSentEmitter.Handler handler);
+
+  /**
+   * Add a websocket handler. Handler is called once per client, before the handshake, to
+   * register websocket callbacks:
+   *
+   * <pre>{@code
+   * {
+   *   ws("/ws", (ctx, configurer) -> {
+   *     configurer.onMessage((ws, message) -> {
+   *       ws.send(message.value());
+   *     });
+   *   });
+   * }
+   * }</pre>
+   *
+   * @param pattern Path pattern.
+   * @param handler Websocket initializer.
+   * @return A route.
+   */
+  @Nonnull Route ws(@Nonnull String pattern, @Nonnull WebSocket.Initializer handler);
+
   /**
    * Add a static resource handler. Static resources are resolved from file system.
    *
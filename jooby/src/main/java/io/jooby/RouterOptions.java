@@ -5,8 +5,15 @@
  */
 package io.jooby;
 
+import io.jooby.internal.ServiceUnavailable;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+
 /**
- * Router matching options. Specify whenever ignore case and trailing slash. Options:
+ * Router options. Specify whenever ignore case and trailing slash and how streaming responses
+ * are sent. Options:
  *
  * - ignoreCase: Indicates whenever routing algorithm does case-sensitive matching or not on
  *     incoming request path.
@@ -14,6 +21,25 @@ package io.jooby;
  * - ignoreTrailingSlash: Indicates whenever a trailing slash is ignored or not on incoming request
  *     path.
  *
+ * - streamPrefetch: Number of items requested upfront from a reactive stream response.
+ *
+ * - streamChunkSize: Max number of bytes (of encoded items) to coalesce into a single chunk.
+ *
+ * - streamChunkDelay: Max time to wait for more items before sending a chunk that isn't full.
+ *
+ * - requestTimeout: Max time to produce a response, for routes without a timeout.
+ *
+ * - deadlineHeader: Request header with the time a client is willing to wait for a response.
+ *
+ * - concurrencyLimit: Max number of requests in flight, for routes without a concurrency limit.
+ *
+ * - retryAfter: Value of the <code>Retry-After</code> header of requests over a concurrency limit.
+ *
+ * - blockingCallDetector: Report route handlers blocking an IO thread for too long.
+ *
+ * - blockingAnalysis: Look for blocking calls in route handlers and run non-blocking ones in the
+ *     event loop, in {@link ExecutionMode#DEFAULT}.
+ *
  * <pre>{@code
  *  {
  *    setRouterOptions(new RouterOptions()
@@ -26,10 +52,31 @@ package io.jooby;
  * @since 2.0.0
  */
 public class RouterOptions {
+  /** Default number of items requested upfront from a reactive stream. */
+  public static final int STREAM_PREFETCH = 32;
+
   private boolean ignoreCase;
 
   private boolean ignoreTrailingSlash;
 
+  private int streamPrefetch = STREAM_PREFETCH;
+
+  private int streamChunkSize = ServerOptions._16KB;
+
+  private Duration streamChunkDelay = Duration.ofMillis(10);
+
+  private Duration requestTimeout;
+
+  private String deadlineHeader;
+
+  private ConcurrencyLimit concurrencyLimit;
+
+  private Duration retryAfter = ServiceUnavailable.RETRY_AFTER;
+
+  private BlockingCallDetector blockingCallDetector;
+
+  private boolean blockingAnalysis;
+
   /**
    * Indicates whenever routing algorithm does case-sensitive matching or not on incoming request
    * path.
@@ -72,4 +119,227 @@ public class RouterOptions {
     this.ignoreTrailingSlash = ignoreTrailingSlash;
     return this;
   }
+
+  /**
+   * Number of items requested upfront from a reactive stream response (Flowable, Flux, etc.).
+   * Demand is replenished as items are written to the client, so a stream never has more than
+   * this number of items in memory. Default is: <code>32</code>.
+   *
+   * @return Number of items requested upfront.
+   */
+  public int getStreamPrefetch() {
+    return streamPrefetch;
+  }
+
+  /**
+   * Set number of items requested upfront from a reactive stream response.
+   *
+   * @param streamPrefetch Number of items. Must be greater than zero.
+   * @return This options.
+   */
+  public RouterOptions setStreamPrefetch(int streamPrefetch) {
+    if (streamPrefetch <= 0) {
+      throw new IllegalArgumentException("Prefetch must be greater than zero: " + streamPrefetch);
+    }
+    this.streamPrefetch = streamPrefetch;
+    return this;
+  }
+
+  /**
+   * Max number of bytes to coalesce into a single chunk while a reactive stream response is
+   * waiting for a previous write. Items that arrive while the connection is busy are sent together,
+   * which saves one write (and system call) per item. Default is: <code>16kb</code>.
+   *
+   * @return Max chunk size in bytes.
+   */
+  public int getStreamChunkSize() {
+    return streamChunkSize;
+  }
+
+  /**
+   * Set max number of bytes to coalesce into a single chunk.
+   *
+   * @param streamChunkSize Chunk size in bytes. Must be greater than zero.
+   * @return This options.
+   */
+  public RouterOptions setStreamChunkSize(int streamChunkSize) {
+    if (streamChunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be greater than zero: "
+          + streamChunkSize);
+    }
+    this.streamChunkSize = streamChunkSize;
+    return this;
+  }
+
+  /**
+   * Max time to wait for more items before sending a chunk that isn't full, while a reactive
+   * stream response still waits for requested items. Small items produced close to each other are
+   * sent together, even when writes complete right away. Default is: <code>10ms</code>.
+   *
+   * @return Max time to wait before sending a chunk.
+   */
+  public Duration getStreamChunkDelay() {
+    return streamChunkDelay;
+  }
+
+  /**
+   * Set max time to wait for more items before sending a chunk that isn't full. Use
+   * {@link Duration#ZERO} to send items as soon as the previous write completes.
+   *
+   * @param streamChunkDelay Max time to wait before sending a chunk.
+   * @return This options.
+   */
+  public RouterOptions setStreamChunkDelay(Duration streamChunkDelay) {
+    if (streamChunkDelay.isNegative()) {
+      throw new IllegalArgumentException("Chunk delay must not be negative: " + streamChunkDelay);
+    }
+    this.streamChunkDelay = streamChunkDelay;
+    return this;
+  }
+
+  /**
+   * Max time to produce a response, for routes without a timeout (see
+   * {@link Route#setTimeout(Duration)}). Default is: no timeout.
+   *
+   * @return Request timeout or <code>null</code>.
+   */
+  public @Nullable Duration getRequestTimeout() {
+    return requestTimeout;
+  }
+
+  /**
+   * Set max time to produce a response, for routes without a timeout. Requests not completed in
+   * time are cancelled, see {@link Context#setDeadline(Duration)}.
+   *
+   * @param requestTimeout Request timeout or <code>null</code>.
+   * @return This options.
+   */
+  public RouterOptions setRequestTimeout(@Nullable Duration requestTimeout) {
+    this.requestTimeout = requestTimeout;
+    return this;
+  }
+
+  /**
+   * Name of the request header with the time (in milliseconds) a client is willing to wait for a
+   * response. Default is: <code>null</code>, header is ignored.
+   *
+   * @return Deadline header or <code>null</code>.
+   */
+  public @Nullable String getDeadlineHeader() {
+    return deadlineHeader;
+  }
+
+  /**
+   * Honor a client deadline. The header value is the time in milliseconds the client is willing
+   * to wait for a response, like <code>Request-Timeout: 1500</code>. When the route has a timeout
+   * too, the shorter one wins.
+   *
+   * @param deadlineHeader Header name or <code>null</code> to ignore client deadlines.
+   * @return This options.
+   */
+  public RouterOptions setDeadlineHeader(@Nullable String deadlineHeader) {
+    this.deadlineHeader = deadlineHeader;
+    return this;
+  }
+
+  /**
+   * Max number of requests in flight, for routes without a concurrency limit (see
+   * {@link Route#setConcurrencyLimit(ConcurrencyLimit)}). Default is: no limit.
+   *
+   * @return Concurrency limit or <code>null</code>.
+   */
+  public @Nullable ConcurrencyLimit getConcurrencyLimit() {
+    return concurrencyLimit;
+  }
+
+  /**
+   * Set max number of requests in flight, for routes without a concurrency limit. All these routes
+   * share the limit. Requests over the limit are rejected with
+   * {@link StatusCode#SERVICE_UNAVAILABLE} and a <code>Retry-After</code> header (see
+   * {@link #setRetryAfter(Duration)}) in the IO thread, before dispatch. An adaptive limit,
+   * like {@link ConcurrencyLimit#gradient()}, adjusts itself from the round trip latency of
+   * completed requests.
+   *
+   * @param concurrencyLimit Concurrency limit or <code>null</code>.
+   * @return This options.
+   */
+  public RouterOptions setConcurrencyLimit(@Nullable ConcurrencyLimit concurrencyLimit) {
+    this.concurrencyLimit = concurrencyLimit;
+    return this;
+  }
+
+  /**
+   * Value of the <code>Retry-After</code> header of requests rejected by a route or global
+   * concurrency limit. Default is: 1 second.
+   *
+   * @return Retry after value.
+   */
+  public @Nonnull Duration getRetryAfter() {
+    return retryAfter;
+  }
+
+  /**
+   * Set the value of the <code>Retry-After</code> header of requests rejected by a route or global
+   * concurrency limit, like {@link Bulkhead#setRetryAfter(Duration)} does for bulkheads. Value is
+   * rounded to seconds, at least one.
+   *
+   * @param retryAfter Retry after value.
+   * @return This options.
+   */
+  public @Nonnull RouterOptions setRetryAfter(@Nonnull Duration retryAfter) {
+    this.retryAfter = retryAfter;
+    return this;
+  }
+
+  /**
+   * Blocking call detector or <code>null</code> when off. Default is: <code>null</code>.
+   *
+   * @return Blocking call detector or <code>null</code>.
+   */
+  public @Nullable BlockingCallDetector getBlockingCallDetector() {
+    return blockingCallDetector;
+  }
+
+  /**
+   * Report route handlers blocking an IO thread for longer than a threshold. Useful while moving
+   * routes to {@link ExecutionMode#EVENT_LOOP}.
+   *
+   * @param blockingCallDetector Blocking call detector or <code>null</code> to turn it off.
+   * @return This options.
+   */
+  public RouterOptions setBlockingCallDetector(
+      @Nullable BlockingCallDetector blockingCallDetector) {
+    this.blockingCallDetector = blockingCallDetector;
+    return this;
+  }
+
+  /**
+   * True when route handlers are analyzed for blocking calls. Default is: <code>false</code>.
+   *
+   * @return True when route handlers are analyzed for blocking calls.
+   */
+  public boolean isBlockingAnalysis() {
+    return blockingAnalysis;
+  }
+
+  /**
+   * Analyze route handlers bytecode at startup, looking for blocking calls: JDBC, JPA, Hibernate,
+   * Jdbi, java.io streams, files, <code>Thread.sleep</code>, <code>Future.get</code>, request body,
+   * file uploads, template engines, etc. Calls are followed a few levels deep. Calls that can't be
+   * followed, like calls to interfaces, count as blocking.
+   *
+   * Rendering is analyzed too: {@link ModelAndView} and {@link Object} return types count as
+   * blocking, other values are checked against the encoders that might render them.
+   *
+   * In {@link ExecutionMode#DEFAULT}, routes without blocking calls producing a value (not a
+   * stream or file) run in the event loop, instead of a worker thread. The decision of each route
+   * is logged at startup. Other execution modes are not affected.
+   *
+   * @param blockingAnalysis True to analyze route handlers for blocking calls.
+   * @return This options.
+   */
+  public RouterOptions setBlockingAnalysis(boolean blockingAnalysis) {
+    this.blockingAnalysis = blockingAnalysis;
+    return this;
+  }
 }
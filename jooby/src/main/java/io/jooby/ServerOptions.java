@@ -36,6 +36,9 @@ public class ServerOptions {
   /** 10mb constant in bytes. */
   public static final int _10MB = 10485760;
 
+  /** Default request body memory budget: a quarter of the heap. */
+  public static final long BODY_MEMORY = Runtime.getRuntime().maxMemory() / 4;
+
   /** Buffer size used by server. Usually for reading/writing data. */
   private int bufferSize = _16KB;
 
@@ -58,6 +61,9 @@ public class ServerOptions {
   /** Enabled gzip at server level. Default is: <code>false</code>. */
   private boolean gzip;
 
+  /** Response compression options. Applies when gzip is enabled. */
+  private CompressionOptions compression = new CompressionOptions();
+
   /**
    * Configure server to default headers: <code>Date</code>, <code>Content-Type</code> and
    * <code>Server</code> header.
@@ -83,6 +89,16 @@ public class ServerOptions {
    */
   private Boolean directBuffers;
 
+  /**
+   * Max number of bytes of request bodies to keep in memory across all the connections. Bodies
+   * exceeding the budget are saved to disk. Netty and Undertow only. Default is a quarter of the
+   * heap.
+   */
+  private long maxBodyMemory = BODY_MEMORY;
+
+  /** Request body memory budget. */
+  private MemoryBudget bodyMemory = new MemoryBudget(maxBodyMemory);
+
   /**
    * Creates server options from config object. The configuration options must provided entries
    * like: <code>server.port</code>, <code>server.ioThreads</code>, etc...
@@ -114,6 +130,9 @@ public class ServerOptions {
       if (conf.hasPath("server.gzip")) {
         options.setGzip(conf.getBoolean("server.gzip"));
       }
+      if (conf.hasPath("server.compression")) {
+        options.setCompression(CompressionOptions.from(conf));
+      }
       if (conf.hasPath("server.defaultHeaders")) {
         options.setDefaultHeaders(conf.getBoolean("server.defaultHeaders"));
       }
@@ -126,6 +145,9 @@ public class ServerOptions {
       if (conf.hasPath("server.directBuffers")) {
         options.setDirectBuffers(conf.getBoolean("server.directBuffers"));
       }
+      if (conf.hasPath("server.maxBodyMemory")) {
+        options.setMaxBodyMemory(conf.getMemorySize("server.maxBodyMemory").toBytes());
+      }
       return Optional.of(options);
     }
     return Optional.empty();
@@ -144,8 +166,11 @@ public class ServerOptions {
     }
     buff.append(", bufferSize: ").append(bufferSize);
     buff.append(", maxRequestSize: ").append(maxRequestSize);
+    if (!"jetty".equals(server)) {
+      buff.append(", maxBodyMemory: ").append(maxBodyMemory);
+    }
     if (gzip) {
-      buff.append(", gzip");
+      buff.append(", gzip: ").append(compression);
     }
     buff.append("}");
 
@@ -277,6 +302,26 @@ public class ServerOptions {
     return this;
   }
 
+  /**
+   * Response compression options. Applies when gzip is enabled.
+   *
+   * @return Response compression options.
+   */
+  public @Nonnull CompressionOptions getCompression() {
+    return compression;
+  }
+
+  /**
+   * Set response compression options. Applies when gzip is enabled.
+   *
+   * @param compression Response compression options.
+   * @return This options.
+   */
+  public @Nonnull ServerOptions setCompression(@Nonnull CompressionOptions compression) {
+    this.compression = compression;
+    return this;
+  }
+
   /**
    * True if default headers: <code>Date</code>, <code>Content-Type</code> and <code>Server</code>
    * are enabled.
@@ -342,6 +387,39 @@ public class ServerOptions {
     return this;
   }
 
+  /**
+   * Max number of bytes of request bodies to keep in memory across all the connections. Bodies
+   * exceeding the budget are saved to disk. Netty and Undertow only. Default is a quarter of the
+   * heap.
+   *
+   * @return Max number of bytes of request bodies to keep in memory.
+   */
+  public long getMaxBodyMemory() {
+    return maxBodyMemory;
+  }
+
+  /**
+   * Set max number of bytes of request bodies to keep in memory across all the connections.
+   *
+   * @param maxBodyMemory Max number of bytes of request bodies to keep in memory.
+   * @return This options.
+   */
+  public @Nonnull ServerOptions setMaxBodyMemory(long maxBodyMemory) {
+    this.maxBodyMemory = maxBodyMemory;
+    this.bodyMemory = new MemoryBudget(maxBodyMemory);
+    return this;
+  }
+
+  /**
+   * Request body memory budget shared by all the connections. Useful for monitoring, it exposes
+   * in-memory and spilled (saved to disk) bytes gauges.
+   *
+   * @return Request body memory budget.
+   */
+  public @Nonnull MemoryBudget getBodyMemory() {
+    return bodyMemory;
+  }
+
   /**
    * Whenever the underlying server uses a single loop/group for accepting and processing
    * connections or not. Netty only.
@@ -0,0 +1,161 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-Sent Events emitter. Created by a server-sent event route:
+ *
+ * <pre>{@code
+ * {
+ *   ServerSentHub hub = new ServerSentHub();
+ *
+ *   sse("/events", sse -> {
+ *     sse.keepAlive(15, TimeUnit.SECONDS);
+ *     hub.add(sse);
+ *   });
+ *
+ *   post("/publish", ctx -> {
+ *     hub.broadcast(ctx.body().value());
+ *     return ctx.send(StatusCode.ACCEPTED);
+ *   });
+ * }
+ * }</pre>
+ *
+ * Messages are written using the non-blocking {@link Sender} of the underlying server. Messages
+ * sent while a previous write is in progress are queued. When a client can't keep up with the
+ * message rate and the queue is full, the {@link Overflow} policy is applied.
+ *
+ * It is safe to send messages from any thread.
+ *
+ * @author edgar
+ * @since 2.0.0
+ */
+public interface ServerSentEmitter {
+
+  /**
+   * Server-Sent event handler.
+   */
+  interface Handler {
+    /**
+     * Callback for a new client. Emitter is open until client disconnects or application closes
+     * it.
+     *
+     * @param sse Server-Sent emitter.
+     * @throws Exception If something goes wrong.
+     */
+    void handle(@Nonnull ServerSentEmitter sse) throws Exception;
+  }
+
+  /**
+   * What to do with a slow client once the queue of pending messages is full.
+   */
+  enum Overflow {
+    /** Discard new messages until client catches up. */
+    DROP,
+
+    /** Close the connection. Client reconnects and might resume from last received ID. */
+    DISCONNECT
+  }
+
+  /** Default max number of pending (queued) messages per client. */
+  int MAX_PENDING = 256;
+
+  /**
+   * Web context. Useful for reading request data, like path parameters, headers, etc.
+   *
+   * @return Web context.
+   */
+  @Nonnull Context getContext();
+
+  /**
+   * Last event ID sent by client (header: <code>Last-Event-ID</code>) on reconnection.
+   *
+   * @return Last event ID or <code>null</code>.
+   */
+  @Nullable String getLastEventId();
+
+  /**
+   * True while the connection is open.
+   *
+   * @return True while the connection is open.
+   */
+  boolean isOpen();
+
+  /**
+   * Send a message. Data is encoded using the route encoder, unless data is a string or byte
+   * array.
+   *
+   * @param data Message data.
+   * @return This emitter.
+   */
+  default @Nonnull ServerSentEmitter send(@Nonnull Object data) {
+    return send(new ServerSentMessage(data));
+  }
+
+  /**
+   * Send a named event.
+   *
+   * @param event Event name.
+   * @param data Message data.
+   * @return This emitter.
+   */
+  default @Nonnull ServerSentEmitter send(@Nonnull String event, @Nonnull Object data) {
+    return send(new ServerSentMessage(data).setEvent(event));
+  }
+
+  /**
+   * Send a message.
+   *
+   * @param message Message.
+   * @return This emitter.
+   */
+  @Nonnull ServerSentEmitter send(@Nonnull ServerSentMessage message);
+
+  /**
+   * Send a keep-alive comment every <code>interval</code> when there is no other traffic on the
+   * connection. Keep-alive prevents proxies from closing idle connections and detects clients
+   * that went away. All emitters share a single timer thread.
+   *
+   * @param interval Keep-alive interval.
+   * @param unit Time unit.
+   * @return This emitter.
+   */
+  @Nonnull ServerSentEmitter keepAlive(long interval, @Nonnull TimeUnit unit);
+
+  /**
+   * Set the max number of pending messages. Default is: {@link #MAX_PENDING}.
+   *
+   * @param maxPending Max number of pending messages.
+   * @return This emitter.
+   */
+  @Nonnull ServerSentEmitter setMaxPending(int maxPending);
+
+  /**
+   * Set the policy to apply once the max number of pending messages has been reached. Default
+   * is: {@link Overflow#DISCONNECT}.
+   *
+   * @param overflow Overflow policy.
+   * @return This emitter.
+   */
+  @Nonnull ServerSentEmitter setOverflow(@Nonnull Overflow overflow);
+
+  /**
+   * Execute a task once the emitter is closed, by application or because client went away.
+   *
+   * @param task Task to execute.
+   * @return This emitter.
+   */
+  @Nonnull ServerSentEmitter onClose(@Nonnull SneakyThrows.Runnable task);
+
+  /**
+   * Close the connection once all the pending messages have been sent.
+   */
+  void close();
+}
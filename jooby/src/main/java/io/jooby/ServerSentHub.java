@@ -0,0 +1,91 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import javax.annotation.Nonnull;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Group of {@link ServerSentEmitter} for broadcasting messages. Emitters are removed from the
+ * group once they are closed.
+ *
+ * A broadcast message is encoded once and the same bytes are written to every client, so cost
+ * of a broadcast doesn't depend on message encoding. Slow clients never block a broadcast: each
+ * emitter queues (or drops) messages using its own {@link ServerSentEmitter.Overflow} policy.
+ *
+ * <pre>{@code
+ * {
+ *   ServerSentHub hub = new ServerSentHub();
+ *
+ *   sse("/events", hub::add);
+ *
+ *   onStop(hub::close);
+ * }
+ * }</pre>
+ *
+ * @author edgar
+ * @since 2.0.0
+ */
+public class ServerSentHub implements AutoCloseable {
+
+  private final Set<ServerSentEmitter> emitters = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Add an emitter to this group.
+   *
+   * @param emitter Emitter.
+   * @return This hub.
+   */
+  public @Nonnull ServerSentHub add(@Nonnull ServerSentEmitter emitter) {
+    emitters.add(emitter);
+    emitter.onClose(() -> emitters.remove(emitter));
+    return this;
+  }
+
+  /**
+   * Broadcast a message to all the emitters of this group.
+   *
+   * @param data Message data.
+   * @return This hub.
+   */
+  public @Nonnull ServerSentHub broadcast(@Nonnull Object data) {
+    return broadcast(new ServerSentMessage(data));
+  }
+
+  /**
+   * Broadcast a message to all the emitters of this group.
+   *
+   * @param message Message.
+   * @return This hub.
+   */
+  public @Nonnull ServerSentHub broadcast(@Nonnull ServerSentMessage message) {
+    for (ServerSentEmitter emitter : emitters) {
+      emitter.send(message);
+    }
+    return this;
+  }
+
+  /**
+   * @return Number of emitters.
+   */
+  public int size() {
+    return emitters.size();
+  }
+
+  /**
+   * Close all the emitters.
+   */
+  @Override public void close() {
+    Iterator<ServerSentEmitter> iterator = emitters.iterator();
+    while (iterator.hasNext()) {
+      ServerSentEmitter emitter = iterator.next();
+      iterator.remove();
+      emitter.close();
+    }
+  }
+}
@@ -0,0 +1,181 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Server-Sent message. Message data is encoded with the route encoder, unless data is a string
+ * or a byte array.
+ *
+ * A message is encoded once, the first time it is sent. Sending the same message to multiple
+ * clients (see {@link ServerSentHub}) writes the same bytes to all of them. Properties must not
+ * be changed once message has been sent.
+ *
+ * @author edgar
+ * @since 2.0.0
+ */
+public class ServerSentMessage {
+
+  private static final byte[] ID = "id:".getBytes(StandardCharsets.UTF_8);
+
+  private static final byte[] EVENT = "event:".getBytes(StandardCharsets.UTF_8);
+
+  private static final byte[] RETRY = "retry:".getBytes(StandardCharsets.UTF_8);
+
+  private static final byte[] DATA = "data:".getBytes(StandardCharsets.UTF_8);
+
+  private static final byte SEPARATOR = '\n';
+
+  private Object id;
+
+  private String event;
+
+  private Long retry;
+
+  private final Object data;
+
+  private volatile byte[] bytes;
+
+  /**
+   * Creates a new message.
+   *
+   * @param data Data. Must not be null.
+   */
+  public ServerSentMessage(@Nonnull Object data) {
+    this.data = data;
+  }
+
+  /**
+   * @return Message data.
+   */
+  public @Nonnull Object getData() {
+    return data;
+  }
+
+  /**
+   * @return Message ID or <code>null</code>.
+   */
+  public @Nullable Object getId() {
+    return id;
+  }
+
+  /**
+   * Set message ID. Clients send the last received ID (header: <code>Last-Event-ID</code>) when
+   * reconnecting.
+   *
+   * @param id Message ID.
+   * @return This message.
+   */
+  public @Nonnull ServerSentMessage setId(@Nullable Object id) {
+    this.id = id;
+    return this;
+  }
+
+  /**
+   * @return Event name or <code>null</code>.
+   */
+  public @Nullable String getEvent() {
+    return event;
+  }
+
+  /**
+   * Set event name. Default event name is <code>message</code>.
+   *
+   * @param event Event name.
+   * @return This message.
+   */
+  public @Nonnull ServerSentMessage setEvent(@Nullable String event) {
+    this.event = event;
+    return this;
+  }
+
+  /**
+   * @return Reconnection time in milliseconds or <code>null</code>.
+   */
+  public @Nullable Long getRetry() {
+    return retry;
+  }
+
+  /**
+   * Set reconnection time in milliseconds.
+   *
+   * @param retry Reconnection time in milliseconds.
+   * @return This message.
+   */
+  public @Nonnull ServerSentMessage setRetry(@Nullable Long retry) {
+    this.retry = retry;
+    return this;
+  }
+
+  /**
+   * Encode message using the <code>text/event-stream</code> format. Result is computed once.
+   *
+   * @param ctx Web context. Used for encoding data.
+   * @return Encoded message.
+   */
+  public @Nonnull byte[] toByteArray(@Nonnull Context ctx) {
+    byte[] result = bytes;
+    if (result == null) {
+      result = encode(ctx);
+      bytes = result;
+    }
+    return result;
+  }
+
+  private byte[] encode(Context ctx) {
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      if (id != null) {
+        field(out, ID, id.toString().getBytes(StandardCharsets.UTF_8));
+      }
+      if (event != null) {
+        field(out, EVENT, event.getBytes(StandardCharsets.UTF_8));
+      }
+      if (retry != null) {
+        field(out, RETRY, retry.toString().getBytes(StandardCharsets.UTF_8));
+      }
+      byte[] value = data(ctx);
+      // Each line of data goes into a data field
+      int start = 0;
+      for (int i = 0; i < value.length; i++) {
+        if (value[i] == '\n') {
+          int end = i > start && value[i - 1] == '\r' ? i - 1 : i;
+          out.write(DATA);
+          out.write(value, start, end - start);
+          out.write(SEPARATOR);
+          start = i + 1;
+        }
+      }
+      out.write(DATA);
+      out.write(value, start, value.length - start);
+      out.write(SEPARATOR);
+      out.write(SEPARATOR);
+      return out.toByteArray();
+    } catch (Exception x) {
+      throw SneakyThrows.propagate(x);
+    }
+  }
+
+  private byte[] data(Context ctx) throws Exception {
+    if (data instanceof byte[]) {
+      return (byte[]) data;
+    }
+    if (data instanceof CharSequence) {
+      return data.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    return ctx.getRoute().getEncoder().encode(ctx, data);
+  }
+
+  private static void field(ByteArrayOutputStream out, byte[] name, byte[] value) {
+    out.write(name, 0, name.length);
+    out.write(value, 0, value.length);
+    out.write(SEPARATOR);
+  }
+}
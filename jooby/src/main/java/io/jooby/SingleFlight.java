@@ -0,0 +1,284 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import io.jooby.internal.RequestDeadline;
+import io.jooby.internal.SharedResponse;
+import io.jooby.internal.SharedTimer;
+import io.jooby.internal.SingleFlightContext;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Single-flight request coalescing. Identical <code>GET</code> requests arriving while one of
+ * them is in flight don't execute the route: they wait for the first one (the leader) and get the
+ * same encoded response bytes. It prevents a thundering herd on cache expiry, where hundreds of
+ * identical requests hit the database at the same time.
+ *
+ * Usage:
+ *
+ * <pre>{@code
+ * {
+ *   get("/catalog", ctx -> catalog.find(ctx.query("lang").value()))
+ *       .setSingleFlight(new SingleFlight().setQueryParams("lang"));
+ * }
+ * }</pre>
+ *
+ * Requests are identical when they have the same method, path, query parameters and headers.
+ * Default key uses the full query string and the <code>Accept</code> header. Use
+ * {@link #setQueryParams(String...)} and {@link #setHeaders(String...)} to select what is part of
+ * the key.
+ *
+ * Only shareable responses are shared: status codes cacheable by default (like <code>200</code>
+ * or <code>404</code>), buffered in memory, without cookies and without a private or no-store
+ * <code>Cache-Control</code>. Otherwise, waiting requests execute the route by themselves.
+ * Errors, streamed and file responses are never shared.
+ *
+ * Requests with a <code>Cookie</code> or <code>Authorization</code> header are never coalesced,
+ * unless the header is part of the key: the response might depend on the current user.
+ *
+ * A flight ends when the leader publishes its response, fails, gets cancelled (see
+ * {@link Context#onCancel(Runnable)}), completes without a shareable response or after
+ * {@link #setTimeout(Duration)}. Waiting requests run the route by themselves when the flight ends
+ * without a shareable response, or when they reach the timeout or their own deadline first.
+ *
+ * Works with every {@link ExecutionMode} and return type, including async and reactive types:
+ * coalescing happens before dispatching and after rendering.
+ *
+ * @author edgar
+ * @since 2.0.0
+ */
+public class SingleFlight {
+
+  /** Request in flight, completed with a shared response or <code>null</code>. */
+  private class Flight implements Consumer<SharedResponse> {
+    private final String key;
+
+    private final CompletableFuture<SharedResponse> result = new CompletableFuture<>();
+
+    private volatile ScheduledFuture<?> timer;
+
+    Flight(String key) {
+      this.key = key;
+    }
+
+    @Override public void accept(SharedResponse response) {
+      /** New requests start a new flight: */
+      flights.remove(key, this);
+      ScheduledFuture<?> timer = this.timer;
+      if (timer != null) {
+        timer.cancel(false);
+      }
+      result.complete(response);
+    }
+  }
+
+  /** Default timeout. */
+  public static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+  private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+
+  private String[] queryParams;
+
+  private String[] headers = {"Accept"};
+
+  private boolean cookieKey;
+
+  private boolean authorizationKey;
+
+  private Duration timeout = TIMEOUT;
+
+  private final LongAdder shared = new LongAdder();
+
+  /**
+   * Query parameters that are part of the key. Default is: the full query string.
+   *
+   * @param names Query parameter names.
+   * @return This single flight.
+   */
+  public @Nonnull SingleFlight setQueryParams(@Nonnull String... names) {
+    this.queryParams = names;
+    return this;
+  }
+
+  /**
+   * Headers that are part of the key. Default is: <code>Accept</code>.
+   *
+   * @param names Header names.
+   * @return This single flight.
+   */
+  public @Nonnull SingleFlight setHeaders(@Nonnull String... names) {
+    this.headers = names;
+    this.cookieKey = false;
+    this.authorizationKey = false;
+    for (String name : names) {
+      cookieKey |= name.equalsIgnoreCase("Cookie");
+      authorizationKey |= name.equalsIgnoreCase("Authorization");
+    }
+    return this;
+  }
+
+  /**
+   * Max time a flight lasts. Once reached, waiting requests run the route by themselves and new
+   * requests start a new flight. Default is: {@link #TIMEOUT}.
+   *
+   * @param timeout Flight timeout.
+   * @return This single flight.
+   */
+  public @Nonnull SingleFlight setTimeout(@Nonnull Duration timeout) {
+    this.timeout = timeout;
+    return this;
+  }
+
+  /**
+   * Number of requests served with the response of an identical request.
+   *
+   * @return Number of shared responses.
+   */
+  public long getShared() {
+    return shared.sum();
+  }
+
+  /**
+   * Number of requests in flight, one per key.
+   *
+   * @return Number of requests in flight.
+   */
+  public int getInFlight() {
+    return flights.size();
+  }
+
+  /**
+   * Execute a request. The first request of a key runs the route pipeline, identical requests
+   * wait for it.
+   *
+   * NOTE: This method is part of Public API, but shouldn't be used by client code.
+   *
+   * @param ctx Web context.
+   * @param pipeline Route pipeline.
+   * @return Pipeline result.
+   * @throws Exception If something goes wrong.
+   */
+  public @Nonnull Object execute(@Nonnull Context ctx, @Nonnull Route.Handler pipeline)
+      throws Exception {
+    if (!ctx.getMethod().equals(Router.GET) || isPrivate(ctx)) {
+      return pipeline.apply(ctx);
+    }
+    String key = key(ctx);
+    Flight flight = new Flight(key);
+    Flight leader = flights.putIfAbsent(key, flight);
+    if (leader == null) {
+      /** Never leave a flight behind: */
+      flight.timer = SharedTimer.get()
+          .schedule(() -> flight.accept(null), timeout.toNanos(), TimeUnit.NANOSECONDS);
+      ctx.onCancel(() -> flight.accept(null));
+      ctx.onComplete(() -> flight.accept(null));
+      try {
+        return pipeline.apply(new SingleFlightContext(ctx, flight));
+      } catch (Throwable x) {
+        flight.accept(null);
+        throw SneakyThrows.propagate(x);
+      }
+    }
+    return ctx.detach(waiter -> {
+      await(ctx, pipeline, leader.result);
+      return ctx;
+    });
+  }
+
+  @Override public String toString() {
+    return "in flight: " + getInFlight() + ", shared: " + getShared();
+  }
+
+  private void await(Context ctx, Route.Handler pipeline,
+      CompletableFuture<SharedResponse> leader) {
+    AtomicBoolean claimed = new AtomicBoolean();
+    /** Timeout or own deadline, whatever comes first: */
+    Duration remaining = ctx.getRemainingTime();
+    long wait = remaining == null
+        ? timeout.toNanos()
+        : Math.min(timeout.toNanos(), remaining.toNanos());
+    ScheduledFuture<?> timer = SharedTimer.get().schedule(() -> {
+      if (claimed.compareAndSet(false, true)) {
+        fallback(ctx, pipeline);
+      }
+    }, wait, TimeUnit.NANOSECONDS);
+    leader.whenComplete((response, x) -> {
+      if (claimed.compareAndSet(false, true)) {
+        timer.cancel(false);
+        if (response == null) {
+          /** Not shareable, run it: */
+          fallback(ctx, pipeline);
+        } else {
+          try {
+            shared.increment();
+            response.send(ctx);
+          } catch (Throwable cause) {
+            ctx.sendError(cause);
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Run the route for a waiting request. Never runs inline: the timer thread and the thread
+   * completing the leader (often another connection's IO thread) must not be blocked by it.
+   */
+  private static void fallback(Context ctx, Route.Handler pipeline) {
+    try {
+      ctx.getIoExecutor().execute(() -> run(ctx, pipeline));
+    } catch (RejectedExecutionException x) {
+      ctx.sendError(x);
+    }
+  }
+
+  private static void run(Context ctx, Route.Handler pipeline) {
+    try {
+      if (ctx.isExpired()) {
+        ctx.sendError(RequestDeadline.exceeded());
+      } else {
+        pipeline.apply(ctx);
+      }
+    } catch (Throwable cause) {
+      ctx.sendError(cause);
+    }
+  }
+
+  private boolean isPrivate(Context ctx) {
+    return (!cookieKey && !ctx.header("Cookie").isMissing())
+        || (!authorizationKey && !ctx.header("Authorization").isMissing());
+  }
+
+  private String key(Context ctx) {
+    StringBuilder key = new StringBuilder(ctx.getMethod()).append(' ').append(ctx.pathString());
+    if (queryParams == null) {
+      key.append(ctx.queryString());
+    } else {
+      for (String name : queryParams) {
+        append(key.append('&'), name, ctx.query(name));
+      }
+    }
+    for (String name : headers) {
+      append(key.append('\n'), name, ctx.header(name));
+    }
+    return key.toString();
+  }
+
+  private static void append(StringBuilder key, String name, Value value) {
+    key.append(name).append('=').append(value.toList());
+  }
+}
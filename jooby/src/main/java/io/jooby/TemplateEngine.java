@@ -5,10 +5,23 @@
  */
 package io.jooby;
 
+import io.jooby.internal.ClassPathAssetSource;
+
 import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Template engine renderer. This class renderer instances of {@link ModelAndView} objects.
@@ -25,6 +38,9 @@ public interface TemplateEngine extends MessageEncoder {
   /** Default template path. */
   String PATH = "views";
 
+  /** Default max number of compiled templates to keep when templates are compiled at startup. */
+  int CACHE_SIZE = 1000;
+
   /**
    * Render a model and view instance as String.
    *
@@ -35,12 +51,51 @@ public interface TemplateEngine extends MessageEncoder {
    */
   String render(Context ctx, ModelAndView modelAndView) throws Exception;
 
+  /**
+   * Render a model and view instance into the given writer. Template engines able to write
+   * partial output must override this method, so rendered output is sent while rendering instead
+   * of being kept in memory.
+   *
+   * Default implementation renders the view as String and writes it.
+   *
+   * @param ctx Web context.
+   * @param modelAndView Model and view.
+   * @param writer Output writer. Writer is flushed and closed by caller.
+   * @throws Exception If something goes wrong.
+   */
+  default void render(Context ctx, ModelAndView modelAndView, Writer writer) throws Exception {
+    writer.write(render(ctx, modelAndView));
+  }
+
   @Override default byte[] encode(@Nonnull Context ctx, @Nonnull Object value) throws Exception {
     ctx.setDefaultResponseType(MediaType.html);
     String output = render(ctx, (ModelAndView) value);
     return output.getBytes(StandardCharsets.UTF_8);
   }
 
+  @Override default boolean encode(@Nonnull Context ctx, @Nonnull Object value,
+      @Nonnull OutputStream output) throws Exception {
+    ctx.setDefaultResponseType(MediaType.html);
+    ModelAndView modelAndView = (ModelAndView) value;
+    if (modelAndView.isStreaming()) {
+      /** Start a chunked response, flush calls are sent to client: */
+      Writer writer = new OutputStreamWriter(ctx.responseStream(), StandardCharsets.UTF_8);
+      try {
+        render(ctx, modelAndView, writer);
+      } catch (Throwable x) {
+        /** Don't close the writer: a truncated page must not look like a complete one. */
+        ctx.abort();
+        throw x;
+      }
+      writer.close();
+    } else {
+      Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+      render(ctx, modelAndView, writer);
+      writer.flush();
+    }
+    return true;
+  }
+
   /**
    * True if the template engine is able to render the given view. This method checks if the view
    * name matches one of the {@link #extensions()}.
@@ -77,4 +132,42 @@ public interface TemplateEngine extends MessageEncoder {
   static @Nonnull String normalizePath(@Nonnull String templatesPath) {
     return templatesPath.startsWith("/") ? templatesPath.substring(1) : templatesPath;
   }
+
+  /**
+   * List templates available at the given location. Templates are searched in the file-system
+   * directory: <code>templatesPath</code> relative to the current user directory. If the directory
+   * doesn't exist, templates are searched in the project classpath.
+   *
+   * Template engines use this method for compiling templates at application startup time.
+   *
+   * @param classLoader Class loader.
+   * @param templatesPath Template path.
+   * @param extensions Supported file extensions.
+   * @return Sorted template names relative to <code>templatesPath</code> or empty when the
+   *     location doesn't exist or can't be listed.
+   */
+  static @Nonnull List<String> list(@Nonnull ClassLoader classLoader,
+      @Nonnull String templatesPath, @Nonnull List<String> extensions) {
+    String path = normalizePath(templatesPath);
+    Path dir = Paths.get(System.getProperty("user.dir"), path);
+    Set<String> files;
+    if (Files.isDirectory(dir)) {
+      try (Stream<Path> stream = Files.walk(dir)) {
+        files = stream.filter(Files::isRegularFile)
+            .map(file -> dir.relativize(file).toString().replace(File.separatorChar, '/'))
+            .collect(Collectors.toSet());
+      } catch (IOException x) {
+        throw SneakyThrows.propagate(x);
+      }
+    } else {
+      files = new ClassPathAssetSource(classLoader, path).list();
+      if (files == null) {
+        return Collections.emptyList();
+      }
+    }
+    return files.stream()
+        .filter(file -> extensions.stream().anyMatch(file::endsWith))
+        .sorted()
+        .collect(Collectors.toList());
+  }
 }
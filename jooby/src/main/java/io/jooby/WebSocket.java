@@ -0,0 +1,225 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * WebSocket connection. Created by a websocket route:
+ *
+ * <pre>{@code
+ * {
+ *   ws("/ws/{room}", (ctx, configurer) -> {
+ *     String room = ctx.path("room").value();
+ *
+ *     configurer.onConnect(ws -> {
+ *       ws.send("Welcome to " + room);
+ *     });
+ *
+ *     configurer.onMessage((ws, message) -> {
+ *       ws.send("Got: " + message.value());
+ *     });
+ *
+ *     configurer.onClose((ws, status) -> {
+ *       ...
+ *     });
+ *   });
+ * }
+ * }</pre>
+ *
+ * Callbacks for a connection run one at a time and in order, on the worker thread pool. The
+ * server stops reading from the connection while a message is being processed, so a slow
+ * handler slows down the client instead of queueing messages in memory.
+ *
+ * Messages are sent asynchronously. Messages waiting to be written are counted per connection,
+ * once a client doesn't keep up with the message rate the {@link Overflow} policy is applied.
+ *
+ * It is safe to send messages from any thread.
+ *
+ * @author edgar
+ * @since 2.0.0
+ */
+public interface WebSocket {
+
+  /**
+   * Websocket initializer. Runs once per client, before the handshake. Gives you access to the
+   * HTTP {@link Context} (path parameters, headers, etc.) and to the websocket configurer.
+   */
+  interface Initializer {
+    /**
+     * Callback with the upgrade request context and websocket configurer.
+     *
+     * @param ctx Upgrade request context. Don't use it for producing a response.
+     * @param configurer WebSocket configurer.
+     */
+    void init(@Nonnull Context ctx, @Nonnull WebSocketConfigurer configurer);
+  }
+
+  /**
+   * On connect callback.
+   */
+  interface OnConnect {
+    /**
+     * On connect callback with recently created web socket.
+     *
+     * @param ws WebSocket.
+     */
+    void onConnect(@Nonnull WebSocket ws);
+  }
+
+  /**
+   * On message callback. When a Message is send by a client, this callback allow you to
+   * handle/react to it.
+   */
+  interface OnMessage {
+    /**
+     * Generated when a client send a message.
+     *
+     * @param ws WebSocket.
+     * @param message Client message.
+     */
+    void onMessage(@Nonnull WebSocket ws, @Nonnull WebSocketMessage message);
+  }
+
+  /**
+   * On close callback. Generated when client close the connection or when explicit calls to
+   * {@link #close(WebSocketCloseStatus)} or {@link #close()}.
+   */
+  interface OnClose {
+    /**
+     * Generated when client close the connection or when explicit calls to
+     * {@link #close(WebSocketCloseStatus)} or {@link #close()}.
+     *
+     * @param ws WebSocket.
+     * @param closeStatus Close status.
+     */
+    void onClose(@Nonnull WebSocket ws, @Nonnull WebSocketCloseStatus closeStatus);
+  }
+
+  /**
+   * On error callback. Generated when unexpected error occurs.
+   */
+  interface OnError {
+    /**
+     * Error generated from client or from callbacks.
+     *
+     * @param ws WebSocket.
+     * @param cause Cause.
+     */
+    void onError(@Nonnull WebSocket ws, @Nonnull Throwable cause);
+  }
+
+  /**
+   * What to do with a slow client once the max number of pending messages has been reached.
+   */
+  enum Overflow {
+    /** Discard new messages until client catches up. */
+    DROP,
+
+    /** Close the connection with {@link WebSocketCloseStatus#SERVICE_OVERLOAD}. */
+    DISCONNECT
+  }
+
+  /** Max message size for websocket (128K). */
+  int MAX_MESSAGE_SIZE = 131072;
+
+  /** Default max number of pending (not yet written) messages per connection. */
+  int MAX_PENDING = 256;
+
+  /**
+   * Originating HTTP context. Please note response was taken over by the websocket, so you are
+   * not allowed to modify or produce a response from it.
+   *
+   * The context is useful for extracting request data, like path parameters, headers, etc.
+   *
+   * @return Read-only originating HTTP request.
+   */
+  @Nonnull Context getContext();
+
+  /**
+   * True while the connection is open.
+   *
+   * @return True while the connection is open.
+   */
+  boolean isOpen();
+
+  /**
+   * Send a text message to client.
+   *
+   * @param message Text Message.
+   * @return This websocket.
+   */
+  default @Nonnull WebSocket send(@Nonnull String message) {
+    return send(message.getBytes(StandardCharsets.UTF_8), false);
+  }
+
+  /**
+   * Send a binary message to client.
+   *
+   * @param message Binary Message.
+   * @return This websocket.
+   */
+  default @Nonnull WebSocket send(@Nonnull byte[] message) {
+    return send(message, true);
+  }
+
+  /**
+   * Send a message to client. Array is sent as it is (without copying it), so it must not be
+   * modified after calling this method. The same array might be sent to multiple clients.
+   *
+   * @param message Message. Text messages must be UTF-8 encoded.
+   * @param binary True for binary message, false for text message.
+   * @return This websocket.
+   */
+  @Nonnull WebSocket send(@Nonnull byte[] message, boolean binary);
+
+  /**
+   * Send a binary message to client.
+   *
+   * @param message Binary Message.
+   * @return This websocket.
+   */
+  default @Nonnull WebSocket send(@Nonnull ByteBuffer message) {
+    byte[] bytes = new byte[message.remaining()];
+    message.get(bytes);
+    return send(bytes, true);
+  }
+
+  /**
+   * Encode a value using the route encoder (like JSON) and send it as text message.
+   *
+   * @param value Value to encode.
+   * @return This websocket.
+   */
+  default @Nonnull WebSocket render(@Nonnull Object value) {
+    try {
+      Context ctx = getContext();
+      return send(ctx.getRoute().getEncoder().encode(ctx, value), false);
+    } catch (Exception x) {
+      throw SneakyThrows.propagate(x);
+    }
+  }
+
+  /**
+   * Close the web socket and send a {@link WebSocketCloseStatus#NORMAL} code to client.
+   *
+   * This method fires a {@link OnClose#onClose(WebSocket, WebSocketCloseStatus)} callback.
+   */
+  default void close() {
+    close(WebSocketCloseStatus.NORMAL);
+  }
+
+  /**
+   * Close the web socket and send a close status code to client.
+   *
+   * This method fires a {@link OnClose#onClose(WebSocket, WebSocketCloseStatus)} callback.
+   *
+   * @param closeStatus Close status.
+   */
+  void close(@Nonnull WebSocketCloseStatus closeStatus);
+}
@@ -0,0 +1,129 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Optional;
+
+/**
+ * WebSocket close status. See https://tools.ietf.org/html/rfc6455#section-7.4.1.
+ *
+ * @author edgar
+ * @since 2.0.0
+ */
+public final class WebSocketCloseStatus {
+
+  /** 1000 indicates a normal closure. */
+  public static final WebSocketCloseStatus NORMAL = new WebSocketCloseStatus(1000, "Normal");
+
+  /** 1001 indicates that an endpoint is "going away". */
+  public static final WebSocketCloseStatus GOING_AWAY = new WebSocketCloseStatus(1001,
+      "Going away");
+
+  /** 1002 indicates that an endpoint is terminating the connection due to a protocol error. */
+  public static final WebSocketCloseStatus PROTOCOL_ERROR = new WebSocketCloseStatus(1002,
+      "Protocol error");
+
+  /** 1003 indicates that an endpoint received a type of data it cannot accept. */
+  public static final WebSocketCloseStatus NOT_ACCEPTABLE = new WebSocketCloseStatus(1003,
+      "Not acceptable");
+
+  /** 1006 indicates that the connection was closed abnormally, without a close frame. */
+  public static final WebSocketCloseStatus HARSH_DISCONNECT = new WebSocketCloseStatus(1006,
+      "Harsh disconnect");
+
+  /** 1007 indicates that an endpoint received data inconsistent with the message type. */
+  public static final WebSocketCloseStatus BAD_DATA = new WebSocketCloseStatus(1007,
+      "Bad data");
+
+  /** 1008 indicates that an endpoint received a message that violates its policy. */
+  public static final WebSocketCloseStatus POLICY_VIOLATION = new WebSocketCloseStatus(1008,
+      "Policy violation");
+
+  /** 1009 indicates that an endpoint received a message that is too big to process. */
+  public static final WebSocketCloseStatus TOO_BIG_TO_PROCESS = new WebSocketCloseStatus(1009,
+      "Too big to process");
+
+  /** 1010 indicates that the client expected the server to negotiate one or more extension. */
+  public static final WebSocketCloseStatus REQUIRED_EXTENSION = new WebSocketCloseStatus(1010,
+      "Required extension");
+
+  /** 1011 indicates that the server encountered an unexpected condition. */
+  public static final WebSocketCloseStatus SERVER_ERROR = new WebSocketCloseStatus(1011,
+      "Server error");
+
+  /** 1012 indicates that the service is restarted. */
+  public static final WebSocketCloseStatus SERVICE_RESTARTED = new WebSocketCloseStatus(1012,
+      "Service restarted");
+
+  /** 1013 indicates that the server is overloaded, client should try again later. */
+  public static final WebSocketCloseStatus SERVICE_OVERLOAD = new WebSocketCloseStatus(1013,
+      "Service overload");
+
+  private static final WebSocketCloseStatus[] VALUES = {NORMAL, GOING_AWAY, PROTOCOL_ERROR,
+      NOT_ACCEPTABLE, HARSH_DISCONNECT, BAD_DATA, POLICY_VIOLATION, TOO_BIG_TO_PROCESS,
+      REQUIRED_EXTENSION, SERVER_ERROR, SERVICE_RESTARTED, SERVICE_OVERLOAD};
+
+  private final int code;
+
+  private final String reason;
+
+  /**
+   * Creates a new close status.
+   *
+   * @param code Status code.
+   * @param reason Reason or <code>null</code>.
+   */
+  public WebSocketCloseStatus(int code, @Nullable String reason) {
+    this.code = code;
+    this.reason = reason;
+  }
+
+  /**
+   * @return Status code.
+   */
+  public int getCode() {
+    return code;
+  }
+
+  /**
+   * @return Reason or <code>null</code>.
+   */
+  public @Nullable String getReason() {
+    return reason;
+  }
+
+  /**
+   * Find a well-known close status from status code.
+   *
+   * @param code Status code.
+   * @return Close status or empty.
+   */
+  public static @Nonnull Optional<WebSocketCloseStatus> valueOf(int code) {
+    for (WebSocketCloseStatus status : VALUES) {
+      if (status.code == code) {
+        return Optional.of(status);
+      }
+    }
+    return Optional.empty();
+  }
+
+  @Override public boolean equals(Object obj) {
+    if (obj instanceof WebSocketCloseStatus) {
+      return code == ((WebSocketCloseStatus) obj).code;
+    }
+    return false;
+  }
+
+  @Override public int hashCode() {
+    return code;
+  }
+
+  @Override public String toString() {
+    return reason == null ? Integer.toString(code) : code + "(" + reason + ")";
+  }
+}
@@ -0,0 +1,67 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import javax.annotation.Nonnull;
+
+/**
+ * WebSocket configurer. Set websocket callbacks and options.
+ *
+ * @author edgar
+ * @since 2.0.0
+ */
+public interface WebSocketConfigurer {
+
+  /**
+   * Register an <code>onConnect</code> callback.
+   *
+   * @param callback Callback.
+   * @return This configurer.
+   */
+  @Nonnull WebSocketConfigurer onConnect(@Nonnull WebSocket.OnConnect callback);
+
+  /**
+   * Register an <code>onMessage</code> callback.
+   *
+   * @param callback Callback.
+   * @return This configurer.
+   */
+  @Nonnull WebSocketConfigurer onMessage(@Nonnull WebSocket.OnMessage callback);
+
+  /**
+   * Register an <code>onError</code> callback.
+   *
+   * @param callback Callback.
+   * @return This configurer.
+   */
+  @Nonnull WebSocketConfigurer onError(@Nonnull WebSocket.OnError callback);
+
+  /**
+   * Register an <code>onClose</code> callback.
+   *
+   * @param callback Callback.
+   * @return This configurer.
+   */
+  @Nonnull WebSocketConfigurer onClose(@Nonnull WebSocket.OnClose callback);
+
+  /**
+   * Set the max number of messages waiting to be written to the client. Default is:
+   * {@link WebSocket#MAX_PENDING}.
+   *
+   * @param maxPending Max number of pending messages.
+   * @return This configurer.
+   */
+  @Nonnull WebSocketConfigurer setMaxPending(int maxPending);
+
+  /**
+   * Set the policy to apply once the max number of pending messages has been reached. Default
+   * is: {@link WebSocket.Overflow#DISCONNECT}.
+   *
+   * @param overflow Overflow policy.
+   * @return This configurer.
+   */
+  @Nonnull WebSocketConfigurer setOverflow(@Nonnull WebSocket.Overflow overflow);
+}
@@ -0,0 +1,136 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Group of {@link WebSocket} for broadcasting messages. Websockets are removed from the group
+ * once they are closed.
+ *
+ * A broadcast message is encoded once and the same bytes are written to every client. Slow
+ * clients never block a broadcast: each connection applies its own
+ * {@link WebSocket.Overflow} policy.
+ *
+ * <pre>{@code
+ * {
+ *   WebSocketHub hub = new WebSocketHub();
+ *
+ *   ws("/status", (ctx, configurer) -> {
+ *     configurer.onConnect(hub::add);
+ *   });
+ *
+ *   onStop(hub::close);
+ * }
+ * }</pre>
+ *
+ * @author edgar
+ * @since 2.0.0
+ */
+public class WebSocketHub implements AutoCloseable {
+
+  private final Set<WebSocket> sockets = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Add a websocket to this group. Websocket is removed once closed.
+   *
+   * @param ws Websocket.
+   * @return This hub.
+   */
+  public @Nonnull WebSocketHub add(@Nonnull WebSocket ws) {
+    sockets.add(ws);
+    if (!ws.isOpen()) {
+      // closed while adding it
+      sockets.remove(ws);
+    }
+    return this;
+  }
+
+  /**
+   * Remove a websocket from this group.
+   *
+   * @param ws Websocket.
+   * @return This hub.
+   */
+  public @Nonnull WebSocketHub remove(@Nonnull WebSocket ws) {
+    sockets.remove(ws);
+    return this;
+  }
+
+  /**
+   * Broadcast a text message.
+   *
+   * @param message Text message.
+   * @return This hub.
+   */
+  public @Nonnull WebSocketHub broadcast(@Nonnull String message) {
+    return broadcast(message.getBytes(StandardCharsets.UTF_8), false);
+  }
+
+  /**
+   * Broadcast a message. Array is shared by all the clients and must not be modified.
+   *
+   * @param message Message. Text messages must be UTF-8 encoded.
+   * @param binary True for binary message, false for text message.
+   * @return This hub.
+   */
+  public @Nonnull WebSocketHub broadcast(@Nonnull byte[] message, boolean binary) {
+    Iterator<WebSocket> iterator = sockets.iterator();
+    while (iterator.hasNext()) {
+      WebSocket ws = iterator.next();
+      if (ws.isOpen()) {
+        ws.send(message, binary);
+      } else {
+        iterator.remove();
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Encode a value once using the route encoder (like JSON) of the first websocket and broadcast
+   * it as text message.
+   *
+   * @param value Value to encode.
+   * @return This hub.
+   */
+  public @Nonnull WebSocketHub render(@Nonnull Object value) {
+    Iterator<WebSocket> iterator = sockets.iterator();
+    if (iterator.hasNext()) {
+      Context ctx = iterator.next().getContext();
+      try {
+        broadcast(ctx.getRoute().getEncoder().encode(ctx, value), false);
+      } catch (Exception x) {
+        throw SneakyThrows.propagate(x);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * @return Number of websockets.
+   */
+  public int size() {
+    sockets.removeIf(ws -> !ws.isOpen());
+    return sockets.size();
+  }
+
+  /**
+   * Close all the websockets with {@link WebSocketCloseStatus#GOING_AWAY}.
+   */
+  @Override public void close() {
+    Iterator<WebSocket> iterator = sockets.iterator();
+    while (iterator.hasNext()) {
+      WebSocket ws = iterator.next();
+      iterator.remove();
+      ws.close(WebSocketCloseStatus.GOING_AWAY);
+    }
+  }
+}
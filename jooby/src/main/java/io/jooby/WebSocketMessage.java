@@ -0,0 +1,122 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * WebSocket message. Message payload is a view of the server frame buffer, no copy is made
+ * until {@link #value()} or {@link #bytes()} is called.
+ *
+ * Payload is valid while the {@link WebSocket.OnMessage} callback is running. Don't keep a
+ * reference to {@link #buffer()} after callback returns, copy it if required.
+ *
+ * @author edgar
+ * @since 2.0.0
+ */
+public final class WebSocketMessage {
+
+  private final Context ctx;
+
+  private ByteBuffer buffer;
+
+  private final boolean binary;
+
+  private String text;
+
+  private WebSocketMessage(Context ctx, ByteBuffer buffer, boolean binary, String text) {
+    this.ctx = ctx;
+    this.buffer = buffer;
+    this.binary = binary;
+    this.text = text;
+  }
+
+  /**
+   * Web context of the upgrade request.
+   *
+   * @return Web context.
+   */
+  public @Nonnull Context getContext() {
+    return ctx;
+  }
+
+  /**
+   * @return True for binary messages, false for text messages.
+   */
+  public boolean isBinary() {
+    return binary;
+  }
+
+  /**
+   * Message payload (text messages are UTF-8 encoded). Buffer is read-only.
+   *
+   * @return Message payload.
+   */
+  public @Nonnull ByteBuffer buffer() {
+    return payload().asReadOnlyBuffer();
+  }
+
+  /**
+   * Copy of message payload.
+   *
+   * @return Copy of message payload.
+   */
+  public @Nonnull byte[] bytes() {
+    ByteBuffer payload = payload().duplicate();
+    byte[] bytes = new byte[payload.remaining()];
+    payload.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Message payload as UTF-8 string.
+   *
+   * @return Message payload as UTF-8 string.
+   */
+  public @Nonnull String value() {
+    if (text == null) {
+      text = StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+    }
+    return text;
+  }
+
+  @Override public String toString() {
+    return binary ? "binary(" + buffer.remaining() + ")" : value();
+  }
+
+  private ByteBuffer payload() {
+    if (buffer == null) {
+      buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+    return buffer;
+  }
+
+  /**
+   * Creates a message from a frame payload. Buffer is not copied.
+   *
+   * @param ctx Web context.
+   * @param buffer Frame payload.
+   * @param binary True for binary messages, false for text messages.
+   * @return A new message.
+   */
+  public static @Nonnull WebSocketMessage create(@Nonnull Context ctx, @Nonnull ByteBuffer buffer,
+      boolean binary) {
+    return new WebSocketMessage(ctx, buffer, binary, null);
+  }
+
+  /**
+   * Creates a text message from an already decoded frame. Payload is encoded on demand.
+   *
+   * @param ctx Web context.
+   * @param text Text payload.
+   * @return A new message.
+   */
+  public static @Nonnull WebSocketMessage create(@Nonnull Context ctx, @Nonnull String text) {
+    return new WebSocketMessage(ctx, null, false, text);
+  }
+}
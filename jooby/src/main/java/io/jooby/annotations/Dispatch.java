@@ -5,6 +5,8 @@
  */
 package io.jooby.annotations;
 
+import io.jooby.Priority;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -22,6 +24,12 @@ import java.lang.annotation.Target;
  *     public ... dispatch() {
  *       // do blocking calls
  *     }
+ *
+ *     &#64;Dispatch(priority = Priority.LOW)
+ *     &#64;GET("/export")
+ *     public ... export() {
+ *       // runs after interactive requests when worker is a PriorityExecutor
+ *     }
  *   }
  * </pre>
  *
@@ -37,4 +45,11 @@ public @interface Dispatch {
    * @return Name of the executor to use or blank to use the server worker executor.
    */
   String value() default "";
+
+  /**
+   * Route priority, used when executor is a {@link io.jooby.PriorityExecutor}.
+   *
+   * @return Route priority.
+   */
+  Priority priority() default Priority.NORMAL;
 }
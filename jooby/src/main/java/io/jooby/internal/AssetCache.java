@@ -0,0 +1,213 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import io.jooby.Asset;
+import io.jooby.AssetSource;
+import io.jooby.SneakyThrows;
+import io.jooby.StatusCode;
+import io.jooby.StatusCodeException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Asset cache. Sources are indexed at creation time, so lookups of files that don't exist never
+ * hit the sources. Sources that can't be listed are resolved on demand and the result (found or
+ * not) is remembered up to {@link #MAX_ENTRIES} paths.
+ *
+ * Asset metadata and response headers are computed once. Content of small assets is kept in
+ * read-only direct buffers shared by all the requests, in LRU order bounded by a size in bytes.
+ */
+public class AssetCache {
+
+  /** Max number of paths to remember from sources without index. */
+  static final int MAX_ENTRIES = 4096;
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final AssetSource[] sources;
+
+  /** Files per source or <code>null</code> when source can't be listed. */
+  private final Set<String>[] index;
+
+  private final boolean indexed;
+
+  private final long maxSize;
+
+  private final long maxAssetSize;
+
+  private final ConcurrentMap<String, CachedAsset> assets = new ConcurrentHashMap<>();
+
+  private final Set<String> missing = ConcurrentHashMap.newKeySet();
+
+  /** Access ordered, guarded by itself. */
+  private final Map<String, ByteBuffer> contents = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long size;
+
+  /**
+   * Creates a new asset cache.
+   *
+   * @param sources Asset sources.
+   * @param maxSize Max size in bytes of cached content.
+   * @param maxAssetSize Max size in bytes of a cached asset. Larger assets are streamed.
+   */
+  public AssetCache(@Nonnull AssetSource[] sources, long maxSize, long maxAssetSize) {
+    this.sources = sources;
+    this.maxSize = maxSize;
+    this.maxAssetSize = Math.min(maxSize, maxAssetSize);
+    this.index = new Set[sources.length];
+    boolean indexed = true;
+    for (int i = 0; i < sources.length; i++) {
+      index[i] = list(sources[i]);
+      indexed = indexed && index[i] != null;
+    }
+    this.indexed = indexed;
+  }
+
+  /**
+   * Resolve an asset.
+   *
+   * @param path Asset path.
+   * @return Asset or <code>null</code>.
+   */
+  public @Nullable CachedAsset resolve(@Nonnull String path) {
+    CachedAsset asset = assets.get(path);
+    if (asset != null) {
+      return asset;
+    }
+    if (missing.contains(path)) {
+      return null;
+    }
+    Asset resolved = resolveSource(path);
+    if (resolved == null) {
+      if (!indexed && missing.size() < MAX_ENTRIES) {
+        missing.add(path);
+      }
+      return null;
+    }
+    try (Asset source = resolved) {
+      asset = new CachedAsset(this, path, source);
+    } catch (Exception x) {
+      throw SneakyThrows.propagate(x);
+    }
+    if (indexed || assets.size() < MAX_ENTRIES) {
+      CachedAsset existing = assets.putIfAbsent(path, asset);
+      if (existing != null) {
+        return existing;
+      }
+    }
+    return asset;
+  }
+
+  /**
+   * Asset content when asset is small enough to be cached.
+   *
+   * @param asset Asset.
+   * @return Read-only content or <code>null</code> when asset must be streamed.
+   */
+  public @Nullable ByteBuffer content(@Nonnull CachedAsset asset) {
+    String path = asset.getPath();
+    ByteBuffer content;
+    synchronized (contents) {
+      content = contents.get(path);
+    }
+    if (content == null) {
+      long len = asset.getSize();
+      if (len < 0 || len > maxAssetSize) {
+        return null;
+      }
+      content = load(asset, (int) len);
+      if (content == null) {
+        return null;
+      }
+      synchronized (contents) {
+        ByteBuffer existing = contents.put(path, content);
+        size += content.capacity() - (existing == null ? 0 : existing.capacity());
+        Iterator<ByteBuffer> it = contents.values().iterator();
+        while (size > maxSize) {
+          size -= it.next().capacity();
+          it.remove();
+        }
+      }
+    }
+    return content.duplicate();
+  }
+
+  /**
+   * @return Size in bytes of cached content.
+   */
+  public long getSize() {
+    synchronized (contents) {
+      return size;
+    }
+  }
+
+  InputStream stream(CachedAsset asset) {
+    Asset resolved = resolveSource(asset.getPath());
+    if (resolved == null) {
+      throw new StatusCodeException(StatusCode.NOT_FOUND);
+    }
+    return resolved.stream();
+  }
+
+  private ByteBuffer load(CachedAsset asset, int len) {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(len);
+    byte[] chunk = new byte[Math.max(1, Math.min(len, BUFFER_SIZE))];
+    try (InputStream in = asset.stream()) {
+      int read;
+      while ((read = in.read(chunk)) != -1) {
+        if (read > buffer.remaining()) {
+          // Asset has changed, don't cache it
+          return null;
+        }
+        buffer.put(chunk, 0, read);
+      }
+    } catch (IOException x) {
+      throw SneakyThrows.propagate(x);
+    }
+    buffer.flip();
+    return buffer.asReadOnlyBuffer();
+  }
+
+  private Asset resolveSource(String path) {
+    for (int i = 0; i < sources.length; i++) {
+      if (index[i] == null || exists(index[i], path)) {
+        Asset asset = sources[i].resolve(path);
+        if (asset != null) {
+          return asset;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static boolean exists(Set<String> files, String path) {
+    String file = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    return files.contains(file)
+        || files.contains(file.isEmpty() ? "index.html" : file + "/index.html");
+  }
+
+  private static Set<String> list(AssetSource source) {
+    if (source instanceof FolderDiskAssetSource) {
+      return ((FolderDiskAssetSource) source).list();
+    }
+    if (source instanceof ClassPathAssetSource) {
+      return ((ClassPathAssetSource) source).list();
+    }
+    return null;
+  }
+}
@@ -0,0 +1,144 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import io.jooby.BlockingCallDetector;
+import io.jooby.Context;
+import io.jooby.Route;
+import io.jooby.StatusCode;
+import io.jooby.StatusCodeException;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the route each IO thread is running and since when. A timer checks IO threads
+ * periodically and reports the ones running a route for longer than the threshold.
+ */
+public class BlockingCallWatchdog {
+
+  /** Per IO thread state, written by the IO thread and read by the timer. */
+  private static class Slot {
+    private final Thread thread = Thread.currentThread();
+
+    /** Running route or <code>null</code> when idle. */
+    private volatile Route route;
+
+    private volatile long start;
+
+    private volatile boolean reported;
+  }
+
+  private final ThreadLocal<Slot> slots = ThreadLocal.withInitial(this::register);
+
+  private final Queue<Slot> threads = new ConcurrentLinkedQueue<>();
+
+  private final long threshold;
+
+  private final boolean strict;
+
+  private final BlockingCallDetector.Listener listener;
+
+  private final Logger log;
+
+  private ScheduledFuture<?> timer;
+
+  public BlockingCallWatchdog(BlockingCallDetector detector, Logger log) {
+    this.threshold = detector.getThreshold().toNanos();
+    this.strict = detector.isStrict();
+    this.log = log;
+    BlockingCallDetector.Listener listener = detector.getListener();
+    this.listener = listener == null ? (route, thread, elapsed, stackTrace) -> {
+      Throwable blockedAt = new Throwable("blocked at");
+      blockedAt.setStackTrace(stackTrace);
+      log.warn("blocking call on IO thread {} for {}ms: {} {}", thread.getName(),
+          elapsed.toMillis(), route.getMethod(), route.getPattern(), blockedAt);
+    } : listener;
+  }
+
+  public void start() {
+    long period = Math.max(TimeUnit.MILLISECONDS.toNanos(1), threshold / 2);
+    timer = SharedTimer.get().scheduleWithFixedDelay(this::check, period, period,
+        TimeUnit.NANOSECONDS);
+  }
+
+  public void stop() {
+    if (timer != null) {
+      timer.cancel(false);
+      timer = null;
+    }
+    threads.clear();
+  }
+
+  public Object execute(Context ctx, Route.Handler next) throws Exception {
+    if (!ctx.isInIoThread()) {
+      return next.apply(ctx);
+    }
+    Slot slot = slots.get();
+    if (slot.route != null) {
+      /** Nested call, already tracked: */
+      return next.apply(ctx);
+    }
+    long start = System.nanoTime();
+    slot.start = start;
+    slot.reported = false;
+    slot.route = ctx.getRoute();
+    try {
+      Object result = next.apply(ctx);
+      long elapsed = System.nanoTime() - start;
+      if (strict && elapsed > threshold) {
+        String message = "Blocking call on IO thread " + slot.thread.getName() + " for "
+            + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms: " + ctx.getMethod() + " "
+            + ctx.pathString();
+        if (ctx.isResponseStarted()) {
+          /** Too late for an error response, abort so client doesn't take it as a success: */
+          log.error("{}, response already started: connection aborted", message);
+          ctx.abort();
+          return result;
+        }
+        throw new StatusCodeException(StatusCode.SERVER_ERROR, message);
+      }
+      return result;
+    } finally {
+      slot.route = null;
+    }
+  }
+
+  private Slot register() {
+    Slot slot = new Slot();
+    threads.offer(slot);
+    return slot;
+  }
+
+  private void check() {
+    long now = System.nanoTime();
+    Iterator<Slot> iterator = threads.iterator();
+    while (iterator.hasNext()) {
+      Slot slot = iterator.next();
+      if (!slot.thread.isAlive()) {
+        iterator.remove();
+        continue;
+      }
+      Route route = slot.route;
+      if (route != null && !slot.reported) {
+        long elapsed = now - slot.start;
+        if (elapsed > threshold) {
+          slot.reported = true;
+          StackTraceElement[] stackTrace = slot.thread.getStackTrace();
+          /** Still on the same request? */
+          if (slot.route == route) {
+            listener.onBlockingCall(route, slot.thread, Duration.ofNanos(elapsed), stackTrace);
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import io.jooby.Asset;
+import io.jooby.Context;
+import io.jooby.MediaType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.InputStream;
+import java.time.Instant;
+
+/**
+ * Immutable asset metadata with precomputed response headers. Content is kept by
+ * {@link AssetCache} or streamed from original source.
+ */
+public class CachedAsset implements Asset {
+
+  private final AssetCache cache;
+
+  private final String path;
+
+  private final MediaType contentType;
+
+  private final long size;
+
+  private final long lastModified;
+
+  private final String etag;
+
+  private final String lastModifiedHeader;
+
+  CachedAsset(AssetCache cache, String path, Asset asset) {
+    this.cache = cache;
+    this.path = path;
+    this.contentType = asset.getContentType();
+    this.size = asset.getSize();
+    this.lastModified = asset.getLastModified();
+    this.etag = asset.getEtag();
+    this.lastModifiedHeader = lastModified > 0
+        ? Context.RFC1123.format(Instant.ofEpochMilli(lastModified))
+        : null;
+  }
+
+  /**
+   * @return Asset path.
+   */
+  public @Nonnull String getPath() {
+    return path;
+  }
+
+  /**
+   * @return Last-Modified header value or <code>null</code>.
+   */
+  public @Nullable String getLastModifiedHeader() {
+    return lastModifiedHeader;
+  }
+
+  @Override public long getSize() {
+    return size;
+  }
+
+  @Override public long getLastModified() {
+    return lastModified;
+  }
+
+  @Override public boolean isDirectory() {
+    return false;
+  }
+
+  @Nonnull @Override public String getEtag() {
+    return etag;
+  }
+
+  @Nonnull @Override public MediaType getContentType() {
+    return contentType;
+  }
+
+  @Override public InputStream stream() {
+    return cache.stream(this);
+  }
+
+  @Override public void close() {
+    // NOOP
+  }
+
+  @Override public String toString() {
+    return path;
+  }
+}
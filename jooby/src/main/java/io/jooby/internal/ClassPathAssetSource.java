@@ -10,12 +10,19 @@ import io.jooby.AssetSource;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.File;
 import java.net.JarURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 
 public class ClassPathAssetSource implements AssetSource {
@@ -55,6 +62,54 @@ public class ClassPathAssetSource implements AssetSource {
     return asset;
   }
 
+  /**
+   * List files from this source. Like any other classpath scanning, it requires directory entries
+   * on jar files.
+   *
+   * @return Relative path of files or <code>null</code> when listing isn't possible: source is
+   *     a file, the root classpath or resources are not from file system or jar files.
+   */
+  public @Nullable Set<String> list() {
+    if (!isDir || prefix.isEmpty()) {
+      return null;
+    }
+    try {
+      Set<String> files = new HashSet<>();
+      Enumeration<URL> resources = loader.getResources(source);
+      if (!resources.hasMoreElements()) {
+        return null;
+      }
+      while (resources.hasMoreElements()) {
+        URL resource = resources.nextElement();
+        URLConnection connection = resource.openConnection();
+        if (connection instanceof JarURLConnection) {
+          connection.setUseCaches(false);
+          try (JarFile jar = ((JarURLConnection) connection).getJarFile()) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+              JarEntry entry = entries.nextElement();
+              if (!entry.isDirectory() && entry.getName().startsWith(prefix)) {
+                files.add(entry.getName().substring(prefix.length()));
+              }
+            }
+          }
+        } else if ("file".equals(resource.getProtocol())) {
+          Path dir = Paths.get(resource.toURI());
+          try (Stream<Path> stream = Files.walk(dir)) {
+            stream.filter(Files::isRegularFile)
+                .map(file -> dir.relativize(file).toString().replace(File.separatorChar, '/'))
+                .forEach(files::add);
+          }
+        } else {
+          return null;
+        }
+      }
+      return files;
+    } catch (Exception x) {
+      return null;
+    }
+  }
+
   private String sourcePrefix(String path) {
     if (path.length() > 0 && !path.endsWith("/")) {
       return path + "/";
@@ -0,0 +1,150 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import io.jooby.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Completion and cancel actions of a request, see {@link Context#onComplete(Runnable)} and
+ * {@link Context#onCancel(Runnable)}. Servers call {@link #complete(Context)} once the response
+ * was sent, or {@link #abort(Context)} when the client went away (or the response failed) before
+ * that. Cancel actions only run on abort. Actions added after that run right away, cancel actions
+ * only when the exchange was aborted.
+ */
+public class CompletionListeners {
+
+  private List<Runnable> actions;
+
+  private List<Runnable> cancelActions;
+
+  private boolean listening;
+
+  private boolean completed;
+
+  private boolean aborted;
+
+  /**
+   * Add a completion action.
+   *
+   * @param ctx Web context.
+   * @param action Completion action.
+   * @return True for the first (completion or cancel) action of the request.
+   */
+  public boolean add(Context ctx, Runnable action) {
+    synchronized (this) {
+      if (!completed) {
+        if (actions == null) {
+          actions = new ArrayList<>(2);
+        }
+        actions.add(action);
+        return first();
+      }
+    }
+    run(ctx, action, "completion");
+    return false;
+  }
+
+  /**
+   * Add a cancel action. It runs once: when the request deadline expires or when the exchange is
+   * aborted, whatever happens first.
+   *
+   * @param ctx Web context.
+   * @param action Cancel action.
+   * @return True for the first (completion or cancel) action of the request.
+   */
+  public boolean onCancel(Context ctx, Runnable action) {
+    AtomicBoolean done = new AtomicBoolean();
+    Runnable once = () -> {
+      if (done.compareAndSet(false, true)) {
+        action.run();
+      }
+    };
+    RequestDeadline deadline = RequestDeadline.get(ctx);
+    if (deadline != null) {
+      deadline.onCancel(once);
+    }
+    synchronized (this) {
+      if (!completed) {
+        if (cancelActions == null) {
+          cancelActions = new ArrayList<>(2);
+        }
+        cancelActions.add(once);
+        return first();
+      }
+      if (!aborted) {
+        return false;
+      }
+    }
+    run(ctx, once, "cancel");
+    return false;
+  }
+
+  private boolean first() {
+    boolean first = !listening;
+    listening = true;
+    return first;
+  }
+
+  /**
+   * Run completion actions. Only the first call (of this method or {@link #abort(Context)}) runs
+   * them.
+   *
+   * @param ctx Web context.
+   */
+  public void complete(Context ctx) {
+    complete(ctx, false);
+  }
+
+  /**
+   * Run cancel actions, then completion actions. Only the first call (of this method or
+   * {@link #complete(Context)}) runs them.
+   *
+   * @param ctx Web context.
+   */
+  public void abort(Context ctx) {
+    complete(ctx, true);
+  }
+
+  private void complete(Context ctx, boolean abort) {
+    List<Runnable> actions;
+    List<Runnable> cancelActions;
+    synchronized (this) {
+      if (completed) {
+        return;
+      }
+      completed = true;
+      aborted = abort;
+      actions = this.actions;
+      cancelActions = this.cancelActions;
+      this.actions = null;
+      this.cancelActions = null;
+    }
+    if (abort && cancelActions != null) {
+      for (Runnable action : cancelActions) {
+        run(ctx, action, "cancel");
+      }
+    }
+    if (actions != null) {
+      for (Runnable action : actions) {
+        run(ctx, action, "completion");
+      }
+    }
+  }
+
+  private static void run(Context ctx, Runnable action, String type) {
+    try {
+      action.run();
+    } catch (Throwable x) {
+      ctx.getRouter().getLog()
+          .error("{} action resulted in exception {} {}", type, ctx.getMethod(),
+              ctx.pathString(), x);
+    }
+  }
+}
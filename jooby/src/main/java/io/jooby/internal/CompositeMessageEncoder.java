@@ -15,6 +15,7 @@ import io.netty.buffer.ByteBuf;
 import javax.annotation.Nonnull;
 import java.io.File;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
@@ -38,6 +39,15 @@ public class CompositeMessageEncoder implements MessageEncoder {
     return this;
   }
 
+  /**
+   * Encoders of values other than built-in types and {@link ModelAndView}.
+   *
+   * @return Encoders.
+   */
+  public List<MessageEncoder> getEncoders() {
+    return decoders;
+  }
+
   @Override public byte[] encode(@Nonnull Context ctx, @Nonnull Object value) throws Exception {
     if (value instanceof ModelAndView) {
       ModelAndView modelAndView = (ModelAndView) value;
@@ -99,4 +109,56 @@ public class CompositeMessageEncoder implements MessageEncoder {
     }
     return result;
   }
+
+  @Override public boolean encode(@Nonnull Context ctx, @Nonnull Object value,
+      @Nonnull OutputStream output) throws Exception {
+    if (value instanceof ModelAndView) {
+      ModelAndView modelAndView = (ModelAndView) value;
+      for (TemplateEngine engine : templateEngine) {
+        if (engine.supports(modelAndView)) {
+          return engine.encode(ctx, modelAndView, output);
+        }
+      }
+      throw new IllegalArgumentException("No template engine for: " + modelAndView.getView());
+    }
+    if (isBuiltin(value)) {
+      /** Built-in types are sent as they are: */
+      byte[] bytes = encode(ctx, value);
+      if (bytes != null) {
+        ctx.send(bytes);
+      }
+      return true;
+    }
+    Iterator<MessageEncoder> iterator = decoders.iterator();
+    /** NOTE: looks like an infinite loop but there is a default renderer at the end of iterator. */
+    boolean result = false;
+    while (!result) {
+      MessageEncoder next = iterator.next();
+      result = next.encode(ctx, value, output);
+    }
+    return true;
+  }
+
+  /**
+   * True for types sent as they are, without calling an encoder.
+   *
+   * @param type Value type.
+   * @return True for built-in types.
+   */
+  public static boolean isBuiltin(Class<?> type) {
+    return InputStream.class.isAssignableFrom(type)
+        || FileChannel.class.isAssignableFrom(type)
+        || File.class.isAssignableFrom(type)
+        || Path.class.isAssignableFrom(type)
+        || AttachedFile.class.isAssignableFrom(type)
+        || CharSequence.class.isAssignableFrom(type)
+        || Number.class.isAssignableFrom(type)
+        || byte[].class == type
+        || ByteBuffer.class.isAssignableFrom(type)
+        || ByteBuf.class.isAssignableFrom(type);
+  }
+
+  private static boolean isBuiltin(Object value) {
+    return isBuiltin(value.getClass());
+  }
 }
@@ -0,0 +1,70 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import io.jooby.ConcurrencyLimit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In flight requests of a {@link ConcurrencyLimit}. Routes sharing the same limit share the same
+ * limiter. Admission and release are lock-free.
+ */
+public class ConcurrencyLimiter {
+
+  private final ConcurrencyLimit limit;
+
+  private final AtomicInteger inflight = new AtomicInteger();
+
+  private final LongAdder rejected = new LongAdder();
+
+  private final Duration retryAfter;
+
+  public ConcurrencyLimiter(ConcurrencyLimit limit) {
+    this(limit, ServiceUnavailable.RETRY_AFTER);
+  }
+
+  public ConcurrencyLimiter(ConcurrencyLimit limit, Duration retryAfter) {
+    this.limit = limit;
+    this.retryAfter = retryAfter;
+  }
+
+  public boolean tryAcquire() {
+    for (;;) {
+      int current = inflight.get();
+      if (current >= limit.getLimit()) {
+        rejected.increment();
+        return false;
+      }
+      if (inflight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  public void release(long rtt) {
+    limit.onSample(rtt, inflight.get());
+    inflight.decrementAndGet();
+  }
+
+  public int getInflight() {
+    return inflight.get();
+  }
+
+  public long getRejected() {
+    return rejected.sum();
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+
+  @Override public String toString() {
+    return "inflight: " + inflight.get() + "/" + limit;
+  }
+}
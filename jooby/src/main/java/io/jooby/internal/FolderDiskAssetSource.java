@@ -10,8 +10,15 @@ import io.jooby.AssetSource;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class FolderDiskAssetSource implements AssetSource {
   private Path location;
@@ -36,6 +43,21 @@ public class FolderDiskAssetSource implements AssetSource {
     return null;
   }
 
+  /**
+   * List files from this source.
+   *
+   * @return Relative path of files or <code>null</code> when listing isn't possible.
+   */
+  public @Nullable Set<String> list() {
+    try (Stream<Path> files = Files.walk(location, FileVisitOption.FOLLOW_LINKS)) {
+      return files.filter(Files::isRegularFile)
+          .map(file -> location.relativize(file).toString().replace(File.separatorChar, '/'))
+          .collect(Collectors.toSet());
+    } catch (IOException | UncheckedIOException x) {
+      return null;
+    }
+  }
+
   @Override public String toString() {
     return location.toString();
   }
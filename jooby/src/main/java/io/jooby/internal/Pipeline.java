@@ -6,13 +6,17 @@
 package io.jooby.internal;
 
 import io.jooby.AttachedFile;
+import io.jooby.Bulkhead;
 import io.jooby.Context;
 import io.jooby.ExecutionMode;
 import io.jooby.Reified;
 import io.jooby.ResponseHandler;
 import io.jooby.Route;
 import io.jooby.Route.Handler;
+import io.jooby.Value;
+import io.jooby.internal.handler.BulkheadHandler;
 import io.jooby.internal.handler.CompletionStageHandler;
+import io.jooby.internal.handler.ConcurrencyLimitHandler;
 import io.jooby.internal.handler.DefaultHandler;
 import io.jooby.internal.handler.DetachHandler;
 import io.jooby.internal.handler.DispatchHandler;
@@ -24,6 +28,7 @@ import io.jooby.internal.handler.SendByteBuffer;
 import io.jooby.internal.handler.SendCharSequence;
 import io.jooby.internal.handler.SendDirect;
 import io.jooby.internal.handler.SendFileChannel;
+import io.jooby.internal.handler.SendIterator;
 import io.jooby.internal.handler.SendStream;
 import io.jooby.internal.handler.WorkerHandler;
 import io.jooby.internal.handler.reactive.ObservableHandler;
@@ -41,15 +46,36 @@ import java.lang.reflect.Type;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
+import java.util.stream.BaseStream;
 
 public class Pipeline {
 
   public static Handler compute(ClassLoader loader, Route route, ExecutionMode mode,
       Executor executor, List<ResponseHandler> responseHandler) {
+    return compute(loader, route, mode, executor, responseHandler, true);
+  }
+
+  public static Handler compute(ClassLoader loader, Route route, ExecutionMode mode,
+      Executor executor, List<ResponseHandler> responseHandler, boolean blocking) {
+    return compute(loader, route, mode, executor, responseHandler, blocking, null);
+  }
+
+  public static Handler compute(ClassLoader loader, Route route, ExecutionMode mode,
+      Executor executor, List<ResponseHandler> responseHandler, boolean blocking,
+      ConcurrencyLimiter limiter) {
+    Handler dispatch = dispatch(loader, route, mode, executor, responseHandler, blocking);
+    /** Admission in front of the dispatch stage, excess load never reaches the executor: */
+    return limiter == null ? dispatch : new ConcurrencyLimitHandler(dispatch, limiter);
+  }
+
+  private static Handler dispatch(ClassLoader loader, Route route, ExecutionMode mode,
+      Executor executor, List<ResponseHandler> responseHandler, boolean blocking) {
     Type returnType = route.getReturnType();
     Class<?> type = Reified.rawType(returnType);
     if (CompletionStage.class.isAssignableFrom(type)) {
@@ -155,28 +181,34 @@ public class Pipeline {
     }
     /** Strings: */
     if (CharSequence.class.isAssignableFrom(type)) {
-      return next(mode, executor, new SendCharSequence(route.getPipeline()), true);
+      return next(mode, executor, new SendCharSequence(route.getPipeline()), blocking);
     }
     /** RawByte: */
     if (byte[].class == type) {
-      return next(mode, executor, new SendByteArray(route.getPipeline()), true);
+      return next(mode, executor, new SendByteArray(route.getPipeline()), blocking);
     }
     if (ByteBuffer.class.isAssignableFrom(type)) {
-      return next(mode, executor, new SendByteBuffer(route.getPipeline()), true);
+      return next(mode, executor, new SendByteBuffer(route.getPipeline()), blocking);
     }
     if (ByteBuf.class.isAssignableFrom(type)) {
-      return next(mode, executor, new SendByteBuf(route.getPipeline()), true);
+      return next(mode, executor, new SendByteBuf(route.getPipeline()), blocking);
     }
 
     if (responseHandler != null) {
-      return responseHandler.stream().filter(it -> it.matches(returnType))
-          .findFirst()
-          .map(factory ->
-              next(mode, executor, factory.create(route.getPipeline()), true)
-          )
-          .orElseGet(() -> next(mode, executor, new DefaultHandler(route.getPipeline()), true));
+      Optional<ResponseHandler> factory = responseHandler.stream()
+          .filter(it -> it.matches(returnType))
+          .findFirst();
+      if (factory.isPresent()) {
+        return next(mode, executor, factory.get().create(route.getPipeline()), true);
+      }
     }
-    return next(mode, executor, new DefaultHandler(route.getPipeline()), true);
+    /** Stream, Iterator and Iterable (collections and values are already in memory): */
+    if (BaseStream.class.isAssignableFrom(type) || Iterator.class.isAssignableFrom(type)
+        || (Iterable.class.isAssignableFrom(type) && !Collection.class.isAssignableFrom(type)
+        && !Value.class.isAssignableFrom(type))) {
+      return next(mode, executor, new SendIterator(route.getPipeline()), true);
+    }
+    return next(mode, executor, new DefaultHandler(route.getPipeline()), blocking);
   }
 
   private static Handler completableFuture(ExecutionMode mode, Route next, Executor executor) {
@@ -243,8 +275,17 @@ public class Pipeline {
       if (mode == ExecutionMode.DEFAULT && blocking) {
         return new WorkerHandler(handler);
       }
+      if (mode == ExecutionMode.VIRTUAL && blocking) {
+        Executor virtual = VirtualThreadExecutor.get();
+        return virtual == null
+            ? new WorkerHandler(handler)
+            : new DispatchHandler(handler, virtual);
+      }
       return handler;
     }
+    if (executor instanceof Bulkhead) {
+      return new BulkheadHandler(handler, (Bulkhead) executor);
+    }
     return new DispatchHandler(handler, executor);
   }
 
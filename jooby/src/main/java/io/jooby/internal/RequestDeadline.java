@@ -0,0 +1,126 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import io.jooby.Context;
+import io.jooby.StatusCode;
+import io.jooby.StatusCodeException;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Request deadline, saved as context attribute. Timer is scheduled on first cancel action, so
+ * requests without cancel actions don't pay for it. Timer is cancelled once the response completes.
+ */
+public class RequestDeadline implements Runnable {
+
+  /** Attribute name. */
+  public static final String KEY = RequestDeadline.class.getName();
+
+  private final Context ctx;
+
+  /** Deadline in nanos, as reported by {@link System#nanoTime()}. */
+  private final long deadline;
+
+  private final Queue<Runnable> actions = new ConcurrentLinkedQueue<>();
+
+  private final AtomicBoolean expired = new AtomicBoolean();
+
+  private volatile ScheduledFuture<?> timer;
+
+  private RequestDeadline(Context ctx, long deadline) {
+    this.ctx = ctx;
+    this.deadline = deadline;
+  }
+
+  public static RequestDeadline get(Context ctx) {
+    return (RequestDeadline) ctx.getAttributes().get(KEY);
+  }
+
+  public static void set(Context ctx, Duration timeout) {
+    RequestDeadline previous = get(ctx);
+    RequestDeadline deadline = new RequestDeadline(ctx, System.nanoTime() + timeout.toNanos());
+    ctx.getAttributes().put(KEY, deadline);
+    if (previous != null) {
+      /** Move cancel actions to the new deadline: */
+      previous.cancelTimer();
+      Runnable action;
+      while ((action = previous.actions.poll()) != null) {
+        deadline.onCancel(action);
+      }
+    }
+  }
+
+  public static StatusCodeException exceeded() {
+    return new StatusCodeException(StatusCode.GATEWAY_TIMEOUT, "Request deadline exceeded");
+  }
+
+  public Duration getRemainingTime() {
+    return Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+  }
+
+  public boolean isExpired() {
+    return expired.get() || deadline - System.nanoTime() <= 0;
+  }
+
+  public void onCancel(Runnable action) {
+    if (expired.get()) {
+      action.run();
+      return;
+    }
+    actions.offer(action);
+    if (timer == null) {
+      boolean scheduled = false;
+      synchronized (this) {
+        if (timer == null) {
+          timer = SharedTimer.get()
+              .schedule(this, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+          scheduled = true;
+        }
+      }
+      if (scheduled) {
+        /** Response done before the deadline, drop timer and cancel actions: */
+        ctx.onComplete(this::complete);
+      }
+    }
+    /** Expired while adding: */
+    if (expired.get() && actions.remove(action)) {
+      action.run();
+    }
+  }
+
+  @Override public void run() {
+    if (expired.compareAndSet(false, true)) {
+      Runnable action;
+      while ((action = actions.poll()) != null) {
+        try {
+          action.run();
+        } catch (Throwable x) {
+          ctx.getRouter().getLog()
+              .error("cancel action resulted in exception {} {}", ctx.getMethod(),
+                  ctx.pathString(), x);
+        }
+      }
+    }
+  }
+
+  private void complete() {
+    cancelTimer();
+    actions.clear();
+  }
+
+  private void cancelTimer() {
+    ScheduledFuture<?> timer = this.timer;
+    if (timer != null) {
+      timer.cancel(false);
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import io.jooby.Context;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Output sink for {@link io.jooby.MessageEncoder#encode(Context, Object, OutputStream)}.
+ *
+ * Output is buffered in memory up to <code>bufferSize</code> bytes and sent as a single response
+ * (with <code>Content-Length</code>) on close. Once output exceeds buffer size, it switches to
+ * {@link Context#responseStream()} (chunked) so large responses are never fully kept in memory.
+ *
+ * Response is sent only if the encoder writes into (or flushes) this output. Encoders that don't
+ * use it are expected to send the response by other means, like {@link Context#send(byte[])}.
+ */
+public class ResponseOutputStream extends OutputStream {
+
+  private static final int INITIAL_SIZE = 1024;
+
+  private static final byte[] EMPTY = new byte[0];
+
+  private final Context ctx;
+
+  private final int bufferSize;
+
+  private byte[] buffer = EMPTY;
+
+  private int count;
+
+  private OutputStream out;
+
+  private boolean used;
+
+  private boolean closed;
+
+  /**
+   * Creates a new response output stream.
+   *
+   * @param ctx Web context.
+   * @param bufferSize Max number of bytes to buffer before switching to chunked response.
+   */
+  public ResponseOutputStream(@Nonnull Context ctx, int bufferSize) {
+    this.ctx = ctx;
+    this.bufferSize = bufferSize;
+  }
+
+  @Override public void write(int b) throws IOException {
+    used = true;
+    if (out == null && count < bufferSize) {
+      ensureCapacity(count + 1);
+      buffer[count++] = (byte) b;
+    } else {
+      chunked().write(b);
+    }
+  }
+
+  @Override public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+    used = true;
+    if (out == null && count + len <= bufferSize) {
+      ensureCapacity(count + len);
+      System.arraycopy(b, off, buffer, count, len);
+      count += len;
+    } else {
+      chunked().write(b, off, len);
+    }
+  }
+
+  @Override public void flush() throws IOException {
+    used = true;
+    // Buffered output is sent on close
+    if (out != null) {
+      out.flush();
+    }
+  }
+
+  @Override public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (out != null) {
+      out.close();
+    } else if (used) {
+      ctx.send(ByteBuffer.wrap(buffer, 0, count));
+    }
+    buffer = null;
+  }
+
+  /**
+   * Discard output after an encoder error. Buffered output is dropped, so an error response can
+   * be sent. Once output went to the chunked response, the response is aborted: it can't be
+   * replaced by an error response and a truncated body must not look like a complete one.
+   */
+  public void abort() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    buffer = null;
+    if (out != null) {
+      ctx.abort();
+    }
+  }
+
+  private OutputStream chunked() throws IOException {
+    if (out == null) {
+      out = ctx.responseStream();
+      out.write(buffer, 0, count);
+      buffer = null;
+    }
+    return out;
+  }
+
+  private void ensureCapacity(int size) {
+    if (size > buffer.length) {
+      int capacity = Math.max(INITIAL_SIZE, buffer.length << 1);
+      buffer = Arrays.copyOf(buffer, Math.min(Math.max(capacity, size), bufferSize));
+    }
+  }
+}
@@ -27,6 +27,7 @@ import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.util.Date;
+import java.util.List;
 
 public class ResponseStartedContext extends ForwardingContext {
   private static final String MESSAGE = "The response has already been started";
@@ -55,6 +56,14 @@ public class ResponseStartedContext extends ForwardingContext {
     throw new IllegalStateException(MESSAGE);
   }
 
+  @Nonnull @Override public Context send(@Nonnull ByteBuffer[] data) {
+    throw new IllegalStateException(MESSAGE);
+  }
+
+  @Nonnull @Override public Context send(@Nonnull List<ByteBuffer> data) {
+    throw new IllegalStateException(MESSAGE);
+  }
+
   @Nonnull @Override public Context send(@Nonnull FileChannel file) {
     throw new IllegalStateException(MESSAGE);
   }
@@ -7,6 +7,7 @@ package io.jooby.internal;
 
 import io.jooby.Context;
 import io.jooby.SneakyThrows;
+import io.jooby.internal.asm.BlockingCalls;
 import io.jooby.internal.asm.ClassSource;
 import io.jooby.internal.asm.Lambdas;
 import io.jooby.internal.asm.MethodFinder;
@@ -59,6 +60,24 @@ public class RouteAnalyzer {
     }
   }
 
+  /**
+   * Find a blocking call made by a route handler (or filter), following calls a few levels deep.
+   *
+   * @param handler Route handler, filter or MVC method.
+   * @return Blocking call or <code>null</code> when no blocking call was found.
+   */
+  public String blockingCall(Object handler) {
+    try {
+      Method method = handler instanceof Method ? (Method) handler : methodHandler(handler);
+      if (method == null) {
+        return "unknown " + handler.getClass().getName();
+      }
+      return new BlockingCalls(source).find(method);
+    } catch (Exception x) {
+      throw SneakyThrows.propagate(x);
+    }
+  }
+
   private Method methodHandler(Object handler) throws Exception {
     Method result = Lambdas.getLambdaMethod(this.source.getLoader(), handler);
     if (result == null) {
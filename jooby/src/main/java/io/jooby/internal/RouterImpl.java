@@ -5,7 +5,9 @@
  */
 package io.jooby.internal;
 
+import io.jooby.ConcurrencyLimit;
 import io.jooby.Context;
+import io.jooby.Reified;
 import io.jooby.RegistryException;
 import io.jooby.ServiceKey;
 import io.jooby.StatusCodeException;
@@ -15,10 +17,14 @@ import io.jooby.Jooby;
 import io.jooby.MediaType;
 import io.jooby.MessageDecoder;
 import io.jooby.MessageEncoder;
+import io.jooby.ModelAndView;
+import io.jooby.PriorityExecutor;
 import io.jooby.ResponseHandler;
 import io.jooby.Route;
 import io.jooby.Router;
 import io.jooby.RouterOptions;
+import io.jooby.ServerSentEmitter;
+import io.jooby.WebSocket;
 import io.jooby.ServiceRegistry;
 import io.jooby.SessionOptions;
 import io.jooby.StatusCode;
@@ -26,6 +32,11 @@ import io.jooby.SneakyThrows;
 import io.jooby.TemplateEngine;
 import io.jooby.annotations.Dispatch;
 import io.jooby.internal.asm.ClassSource;
+import io.jooby.internal.handler.BlockingCallHandler;
+import io.jooby.internal.handler.ConcurrencyLimitHandler;
+import io.jooby.internal.handler.DeadlineHandler;
+import io.jooby.internal.handler.SingleFlightHandler;
+import io.jooby.internal.handler.WorkerHandler;
 import io.jooby.internal.mvc.MvcAnnotationParser;
 import io.jooby.internal.mvc.MvcCompiler;
 import io.jooby.internal.mvc.MvcMetadata;
@@ -37,14 +48,19 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnull;
 import javax.inject.Provider;
 import java.io.FileNotFoundException;
+import java.io.OutputStream;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -52,6 +68,7 @@ import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Predicate;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -114,6 +131,8 @@ public class RouterImpl implements Router {
 
   private RouterOptions options = new RouterOptions();
 
+  private BlockingCallWatchdog watchdog;
+
   private RadixTree chi = new $Chi();
 
   private LinkedList<Stack> stack = new LinkedList<>();
@@ -332,6 +351,18 @@ public class RouterImpl implements Router {
     return defineRoute(method, pattern, handler, chi);
   }
 
+  @Nonnull @Override
+  public Route sse(@Nonnull String pattern, @Nonnull ServerSentEmitter.Handler handler) {
+    return route(GET, pattern, new ServerSentHandler(handler))
+        .setReturnType(Context.class);
+  }
+
+  @Nonnull @Override
+  public Route ws(@Nonnull String pattern, @Nonnull WebSocket.Initializer handler) {
+    return route(GET, pattern, new WebSocketHandler(handler))
+        .setReturnType(Context.class);
+  }
+
   private Route defineRoute(@Nonnull String method, @Nonnull String pattern,
       @Nonnull Route.Handler handler, RadixTree tree) {
     /** Pattern: */
@@ -390,23 +421,80 @@ public class RouterImpl implements Router {
     }
     renderer.add(MessageEncoder.TO_STRING);
     ExecutionMode mode = owner.getExecutionMode();
+    if (mode == ExecutionMode.VIRTUAL && VirtualThreadExecutor.get() == null) {
+      owner.getLog().warn("virtual threads are not available on Java {}, blocking routes run in"
+          + " worker threads", System.getProperty("java.version"));
+    }
+    Map<Route, String> blockingAnalysis = new LinkedHashMap<>();
+    /** Routes sharing a limit share a limiter: */
+    Map<ConcurrencyLimit, ConcurrencyLimiter> limiters = new IdentityHashMap<>();
+    if (options.getBlockingCallDetector() != null) {
+      watchdog = new BlockingCallWatchdog(options.getBlockingCallDetector(), owner.getLog());
+      watchdog.start();
+    }
     for (Route route : routes) {
       Executor executor = routeExecutor.get(route);
       if (executor instanceof ForwardingExecutor) {
         executor = ((ForwardingExecutor) executor).executor;
       }
+      if (executor instanceof PriorityExecutor) {
+        executor = ((PriorityExecutor) executor).executor(route.getPriority());
+      }
+      route.setExecutor(executor);
       /** Return type: */
       if (route.getReturnType() == null) {
         route.setReturnType(analyzer.returnType(route.getHandle()));
       }
 
+      /** Blocking call detector, before rendering: */
+      if (watchdog != null) {
+        route.setPipeline(new BlockingCallHandler(route.getPipeline(), watchdog));
+      }
+      /** Blocking analysis: */
+      String blockingCall = null;
+      boolean analyze = options.isBlockingAnalysis() && mode == ExecutionMode.DEFAULT
+          && executor == null;
+      if (analyze) {
+        blockingCall = blockingCall(route);
+      }
+      /** Concurrency limit: */
+      ConcurrencyLimit limit = route.getConcurrencyLimit() == null
+          ? options.getConcurrencyLimit()
+          : route.getConcurrencyLimit();
+      ConcurrencyLimiter limiter = limit == null
+          ? null
+          : limiters.computeIfAbsent(limit,
+              it -> new ConcurrencyLimiter(it, options.getRetryAfter()));
       /** Response handler: */
       Route.Handler pipeline = Pipeline
-          .compute(source.getLoader(), route, mode, executor, handlers);
+          .compute(source.getLoader(), route, mode, executor, handlers,
+              !analyze || blockingCall != null, limiter);
+      if (analyze) {
+        Route.Handler dispatch = limiter == null
+            ? pipeline
+            : ((ConcurrencyLimitHandler) pipeline).next();
+        blockingAnalysis.put(route, dispatch instanceof WorkerHandler
+            ? "worker" + (blockingCall == null ? "" : ", calls " + blockingCall)
+            : "event loop");
+      }
+      /** Single flight: */
+      if (route.getSingleFlight() != null) {
+        pipeline = new SingleFlightHandler(pipeline, route.getSingleFlight());
+      }
+      /** Deadline: */
+      Duration timeout = route.getTimeout() == null
+          ? options.getRequestTimeout()
+          : route.getTimeout();
+      if (timeout != null || options.getDeadlineHeader() != null) {
+        pipeline = new DeadlineHandler(pipeline, timeout, options.getDeadlineHeader());
+      }
       route.setPipeline(pipeline);
       /** Final render */
       route.setEncoder(renderer);
     }
+    if (blockingAnalysis.size() > 0) {
+      owner.getLog().info("blocking analysis:\n\n{}\n", report(blockingAnalysis));
+    }
     // router options
     if (options.isIgnoreCase() || options.isIgnoreTrailingSlash()) {
       chi = chi.options(options.isIgnoreCase(), options.isIgnoreTrailingSlash());
@@ -422,6 +510,76 @@ public class RouterImpl implements Router {
     return this;
   }
 
+  private String blockingCall(Route route) {
+    for (Object handler : Arrays.asList(route.getBefore(), route.getDecorator(),
+        route.getHandle(), route.getAfter())) {
+      if (handler != null) {
+        String blockingCall = analyzer.blockingCall(handler);
+        if (blockingCall != null) {
+          return blockingCall;
+        }
+      }
+    }
+    /** Rendering: */
+    Class<?> type = Reified.rawType(route.getReturnType());
+    if (type == Object.class) {
+      /** Might be anything, like a view or a file: */
+      return "unknown " + Object.class.getName();
+    }
+    if (ModelAndView.class.isAssignableFrom(type)) {
+      return TemplateEngine.class.getName() + ".render";
+    }
+    if (!CompositeMessageEncoder.isBuiltin(type)) {
+      for (MessageEncoder encoder : renderer.getEncoders()) {
+        String blockingCall = encoderBlockingCall(encoder);
+        if (blockingCall != null) {
+          return blockingCall;
+        }
+      }
+    }
+    return null;
+  }
+
+  private String encoderBlockingCall(MessageEncoder encoder) {
+    if (encoder == MessageEncoder.TO_STRING) {
+      return null;
+    }
+    try {
+      for (Method method : Arrays.asList(
+          encoder.getClass().getMethod("encode", Context.class, Object.class),
+          encoder.getClass().getMethod("encode", Context.class, Object.class,
+              OutputStream.class))) {
+        /** Default methods call the other one: */
+        if (method.getDeclaringClass() != MessageEncoder.class) {
+          String blockingCall = analyzer.blockingCall(method);
+          if (blockingCall != null) {
+            return blockingCall;
+          }
+        }
+      }
+      return null;
+    } catch (NoSuchMethodException x) {
+      throw SneakyThrows.propagate(x);
+    }
+  }
+
+  private static String report(Map<Route, String> decisions) {
+    int method = decisions.keySet().stream()
+        .mapToInt(r -> r.getMethod().length() + 1)
+        .max()
+        .orElse(0);
+    int pattern = decisions.keySet().stream()
+        .mapToInt(r -> r.getPattern().length() + 1)
+        .max()
+        .orElse(0);
+    StringBuilder buff = new StringBuilder();
+    decisions.forEach((route, decision) -> buff
+        .append(String.format("\n  %-" + method + "s%-" + pattern + "s", route.getMethod(),
+            route.getPattern()))
+        .append(decision));
+    return buff.substring(1);
+  }
+
   @Override public Logger getLog() {
     return LoggerFactory.getLogger(getClass());
   }
@@ -432,6 +590,10 @@ public class RouterImpl implements Router {
   }
 
   public void destroy() {
+    if (watchdog != null) {
+      watchdog.stop();
+      watchdog = null;
+    }
     routes.clear();
     routes = null;
     chi.destroy();
@@ -487,6 +649,10 @@ public class RouterImpl implements Router {
     if (x instanceof FileNotFoundException) {
       return StatusCode.NOT_FOUND;
     }
+    if (x instanceof RejectedExecutionException) {
+      /** Saturated executor, like a full bulkhead: */
+      return StatusCode.SERVICE_UNAVAILABLE;
+    }
     return StatusCode.SERVER_ERROR;
   }
 
@@ -572,7 +738,8 @@ public class RouterImpl implements Router {
           .newHandler(source.getLoader(), method, provider);
 
       Route route = route(method.getHttpMethod(), method.getPattern(), instance)
-          .setReturnType(method.getReturnType(source.getLoader()));
+          .setReturnType(method.getReturnType(source.getLoader()))
+          .setHandle(method.getMethod());
 
       MvcAnnotation model = method.getModel();
       List<MediaType> produces = model.getProduces();
@@ -584,6 +751,11 @@ public class RouterImpl implements Router {
       if (consumes.size() > 0) {
         route.setConsumes(consumes);
       }
+
+      Dispatch dispatch = dispatch(method.getMethod());
+      if (dispatch != null) {
+        route.setPriority(dispatch.priority());
+      }
     });
   }
 
@@ -630,15 +802,16 @@ public class RouterImpl implements Router {
   }
 
   private String dispatchTo(Method method) {
+    Dispatch dispatch = dispatch(method);
+    return dispatch == null ? null : dispatch.value();
+  }
+
+  private Dispatch dispatch(Method method) {
     Dispatch dispatch = method.getAnnotation(Dispatch.class);
     if (dispatch != null) {
-      return dispatch.value();
+      return dispatch;
     }
-    Dispatch parent = method.getDeclaringClass().getAnnotation(Dispatch.class);
-    if (parent != null) {
-      return parent.value();
-    }
-    return null;
+    return method.getDeclaringClass().getAnnotation(Dispatch.class);
   }
 
   private String[] pathPrefix(String prefix, String[] path) {
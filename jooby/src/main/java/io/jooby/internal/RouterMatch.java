@@ -9,11 +9,14 @@ import io.jooby.Context;
 import io.jooby.MessageEncoder;
 import io.jooby.Route;
 import io.jooby.Router;
+import io.jooby.StatusCode;
+import io.jooby.StatusCodeException;
 
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 public class RouterMatch implements Router.Match {
 
@@ -74,6 +77,46 @@ public class RouterMatch implements Router.Match {
     }
   }
 
+  @Override public void expectContinue(Context context, long maxRequestSize,
+      Runnable onContinue) {
+    if (!matches) {
+      /** 404/405: reply now, don't wait for body. */
+      execute(context);
+      return;
+    }
+    context.setPathMap(vars);
+    context.setRoute(route);
+    try {
+      if (maxRequestSize > 0 && context.getRequestLength() > maxRequestSize) {
+        throw new StatusCodeException(StatusCode.REQUEST_ENTITY_TOO_LARGE);
+      }
+      if (route.getConsumes().size() > 0) {
+        /** Header only check, no need to leave the IO thread: */
+        Route.SUPPORT_MEDIA_TYPE.apply(context);
+      }
+      Route.Before before = route.getBefore();
+      if (before == null) {
+        onContinue.run();
+        return;
+      }
+      /** Before filters might block, run them on the route executor: */
+      Executor executor = route.getExecutor();
+      context.dispatch(executor == null ? context.getRouter().getWorker() : executor, () -> {
+        try {
+          before.apply(context);
+          if (!context.isResponseStarted()) {
+            context.attribute(Route.BEFORE_EXECUTED, Boolean.TRUE);
+            onContinue.run();
+          }
+        } catch (Throwable x) {
+          context.sendError(x);
+        }
+      });
+    } catch (Throwable x) {
+      context.sendError(x);
+    }
+  }
+
   public RouterMatch missing(String method, String path, MessageEncoder encoder) {
     Route.Handler h;
     if (this.handler == null) {
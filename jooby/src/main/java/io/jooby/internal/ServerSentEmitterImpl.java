@@ -0,0 +1,237 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import io.jooby.Context;
+import io.jooby.Sender;
+import io.jooby.ServerSentEmitter;
+import io.jooby.ServerSentMessage;
+import io.jooby.SneakyThrows;
+import org.slf4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class ServerSentEmitterImpl implements ServerSentEmitter {
+
+  private static final byte[] KEEP_ALIVE = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+  private final Context ctx;
+
+  private final Sender sender;
+
+  /** Fields below are guarded by this. */
+  private final ArrayDeque<byte[]> pending = new ArrayDeque<>();
+
+  private List<SneakyThrows.Runnable> closeTasks;
+
+  private int maxPending = MAX_PENDING;
+
+  private Overflow overflow = Overflow.DISCONNECT;
+
+  private boolean writing;
+
+  private boolean closing;
+
+  private boolean open = true;
+
+  private ScheduledFuture<?> keepAlive;
+
+  private volatile long lastWrite = System.nanoTime();
+
+  public ServerSentEmitterImpl(@Nonnull Context ctx) {
+    this.ctx = ctx;
+    this.sender = ctx.responseSender();
+  }
+
+  @Nonnull @Override public Context getContext() {
+    return ctx;
+  }
+
+  @Nullable @Override public String getLastEventId() {
+    return ctx.header("Last-Event-ID").valueOrNull();
+  }
+
+  @Override public synchronized boolean isOpen() {
+    return open && !closing;
+  }
+
+  @Nonnull @Override public ServerSentEmitter send(@Nonnull ServerSentMessage message) {
+    write(message.toByteArray(ctx));
+    return this;
+  }
+
+  @Nonnull @Override public ServerSentEmitter keepAlive(long interval, @Nonnull TimeUnit unit) {
+    long nanos = unit.toNanos(interval);
+    ScheduledFuture<?> task = SharedTimer.get().scheduleAtFixedRate(() -> {
+      if (System.nanoTime() - lastWrite >= nanos) {
+        keepAlive();
+      }
+    }, interval, interval, unit);
+    ScheduledFuture<?> previous;
+    synchronized (this) {
+      previous = keepAlive;
+      keepAlive = task;
+      if (!open) {
+        previous = task;
+      }
+    }
+    if (previous != null) {
+      previous.cancel(false);
+    }
+    return this;
+  }
+
+  @Nonnull @Override public synchronized ServerSentEmitter setMaxPending(int maxPending) {
+    this.maxPending = maxPending;
+    return this;
+  }
+
+  @Nonnull @Override public synchronized ServerSentEmitter setOverflow(@Nonnull Overflow overflow) {
+    this.overflow = overflow;
+    return this;
+  }
+
+  @Nonnull @Override public ServerSentEmitter onClose(@Nonnull SneakyThrows.Runnable task) {
+    synchronized (this) {
+      if (open) {
+        if (closeTasks == null) {
+          closeTasks = new ArrayList<>();
+        }
+        closeTasks.add(task);
+        return this;
+      }
+    }
+    // already closed
+    task.run();
+    return this;
+  }
+
+  @Override public void close() {
+    synchronized (this) {
+      if (!open || closing) {
+        return;
+      }
+      closing = true;
+      if (writing) {
+        // closed once pending messages have been sent
+        return;
+      }
+    }
+    terminate(null);
+  }
+
+  private void keepAlive() {
+    synchronized (this) {
+      // Connection is busy, no need to keep it alive
+      if (writing || closing || !open) {
+        return;
+      }
+      writing = true;
+    }
+    send(KEEP_ALIVE);
+  }
+
+  private void write(byte[] data) {
+    synchronized (this) {
+      if (!open || closing) {
+        return;
+      }
+      if (writing) {
+        if (pending.size() < maxPending) {
+          pending.addLast(data);
+          return;
+        }
+        if (overflow == Overflow.DROP) {
+          ctx.getRouter().getLog().debug("slow client, message dropped: {} {}", ctx.getMethod(),
+              ctx.pathString());
+          return;
+        }
+        ctx.getRouter().getLog().debug("slow client, closing connection: {} {}",
+            ctx.getMethod(), ctx.pathString());
+        pending.clear();
+        closing = true;
+        return;
+      }
+      writing = true;
+    }
+    send(data);
+  }
+
+  private void send(byte[] data) {
+    lastWrite = System.nanoTime();
+    sender.write(data, (context, x) -> {
+      if (x == null) {
+        onWrite();
+      } else {
+        terminate(x);
+      }
+    });
+  }
+
+  private void onWrite() {
+    byte[] next;
+    synchronized (this) {
+      next = pending.pollFirst();
+      if (next == null) {
+        writing = false;
+        if (!closing) {
+          return;
+        }
+      }
+    }
+    if (next == null) {
+      terminate(null);
+    } else {
+      send(next);
+    }
+  }
+
+  private void terminate(Throwable cause) {
+    List<SneakyThrows.Runnable> tasks;
+    ScheduledFuture<?> keepAlive;
+    synchronized (this) {
+      if (!open) {
+        return;
+      }
+      open = false;
+      pending.clear();
+      tasks = closeTasks;
+      closeTasks = null;
+      keepAlive = this.keepAlive;
+      this.keepAlive = null;
+    }
+    Logger log = ctx.getRouter().getLog();
+    if (keepAlive != null) {
+      keepAlive.cancel(false);
+    }
+    try {
+      if (cause == null) {
+        sender.close();
+      } else {
+        log.debug("server-sent event connection closed: {} {}", ctx.getMethod(),
+            ctx.pathString(), cause);
+      }
+    } finally {
+      if (tasks != null) {
+        for (SneakyThrows.Runnable task : tasks) {
+          try {
+            task.run();
+          } catch (Exception x) {
+            log.error("close task resulted in exception: {} {}", ctx.getMethod(),
+                ctx.pathString(), x);
+          }
+        }
+      }
+    }
+  }
+}
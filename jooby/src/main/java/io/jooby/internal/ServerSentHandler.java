@@ -0,0 +1,31 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import io.jooby.Context;
+import io.jooby.MediaType;
+import io.jooby.Route;
+import io.jooby.ServerSentEmitter;
+
+import javax.annotation.Nonnull;
+
+public class ServerSentHandler implements Route.Handler {
+
+  private final ServerSentEmitter.Handler handler;
+
+  public ServerSentHandler(@Nonnull ServerSentEmitter.Handler handler) {
+    this.handler = handler;
+  }
+
+  @Nonnull @Override public Object apply(@Nonnull Context ctx) throws Exception {
+    ctx.setResponseType(MediaType.serverSentEvents);
+    ctx.setResponseHeader("Cache-Control", "no-cache");
+    // Ask proxies (like nginx) to not buffer events
+    ctx.setResponseHeader("X-Accel-Buffering", "no");
+    handler.handle(new ServerSentEmitterImpl(ctx));
+    return ctx;
+  }
+}
@@ -0,0 +1,37 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import io.jooby.Context;
+import io.jooby.StatusCode;
+import io.jooby.StatusCodeException;
+
+import java.time.Duration;
+
+/**
+ * Load shedding response of bulkheads and concurrency limits: a
+ * {@link StatusCode#SERVICE_UNAVAILABLE} error with a <code>Retry-After</code> header.
+ */
+public final class ServiceUnavailable {
+
+  /** Default value of the <code>Retry-After</code> header. */
+  public static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+  private ServiceUnavailable() {
+  }
+
+  /**
+   * Set the <code>Retry-After</code> header and creates the error to throw.
+   *
+   * @param ctx Web context.
+   * @param retryAfter Retry after value, rounded to seconds (at least one).
+   * @return Service unavailable error.
+   */
+  public static StatusCodeException reject(Context ctx, Duration retryAfter) {
+    ctx.setResponseHeader("Retry-After", Math.max(1, retryAfter.getSeconds()));
+    return new StatusCodeException(StatusCode.SERVICE_UNAVAILABLE);
+  }
+}
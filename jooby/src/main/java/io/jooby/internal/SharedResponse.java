@@ -0,0 +1,37 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import io.jooby.Context;
+import io.jooby.StatusCode;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Response of a single flight leader: status code, headers set by the route and encoded bytes.
+ */
+public class SharedResponse {
+  private final StatusCode statusCode;
+
+  private final List<Consumer<Context>> headers;
+
+  private final byte[] bytes;
+
+  public SharedResponse(StatusCode statusCode, List<Consumer<Context>> headers, byte[] bytes) {
+    this.statusCode = statusCode;
+    this.headers = headers;
+    this.bytes = bytes;
+  }
+
+  public void send(Context ctx) {
+    for (Consumer<Context> header : headers) {
+      header.accept(ctx);
+    }
+    ctx.setResponseCode(statusCode);
+    ctx.send(bytes);
+  }
+}
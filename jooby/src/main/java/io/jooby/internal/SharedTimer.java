@@ -0,0 +1,40 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * Single daemon thread for short timers, like bulkhead queue timeouts, request deadlines, batch
+ * windows and server-sent event keep-alive. Created on first use. Tasks must be short and never
+ * block.
+ */
+public final class SharedTimer {
+
+  private static volatile ScheduledThreadPoolExecutor timer;
+
+  private SharedTimer() {
+  }
+
+  public static ScheduledThreadPoolExecutor get() {
+    ScheduledThreadPoolExecutor result = timer;
+    if (result == null) {
+      synchronized (SharedTimer.class) {
+        result = timer;
+        if (result == null) {
+          result = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "jooby-timer");
+            thread.setDaemon(true);
+            return thread;
+          });
+          result.setRemoveOnCancelPolicy(true);
+          timer = result;
+        }
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,352 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import io.jooby.AttachedFile;
+import io.jooby.Context;
+import io.jooby.Cookie;
+import io.jooby.ForwardingContext;
+import io.jooby.MediaType;
+import io.jooby.MessageEncoder;
+import io.jooby.Route;
+import io.jooby.Sender;
+import io.jooby.SneakyThrows;
+import io.jooby.StatusCode;
+import io.jooby.WebSocket;
+import io.netty.buffer.ByteBuf;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Context of a single flight leader. Buffered responses are captured, sent to the leader and
+ * published to identical requests. Streamed responses and errors go straight to the leader and
+ * are published as not shareable (<code>null</code>).
+ */
+public class SingleFlightContext extends ForwardingContext {
+
+  /** Status codes cacheable by default, see https://tools.ietf.org/html/rfc7231#section-6.1. */
+  private static final Set<Integer> SHAREABLE = new HashSet<>(
+      Arrays.asList(200, 203, 204, 300, 301, 404, 405, 410, 414, 501));
+
+  private final Consumer<SharedResponse> publisher;
+
+  private final List<Consumer<Context>> headers = new ArrayList<>();
+
+  private final AtomicBoolean published = new AtomicBoolean();
+
+  private volatile boolean shareable = true;
+
+  public SingleFlightContext(Context context, Consumer<SharedResponse> publisher) {
+    super(context);
+    this.publisher = publisher;
+  }
+
+  @Override public boolean isResponseStarted() {
+    return published.get() || super.isResponseStarted();
+  }
+
+  @Nonnull @Override public Context detach(@Nonnull Route.Handler next) throws Exception {
+    /** Keep this context, not the one provided by the server: */
+    super.detach(ctx -> next.apply(this));
+    return this;
+  }
+
+  @Nonnull @Override public Context render(@Nonnull Object value) {
+    try {
+      MessageEncoder encoder = getRoute().getEncoder();
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      if (encoder.encode(this, value, output)) {
+        if (!isResponseStarted()) {
+          send(output.toByteArray());
+        }
+      } else if (!isResponseStarted()) {
+        throw new IllegalStateException("The response was not encoded");
+      }
+      return this;
+    } catch (Exception x) {
+      throw SneakyThrows.propagate(x);
+    }
+  }
+
+  /* **********************************************************************************************
+   * Headers: applied to the leader and recorded for identical requests.
+   * **********************************************************************************************
+   */
+
+  @Nonnull @Override public Context setResponseHeader(@Nonnull String name, @Nonnull Date value) {
+    headers.add(ctx -> ctx.setResponseHeader(name, value));
+    return super.setResponseHeader(name, value);
+  }
+
+  @Nonnull @Override
+  public Context setResponseHeader(@Nonnull String name, @Nonnull Instant value) {
+    headers.add(ctx -> ctx.setResponseHeader(name, value));
+    return super.setResponseHeader(name, value);
+  }
+
+  @Nonnull @Override public Context setResponseHeader(@Nonnull String name, @Nonnull Object value) {
+    checkShareable(name, value);
+    headers.add(ctx -> ctx.setResponseHeader(name, value));
+    return super.setResponseHeader(name, value);
+  }
+
+  @Nonnull @Override public Context setResponseHeader(@Nonnull String name, @Nonnull String value) {
+    checkShareable(name, value);
+    headers.add(ctx -> ctx.setResponseHeader(name, value));
+    return super.setResponseHeader(name, value);
+  }
+
+  @Nonnull @Override public Context removeResponseHeader(@Nonnull String name) {
+    headers.add(ctx -> ctx.removeResponseHeader(name));
+    return super.removeResponseHeader(name);
+  }
+
+  @Nonnull @Override public Context setResponseCookie(@Nonnull Cookie cookie) {
+    shareable = false;
+    return super.setResponseCookie(cookie);
+  }
+
+  @Nonnull @Override public Context setResponseType(@Nonnull String contentType) {
+    headers.add(ctx -> ctx.setResponseType(contentType));
+    return super.setResponseType(contentType);
+  }
+
+  @Nonnull @Override public Context setResponseType(@Nonnull MediaType contentType) {
+    headers.add(ctx -> ctx.setResponseType(contentType));
+    return super.setResponseType(contentType);
+  }
+
+  @Nonnull @Override
+  public Context setResponseType(@Nonnull MediaType contentType, @Nullable Charset charset) {
+    headers.add(ctx -> ctx.setResponseType(contentType, charset));
+    return super.setResponseType(contentType, charset);
+  }
+
+  @Nonnull @Override public Context setDefaultResponseType(@Nonnull MediaType contentType) {
+    headers.add(ctx -> ctx.setDefaultResponseType(contentType));
+    return super.setDefaultResponseType(contentType);
+  }
+
+  /* **********************************************************************************************
+   * Buffered responses: shared.
+   * **********************************************************************************************
+   */
+
+  @Nonnull @Override public Context send(@Nonnull String data) {
+    return send(data.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Nonnull @Override public Context send(@Nonnull String data, @Nonnull Charset charset) {
+    return send(data.getBytes(charset));
+  }
+
+  @Nonnull @Override public Context send(@Nonnull ByteBuffer data) {
+    return send(new ByteBuffer[]{data});
+  }
+
+  @Nonnull @Override public Context send(@Nonnull List<ByteBuffer> data) {
+    return send(data.toArray(new ByteBuffer[data.size()]));
+  }
+
+  @Nonnull @Override public Context send(@Nonnull ByteBuffer[] data) {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    for (ByteBuffer buffer : data) {
+      ByteBuffer it = buffer.duplicate();
+      byte[] bytes = new byte[it.remaining()];
+      it.get(bytes);
+      output.write(bytes, 0, bytes.length);
+    }
+    return send(output.toByteArray());
+  }
+
+  @Nonnull @Override public Context send(@Nonnull ByteBuf data) {
+    byte[] bytes = new byte[data.readableBytes()];
+    data.getBytes(data.readerIndex(), bytes);
+    data.release();
+    return send(bytes);
+  }
+
+  @Nonnull @Override public Context send(@Nonnull byte[] data) {
+    if (published.compareAndSet(false, true)) {
+      StatusCode statusCode = getResponseCode();
+      /** Publish first, response might complete (and end the flight) while sending: */
+      publisher.accept(shareable && SHAREABLE.contains(statusCode.value())
+          ? new SharedResponse(statusCode, headers, data)
+          : null);
+      super.send(data);
+      return this;
+    }
+    return super.send(data);
+  }
+
+  /* **********************************************************************************************
+   * Errors, redirects, streamed and file responses: not shared.
+   * **********************************************************************************************
+   */
+
+  @Nonnull @Override public Context sendError(@Nonnull Throwable cause) {
+    notShared();
+    return super.sendError(cause);
+  }
+
+  @Nonnull @Override
+  public Context sendError(@Nonnull Throwable cause, @Nonnull StatusCode statusCode) {
+    notShared();
+    return super.sendError(cause, statusCode);
+  }
+
+  @Nonnull @Override public Context abort() {
+    notShared();
+    return super.abort();
+  }
+
+  @Nonnull @Override public Context sendRedirect(@Nonnull String location) {
+    notShared();
+    return super.sendRedirect(location);
+  }
+
+  @Nonnull @Override
+  public Context sendRedirect(@Nonnull StatusCode redirect, @Nonnull String location) {
+    notShared();
+    return super.sendRedirect(redirect, location);
+  }
+
+  @Nonnull @Override public Context send(@Nonnull StatusCode statusCode) {
+    notShared();
+    return super.send(statusCode);
+  }
+
+  @Nonnull @Override public Context send(@Nonnull ReadableByteChannel channel) {
+    notShared();
+    return super.send(channel);
+  }
+
+  @Nonnull @Override public Context send(@Nonnull InputStream input) {
+    notShared();
+    return super.send(input);
+  }
+
+  @Nonnull @Override public Context send(@Nonnull AttachedFile file) {
+    notShared();
+    return super.send(file);
+  }
+
+  @Nonnull @Override public Context send(@Nonnull Path file) {
+    notShared();
+    return super.send(file);
+  }
+
+  @Nonnull @Override public Context send(@Nonnull FileChannel file) {
+    notShared();
+    return super.send(file);
+  }
+
+  @Nonnull @Override public OutputStream responseStream() {
+    notShared();
+    return super.responseStream();
+  }
+
+  @Nonnull @Override public OutputStream responseStream(@Nonnull MediaType contentType) {
+    notShared();
+    return super.responseStream(contentType);
+  }
+
+  @Nonnull @Override public Context responseStream(@Nonnull MediaType contentType,
+      @Nonnull SneakyThrows.Consumer<OutputStream> consumer) throws Exception {
+    notShared();
+    return super.responseStream(contentType, consumer);
+  }
+
+  @Nonnull @Override
+  public Context responseStream(@Nonnull SneakyThrows.Consumer<OutputStream> consumer)
+      throws Exception {
+    notShared();
+    return super.responseStream(consumer);
+  }
+
+  @Nonnull @Override public Sender responseSender() {
+    notShared();
+    return super.responseSender();
+  }
+
+  @Nonnull @Override public PrintWriter responseWriter() {
+    notShared();
+    return super.responseWriter();
+  }
+
+  @Nonnull @Override public PrintWriter responseWriter(@Nonnull MediaType contentType) {
+    notShared();
+    return super.responseWriter(contentType);
+  }
+
+  @Nonnull @Override
+  public PrintWriter responseWriter(@Nonnull MediaType contentType, @Nullable Charset charset) {
+    notShared();
+    return super.responseWriter(contentType, charset);
+  }
+
+  @Nonnull @Override
+  public Context responseWriter(@Nonnull SneakyThrows.Consumer<PrintWriter> consumer)
+      throws Exception {
+    notShared();
+    return super.responseWriter(consumer);
+  }
+
+  @Nonnull @Override public Context responseWriter(@Nonnull MediaType contentType,
+      @Nonnull SneakyThrows.Consumer<PrintWriter> consumer) throws Exception {
+    notShared();
+    return super.responseWriter(contentType, consumer);
+  }
+
+  @Nonnull @Override public Context responseWriter(@Nonnull MediaType contentType,
+      @Nullable Charset charset, @Nonnull SneakyThrows.Consumer<PrintWriter> consumer)
+      throws Exception {
+    notShared();
+    return super.responseWriter(contentType, charset, consumer);
+  }
+
+  @Nonnull @Override public Context upgrade(@Nonnull WebSocket.Initializer handler) {
+    notShared();
+    return super.upgrade(handler);
+  }
+
+  private void checkShareable(String name, Object value) {
+    if (name.equalsIgnoreCase("Set-Cookie")) {
+      shareable = false;
+    } else if (name.equalsIgnoreCase("Cache-Control")) {
+      String cacheControl = value.toString().toLowerCase();
+      if (cacheControl.contains("private") || cacheControl.contains("no-store")) {
+        shareable = false;
+      }
+    }
+  }
+
+  private void notShared() {
+    if (published.compareAndSet(false, true)) {
+      publisher.accept(null);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Run each task in a new virtual thread. Virtual threads are available since Java 21, they are
+ * created via reflection so the project keeps Java 8 as baseline.
+ */
+public class VirtualThreadExecutor implements Executor {
+
+  private static final Executor INSTANCE = create();
+
+  private final ThreadFactory factory;
+
+  private VirtualThreadExecutor(ThreadFactory factory) {
+    this.factory = factory;
+  }
+
+  @Override public void execute(@Nonnull Runnable task) {
+    factory.newThread(task).start();
+  }
+
+  /**
+   * Virtual thread executor or <code>null</code> when the JVM doesn't support virtual threads.
+   *
+   * @return Virtual thread executor or <code>null</code> when the JVM doesn't support virtual
+   *     threads.
+   */
+  public static @Nullable Executor get() {
+    return INSTANCE;
+  }
+
+  private static Executor create() {
+    try {
+      /** Thread.ofVirtual().name("virtual-", 0).factory(): */
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+      builder = builderType.getMethod("name", String.class, long.class)
+          .invoke(builder, "virtual-", 0L);
+      Method factory = builderType.getMethod("factory");
+      /** Preview releases fail here: */
+      ThreadFactory threadFactory = (ThreadFactory) factory.invoke(builder);
+      threadFactory.newThread(() -> {
+      });
+      return new VirtualThreadExecutor(threadFactory);
+    } catch (Exception | LinkageError x) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,32 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import io.jooby.Context;
+import io.jooby.Route;
+import io.jooby.StatusCode;
+import io.jooby.StatusCodeException;
+import io.jooby.WebSocket;
+
+import javax.annotation.Nonnull;
+
+public class WebSocketHandler implements Route.Handler {
+
+  private final WebSocket.Initializer handler;
+
+  public WebSocketHandler(@Nonnull WebSocket.Initializer handler) {
+    this.handler = handler;
+  }
+
+  @Nonnull @Override public Object apply(@Nonnull Context ctx) {
+    boolean upgrade = ctx.header("Upgrade").value("").equalsIgnoreCase("websocket");
+    if (!upgrade) {
+      ctx.setResponseHeader("Upgrade", "websocket");
+      throw new StatusCodeException(StatusCode.UPGRADE_REQUIRED);
+    }
+    return ctx.upgrade(handler);
+  }
+}
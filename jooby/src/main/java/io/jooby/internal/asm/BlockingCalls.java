@@ -0,0 +1,287 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.asm;
+
+import io.jooby.Body;
+import io.jooby.Context;
+import io.jooby.FileUpload;
+import io.jooby.Route;
+import io.jooby.TemplateEngine;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.CharArrayReader;
+import java.io.CharArrayWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Look for known blocking calls in a method and in the methods it calls, a few levels deep.
+ *
+ * Calls to the JDK and to Jooby are checked against a list of blocking APIs (JDBC, java.io
+ * streams, files, Thread.sleep, Future.get, request body, file uploads, template engines, etc.).
+ * Calls to application and library code are followed. Calls that can't be followed (interfaces,
+ * functions, abstract methods, missing bytecode or too deep) are reported as unknown, so they are
+ * considered blocking too.
+ */
+public class BlockingCalls {
+
+  /** How deep to follow calls from the handler. */
+  private static final int MAX_DEPTH = 3;
+
+  /** Packages (or classes) where every call is blocking. */
+  private static final List<String> BLOCKING_PACKAGES = Arrays.asList(
+      "java/sql/",
+      "javax/sql/",
+      "javax/persistence/",
+      "org/hibernate/",
+      "org/jdbi/",
+      "java/nio/file/Files"
+  );
+
+  /** Blocking methods of JDK and Jooby types and subtypes. */
+  private static final Map<Class<?>, Set<String>> BLOCKING_METHODS = new LinkedHashMap<>();
+
+  static {
+    BLOCKING_METHODS.put(Thread.class, names("sleep", "join"));
+    BLOCKING_METHODS.put(Future.class, names("get"));
+    BLOCKING_METHODS.put(CompletableFuture.class, names("join"));
+    BLOCKING_METHODS.put(CountDownLatch.class, names("await"));
+    BLOCKING_METHODS.put(CyclicBarrier.class, names("await"));
+    BLOCKING_METHODS.put(Semaphore.class, names("acquire", "acquireUninterruptibly"));
+    BLOCKING_METHODS.put(BlockingQueue.class, names("put", "take"));
+    BLOCKING_METHODS.put(Process.class, names("waitFor"));
+    /** Request body might be on disk: */
+    BLOCKING_METHODS.put(Context.class, names("body", "form", "formMap", "formMultimap",
+        "multipart", "multipartMap", "multipartMultimap", "file", "files"));
+    BLOCKING_METHODS.put(Body.class, names("value", "bytes", "channel", "stream", "to",
+        "toList", "toSet", "toOptional"));
+    BLOCKING_METHODS.put(FileUpload.class, names("value", "bytes", "stream", "path", "destroy"));
+    /** Templates are loaded from disk: */
+    BLOCKING_METHODS.put(TemplateEngine.class, names("render", "encode"));
+  }
+
+  /** java.io types doing IO on every call (including constructors). */
+  private static final List<Class<?>> STREAMS = Arrays.asList(InputStream.class,
+      OutputStream.class, Reader.class, Writer.class, RandomAccessFile.class);
+
+  /** java.io types working in memory. */
+  private static final List<Class<?>> IN_MEMORY = Arrays.asList(ByteArrayInputStream.class,
+      ByteArrayOutputStream.class, CharArrayReader.class, CharArrayWriter.class,
+      StringReader.class, StringWriter.class);
+
+  /** Functional interfaces, implementation is unknown. */
+  private static final List<String> FUNCTIONS = Arrays.asList("java/util/function/",
+      "java/util/concurrent/Callable", "java/lang/Runnable", "kotlin/jvm/functions/");
+
+  /** JDK and Jooby, calls are checked, never followed. */
+  private static final List<String> PLATFORM = Arrays.asList("java/", "javax/", "jdk/", "sun/",
+      "com/sun/", "kotlin/", "kotlinx/", "io/jooby/");
+
+  private final ClassSource source;
+
+  private final Map<String, Optional<ClassNode>> classes = new HashMap<>();
+
+  private final Set<String> visited = new HashSet<>();
+
+  /** Class of the handler, always followed (lambda bodies and helper methods). */
+  private String root;
+
+  public BlockingCalls(ClassSource source) {
+    this.source = source;
+  }
+
+  /**
+   * Find a blocking call.
+   *
+   * @param method Method to analyze.
+   * @return Blocking call, like <code>java.lang.Thread.sleep</code> or <code>null</code>.
+   */
+  public String find(Method method) {
+    Class<?> declaringClass = method.getDeclaringClass();
+    if (declaringClass == Route.class || declaringClass.getEnclosingClass() == Route.class) {
+      /** Composed filters, can't see what they call: */
+      return unknown(Type.getInternalName(declaringClass), method.getName());
+    }
+    String owner = Type.getInternalName(declaringClass);
+    root = owner;
+    String descriptor = Type.getMethodDescriptor(method);
+    visited.add(owner + "." + method.getName() + descriptor);
+    MethodNode node = classNode(owner)
+        .map(it -> method(it, method.getName(), descriptor))
+        .orElse(null);
+    if (node == null || node.instructions.size() == 0) {
+      /** Method reference to an interface or abstract method: */
+      return call(owner, method.getName(), descriptor, 0);
+    }
+    return find(node, 0);
+  }
+
+  private String find(MethodNode node, int depth) {
+    for (AbstractInsnNode it : node.instructions.toArray()) {
+      if (it instanceof MethodInsnNode) {
+        MethodInsnNode call = (MethodInsnNode) it;
+        String result = call(call.owner, call.name, call.desc, depth);
+        if (result != null) {
+          return result;
+        }
+      } else if (it instanceof InvokeDynamicInsnNode) {
+        /** Lambdas and method references: */
+        for (Object arg : ((InvokeDynamicInsnNode) it).bsmArgs) {
+          if (arg instanceof Handle) {
+            Handle handle = (Handle) arg;
+            String result = call(handle.getOwner(), handle.getName(), handle.getDesc(), depth);
+            if (result != null) {
+              return result;
+            }
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  private String call(String owner, String name, String descriptor, int depth) {
+    if (owner.startsWith("[")) {
+      /** Array methods: clone */
+      return null;
+    }
+    if (FUNCTIONS.stream().anyMatch(owner::startsWith)) {
+      return unknown(owner, name);
+    }
+    if (isPlatform(owner) && !owner.equals(root)) {
+      return blocking(owner, name, descriptor);
+    }
+    if (!visited.add(owner + "." + name + descriptor)) {
+      return null;
+    }
+    String type = owner;
+    while (type.equals(root) || !isPlatform(type)) {
+      ClassNode classNode = classNode(type).orElse(null);
+      if (classNode == null) {
+        return unknown(owner, name);
+      }
+      MethodNode method = method(classNode, name, descriptor);
+      if (method != null) {
+        if (method.instructions.size() == 0 || depth >= MAX_DEPTH) {
+          /** Abstract, native or too deep: */
+          return unknown(owner, name);
+        }
+        return find(method, depth + 1);
+      }
+      if ((classNode.access & Opcodes.ACC_INTERFACE) != 0 || classNode.superName == null) {
+        return unknown(owner, name);
+      }
+      type = classNode.superName;
+    }
+    /** Inherited from the JDK: */
+    return blocking(type, name, descriptor);
+  }
+
+  private String blocking(String owner, String name, String descriptor) {
+    for (String blocking : BLOCKING_PACKAGES) {
+      if (owner.startsWith(blocking)) {
+        return call(owner, name);
+      }
+    }
+    if (name.equals("wait") && descriptor.startsWith("(") && descriptor.endsWith(")V")) {
+      return call(owner, name);
+    }
+    if (!owner.startsWith("java/") && !owner.startsWith("io/jooby/")) {
+      return null;
+    }
+    Class<?> type = loadClass(owner);
+    if (type == null) {
+      return null;
+    }
+    for (Map.Entry<Class<?>, Set<String>> methods : BLOCKING_METHODS.entrySet()) {
+      if (methods.getValue().contains(name) && methods.getKey().isAssignableFrom(type)) {
+        return call(owner, name);
+      }
+    }
+    if (owner.startsWith("java/io/")
+        && STREAMS.stream().anyMatch(it -> it.isAssignableFrom(type))
+        && IN_MEMORY.stream().noneMatch(it -> it.isAssignableFrom(type))) {
+      return call(owner, name);
+    }
+    return null;
+  }
+
+  private Optional<ClassNode> classNode(String owner) {
+    return classes.computeIfAbsent(owner, k -> {
+      try {
+        ClassReader reader = new ClassReader(source.byteCode(k.replace('/', '.')));
+        ClassNode node = new ClassNode();
+        reader.accept(node, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return Optional.of(node);
+      } catch (Exception x) {
+        return Optional.empty();
+      }
+    });
+  }
+
+  private Class<?> loadClass(String owner) {
+    try {
+      return source.getLoader().loadClass(owner.replace('/', '.'));
+    } catch (ClassNotFoundException | LinkageError x) {
+      return null;
+    }
+  }
+
+  private static MethodNode method(ClassNode owner, String name, String descriptor) {
+    for (MethodNode method : owner.methods) {
+      if (method.name.equals(name) && method.desc.equals(descriptor)) {
+        return method;
+      }
+    }
+    return null;
+  }
+
+  private static boolean isPlatform(String owner) {
+    return PLATFORM.stream().anyMatch(owner::startsWith);
+  }
+
+  private static String call(String owner, String name) {
+    return owner.replace('/', '.') + "." + name;
+  }
+
+  private static String unknown(String owner, String name) {
+    return "unknown " + call(owner, name);
+  }
+
+  private static Set<String> names(String... names) {
+    return new HashSet<>(Arrays.asList(names));
+  }
+}
@@ -27,7 +27,11 @@ public class ClassSource {
   }
 
   public byte[] byteCode(Class source) {
-    return (byte[]) bytecode.computeIfAbsent(source.getName(), k -> {
+    return byteCode(source.getName());
+  }
+
+  public byte[] byteCode(String className) {
+    return (byte[]) bytecode.computeIfAbsent(className, k -> {
       try (InputStream in = loader.getResourceAsStream(k.replace(".", "/") + ".class")) {
         return IOUtils.toByteArray(in);
       } catch (IOException x) {
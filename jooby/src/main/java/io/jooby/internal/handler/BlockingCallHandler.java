@@ -0,0 +1,33 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.handler;
+
+import io.jooby.Context;
+import io.jooby.Route;
+import io.jooby.internal.BlockingCallWatchdog;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Track time spent by IO threads in the route handler (including decorators), before rendering.
+ */
+public class BlockingCallHandler implements LinkedHandler {
+  private final Route.Handler next;
+  private final BlockingCallWatchdog watchdog;
+
+  public BlockingCallHandler(Route.Handler next, BlockingCallWatchdog watchdog) {
+    this.next = next;
+    this.watchdog = watchdog;
+  }
+
+  @Nonnull @Override public Object apply(@Nonnull Context ctx) throws Exception {
+    return watchdog.execute(ctx, next);
+  }
+
+  @Override public Route.Handler next() {
+    return next;
+  }
+}
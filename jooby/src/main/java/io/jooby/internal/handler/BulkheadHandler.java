@@ -0,0 +1,42 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.handler;
+
+import io.jooby.Bulkhead;
+import io.jooby.Context;
+import io.jooby.Route;
+import io.jooby.internal.RequestDeadline;
+
+import javax.annotation.Nonnull;
+
+public class BulkheadHandler implements LinkedHandler {
+  private final Route.Handler next;
+  private final Bulkhead bulkhead;
+
+  public BulkheadHandler(Route.Handler next, Bulkhead bulkhead) {
+    this.next = next;
+    this.bulkhead = bulkhead;
+  }
+
+  @Nonnull @Override public Object apply(@Nonnull Context ctx) {
+    return bulkhead.dispatch(ctx, () -> {
+      try {
+        if (ctx.isExpired()) {
+          /** Deadline expired while waiting in queue, drop it: */
+          ctx.sendError(RequestDeadline.exceeded());
+        } else {
+          next.apply(ctx);
+        }
+      } catch (Throwable x) {
+        ctx.sendError(x);
+      }
+    });
+  }
+
+  @Override public Route.Handler next() {
+    return next;
+  }
+}
@@ -7,10 +7,14 @@ package io.jooby.internal.handler;
 
 import io.jooby.Context;
 import io.jooby.Route;
+import io.jooby.internal.RequestDeadline;
 
 import javax.annotation.Nonnull;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class CompletionStageHandler implements LinkedHandler {
 
@@ -23,10 +27,22 @@ public class CompletionStageHandler implements LinkedHandler {
   @Nonnull @Override public Object apply(@Nonnull Context ctx) {
     try {
       CompletionStage result = (CompletionStage) next.apply(ctx);
+      AtomicBoolean cancelled = new AtomicBoolean();
+      if (result instanceof Future) {
+        ctx.onCancel(() -> {
+          cancelled.set(true);
+          ((Future) result).cancel(true);
+        });
+      }
       return result.whenComplete((value, x) -> {
         try {
           if (x != null) {
-            ctx.sendError((Throwable) x);
+            if (x instanceof CancellationException && ctx.isExpired()) {
+              ctx.sendError(RequestDeadline.exceeded());
+            } else if (!(x instanceof CancellationException) || !cancelled.get()) {
+              /** Cancelled by us and not expired: client went away, nobody to respond to. */
+              ctx.sendError((Throwable) x);
+            }
           } else {
             ctx.render(value);
           }
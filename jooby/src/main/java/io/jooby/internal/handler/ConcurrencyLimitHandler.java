@@ -0,0 +1,38 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.handler;
+
+import io.jooby.Context;
+import io.jooby.Route;
+import io.jooby.internal.ConcurrencyLimiter;
+import io.jooby.internal.ServiceUnavailable;
+
+import javax.annotation.Nonnull;
+
+public class ConcurrencyLimitHandler implements LinkedHandler {
+  private final Route.Handler next;
+  private final ConcurrencyLimiter limiter;
+
+  public ConcurrencyLimitHandler(Route.Handler next, ConcurrencyLimiter limiter) {
+    this.next = next;
+    this.limiter = limiter;
+  }
+
+  @Nonnull @Override public Object apply(@Nonnull Context ctx) throws Exception {
+    if (!limiter.tryAcquire()) {
+      /** Shed load before dispatch: */
+      throw ServiceUnavailable.reject(ctx, limiter.getRetryAfter());
+    }
+    long start = System.nanoTime();
+    /** Round trip latency, asynchronous responses included: */
+    ctx.onComplete(() -> limiter.release(System.nanoTime() - start));
+    return next.apply(ctx);
+  }
+
+  @Override public Route.Handler next() {
+    return next;
+  }
+}
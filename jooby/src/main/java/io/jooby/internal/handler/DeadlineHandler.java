@@ -0,0 +1,53 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.handler;
+
+import io.jooby.Context;
+import io.jooby.Route;
+import io.jooby.Value;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+
+/**
+ * Set the request deadline before dispatching, so time spent waiting for a worker counts.
+ */
+public class DeadlineHandler implements LinkedHandler {
+  private final Route.Handler next;
+  private final Duration timeout;
+  private final String header;
+
+  public DeadlineHandler(Route.Handler next, Duration timeout, String header) {
+    this.next = next;
+    this.timeout = timeout;
+    this.header = header;
+  }
+
+  @Nonnull @Override public Object apply(@Nonnull Context ctx) throws Exception {
+    Duration deadline = timeout;
+    if (header != null) {
+      Value value = ctx.header(header);
+      if (!value.isMissing()) {
+        try {
+          Duration client = Duration.ofMillis(Math.max(0, Long.parseLong(value.value().trim())));
+          if (deadline == null || client.compareTo(deadline) < 0) {
+            deadline = client;
+          }
+        } catch (NumberFormatException x) {
+          /** Ignore invalid client deadline: */
+        }
+      }
+    }
+    if (deadline != null) {
+      ctx.setDeadline(deadline);
+    }
+    return next.apply(ctx);
+  }
+
+  @Override public Route.Handler next() {
+    return next;
+  }
+}
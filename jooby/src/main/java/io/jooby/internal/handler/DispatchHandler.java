@@ -7,6 +7,7 @@ package io.jooby.internal.handler;
 
 import io.jooby.Context;
 import io.jooby.Route;
+import io.jooby.internal.RequestDeadline;
 
 import javax.annotation.Nonnull;
 import java.util.concurrent.Executor;
@@ -23,7 +24,12 @@ public class DispatchHandler implements LinkedHandler {
   @Nonnull @Override public Object apply(@Nonnull Context ctx) {
     return ctx.dispatch(executor, () -> {
       try {
-        next.apply(ctx);
+        if (ctx.isExpired()) {
+          /** Deadline expired while waiting in queue, drop it: */
+          ctx.sendError(RequestDeadline.exceeded());
+        } else {
+          next.apply(ctx);
+        }
       } catch (Throwable x) {
         ctx.sendError(x);
       }
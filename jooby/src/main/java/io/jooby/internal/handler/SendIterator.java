@@ -0,0 +1,144 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.handler;
+
+import io.jooby.Context;
+import io.jooby.MediaType;
+import io.jooby.MessageEncoder;
+import io.jooby.Route;
+import io.jooby.Server;
+import io.jooby.SneakyThrows;
+
+import javax.annotation.Nonnull;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.BaseStream;
+
+/**
+ * Send {@link java.util.stream.Stream}, {@link Iterator} and {@link Iterable} results using
+ * chunked transfer encoding. Items are encoded one by one and written into the response stream,
+ * which batches them into chunks of buffer size. JSON items are sent as a JSON array.
+ *
+ * Results are closed (when {@link AutoCloseable}) once all the items have been sent, on error or
+ * when client disconnects, so large results (like a database cursor) runs in constant memory.
+ * Errors found once the response was started abort the response.
+ */
+public class SendIterator implements LinkedHandler {
+
+  private static final int JSON_LBRACKET = '[';
+
+  private static final int JSON_SEP = ',';
+
+  private static final int JSON_RBRACKET = ']';
+
+  private final Route.Handler next;
+
+  public SendIterator(Route.Handler next) {
+    this.next = next;
+  }
+
+  @Nonnull @Override public Object apply(@Nonnull Context ctx) {
+    Object result = null;
+    try {
+      result = next.apply(ctx);
+      send(ctx, iterator(result));
+    } catch (Throwable x) {
+      failure(ctx, x, false);
+    } finally {
+      close(ctx, result);
+    }
+    return ctx;
+  }
+
+  private void send(Context ctx, Iterator<?> iterator) throws Exception {
+    MessageEncoder encoder = ctx.getRoute().getEncoder();
+    OutputStream output = null;
+    boolean json = false;
+    try {
+      while (iterator.hasNext()) {
+        byte[] data = encoder.encode(ctx, iterator.next());
+        if (output == null) {
+          // response type is known after encoding first item
+          json = ctx.getResponseType().isJson();
+          output = ctx.responseStream();
+          if (json) {
+            output.write(JSON_LBRACKET);
+          }
+        } else if (json) {
+          output.write(JSON_SEP);
+        }
+        output.write(data);
+      }
+      if (output == null) {
+        // nothing to encode, empty JSON array when route produces JSON
+        json = ctx.getResponseType().isJson() || ctx.getRoute().getProduces().stream()
+            .anyMatch(MediaType::isJson);
+        if (json) {
+          ctx.setResponseType(MediaType.json);
+        }
+        output = ctx.responseStream();
+        if (json) {
+          output.write(JSON_LBRACKET);
+        }
+      }
+      if (json) {
+        output.write(JSON_RBRACKET);
+      }
+    } catch (Throwable x) {
+      if (output == null) {
+        throw x;
+      }
+      /** Response was started: abort it, so clients don't take a truncated body as complete: */
+      output = null;
+      ctx.abort();
+      failure(ctx, x, true);
+    } finally {
+      if (output != null) {
+        output.close();
+      }
+    }
+  }
+
+  private static void failure(Context ctx, Throwable x, boolean started) {
+    if (Server.connectionLost(x)) {
+      ctx.getRouter().getLog()
+          .debug("connection lost: {} {}", ctx.getMethod(), ctx.pathString(), x);
+    } else if (started) {
+      ctx.getRouter().getLog().error("{} {} failed after response started, response aborted",
+          ctx.getMethod(), ctx.pathString(), x);
+      if (SneakyThrows.isFatal(x)) {
+        throw SneakyThrows.propagate(x);
+      }
+    } else {
+      ctx.sendError(x);
+    }
+  }
+
+  private static Iterator<?> iterator(Object result) {
+    if (result instanceof BaseStream) {
+      return ((BaseStream) result).iterator();
+    }
+    if (result instanceof Iterable) {
+      return ((Iterable) result).iterator();
+    }
+    return (Iterator) result;
+  }
+
+  private static void close(Context ctx, Object result) {
+    if (result instanceof AutoCloseable) {
+      try {
+        ((AutoCloseable) result).close();
+      } catch (Exception x) {
+        ctx.getRouter().getLog()
+            .debug("close resulted in exception {} {}", ctx.getMethod(), ctx.pathString(), x);
+      }
+    }
+  }
+
+  @Override public Route.Handler next() {
+    return next;
+  }
+}
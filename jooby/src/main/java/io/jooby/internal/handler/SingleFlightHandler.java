@@ -0,0 +1,33 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.handler;
+
+import io.jooby.Context;
+import io.jooby.Route;
+import io.jooby.SingleFlight;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Coalesce identical requests before dispatching, so waiting requests never take a worker.
+ */
+public class SingleFlightHandler implements LinkedHandler {
+  private final Route.Handler next;
+  private final SingleFlight singleFlight;
+
+  public SingleFlightHandler(Route.Handler next, SingleFlight singleFlight) {
+    this.next = next;
+    this.singleFlight = singleFlight;
+  }
+
+  @Nonnull @Override public Object apply(@Nonnull Context ctx) throws Exception {
+    return singleFlight.execute(ctx, next);
+  }
+
+  @Override public Route.Handler next() {
+    return next;
+  }
+}
@@ -5,10 +5,15 @@
  */
 package io.jooby.internal.handler;
 
+import io.jooby.Bulkhead;
 import io.jooby.Context;
+import io.jooby.Priority;
+import io.jooby.PriorityExecutor;
 import io.jooby.Route;
+import io.jooby.internal.RequestDeadline;
 
 import javax.annotation.Nonnull;
+import java.util.concurrent.Executor;
 
 public class WorkerHandler implements LinkedHandler {
   private final Route.Handler next;
@@ -18,13 +23,28 @@ public class WorkerHandler implements LinkedHandler {
   }
 
   @Nonnull @Override public Object apply(@Nonnull Context ctx) {
-    return ctx.dispatch(() -> {
+    Runnable action = () -> {
       try {
-        next.apply(ctx);
+        if (ctx.isExpired()) {
+          /** Deadline expired while waiting in queue, drop it: */
+          ctx.sendError(RequestDeadline.exceeded());
+        } else {
+          next.apply(ctx);
+        }
       } catch (Throwable x) {
         ctx.sendError(x);
       }
-    });
+    };
+    Executor worker = ctx.getRouter().getWorker();
+    if (worker instanceof Bulkhead) {
+      /** Reject with 503 and hold slot until response completes: */
+      return ((Bulkhead) worker).dispatch(ctx, action);
+    }
+    if (worker instanceof PriorityExecutor) {
+      Priority priority = ctx.getRoute().getPriority();
+      return ctx.dispatch(((PriorityExecutor) worker).executor(priority), action);
+    }
+    return ctx.dispatch(action);
   }
 
   @Override public Route.Handler next() {
@@ -7,56 +7,105 @@ package io.jooby.internal.handler.reactive;
 
 import io.jooby.Context;
 import io.jooby.MediaType;
-import io.jooby.MessageEncoder;
-import io.jooby.Route;
+import io.jooby.RouterOptions;
 import io.jooby.Sender;
 import io.jooby.Server;
+import io.jooby.internal.RequestDeadline;
+import io.jooby.internal.SharedTimer;
 import org.slf4j.Logger;
 
+import java.nio.channels.ClosedChannelException;
+import java.util.Arrays;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Send items of a reactive stream using chunked transfer encoding.
+ *
+ * Demand is requested in batches of {@link RouterOptions#getStreamPrefetch()} items and
+ * replenished once items have been written. Items are coalesced (up to
+ * {@link RouterOptions#getStreamChunkSize()} bytes) and sent as a single chunk, so fast streams of
+ * small items don't pay one write per item. A chunk is sent once it is full, once all the
+ * requested items have arrived, when the stream completes or after
+ * {@link RouterOptions#getStreamChunkDelay()}, whatever happens first. Items produced while a
+ * previous write is in progress wait for it.
+ *
+ * The stream is cancelled when the request deadline expires (see
+ * {@link Context#setDeadline(java.time.Duration)}) or the client goes away.
+ *
+ * JSON items are sent as a JSON array. Framing characters are written into the chunk next to the
+ * encoded item, so items are never copied to add a separator.
+ */
 public class ChunkedSubscriber {
 
   private static final byte JSON_LBRACKET = '[';
   private static final byte JSON_SEP = ',';
-  private static final byte[] JSON_RBRACKET = {']'};
+  private static final byte JSON_RBRACKET = ']';
+  private static final int INITIAL_SIZE = 1024;
+
   private ChunkedSubscription subscription;
-  private Context ctx;
-  private Sender sender;
+  private final Context ctx;
+  private final int prefetch;
+  private final int chunkSize;
+  private final long chunkDelay;
+
+  /** Fields below are guarded by this. */
   private MediaType responseType;
+  private byte[] buffer;
+  private int count;
+  /** Number of items in buffer. */
+  private int items;
+  /** Number of items written but not requested again. */
+  private long consumed;
+  /** Number of items requested but not received yet. */
+  private long outstanding;
+  /** Chunk delay elapsed, send pending items. */
+  private boolean due;
+  private ScheduledFuture<?> timer;
+  private boolean writing;
+  private boolean completed;
+  private boolean closed;
+  private boolean expired;
+  /** Created on first write, so a status code might still be sent before the first item. */
+  private Sender sender;
 
   public ChunkedSubscriber(Context ctx) {
     this.ctx = ctx;
-    this.sender = ctx.responseSender();
+    RouterOptions options = ctx.getRouter().getRouterOptions();
+    this.prefetch = options.getStreamPrefetch();
+    this.chunkSize = options.getStreamChunkSize();
+    this.chunkDelay = options.getStreamChunkDelay().toNanos();
   }
 
   public void onSubscribe(ChunkedSubscription subscription) {
     this.subscription = subscription;
-    this.subscription.request(1);
+    ctx.onCancel(this::cancel);
+    synchronized (this) {
+      outstanding = prefetch;
+    }
+    this.subscription.request(prefetch);
   }
 
   public void onNext(Object item) {
     try {
-      Route route = ctx.getRoute();
-      MessageEncoder encoder = route.getEncoder();
-      byte[] data = encoder.encode(ctx, item);
-
-      if (responseType == null) {
-        responseType = ctx.getResponseType();
-        if (responseType.isJson()) {
-          data = prepend(data, JSON_LBRACKET);
+      byte[] data = ctx.getRoute().getEncoder().encode(ctx, item);
+      synchronized (this) {
+        if (closed) {
+          return;
         }
-      } else {
-        if (responseType.isJson()) {
-          data = prepend(data, JSON_SEP);
+        outstanding -= 1;
+        if (responseType == null) {
+          responseType = ctx.getResponseType();
+          if (responseType.isJson()) {
+            append(JSON_LBRACKET);
+          }
+        } else if (responseType.isJson()) {
+          append(JSON_SEP);
         }
+        append(data);
+        items += 1;
       }
-
-      sender.write(data, (context, x) -> {
-        if (x == null) {
-          subscription.request(1);
-        } else {
-          onError(x, true);
-        }
-      });
+      drain();
     } catch (Exception x) {
       onError(x, true);
     }
@@ -67,8 +116,13 @@ public class ChunkedSubscriber {
   }
 
   private void onError(Throwable x, boolean cancel) {
-    // we use it to mark the response as errored so we don't sent a possible trailing json response.
-    responseType = null;
+    synchronized (this) {
+      // mark the response as errored so we don't sent pending items or a trailing json response.
+      closed = true;
+      buffer = null;
+      count = 0;
+      cancelTimer();
+    }
     try {
       Logger log = ctx.getRouter().getLog();
       if (Server.connectionLost(x)) {
@@ -83,22 +137,151 @@ public class ChunkedSubscriber {
     }
   }
 
+  /**
+   * Request deadline expired or client went away: cancel the stream and send an error unless the
+   * stream is done or there is nobody to respond to. When response has been started already, it is
+   * closed once the current write (if any) completes.
+   */
+  private void cancel() {
+    Throwable cause = ctx.isExpired() ? RequestDeadline.exceeded() : new ClosedChannelException();
+    Sender close;
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      expired = true;
+      close = writing ? null : sender;
+    }
+    onError(cause, true);
+    if (close != null) {
+      close.close();
+    }
+  }
+
   public void onComplete() {
-    if (responseType != null && responseType.isJson()) {
-      responseType = null;
-      sender.write(JSON_RBRACKET, (ctx, x) -> {
-        if (x != null) {
-          onError(x);
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      if (responseType != null && responseType.isJson()) {
+        append(JSON_RBRACKET);
+      }
+      completed = true;
+    }
+    drain();
+  }
+
+  /**
+   * Write pending output unless there is a write in progress. Close the sender once stream is
+   * completed and all the output has been written.
+   */
+  private void drain() {
+    byte[] chunk;
+    int length;
+    int written;
+    synchronized (this) {
+      if (writing || closed) {
+        return;
+      }
+      if (count == 0) {
+        if (!completed) {
+          return;
+        }
+        closed = true;
+        chunk = null;
+        length = 0;
+        written = 0;
+      } else if (!completed && !due && count < chunkSize && outstanding > 0 && chunkDelay > 0) {
+        /** Wait for more items, up to chunk delay: */
+        if (timer == null) {
+          timer = SharedTimer.get().schedule(this::flush, chunkDelay, TimeUnit.NANOSECONDS);
+        }
+        return;
+      } else {
+        due = false;
+        cancelTimer();
+        writing = true;
+        chunk = buffer;
+        length = count;
+        written = items;
+        // sender owns the chunk until callback is notified
+        buffer = null;
+        count = 0;
+        items = 0;
+      }
+    }
+    if (sender == null) {
+      sender = ctx.responseSender();
+    }
+    if (chunk == null) {
+      sender.close();
+    } else {
+      sender.write(chunk, 0, length, (context, x) -> {
+        if (x == null) {
+          onWrite(written);
+        } else {
+          onError(x, true);
         }
       });
     }
-    sender.close();
   }
 
-  private static byte[] prepend(byte[] data, byte c) {
-    byte[] tmp = new byte[data.length + 1];
-    System.arraycopy(data, 0, tmp, 1, data.length);
-    tmp[0] = c;
-    return tmp;
+  private void onWrite(int written) {
+    long n = 0;
+    synchronized (this) {
+      writing = false;
+      if (expired) {
+        // deadline expired while writing
+        sender.close();
+        return;
+      }
+      consumed += written;
+      // don't ask for more while there is a full chunk waiting
+      if (count < chunkSize) {
+        n = consumed;
+        consumed = 0;
+        outstanding += n;
+      }
+    }
+    if (n > 0) {
+      subscription.request(n);
+    }
+    drain();
+  }
+
+  /** Chunk delay elapsed. */
+  private void flush() {
+    synchronized (this) {
+      timer = null;
+      due = true;
+    }
+    drain();
+  }
+
+  private void cancelTimer() {
+    if (timer != null) {
+      timer.cancel(false);
+      timer = null;
+    }
+  }
+
+  private void append(byte b) {
+    ensureCapacity(1);
+    buffer[count++] = b;
+  }
+
+  private void append(byte[] data) {
+    ensureCapacity(data.length);
+    System.arraycopy(data, 0, buffer, count, data.length);
+    count += data.length;
+  }
+
+  private void ensureCapacity(int len) {
+    int size = count + len;
+    if (buffer == null) {
+      buffer = new byte[Math.max(Math.min(chunkSize, INITIAL_SIZE), size)];
+    } else if (size > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, size));
+    }
   }
 }
@@ -7,10 +7,13 @@ package io.jooby.internal.handler.reactive;
 
 import io.jooby.Context;
 import io.jooby.Route;
+import io.jooby.internal.RequestDeadline;
 import io.jooby.internal.handler.LinkedHandler;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
 
 import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ReactorMonoHandler implements LinkedHandler {
 
@@ -23,7 +26,26 @@ public class ReactorMonoHandler implements LinkedHandler {
   @Nonnull @Override public Object apply(@Nonnull Context ctx) {
     try {
       Mono result = (Mono) next.apply(ctx);
-      result.subscribe(ctx::render, x -> ctx.sendError((Throwable) x));
+      /** First signal wins, cancel action races with the value: */
+      AtomicBoolean done = new AtomicBoolean();
+      Disposable subscription = result.subscribe(value -> {
+        if (done.compareAndSet(false, true)) {
+          ctx.render(value);
+        }
+      }, x -> {
+        if (done.compareAndSet(false, true)) {
+          ctx.sendError((Throwable) x);
+        }
+      });
+      ctx.onCancel(() -> {
+        if (done.compareAndSet(false, true)) {
+          subscription.dispose();
+          /** Otherwise client went away, nobody to respond to: */
+          if (ctx.isExpired()) {
+            ctx.sendError(RequestDeadline.exceeded());
+          }
+        }
+      });
       return result;
     } catch (Throwable x) {
       ctx.sendError(x);
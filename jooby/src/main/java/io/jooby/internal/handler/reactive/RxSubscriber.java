@@ -7,38 +7,57 @@ package io.jooby.internal.handler.reactive;
 
 import io.jooby.Context;
 import io.jooby.StatusCode;
+import io.jooby.internal.RequestDeadline;
 import io.reactivex.MaybeObserver;
 import io.reactivex.SingleObserver;
 import io.reactivex.disposables.Disposable;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 public class RxSubscriber implements MaybeObserver<Object>, SingleObserver<Object> {
 
   private final Context context;
 
   private Disposable subscription;
 
+  private final AtomicBoolean done = new AtomicBoolean();
+
   public RxSubscriber(Context context) {
     this.context = context;
   }
 
   @Override public void onSubscribe(Disposable d) {
     this.subscription = d;
+    context.onCancel(this::cancel);
   }
 
   @Override public void onSuccess(Object value) {
-    context.render(value);
+    if (done.compareAndSet(false, true)) {
+      context.render(value);
+    }
   }
 
   @Override public void onError(Throwable x) {
-    context.sendError(x);
+    if (done.compareAndSet(false, true)) {
+      context.sendError(x);
+    }
     subscription.dispose();
   }
 
   @Override public void onComplete() {
-    if (!context.isResponseStarted()) {
+    if (done.compareAndSet(false, true) && !context.isResponseStarted()) {
       // assume it is a maybe response:
       context.send(StatusCode.NOT_FOUND);
     }
     subscription.dispose();
   }
+
+  private void cancel() {
+    if (context.isExpired()) {
+      onError(RequestDeadline.exceeded());
+    } else if (done.compareAndSet(false, true)) {
+      /** Client went away, nobody to respond to: */
+      subscription.dispose();
+    }
+  }
 }
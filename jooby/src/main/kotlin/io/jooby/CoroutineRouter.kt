@@ -5,6 +5,7 @@
  */
 package io.jooby
 
+import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.CoroutineExceptionHandler
 import kotlinx.coroutines.CoroutineName
 import kotlinx.coroutines.CoroutineScope
@@ -12,6 +13,14 @@ import kotlinx.coroutines.CoroutineStart
 import kotlinx.coroutines.asCoroutineDispatcher
 import kotlinx.coroutines.launch
 import kotlin.coroutines.CoroutineContext
+import kotlin.coroutines.EmptyCoroutineContext
+
+/**
+ * Coroutine dispatcher for the IO thread (event loop) handling the request. Coroutines running on
+ * it must never block.
+ */
+val Context.ioDispatcher: CoroutineDispatcher
+  get() = ioExecutor.asCoroutineDispatcher()
 
 internal class RouterCoroutineScope(coroutineContext: CoroutineContext) : CoroutineScope {
   override val coroutineContext = coroutineContext
@@ -23,6 +32,17 @@ class CoroutineRouter(val coroutineStart: CoroutineStart, val router: Router) {
     RouterCoroutineScope(router.worker.asCoroutineDispatcher())
   }
 
+  /**
+   * Run coroutines in the IO thread (event loop) of the request, instead of the worker executor.
+   * Response is written from the IO thread without a thread switch, but coroutines must never
+   * block. Default is: <code>false</code>.
+   */
+  var eventLoop: Boolean = false
+
+  internal fun dispatcher(ctx: Context): CoroutineContext {
+    return if (eventLoop) ctx.ioDispatcher else EmptyCoroutineContext
+  }
+
   @RouterDsl
   fun get(pattern: String = "/", handler: suspend HandlerContext.() -> Any): Route {
     return route(Router.GET, pattern, handler)
@@ -73,7 +93,7 @@ class CoroutineRouter(val coroutineStart: CoroutineStart, val router: Router) {
       val xhandler = CoroutineExceptionHandler { _, x ->
         ctx.sendError(x)
       }
-      coroutineScope.launch(CoroutineRouter.ContextCoroutineName + xhandler, coroutineStart) {
+      coroutineScope.launch(ContextCoroutineName + xhandler + dispatcher(ctx), coroutineStart) {
         val result = handler(HandlerContext(ctx))
         if (result != ctx) {
           ctx.render(result)
@@ -23,7 +23,8 @@ class CoroutineHandler(val provider: Provider<Any>, val handler: Method, val arg
     val xhandler = CoroutineExceptionHandler { _, x ->
       ctx.sendError(x)
     }
-    router.coroutineScope.launch(CoroutineName(handler.name) + xhandler, router.coroutineStart) {
+    val context = CoroutineName(handler.name) + xhandler + router.dispatcher(ctx)
+    router.coroutineScope.launch(context, router.coroutineStart) {
       val result = handler.kotlinFunction!!.callSuspend(provider.get(), *argumentResolver.arguments(ctx))
       if (result != ctx) {
         ctx.render(result!!)
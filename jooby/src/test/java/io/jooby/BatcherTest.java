@@ -0,0 +1,163 @@
+package io.jooby;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatcherTest {
+
+  private static Map<Integer, String> values(List<Integer> keys) {
+    Map<Integer, String> values = new HashMap<>();
+    for (Integer key : keys) {
+      values.put(key, "v" + key);
+    }
+    return values;
+  }
+
+  @Test
+  public void batchByDelay() throws Exception {
+    List<List<Integer>> calls = new CopyOnWriteArrayList<>();
+    Batcher<Integer, String> batcher = new Batcher<Integer, String>(Runnable::run, keys -> {
+      calls.add(keys);
+      return values(keys);
+    }).setMaxDelay(Duration.ofMillis(50));
+
+    CompletableFuture<String> v1 = batcher.load(1).toCompletableFuture();
+    CompletableFuture<String> v2 = batcher.load(2).toCompletableFuture();
+    CompletableFuture<String> v3 = batcher.load(1).toCompletableFuture();
+
+    assertEquals("v1", v1.get(5, TimeUnit.SECONDS));
+    assertEquals("v2", v2.get(5, TimeUnit.SECONDS));
+    assertEquals("v1", v3.get(5, TimeUnit.SECONDS));
+    /** Duplicated keys are loaded once: */
+    assertEquals(1, calls.size());
+    assertEquals(2, calls.get(0).size());
+    assertEquals(3, batcher.getRequests());
+    assertEquals(1, batcher.getBatches());
+  }
+
+  @Test
+  public void batchBySize() throws Exception {
+    List<List<Integer>> calls = new CopyOnWriteArrayList<>();
+    Batcher<Integer, String> batcher = new Batcher<Integer, String>(Runnable::run, keys -> {
+      calls.add(keys);
+      return values(keys);
+    }).setMaxBatchSize(4).setMaxDelay(Duration.ofMinutes(1));
+
+    List<CompletableFuture<String>> results = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      results.add(batcher.load(i).toCompletableFuture());
+    }
+    /** Full batches don't wait for max delay: */
+    for (int i = 0; i < 8; i++) {
+      assertEquals("v" + i, results.get(i).get(5, TimeUnit.SECONDS));
+    }
+    assertEquals(2, calls.size());
+    assertEquals(4, calls.get(0).size());
+    assertEquals(4, calls.get(1).size());
+  }
+
+  @Test
+  public void concurrentLoads() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      Batcher<Integer, String> batcher = new Batcher<>(executor, BatcherTest::values)
+          .setMaxBatchSize(50)
+          .setMaxDelay(Duration.ofMillis(5));
+
+      List<CompletableFuture<String>> results = new CopyOnWriteArrayList<>();
+      List<CompletableFuture<Void>> clients = new ArrayList<>();
+      for (int c = 0; c < 4; c++) {
+        int offset = c * 250;
+        clients.add(CompletableFuture.runAsync(() -> {
+          for (int i = 0; i < 250; i++) {
+            results.add(batcher.load(offset + i).toCompletableFuture());
+          }
+        }));
+      }
+      CompletableFuture.allOf(clients.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+      CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+      assertEquals(1000, batcher.getRequests());
+      assertTrue(batcher.getBatches() < 1000, batcher.toString());
+      long batched = 0;
+      for (Map.Entry<Integer, Long> bucket : batcher.getBatchSizeHistogram().entrySet()) {
+        /** Max batch size: */
+        assertTrue(bucket.getKey() <= 64, batcher.toString());
+        batched += bucket.getValue();
+      }
+      assertEquals(batcher.getBatches(), batched);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void missingKeyAndErrors() throws Exception {
+    Batcher<Integer, String> missing = new Batcher<>(Runnable::run, keys -> new HashMap<>());
+    ExecutionException x = assertThrows(ExecutionException.class,
+        () -> missing.load(1).toCompletableFuture().get(5, TimeUnit.SECONDS));
+    assertEquals(StatusCode.NOT_FOUND, ((StatusCodeException) x.getCause()).getStatusCode());
+
+    Batcher<Integer, String> failing = new Batcher<>(Runnable::run, keys -> {
+      throw new IllegalStateException("db down");
+    });
+    x = assertThrows(ExecutionException.class,
+        () -> failing.load(1).toCompletableFuture().get(5, TimeUnit.SECONDS));
+    assertEquals("db down", x.getCause().getMessage());
+  }
+
+  @Test
+  public void rejectedBatch() throws Exception {
+    Executor rejecting = task -> {
+      throw new RejectedExecutionException("full");
+    };
+    /** Full batch, dispatched by the caller: */
+    Batcher<Integer, String> bySize = new Batcher<Integer, String>(rejecting, BatcherTest::values)
+        .setMaxBatchSize(2).setMaxDelay(Duration.ofMinutes(1));
+    CompletableFuture<String> v1 = bySize.load(1).toCompletableFuture();
+    CompletableFuture<String> v2 = bySize.load(2).toCompletableFuture();
+    ExecutionException x = assertThrows(ExecutionException.class,
+        () -> v1.get(5, TimeUnit.SECONDS));
+    assertTrue(x.getCause() instanceof RejectedExecutionException);
+    assertTrue(v2.isCompletedExceptionally());
+
+    /** Batch window, dispatched by the timer: */
+    Batcher<Integer, String> byDelay = new Batcher<Integer, String>(rejecting, BatcherTest::values)
+        .setMaxDelay(Duration.ofMillis(10));
+    CompletableFuture<String> v3 = byDelay.load(3).toCompletableFuture();
+    x = assertThrows(ExecutionException.class, () -> v3.get(5, TimeUnit.SECONDS));
+    assertTrue(x.getCause() instanceof RejectedExecutionException);
+  }
+
+  @Test
+  public void histogram() throws Exception {
+    Batcher<Integer, String> batcher = new Batcher<Integer, String>(Runnable::run,
+        BatcherTest::values).setMaxBatchSize(3).setMaxDelay(Duration.ofMillis(10));
+    for (int i = 0; i < 3; i++) {
+      batcher.load(i);
+    }
+    batcher.load(3).toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+    Map<Integer, Long> histogram = batcher.getBatchSizeHistogram();
+    assertEquals(1L, histogram.get(1));
+    assertEquals(1L, histogram.get(4));
+    assertEquals(2, histogram.size());
+  }
+}
@@ -0,0 +1,188 @@
+package io.jooby;
+
+import io.jooby.internal.handler.WorkerHandler;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BulkheadTest {
+
+  private static class ManualExecutor implements Executor {
+    List<Runnable> tasks = new ArrayList<>();
+
+    @Override public void execute(Runnable command) {
+      tasks.add(command);
+    }
+
+    void runNext() {
+      tasks.remove(0).run();
+    }
+  }
+
+  @Test
+  public void admission() {
+    ManualExecutor worker = new ManualExecutor();
+    Bulkhead bulkhead = new Bulkhead(worker)
+        .setMaxConcurrency(2)
+        .setMaxQueueSize(1);
+    AtomicInteger counter = new AtomicInteger();
+
+    bulkhead.execute(counter::incrementAndGet);
+    bulkhead.execute(counter::incrementAndGet);
+    bulkhead.execute(counter::incrementAndGet);
+    assertEquals(2, bulkhead.getRunning());
+    assertEquals(1, bulkhead.getQueued());
+    assertEquals(2, worker.tasks.size());
+
+    assertThrows(RejectedExecutionException.class, () -> bulkhead.execute(counter::incrementAndGet));
+    assertEquals(1, bulkhead.getRejected());
+
+    /** Completion moves queued task to worker: */
+    worker.runNext();
+    assertEquals(1, counter.get());
+    assertEquals(2, bulkhead.getRunning());
+    assertEquals(0, bulkhead.getQueued());
+    assertEquals(2, worker.tasks.size());
+
+    worker.runNext();
+    worker.runNext();
+    assertEquals(3, counter.get());
+    assertEquals(0, bulkhead.getRunning());
+
+    bulkhead.execute(counter::incrementAndGet);
+    assertEquals(1, bulkhead.getRunning());
+  }
+
+  @Test
+  public void rejectRequestWithRetryAfter() {
+    ManualExecutor worker = new ManualExecutor();
+    Bulkhead bulkhead = new Bulkhead(worker)
+        .setMaxConcurrency(1)
+        .setMaxQueueSize(0)
+        .setRetryAfter(Duration.ofSeconds(5));
+
+    Context ctx = context();
+    bulkhead.dispatch(ctx, () -> {
+    });
+    assertEquals(1, worker.tasks.size());
+
+    StatusCodeException x = assertThrows(StatusCodeException.class,
+        () -> bulkhead.dispatch(ctx, () -> {
+        }));
+    assertEquals(StatusCode.SERVICE_UNAVAILABLE, x.getStatusCode());
+    verify(ctx).setResponseHeader("Retry-After", 5L);
+    /** Worker never saw the rejected request: */
+    assertEquals(1, worker.tasks.size());
+  }
+
+  @Test
+  public void queueTimeout() {
+    ManualExecutor worker = new ManualExecutor();
+    Bulkhead bulkhead = new Bulkhead(worker)
+        .setMaxConcurrency(1)
+        .setMaxQueueSize(1)
+        .setQueueTimeout(Duration.ofMillis(10));
+
+    Context ctx = context();
+    AtomicInteger counter = new AtomicInteger();
+    bulkhead.dispatch(ctx, counter::incrementAndGet);
+    bulkhead.dispatch(ctx, counter::incrementAndGet);
+    assertEquals(1, bulkhead.getQueued());
+
+    verify(ctx, timeout(1000)).sendError(any(StatusCodeException.class));
+    assertEquals(1, bulkhead.getTimedOut());
+    assertEquals(0, bulkhead.getQueued());
+
+    worker.runNext();
+    assertEquals(1, counter.get());
+    assertEquals(0, worker.tasks.size());
+    assertEquals(0, bulkhead.getRunning());
+  }
+
+  @Test
+  public void holdSlotUntilResponseCompletes() {
+    ManualExecutor worker = new ManualExecutor();
+    Bulkhead bulkhead = new Bulkhead(worker)
+        .setMaxConcurrency(1)
+        .setMaxQueueSize(0);
+
+    List<Runnable> completion = new ArrayList<>();
+    Context ctx = context(completion);
+    AtomicInteger counter = new AtomicInteger();
+    bulkhead.dispatch(ctx, counter::incrementAndGet);
+    worker.runNext();
+    assertEquals(1, counter.get());
+
+    /** Handler returned, but async response is still pending: */
+    assertEquals(1, bulkhead.getRunning());
+    assertThrows(StatusCodeException.class, () -> bulkhead.dispatch(ctx, counter::incrementAndGet));
+
+    completion.forEach(Runnable::run);
+    assertEquals(0, bulkhead.getRunning());
+    bulkhead.dispatch(ctx, counter::incrementAndGet);
+    assertEquals(1, bulkhead.getRunning());
+  }
+
+  @Test
+  public void rejectWorkerWithServiceUnavailable() throws Exception {
+    ManualExecutor worker = new ManualExecutor();
+    Bulkhead bulkhead = new Bulkhead(worker)
+        .setMaxConcurrency(1)
+        .setMaxQueueSize(0);
+    Router router = mock(Router.class);
+    when(router.getWorker()).thenReturn(bulkhead);
+    Context ctx = context();
+    when(ctx.getRouter()).thenReturn(router);
+
+    Route.Handler handler = new WorkerHandler(c -> "OK");
+    handler.apply(ctx);
+    assertEquals(1, worker.tasks.size());
+
+    StatusCodeException x = assertThrows(StatusCodeException.class, () -> handler.apply(ctx));
+    assertEquals(StatusCode.SERVICE_UNAVAILABLE, x.getStatusCode());
+
+    /** Direct submission: */
+    assertEquals(StatusCode.SERVICE_UNAVAILABLE,
+        new Jooby().errorCode(new RejectedExecutionException()));
+  }
+
+  private Context context() {
+    return context(null);
+  }
+
+  /**
+   * Mock context. Completion actions go to the given list or run right away (like a synchronous
+   * response) when list is null.
+   */
+  private Context context(List<Runnable> completion) {
+    Context ctx = mock(Context.class);
+    when(ctx.dispatch(any(Executor.class), any(Runnable.class))).then(invocation -> {
+      Executor executor = invocation.getArgument(0);
+      executor.execute(invocation.getArgument(1));
+      return ctx;
+    });
+    when(ctx.onComplete(any(Runnable.class))).then(invocation -> {
+      Runnable action = invocation.getArgument(0);
+      if (completion == null) {
+        action.run();
+      } else {
+        completion.add(action);
+      }
+      return ctx;
+    });
+    return ctx;
+  }
+}
@@ -0,0 +1,63 @@
+package io.jooby;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompressionOptionsTest {
+
+  @Test
+  public void isCompressible() {
+    CompressionOptions options = new CompressionOptions();
+    assertTrue(options.isCompressible("text/plain", -1));
+    assertTrue(options.isCompressible("text/html;charset=UTF-8", 1024));
+    assertTrue(options.isCompressible("application/json", 512));
+    assertTrue(options.isCompressible("application/problem+json", -1));
+    assertTrue(options.isCompressible("image/svg+xml", -1));
+
+    assertFalse(options.isCompressible("text/plain", 511));
+    assertFalse(options.isCompressible("image/png", -1));
+    assertFalse(options.isCompressible("application/octet-stream", -1));
+    assertFalse(options.isCompressible("application/zip", 4096));
+    assertFalse(options.isCompressible(null, -1));
+    assertFalse(options.isCompressible("text", -1));
+
+    options.setTypes("image/*").setMinSize(0);
+    assertTrue(options.isCompressible("image/png", 1));
+    assertFalse(options.isCompressible("text/plain", 1));
+  }
+
+  @Test
+  public void negotiate() {
+    CompressionOptions options = new CompressionOptions();
+    assertEquals("gzip", options.negotiate("gzip"));
+    assertEquals("gzip", options.negotiate("deflate, gzip"));
+    assertEquals("deflate", options.negotiate("gzip;q=0.5, deflate"));
+    assertEquals("deflate", options.negotiate("deflate"));
+    assertEquals("gzip", options.negotiate("*"));
+    assertEquals("deflate", options.negotiate("gzip;q=0, *"));
+    assertNull(options.negotiate("br"));
+    assertNull(options.negotiate("gzip;q=0"));
+    assertNull(options.negotiate(""));
+    assertNull(options.negotiate(null));
+
+    options.setAlgorithms("deflate", "gzip");
+    assertEquals("deflate", options.negotiate("gzip, deflate"));
+    assertEquals("gzip", options.negotiate("gzip, deflate;q=0.5"));
+
+    options.setAlgorithms("gzip");
+    assertNull(options.negotiate("deflate"));
+  }
+
+  @Test
+  public void validate() {
+    assertThrows(IllegalArgumentException.class, () -> new CompressionOptions().setLevel(0));
+    assertThrows(IllegalArgumentException.class, () -> new CompressionOptions().setLevel(10));
+    assertThrows(IllegalArgumentException.class,
+        () -> new CompressionOptions().setAlgorithms("br"));
+  }
+}
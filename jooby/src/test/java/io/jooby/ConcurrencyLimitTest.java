@@ -0,0 +1,182 @@
+package io.jooby;
+
+import io.jooby.internal.ConcurrencyLimiter;
+import io.jooby.internal.handler.ConcurrencyLimitHandler;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConcurrencyLimitTest {
+
+  /**
+   * Simulated downstream: requests take <code>base</code> nanos up to <code>capacity</code>
+   * concurrent requests, then they queue and latency grows linearly.
+   */
+  private static class Downstream {
+    long base = TimeUnit.MILLISECONDS.toNanos(10);
+
+    int capacity;
+
+    Downstream(int capacity) {
+      this.capacity = capacity;
+    }
+
+    long latency(int inflight) {
+      return (long) (base * Math.max(1.0, (double) inflight / capacity));
+    }
+
+    /** Saturate the limit for the given number of samples. */
+    int run(ConcurrencyLimit limit, int samples) {
+      for (int i = 0; i < samples; i++) {
+        int inflight = limit.getLimit();
+        limit.onSample(latency(inflight), inflight);
+      }
+      return limit.getLimit();
+    }
+  }
+
+  @Test
+  public void fixed() {
+    ConcurrencyLimit limit = ConcurrencyLimit.fixed(5);
+    limit.onSample(Long.MAX_VALUE, 5);
+    assertEquals(5, limit.getLimit());
+  }
+
+  @Test
+  public void aimdFollowsCapacity() {
+    Downstream downstream = new Downstream(50);
+    ConcurrencyLimit limit = ConcurrencyLimit.aimd()
+        .setTimeout(Duration.ofMillis(15));
+
+    int converged = downstream.run(limit, 2000);
+    assertTrue(converged >= 50 && converged <= 80, "aimd: " + converged);
+
+    downstream.capacity = 10;
+    int shrunk = downstream.run(limit, 2000);
+    assertTrue(shrunk >= 10 && shrunk <= 16, "aimd: " + shrunk);
+
+    downstream.capacity = 100;
+    int recovered = downstream.run(limit, 2000);
+    assertTrue(recovered >= 100 && recovered <= 160, "aimd: " + recovered);
+  }
+
+  @Test
+  public void aimdDoesNotGrowWhenIdle() {
+    ConcurrencyLimit limit = new ConcurrencyLimit.Aimd(20);
+    for (int i = 0; i < 100; i++) {
+      limit.onSample(1, 1);
+    }
+    assertEquals(20, limit.getLimit());
+  }
+
+  @Test
+  public void gradientFollowsCapacity() {
+    Downstream downstream = new Downstream(50);
+    ConcurrencyLimit limit = ConcurrencyLimit.gradient();
+
+    int converged = downstream.run(limit, 1800);
+    assertTrue(converged >= 50 && converged <= 100, "gradient: " + converged);
+
+    downstream.capacity = 10;
+    int shrunk = downstream.run(limit, 1800);
+    assertTrue(shrunk >= 10 && shrunk <= 25, "gradient: " + shrunk);
+
+    downstream.capacity = 100;
+    int recovered = downstream.run(limit, 1800);
+    assertTrue(recovered >= 100 && recovered <= 175, "gradient: " + recovered);
+  }
+
+  @Test
+  public void gradientFollowsPermanentLatencyChange() {
+    Downstream downstream = new Downstream(50);
+    ConcurrencyLimit limit = new ConcurrencyLimit.Gradient(20)
+        .setProbeInterval(500);
+
+    int converged = downstream.run(limit, 2000);
+
+    /** Downstream got slower for every request, capacity is the same: */
+    downstream.base *= 4;
+    int limitAfter = downstream.run(limit, 2000);
+    assertTrue(limitAfter >= converged / 2, "gradient: " + converged + " -> " + limitAfter);
+  }
+
+  @Test
+  public void bulkheadWithAdaptiveLimit() throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      Bulkhead bulkhead = new Bulkhead(executor)
+          .setLimit(new ConcurrencyLimit.Aimd(2).setTimeout(Duration.ofSeconds(1)))
+          .setMaxQueueSize(100);
+      assertEquals(2, bulkhead.getLimit());
+
+      CountDownLatch done = new CountDownLatch(50);
+      for (int i = 0; i < 50; i++) {
+        bulkhead.execute(() -> {
+          try {
+            Thread.sleep(1);
+          } catch (InterruptedException x) {
+            Thread.currentThread().interrupt();
+          } finally {
+            done.countDown();
+          }
+        });
+      }
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+      /** Fast tasks with a full queue increase the limit: */
+      assertTrue(bulkhead.getLimit() > 2, bulkhead.toString());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void routeLimitReleasesOnResponseCompletion() throws Exception {
+    List<Runnable> completion = new ArrayList<>();
+    Context ctx = mock(Context.class);
+    when(ctx.onComplete(any(Runnable.class))).then(invocation -> {
+      completion.add(invocation.getArgument(0));
+      return ctx;
+    });
+    List<Long> samples = new ArrayList<>();
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(new ConcurrencyLimit() {
+      @Override public int getLimit() {
+        return 1;
+      }
+
+      @Override public void onSample(long rtt, int inflight) {
+        samples.add(rtt);
+      }
+    });
+    Route.Handler handler = new ConcurrencyLimitHandler(c -> c, limiter);
+
+    handler.apply(ctx);
+    /** Handler returned, response is still pending: */
+    assertEquals(1, limiter.getInflight());
+    assertEquals(0, samples.size());
+    StatusCodeException x = assertThrows(StatusCodeException.class, () -> handler.apply(ctx));
+    assertEquals(StatusCode.SERVICE_UNAVAILABLE, x.getStatusCode());
+    assertEquals(1, limiter.getRejected());
+    /** Same shedding response as a bulkhead: */
+    verify(ctx).setResponseHeader("Retry-After", 1L);
+
+    completion.forEach(Runnable::run);
+    assertEquals(0, limiter.getInflight());
+    assertEquals(1, samples.size());
+    handler.apply(ctx);
+    assertEquals(1, limiter.getInflight());
+  }
+}
@@ -0,0 +1,57 @@
+package io.jooby;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MemoryBudgetTest {
+
+  @Test
+  public void reserveAndRelease() {
+    MemoryBudget budget = new MemoryBudget(10);
+    assertTrue(budget.reserve(6));
+    assertFalse(budget.reserve(5));
+    assertTrue(budget.reserve(4));
+    assertEquals(10, budget.getMemory());
+
+    budget.release(6);
+    assertEquals(4, budget.getMemory());
+    assertTrue(budget.reserve(5));
+
+    budget.spill(7);
+    assertEquals(7, budget.getSpilled());
+    budget.releaseSpilled(7);
+    assertEquals(0, budget.getSpilled());
+  }
+
+  @Test
+  public void neverExceedsLimit() throws InterruptedException {
+    MemoryBudget budget = new MemoryBudget(1000);
+    AtomicInteger reserved = new AtomicInteger();
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch latch = new CountDownLatch(threads);
+    for (int i = 0; i < threads; i++) {
+      executor.execute(() -> {
+        for (int j = 0; j < 1000; j++) {
+          if (budget.reserve(7)) {
+            reserved.addAndGet(7);
+          }
+        }
+        latch.countDown();
+      });
+    }
+    latch.await(10, TimeUnit.SECONDS);
+    executor.shutdown();
+    assertEquals(reserved.get(), budget.getMemory());
+    assertTrue(budget.getMemory() <= 1000);
+  }
+}
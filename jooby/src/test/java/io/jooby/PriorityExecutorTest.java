@@ -0,0 +1,130 @@
+package io.jooby;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PriorityExecutorTest {
+
+  @Test
+  public void weightedFairDraining() throws InterruptedException {
+    PriorityExecutor executor = new PriorityExecutor(1);
+    try {
+      CountDownLatch release = new CountDownLatch(1);
+      block(executor, release);
+
+      List<Priority> executed = new CopyOnWriteArrayList<>();
+      Map<Priority, List<Integer>> order = new EnumMap<>(Priority.class);
+      CountDownLatch done = new CountDownLatch(60);
+      for (int i = 0; i < 20; i++) {
+        for (Priority priority : new Priority[]{Priority.LOW, Priority.NORMAL, Priority.HIGH}) {
+          List<Integer> tasks = order.computeIfAbsent(priority, k -> new CopyOnWriteArrayList<>());
+          int task = i;
+          executor.execute(priority, () -> {
+            executed.add(priority);
+            tasks.add(task);
+            done.countDown();
+          });
+        }
+      }
+      release.countDown();
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+
+      /** 8:4:1 while all the queues have tasks: */
+      List<Priority> turn = executed.subList(0, 13);
+      assertEquals(8, count(turn, Priority.HIGH), turn.toString());
+      assertEquals(4, count(turn, Priority.NORMAL), turn.toString());
+      assertEquals(1, count(turn, Priority.LOW), turn.toString());
+
+      /** Submission order within a priority: */
+      List<Integer> fifo = IntStream.range(0, 20).boxed().collect(Collectors.toList());
+      for (Priority priority : Priority.values()) {
+        assertEquals(fifo, order.get(priority), priority.name());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void agingPreventsStarvation() throws InterruptedException {
+    PriorityExecutor executor = new PriorityExecutor(1)
+        .setMaxWait(Duration.ofMillis(50));
+    try {
+      CountDownLatch release = new CountDownLatch(1);
+      block(executor, release);
+
+      List<Priority> executed = new CopyOnWriteArrayList<>();
+      CountDownLatch done = new CountDownLatch(11);
+      executor.execute(Priority.LOW, () -> {
+        executed.add(Priority.LOW);
+        done.countDown();
+      });
+      Thread.sleep(100);
+      for (int i = 0; i < 10; i++) {
+        executor.execute(Priority.HIGH, () -> {
+          executed.add(Priority.HIGH);
+          done.countDown();
+        });
+      }
+      release.countDown();
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+      assertEquals(Priority.LOW, executed.get(0));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void shutdown() throws InterruptedException {
+    PriorityExecutor executor = new PriorityExecutor(2)
+        .setWeight(Priority.LOW, 2);
+    CountDownLatch done = new CountDownLatch(10);
+    for (int i = 0; i < 10; i++) {
+      executor.execute(Priority.LOW, done::countDown);
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    assertEquals(0, done.getCount());
+    assertTrue(executor.isTerminated());
+    assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {
+    }));
+    assertThrows(IllegalArgumentException.class, () -> executor.setWeight(Priority.HIGH, 0));
+  }
+
+  private static long count(List<Priority> values, Priority priority) {
+    return values.stream().filter(priority::equals).collect(Collectors.counting());
+  }
+
+  /** Block the only thread until release, so next tasks are queued. */
+  private static void block(PriorityExecutor executor, CountDownLatch release)
+      throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    executor.execute(() -> {
+      started.countDown();
+      await(release);
+    });
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException x) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package io.jooby;
+
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class WebSocketHubTest {
+
+  private static class Client implements WebSocket {
+    List<byte[]> messages = new ArrayList<>();
+    WebSocketCloseStatus closeStatus;
+
+    @Nonnull @Override public Context getContext() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override public boolean isOpen() {
+      return closeStatus == null;
+    }
+
+    @Nonnull @Override public WebSocket send(@Nonnull byte[] message, boolean binary) {
+      messages.add(message);
+      return this;
+    }
+
+    @Override public void close(@Nonnull WebSocketCloseStatus closeStatus) {
+      this.closeStatus = closeStatus;
+    }
+  }
+
+  @Test
+  public void broadcastSharesEncodedMessage() {
+    Client c1 = new Client();
+    Client c2 = new Client();
+    Client closed = new Client();
+    closed.close();
+
+    WebSocketHub hub = new WebSocketHub()
+        .add(c1)
+        .add(c2)
+        .add(closed);
+    assertEquals(2, hub.size());
+
+    hub.broadcast("hello");
+    assertArrayEquals("hello".getBytes(StandardCharsets.UTF_8), c1.messages.get(0));
+    assertSame(c1.messages.get(0), c2.messages.get(0));
+    assertEquals(0, closed.messages.size());
+
+    c2.close();
+    hub.broadcast("bye");
+    assertEquals(2, c1.messages.size());
+    assertEquals(1, c2.messages.size());
+    assertEquals(1, hub.size());
+
+    hub.close();
+    assertEquals(WebSocketCloseStatus.GOING_AWAY, c1.closeStatus);
+    assertFalse(c1.isOpen());
+    assertEquals(0, hub.size());
+  }
+
+  @Test
+  public void message() {
+    Context ctx = mock(Context.class);
+    WebSocketMessage text = WebSocketMessage.create(ctx, "héllo");
+    assertFalse(text.isBinary());
+    assertEquals("héllo", text.value());
+    assertArrayEquals("héllo".getBytes(StandardCharsets.UTF_8), text.bytes());
+
+    ByteBuffer payload = ByteBuffer.wrap("héllo".getBytes(StandardCharsets.UTF_8));
+    WebSocketMessage binary = WebSocketMessage.create(ctx, payload, true);
+    assertEquals("héllo", binary.value());
+    assertEquals(payload.remaining(), binary.buffer().remaining());
+    assertEquals(0, payload.position());
+
+    assertEquals(WebSocketCloseStatus.SERVICE_OVERLOAD, WebSocketCloseStatus.valueOf(1013).get());
+    assertFalse(WebSocketCloseStatus.valueOf(4000).isPresent());
+  }
+}
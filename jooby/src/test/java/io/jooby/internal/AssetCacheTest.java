@@ -0,0 +1,129 @@
+package io.jooby.internal;
+
+import io.jooby.AssetSource;
+import io.jooby.MediaType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AssetCacheTest {
+
+  @Test
+  public void index() throws IOException {
+    Path dir = Files.createTempDirectory("assets");
+    try {
+      Files.createDirectories(dir.resolve("js"));
+      write(dir.resolve("index.html"), "<html/>");
+      write(dir.resolve("js").resolve("app.js"), "var x;");
+
+      Set<String> files = new FolderDiskAssetSource(dir).list();
+      assertEquals(2, files.size());
+      assertTrue(files.contains("index.html"));
+      assertTrue(files.contains("js/app.js"));
+
+      AssetCache cache = new AssetCache(new AssetSource[]{AssetSource.create(dir)}, 1024, 1024);
+      CachedAsset app = cache.resolve("js/app.js");
+      assertNotNull(app);
+      assertEquals(MediaType.js, app.getContentType());
+      assertSame(app, cache.resolve("js/app.js"));
+
+      assertEquals(MediaType.html, cache.resolve("").getContentType());
+      assertNull(cache.resolve("js/../index.html"));
+
+      // not indexed: created after startup
+      write(dir.resolve("late.js"), "var y;");
+      assertNull(cache.resolve("late.js"));
+      assertNull(cache.resolve("js"));
+    } finally {
+      delete(dir);
+    }
+  }
+
+  @Test
+  public void classpath() {
+    ClassPathAssetSource source = new ClassPathAssetSource(getClass().getClassLoader(),
+        "/META-INF/resources/webjars/vue/2.5.22");
+    Set<String> files = source.list();
+    assertTrue(files.contains("package.json"));
+    assertTrue(files.contains("dist/vue.js"));
+
+    // root classpath can't be listed
+    assertNull(new ClassPathAssetSource(getClass().getClassLoader(), "/").list());
+
+    AssetCache cache = new AssetCache(new AssetSource[]{source}, 1024 * 1024, 1024);
+    CachedAsset packagejson = cache.resolve("package.json");
+    assertNotNull(packagejson);
+    assertEquals(MediaType.json, packagejson.getContentType());
+    assertEquals(packagejson.getEtag(), cache.resolve("package.json").getEtag());
+    assertNull(cache.resolve("nope.js"));
+    // too big
+    assertNull(cache.content(cache.resolve("dist/vue.js")));
+  }
+
+  @Test
+  public void content() throws IOException {
+    Path dir = Files.createTempDirectory("assets");
+    try {
+      write(dir.resolve("a.txt"), "aaaa");
+      write(dir.resolve("b.txt"), "bbbb");
+      write(dir.resolve("c.txt"), "cccc");
+      write(dir.resolve("big.txt"), "0123456789");
+
+      AssetCache cache = new AssetCache(new AssetSource[]{AssetSource.create(dir)}, 8, 8);
+      CachedAsset a = cache.resolve("a.txt");
+      ByteBuffer content = cache.content(a);
+      assertEquals("aaaa", string(content));
+      assertEquals(4, cache.getSize());
+      // read-only and independent
+      assertThrows(Exception.class, () -> cache.content(a).put((byte) 'x'));
+      assertEquals("aaaa", string(cache.content(a)));
+
+      cache.content(cache.resolve("b.txt"));
+      assertEquals(8, cache.getSize());
+      // a is the most recently used
+      cache.content(a);
+      cache.content(cache.resolve("c.txt"));
+      assertEquals(8, cache.getSize());
+
+      // b was evicted: delete file so it can't be loaded again
+      Files.delete(dir.resolve("b.txt"));
+      assertThrows(Exception.class, () -> cache.content(cache.resolve("b.txt")));
+      assertEquals("aaaa", string(cache.content(a)));
+
+      // streamed
+      assertNull(cache.content(cache.resolve("big.txt")));
+      assertEquals(8, cache.getSize());
+    } finally {
+      delete(dir);
+    }
+  }
+
+  private static String string(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void write(Path file, String content) throws IOException {
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void delete(Path dir) throws IOException {
+    try (Stream<Path> files = Files.walk(dir)) {
+      files.sorted((x, y) -> y.compareTo(x)).forEach(file -> file.toFile().delete());
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package io.jooby.internal;
+
+import io.jooby.BlockingCallDetector;
+import io.jooby.Context;
+import io.jooby.Route;
+import io.jooby.StatusCode;
+import io.jooby.StatusCodeException;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BlockingCallWatchdogTest {
+
+  private static class Report {
+    Route route;
+    Thread thread;
+    StackTraceElement[] stackTrace;
+  }
+
+  private static Context context(boolean ioThread, Route route) {
+    Context ctx = mock(Context.class);
+    when(ctx.isInIoThread()).thenReturn(ioThread);
+    when(ctx.getRoute()).thenReturn(route);
+    when(ctx.getMethod()).thenReturn(route.getMethod());
+    when(ctx.pathString()).thenReturn(route.getPattern());
+    return ctx;
+  }
+
+  private static Route route(String pattern) {
+    return new Route("GET", pattern, ctx -> "OK");
+  }
+
+  private static BlockingCallWatchdog watchdog(BlockingCallDetector detector) {
+    return new BlockingCallWatchdog(detector, LoggerFactory.getLogger(BlockingCallWatchdog.class));
+  }
+
+  @Test
+  public void reportBlockingCall() throws Exception {
+    List<Report> reports = new CopyOnWriteArrayList<>();
+    BlockingCallWatchdog watchdog = watchdog(new BlockingCallDetector()
+        .setThreshold(Duration.ofMillis(20))
+        .setListener((route, thread, elapsed, stackTrace) -> {
+          Report report = new Report();
+          report.route = route;
+          report.thread = thread;
+          report.stackTrace = stackTrace;
+          reports.add(report);
+        }));
+    watchdog.start();
+    try {
+      Route slow = route("/slow");
+      assertEquals("OK", watchdog.execute(context(true, slow), ctx -> {
+        Thread.sleep(200);
+        return "OK";
+      }));
+      assertEquals(1, reports.size());
+      Report report = reports.get(0);
+      assertEquals(slow, report.route);
+      assertEquals(Thread.currentThread(), report.thread);
+      assertTrue(Arrays.stream(report.stackTrace)
+          .anyMatch(e -> e.getClassName().equals(Thread.class.getName())
+              && e.getMethodName().startsWith("sleep")), Arrays.toString(report.stackTrace));
+
+      /** Fast call: */
+      reports.clear();
+      assertEquals("OK", watchdog.execute(context(true, route("/fast")), ctx -> "OK"));
+      Thread.sleep(100);
+      assertEquals(0, reports.size());
+    } finally {
+      watchdog.stop();
+    }
+  }
+
+  @Test
+  public void ignoreWorkerThreads() throws Exception {
+    List<Route> reports = new CopyOnWriteArrayList<>();
+    BlockingCallWatchdog watchdog = watchdog(new BlockingCallDetector()
+        .setThreshold(Duration.ofMillis(10))
+        .setStrict(true)
+        .setListener((route, thread, elapsed, stackTrace) -> reports.add(route)));
+    watchdog.start();
+    try {
+      assertEquals("OK", watchdog.execute(context(false, route("/worker")), ctx -> {
+        Thread.sleep(100);
+        return "OK";
+      }));
+      assertEquals(0, reports.size());
+    } finally {
+      watchdog.stop();
+    }
+  }
+
+  @Test
+  public void strict() throws Exception {
+    BlockingCallWatchdog watchdog = watchdog(new BlockingCallDetector()
+        .setThreshold(Duration.ofMillis(10))
+        .setStrict(true)
+        .setListener((route, thread, elapsed, stackTrace) -> {
+        }));
+    StatusCodeException x = assertThrows(StatusCodeException.class,
+        () -> watchdog.execute(context(true, route("/strict")), ctx -> {
+          Thread.sleep(50);
+          return "OK";
+        }));
+    assertEquals(StatusCode.SERVER_ERROR, x.getStatusCode());
+    assertTrue(x.getMessage().contains("GET /strict"), x.getMessage());
+
+    assertEquals("OK", watchdog.execute(context(true, route("/fast")), ctx -> "OK"));
+  }
+
+  @Test
+  public void strictAbortStartedResponse() throws Exception {
+    BlockingCallWatchdog watchdog = watchdog(new BlockingCallDetector()
+        .setThreshold(Duration.ofMillis(10))
+        .setStrict(true)
+        .setListener((route, thread, elapsed, stackTrace) -> {
+        }));
+    Context ctx = context(true, route("/sent"));
+    when(ctx.isResponseStarted()).thenReturn(true);
+    assertEquals(ctx, watchdog.execute(ctx, c -> {
+      Thread.sleep(50);
+      return c;
+    }));
+    verify(ctx).abort();
+  }
+}
@@ -1,13 +1,17 @@
 package io.jooby.internal;
 
+import io.jooby.ConcurrencyLimit;
 import io.jooby.ExecutionMode;
 import io.jooby.MessageEncoder;
 import io.jooby.Route;
 import io.jooby.internal.handler.CompletionStageHandler;
+import io.jooby.internal.handler.ConcurrencyLimitHandler;
+import io.jooby.internal.handler.DefaultHandler;
 import io.jooby.internal.handler.DetachHandler;
 import io.jooby.internal.handler.DispatchHandler;
 import io.jooby.internal.handler.LinkedHandler;
 import io.jooby.internal.handler.SendCharSequence;
+import io.jooby.internal.handler.SendIterator;
 import io.jooby.internal.handler.WorkerHandler;
 import io.jooby.internal.handler.reactive.ReactivePublisherHandler;
 import io.jooby.internal.handler.reactive.RxFlowableHandler;
@@ -19,9 +23,14 @@ import io.reactivex.Single;
 import org.junit.jupiter.api.Test;
 import org.reactivestreams.Publisher;
 
+import java.io.InputStream;
 import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -130,6 +139,45 @@ public class PipelineTest {
     assertTrue(next == h, "found: " + next + ", expected: " + h.getClass());
   }
 
+  @Test
+  public void sendIteratorOnStreamIteratorAndIterable() {
+    Route.Handler h = ctx -> "OK";
+    for (Class type : new Class[]{Stream.class, IntStream.class, Iterator.class,
+        Iterable.class}) {
+      LinkedHandler pipeline = (LinkedHandler) pipeline(route(type, h), ExecutionMode.DEFAULT);
+      assertTrue(pipeline instanceof WorkerHandler, "found: " + pipeline);
+      Route.Handler next = pipeline.next();
+      assertTrue(next instanceof SendIterator, "found: " + next);
+    }
+    // Collections are encoded as they are
+    LinkedHandler pipeline = (LinkedHandler) pipeline(route(List.class, h),
+        ExecutionMode.DEFAULT);
+    assertTrue(pipeline.next() instanceof DefaultHandler, "found: " + pipeline.next());
+  }
+
+  @Test
+  public void defaultDoesNothingOnNonBlockingSimpleTypes() {
+    Route.Handler h = ctx -> "OK";
+    Route.Handler pipeline = Pipeline.compute(getClass().getClassLoader(),
+        route(String.class, h), ExecutionMode.DEFAULT, null, null, false);
+    assertTrue(pipeline instanceof SendCharSequence, "found: " + pipeline);
+
+    // Streams keep running in worker
+    pipeline = Pipeline.compute(getClass().getClassLoader(), route(InputStream.class, h),
+        ExecutionMode.DEFAULT, null, null, false);
+    assertTrue(pipeline instanceof WorkerHandler, "found: " + pipeline);
+  }
+
+  @Test
+  public void concurrencyLimitBeforeDispatch() {
+    Route.Handler h = ctx -> "OK";
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(ConcurrencyLimit.fixed(1));
+    LinkedHandler pipeline = (LinkedHandler) Pipeline.compute(getClass().getClassLoader(),
+        route(String.class, h), ExecutionMode.WORKER, null, null, true, limiter);
+    assertTrue(pipeline instanceof ConcurrencyLimitHandler, "found: " + pipeline);
+    assertTrue(pipeline.next() instanceof WorkerHandler, "found: " + pipeline.next());
+  }
+
   @Test
   public void workerDetachOnCompletableFutures() {
     Route.Handler h = ctx -> "OK";
@@ -214,6 +262,32 @@ public class PipelineTest {
     assertTrue(next == h, "found: " + next + ", expected: " + h.getClass());
   }
 
+  @Test
+  public void virtualDispatchToVirtualThreadOnSimpleTypes() {
+    Route.Handler h = ctx -> "OK";
+    LinkedHandler pipeline = (LinkedHandler) pipeline(route(String.class, h),
+        ExecutionMode.VIRTUAL);
+    if (VirtualThreadExecutor.get() == null) {
+      assertTrue(pipeline instanceof WorkerHandler, "found: " + pipeline);
+    } else {
+      assertTrue(pipeline instanceof DispatchHandler, "found: " + pipeline);
+    }
+    Route.Handler next = pipeline.next();
+    assertTrue(next instanceof SendCharSequence);
+    next = ((LinkedHandler) next).next();
+    assertTrue(next == h, "found: " + next + ", expected: " + h.getClass());
+  }
+
+  @Test
+  public void virtualDoesNothingOnReactiveType() {
+    Route.Handler h = ctx -> "OK";
+    LinkedHandler pipeline = (LinkedHandler) pipeline(route(CompletableFuture.class, h),
+        ExecutionMode.VIRTUAL);
+    assertTrue(pipeline instanceof DetachHandler, "found: " + pipeline);
+    Route.Handler next = pipeline.next();
+    assertTrue(next instanceof CompletionStageHandler, "found: " + next);
+  }
+
   private Route.Handler pipeline(Route route, ExecutionMode mode) {
     return pipeline(route, mode, null);
   }
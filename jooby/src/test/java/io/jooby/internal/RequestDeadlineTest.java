@@ -0,0 +1,61 @@
+package io.jooby.internal;
+
+import io.jooby.Context;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RequestDeadlineTest {
+
+  @Test
+  public void cancelActionsRunOnDeadline() throws InterruptedException {
+    Context ctx = context(new ArrayList<>());
+    RequestDeadline.set(ctx, Duration.ofMillis(10));
+
+    CountDownLatch cancelled = new CountDownLatch(1);
+    RequestDeadline.get(ctx).onCancel(cancelled::countDown);
+    assertTrue(cancelled.await(1, TimeUnit.SECONDS));
+    assertTrue(RequestDeadline.get(ctx).isExpired());
+  }
+
+  @Test
+  public void cancelTimerOnCompletion() throws InterruptedException {
+    List<Runnable> completion = new ArrayList<>();
+    Context ctx = context(completion);
+    RequestDeadline.set(ctx, Duration.ofMillis(20));
+
+    AtomicInteger cancelled = new AtomicInteger();
+    RequestDeadline.get(ctx).onCancel(cancelled::incrementAndGet);
+    RequestDeadline.get(ctx).onCancel(cancelled::incrementAndGet);
+    /** Timer is scheduled once: */
+    assertEquals(1, completion.size());
+
+    completion.forEach(Runnable::run);
+    Thread.sleep(100);
+    assertEquals(0, cancelled.get());
+  }
+
+  private Context context(List<Runnable> completion) {
+    Map<String, Object> attributes = new HashMap<>();
+    Context ctx = mock(Context.class);
+    when(ctx.getAttributes()).thenReturn(attributes);
+    when(ctx.onComplete(any(Runnable.class))).then(invocation -> {
+      completion.add(invocation.getArgument(0));
+      return ctx;
+    });
+    return ctx;
+  }
+}
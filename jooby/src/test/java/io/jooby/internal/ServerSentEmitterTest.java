@@ -0,0 +1,173 @@
+package io.jooby.internal;
+
+import io.jooby.Context;
+import io.jooby.ForwardingContext;
+import io.jooby.Jooby;
+import io.jooby.Router;
+import io.jooby.Sender;
+import io.jooby.ServerSentEmitter;
+import io.jooby.ServerSentHub;
+import io.jooby.ServerSentMessage;
+import io.jooby.Value;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ServerSentEmitterTest {
+
+  /** Sender completes writes when {@link #runPending()} is called, like a slow client. */
+  private static class SlowClient extends ForwardingContext {
+    private final Router router = new Jooby();
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    private final Queue<Runnable> pending = new ArrayDeque<>();
+
+    private final List<byte[]> writes = new ArrayList<>();
+
+    private boolean closed;
+
+    SlowClient() {
+      super(null);
+    }
+
+    void runPending() {
+      Runnable callback;
+      while ((callback = pending.poll()) != null) {
+        callback.run();
+      }
+    }
+
+    String output() {
+      return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Nonnull @Override public Router getRouter() {
+      return router;
+    }
+
+    @Nonnull @Override public String getMethod() {
+      return "GET";
+    }
+
+    @Nonnull @Override public String pathString() {
+      return "/sse";
+    }
+
+    @Nonnull @Override public Value header(@Nonnull String name) {
+      return Value.missing(name);
+    }
+
+    @Nonnull @Override public Sender responseSender() {
+      return new Sender() {
+        @Nonnull @Override public Sender write(@Nonnull byte[] data, @Nonnull Callback callback) {
+          writes.add(data);
+          output.write(data, 0, data.length);
+          pending.add(() -> callback.onComplete(SlowClient.this, null));
+          return this;
+        }
+
+        @Override public void close() {
+          closed = true;
+        }
+      };
+    }
+  }
+
+  @Test
+  public void queueAndClose() {
+    SlowClient client = new SlowClient();
+    List<String> events = new ArrayList<>();
+    ServerSentEmitter sse = new ServerSentEmitterImpl(client)
+        .onClose(() -> events.add("closed"));
+    sse.send("a").send("b").send("c");
+    // one write in progress, rest is pending
+    assertEquals("data:a\n\n", client.output());
+
+    sse.close();
+    assertFalse(sse.isOpen());
+    assertFalse(client.closed);
+
+    client.runPending();
+    assertEquals("data:a\n\ndata:b\n\ndata:c\n\n", client.output());
+    assertTrue(client.closed);
+    assertEquals(1, events.size());
+  }
+
+  @Test
+  public void overflow() {
+    SlowClient dropClient = new SlowClient();
+    ServerSentEmitter drop = new ServerSentEmitterImpl(dropClient)
+        .setMaxPending(1)
+        .setOverflow(ServerSentEmitter.Overflow.DROP);
+    drop.send("1").send("2").send("3");
+    dropClient.runPending();
+    assertEquals("data:1\n\ndata:2\n\n", dropClient.output());
+    assertTrue(drop.isOpen());
+
+    SlowClient disconnectClient = new SlowClient();
+    ServerSentEmitter disconnect = new ServerSentEmitterImpl(disconnectClient)
+        .setMaxPending(1);
+    disconnect.send("1").send("2").send("3");
+    assertFalse(disconnect.isOpen());
+    disconnectClient.runPending();
+    assertEquals("data:1\n\n", disconnectClient.output());
+    assertTrue(disconnectClient.closed);
+  }
+
+  @Test
+  public void broadcastEncodesOnce() {
+    SlowClient client1 = new SlowClient();
+    SlowClient client2 = new SlowClient();
+    ServerSentHub hub = new ServerSentHub()
+        .add(new ServerSentEmitterImpl(client1))
+        .add(new ServerSentEmitterImpl(client2));
+
+    hub.broadcast(new ServerSentMessage("hello").setId(1));
+
+    assertEquals("id:1\ndata:hello\n\n", client1.output());
+    assertSame(client1.writes.get(0), client2.writes.get(0));
+
+    hub.close();
+    assertEquals(0, hub.size());
+    client1.runPending();
+    client2.runPending();
+    assertTrue(client1.closed);
+    assertTrue(client2.closed);
+  }
+
+  @Test
+  public void keepAlive() throws InterruptedException {
+    SlowClient client = new SlowClient();
+    ServerSentEmitter sse = new ServerSentEmitterImpl(client)
+        .keepAlive(10, TimeUnit.MILLISECONDS);
+    long timeout = System.currentTimeMillis() + 5000;
+    while (client.writes.isEmpty() && System.currentTimeMillis() < timeout) {
+      Thread.sleep(10);
+    }
+    sse.close();
+    client.runPending();
+    assertTrue(client.output().startsWith(":\n\n"), client.output());
+    assertTrue(client.closed);
+  }
+
+  @Test
+  public void multilineData() {
+    Context ctx = new SlowClient();
+    assertEquals("event:e\ndata:1\ndata:2\ndata:\ndata:3\n\n",
+        new String(new ServerSentMessage("1\r\n2\n\n3").setEvent("e").toByteArray(ctx),
+            StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,86 @@
+package io.jooby.internal;
+
+import io.jooby.ServerOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent requests doing a slow (simulated) JDBC call. Compares the default worker pool size
+ * of Netty (IO_THREADS * 8 platform threads) with a virtual thread per request. Virtual threads
+ * require Java 21 or higher.
+ */
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class VirtualThreadBenchmark {
+
+  @Param({"10000"})
+  int requests;
+
+  @Param({"20"})
+  long jdbcMillis;
+
+  private ExecutorService platform;
+
+  private Executor virtual;
+
+  @Setup
+  public void setup() {
+    platform = Executors.newFixedThreadPool(ServerOptions.WORKER_THREADS);
+    virtual = VirtualThreadExecutor.get();
+    if (virtual == null) {
+      throw new IllegalStateException("Virtual threads require Java 21 or higher");
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    platform.shutdownNow();
+  }
+
+  @Benchmark
+  public long platformWorker() throws InterruptedException {
+    return run(platform);
+  }
+
+  @Benchmark
+  public long virtualThread() throws InterruptedException {
+    return run(virtual);
+  }
+
+  private long run(Executor executor) throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(requests);
+    for (int i = 0; i < requests; i++) {
+      executor.execute(() -> {
+        try {
+          Thread.sleep(jdbcMillis);
+        } catch (InterruptedException x) {
+          Thread.currentThread().interrupt();
+        } finally {
+          latch.countDown();
+        }
+      });
+    }
+    latch.await();
+    return latch.getCount();
+  }
+}
@@ -0,0 +1,131 @@
+package io.jooby.internal.asm;
+
+import io.jooby.Body;
+import io.jooby.Context;
+import io.jooby.FileUpload;
+import io.jooby.ModelAndView;
+import io.jooby.Route;
+import io.jooby.TemplateEngine;
+import io.jooby.internal.RouteAnalyzer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.DriverManager;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BlockingCallsTest {
+
+  private RouteAnalyzer analyzer = new RouteAnalyzer(
+      new ClassSource(getClass().getClassLoader()), false);
+
+  @Test
+  public void nonBlocking() {
+    assertNonBlocking(ctx -> "OK");
+    assertNonBlocking(ctx -> ctx.query("q").value("none").toUpperCase());
+    assertNonBlocking(ctx -> Arrays.asList("a", "b").stream()
+        .map(String::toUpperCase)
+        .collect(Collectors.joining(",")));
+    assertNonBlocking(Context::pathString);
+    assertNonBlocking(ctx -> {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      out.write(1);
+      return out.toByteArray();
+    });
+    assertNonBlocking(ctx -> {
+      StringWriter writer = new StringWriter();
+      writer.write("OK");
+      return writer.toString();
+    });
+    assertNonBlocking(ctx -> CompletableFuture.completedFuture("OK").thenApply(v -> v + "!"));
+  }
+
+  @Test
+  public void blocking() {
+    assertBlocking("java.lang.Thread.sleep", ctx -> {
+      Thread.sleep(100);
+      return "OK";
+    });
+    assertBlocking("java.sql.DriverManager.getConnection", ctx ->
+        DriverManager.getConnection("jdbc:h2:mem").isValid(0));
+    assertBlocking("java.nio.file.Files.readAllBytes", ctx ->
+        Files.readAllBytes(Paths.get("pom.xml")));
+    assertBlocking("java.io.FileInputStream.<init>", ctx -> new FileInputStream("pom.xml"));
+    assertBlocking("java.util.concurrent.Future.get", ctx -> future().get());
+    assertBlocking("java.util.concurrent.CompletableFuture.join", ctx ->
+        CompletableFuture.supplyAsync(() -> "OK").join());
+  }
+
+  @Test
+  public void blockingJooby() {
+    assertBlocking("io.jooby.Context.body", ctx -> ctx.body().value());
+    assertBlocking("io.jooby.Context.body", ctx -> ctx.body(String.class));
+    assertBlocking("io.jooby.Context.form", ctx -> ctx.form("name").value());
+    assertBlocking("io.jooby.Context.file", ctx -> ctx.file("f").getFileName());
+    assertBlocking("io.jooby.Body.value", ctx -> body(ctx).value());
+    assertBlocking("io.jooby.FileUpload.bytes", ctx -> upload(ctx).bytes());
+    assertBlocking("io.jooby.TemplateEngine.render", ctx ->
+        engine(ctx).render(ctx, new ModelAndView("index.html")));
+  }
+
+  @Test
+  public void blockingLambdaBody() {
+    assertBlocking("java.lang.Thread.sleep", ctx -> {
+      Arrays.asList(1, 2).forEach(i -> {
+        try {
+          Thread.sleep(i);
+        } catch (InterruptedException x) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      return "OK";
+    });
+  }
+
+  @Test
+  public void blockingFilter() {
+    Route.Before before = ctx -> Thread.sleep(100);
+    assertEquals("java.lang.Thread.sleep", analyzer.blockingCall(before));
+
+    Route.Decorator decorator = next -> ctx -> next.apply(ctx);
+    assertNull(analyzer.blockingCall(decorator));
+
+    /** Composition hides filters: */
+    String composed = analyzer.blockingCall(decorator.then(decorator));
+    assertTrue(composed.startsWith("unknown io.jooby.Route$Decorator"), composed);
+  }
+
+  private Body body(Context ctx) {
+    return ctx.attribute("body");
+  }
+
+  private FileUpload upload(Context ctx) {
+    return ctx.attribute("upload");
+  }
+
+  private TemplateEngine engine(Context ctx) {
+    return ctx.attribute("engine");
+  }
+
+  private Future<String> future() {
+    return CompletableFuture.completedFuture("OK");
+  }
+
+  private void assertNonBlocking(Route.Handler handler) {
+    assertNull(analyzer.blockingCall(handler));
+  }
+
+  private void assertBlocking(String expected, Route.Handler handler) {
+    assertEquals(expected, analyzer.blockingCall(handler));
+  }
+}
@@ -0,0 +1,133 @@
+package io.jooby.internal.handler.reactive;
+
+import io.jooby.Context;
+import io.jooby.ForwardingContext;
+import io.jooby.Jooby;
+import io.jooby.MediaType;
+import io.jooby.Route;
+import io.jooby.Router;
+import io.jooby.Sender;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Context with a non-blocking sender that completes writes later (like a busy connection), when
+ * {@link #runPending()} is called.
+ */
+class ChunkedContext extends ForwardingContext {
+
+  final Jooby router = new Jooby();
+
+  final Route route = new Route("GET", "/", ctx -> ctx)
+      .setEncoder((ctx, value) -> {
+        ctx.setResponseType(MediaType.json);
+        return value.toString().getBytes(StandardCharsets.UTF_8);
+      });
+
+  final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+  final Queue<Runnable> pending = new ArrayDeque<>();
+
+  int writes;
+
+  boolean closed;
+
+  Throwable error;
+
+  /** Cancel actions, run them with {@link #expire()} or {@link #connectionLost()}. */
+  final Queue<Runnable> cancel = new ArrayDeque<>();
+
+  boolean expired;
+
+  private MediaType responseType = MediaType.text;
+
+  ChunkedContext() {
+    super(null);
+  }
+
+  void runPending() {
+    Runnable callback;
+    while ((callback = pending.poll()) != null) {
+      callback.run();
+    }
+  }
+
+  void expire() {
+    expired = true;
+    connectionLost();
+  }
+
+  void connectionLost() {
+    Runnable action;
+    while ((action = cancel.poll()) != null) {
+      action.run();
+    }
+  }
+
+  String output() {
+    return new String(output.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Nonnull @Override public Router getRouter() {
+    return router;
+  }
+
+  @Nonnull @Override public Route getRoute() {
+    return route;
+  }
+
+  @Nonnull @Override public String getMethod() {
+    return route.getMethod();
+  }
+
+  @Nonnull @Override public String pathString() {
+    return route.getPattern();
+  }
+
+  @Nonnull @Override public MediaType getResponseType() {
+    return responseType;
+  }
+
+  @Nonnull @Override public Context setResponseType(@Nonnull MediaType contentType) {
+    this.responseType = contentType;
+    return this;
+  }
+
+  @Nonnull @Override public Context sendError(@Nonnull Throwable cause) {
+    this.error = cause;
+    return this;
+  }
+
+  @Override public boolean isExpired() {
+    return expired;
+  }
+
+  @Nonnull @Override public Context onCancel(@Nonnull Runnable action) {
+    cancel.add(action);
+    return this;
+  }
+
+  @Nonnull @Override public Sender responseSender() {
+    return new Sender() {
+      @Nonnull @Override public Sender write(@Nonnull byte[] data, @Nonnull Callback callback) {
+        return write(data, 0, data.length, callback);
+      }
+
+      @Nonnull @Override public Sender write(@Nonnull byte[] data, int offset, int length,
+          @Nonnull Callback callback) {
+        writes += 1;
+        output.write(data, offset, length);
+        pending.add(() -> callback.onComplete(ChunkedContext.this, null));
+        return this;
+      }
+
+      @Override public void close() {
+        closed = true;
+      }
+    };
+  }
+}
@@ -0,0 +1,111 @@
+package io.jooby.internal.handler.reactive;
+
+import io.reactivex.Flowable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeUnit;
+
+@Fork(5)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ChunkedSubscriberBenchmark {
+
+  @Param({"1", "32", "256"})
+  int prefetch;
+
+  @Param({"100000"})
+  int size;
+
+  private Flowable<Integer> flowable;
+
+  private Flux<Integer> flux;
+
+  private Publisher<Integer> publisher;
+
+  @Setup
+  public void setup() {
+    flowable = Flowable.range(0, size);
+    flux = Flux.range(0, size);
+    publisher = range(size);
+  }
+
+  @Benchmark
+  public int flowable() {
+    ChunkedContext ctx = context();
+    flowable.subscribe(new ReactiveSubscriber(new ChunkedSubscriber(ctx)));
+    ctx.runPending();
+    return ctx.writes;
+  }
+
+  @Benchmark
+  public int flux() {
+    ChunkedContext ctx = context();
+    flux.subscribe(new ReactiveSubscriber(new ChunkedSubscriber(ctx)));
+    ctx.runPending();
+    return ctx.writes;
+  }
+
+  @Benchmark
+  public int publisher() {
+    ChunkedContext ctx = context();
+    publisher.subscribe(new ReactiveSubscriber(new ChunkedSubscriber(ctx)));
+    ctx.runPending();
+    return ctx.writes;
+  }
+
+  private ChunkedContext context() {
+    ChunkedContext ctx = new ChunkedContext();
+    ctx.router.getRouterOptions().setStreamPrefetch(prefetch);
+    return ctx;
+  }
+
+  /**
+   * Plain reactive streams publisher (no operator fusion).
+   */
+  private static Publisher<Integer> range(int size) {
+    return subscriber -> subscriber.onSubscribe(new Subscription() {
+      int next;
+
+      long requested;
+
+      boolean emitting;
+
+      @Override public void request(long n) {
+        requested += n;
+        if (emitting) {
+          return;
+        }
+        emitting = true;
+        while (requested > 0 && next < size) {
+          requested -= 1;
+          subscriber.onNext(next++);
+        }
+        emitting = false;
+        if (next == size) {
+          next += 1;
+          subscriber.onComplete();
+        }
+      }
+
+      @Override public void cancel() {
+        next = size + 1;
+      }
+    });
+  }
+}
@@ -0,0 +1,184 @@
+package io.jooby.internal.handler.reactive;
+
+import io.jooby.StatusCode;
+import io.jooby.StatusCodeException;
+import io.reactivex.Flowable;
+import io.reactivex.processors.PublishProcessor;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChunkedSubscriberTest {
+
+  @Test
+  public void coalesceItemsWhileWriting() {
+    ChunkedContext ctx = new ChunkedContext();
+    List<Long> requests = new ArrayList<>();
+    Flowable.range(0, 100)
+        .doOnRequest(requests::add)
+        .subscribe(new ReactiveSubscriber(new ChunkedSubscriber(ctx)));
+
+    // prefetched items are sent together, once all of them arrived
+    assertEquals(1, ctx.writes);
+    assertEquals(Long.valueOf(32), requests.get(0));
+    assertEquals(1, requests.size());
+
+    ctx.runPending();
+
+    assertTrue(ctx.closed);
+    assertEquals(expected(100), ctx.output());
+    assertTrue(ctx.writes < 10, "writes: " + ctx.writes);
+    // demand is replenished in batches, never above prefetch
+    assertTrue(requests.size() < 10, "requests: " + requests);
+    requests.forEach(n -> assertTrue(n <= 32, "request: " + n));
+  }
+
+  @Test
+  public void prefetchAndChunkSize() {
+    ChunkedContext ctx = new ChunkedContext();
+    ctx.router.getRouterOptions()
+        .setStreamPrefetch(4)
+        .setStreamChunkSize(1);
+    List<Long> requests = new ArrayList<>();
+    Flowable.range(0, 10)
+        .doOnRequest(requests::add)
+        .subscribe(new ReactiveSubscriber(new ChunkedSubscriber(ctx)));
+    ctx.runPending();
+
+    assertTrue(ctx.closed);
+    assertEquals(expected(10), ctx.output());
+    requests.forEach(n -> assertTrue(n <= 4, "request: " + n));
+  }
+
+  @Test
+  public void chunkDelay() throws InterruptedException {
+    ChunkedContext ctx = new ChunkedContext();
+    ctx.router.getRouterOptions()
+        .setStreamChunkSize(8)
+        .setStreamChunkDelay(Duration.ofMillis(50));
+    PublishProcessor<Integer> items = PublishProcessor.create();
+    items.subscribe(new ReactiveSubscriber(new ChunkedSubscriber(ctx)));
+
+    items.onNext(1);
+    items.onNext(2);
+    /** Waiting for more items: */
+    assertEquals(0, ctx.writes);
+
+    long timeout = System.currentTimeMillis() + 5000;
+    while (ctx.writes == 0 && System.currentTimeMillis() < timeout) {
+      Thread.sleep(10);
+    }
+    /** Delay elapsed: */
+    assertEquals(1, ctx.writes);
+    assertEquals("[1,2", ctx.output());
+    ctx.runPending();
+
+    /** Full chunk is sent right away: */
+    items.onNext(3);
+    items.onNext(4);
+    items.onNext(5);
+    items.onNext(6);
+    assertEquals(2, ctx.writes);
+    assertEquals("[1,2,3,4,5,6", ctx.output());
+    ctx.runPending();
+
+    /** Completion sends pending items right away: */
+    items.onNext(7);
+    items.onComplete();
+    assertEquals(3, ctx.writes);
+    ctx.runPending();
+    assertEquals("[1,2,3,4,5,6,7]", ctx.output());
+    assertTrue(ctx.closed);
+  }
+
+  @Test
+  public void emptyAndError() {
+    ChunkedContext ctx = new ChunkedContext();
+    Flowable.empty().subscribe(new ReactiveSubscriber(new ChunkedSubscriber(ctx)));
+    ctx.runPending();
+    assertTrue(ctx.closed);
+    assertEquals("", ctx.output());
+
+    ChunkedContext errored = new ChunkedContext();
+    errored.router.getRouterOptions().setStreamChunkDelay(Duration.ZERO);
+    Flowable.range(0, 3)
+        .concatWith(Flowable.error(new IllegalStateException("intentional error")))
+        .subscribe(new ReactiveSubscriber(new ChunkedSubscriber(errored)));
+    errored.runPending();
+    // pending items and trailing bracket are discarded
+    assertEquals("intentional error", errored.error.getMessage());
+    assertFalse(errored.closed);
+    assertEquals("[0", errored.output());
+  }
+
+  @Test
+  public void cancelOnDeadline() {
+    ChunkedContext ctx = new ChunkedContext();
+    ctx.router.getRouterOptions().setStreamChunkDelay(Duration.ZERO);
+    AtomicBoolean cancelled = new AtomicBoolean();
+    Flowable.never()
+        .startWith(1)
+        .doOnCancel(() -> cancelled.set(true))
+        .subscribe(new ReactiveSubscriber(new ChunkedSubscriber(ctx)));
+    ctx.runPending();
+    assertEquals("[1", ctx.output());
+
+    ctx.expire();
+    assertTrue(cancelled.get());
+    assertTrue(ctx.error instanceof StatusCodeException);
+    assertEquals(StatusCode.GATEWAY_TIMEOUT, ((StatusCodeException) ctx.error).getStatusCode());
+    /** Response was started, close it: */
+    assertTrue(ctx.closed);
+
+    /** Deadline before first item, response isn't started: */
+    ChunkedContext empty = new ChunkedContext();
+    Flowable.never().subscribe(new ReactiveSubscriber(new ChunkedSubscriber(empty)));
+    empty.expire();
+    assertEquals(StatusCode.GATEWAY_TIMEOUT, ((StatusCodeException) empty.error).getStatusCode());
+    assertEquals(0, empty.writes);
+    assertFalse(empty.closed);
+
+    /** Deadline after completion does nothing: */
+    ChunkedContext completed = new ChunkedContext();
+    Flowable.range(0, 3).subscribe(new ReactiveSubscriber(new ChunkedSubscriber(completed)));
+    completed.runPending();
+    completed.expire();
+    assertTrue(completed.closed);
+    assertEquals(null, completed.error);
+  }
+
+  @Test
+  public void cancelOnConnectionLost() {
+    ChunkedContext ctx = new ChunkedContext();
+    ctx.router.getRouterOptions().setStreamChunkDelay(Duration.ZERO);
+    AtomicBoolean cancelled = new AtomicBoolean();
+    Flowable.never()
+        .startWith(1)
+        .doOnCancel(() -> cancelled.set(true))
+        .subscribe(new ReactiveSubscriber(new ChunkedSubscriber(ctx)));
+    ctx.runPending();
+    assertEquals("[1", ctx.output());
+
+    ctx.connectionLost();
+    assertTrue(cancelled.get());
+    /** Nobody to respond to: */
+    assertEquals(null, ctx.error);
+    assertEquals("[1", ctx.output());
+  }
+
+  private static String expected(int size) {
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < size; i++) {
+      json.append(i).append(",");
+    }
+    json.setLength(json.length() - 1);
+    return json.append("]").toString();
+  }
+}
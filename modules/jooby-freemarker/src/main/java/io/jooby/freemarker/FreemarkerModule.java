@@ -99,6 +99,10 @@ public class FreemarkerModule implements Extension {
 
     private String templatesPath = TemplateEngine.PATH;
 
+    private boolean precompile;
+
+    private int cacheSize = TemplateEngine.CACHE_SIZE;
+
     /**
      * Template loader to use.
      *
@@ -144,6 +148,35 @@ public class FreemarkerModule implements Extension {
       return this;
     }
 
+    /**
+     * Compile all the templates found at template path while building the freemarker instance
+     * (application startup time). Templates are compiled in parallel and kept in a strong cache
+     * bounded by {@link #setCacheSize(int)}, instead of the default soft cache. A template with
+     * syntax errors fails the build method.
+     *
+     * Templates are validated but not kept in the <code>dev</code> and <code>test</code>
+     * environments, where cache is disabled.
+     *
+     * @param precompile True for compiling templates at startup time.
+     * @return This builder.
+     */
+    public @Nonnull Builder setPrecompile(boolean precompile) {
+      this.precompile = precompile;
+      return this;
+    }
+
+    /**
+     * Max number of compiled templates to keep when {@link #setPrecompile(boolean)} is on.
+     * Default is: {@link TemplateEngine#CACHE_SIZE}.
+     *
+     * @param cacheSize Max number of compiled templates to keep.
+     * @return This builder.
+     */
+    public @Nonnull Builder setCacheSize(int cacheSize) {
+      this.cacheSize = cacheSize;
+      return this;
+    }
+
     /**
      * Build method for creating a freemarker instance.
      *
@@ -168,7 +201,7 @@ public class FreemarkerModule implements Extension {
         /** Cache storage: */
         String defaultCacheStorage = env.isActive("dev", "test")
             ? "freemarker.cache.NullCacheStorage"
-            : "soft";
+            : precompile ? "strong:" + cacheSize : "soft";
         settings.putIfAbsent(Configuration.CACHE_STORAGE_KEY_CAMEL_CASE, defaultCacheStorage);
 
         freemarker.setSettings(settings);
@@ -184,6 +217,12 @@ public class FreemarkerModule implements Extension {
         dowb.setExposeFields(true);
         freemarker.setObjectWrapper(dowb.build());
 
+        /** Compile templates: */
+        if (precompile) {
+          TemplateEngine.list(env.getClassLoader(), templatesPath, EXT).parallelStream()
+              .forEach(SneakyThrows.throwingConsumer(name -> freemarker.getTemplate(name)));
+        }
+
         // clear
         this.templateLoader = null;
         this.settings.clear();
@@ -13,6 +13,7 @@ import io.jooby.TemplateEngine;
 
 import javax.annotation.Nonnull;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -33,11 +34,16 @@ class FreemarkerTemplateEngine implements TemplateEngine {
   }
 
   @Override public String render(Context ctx, ModelAndView modelAndView) throws Exception {
-    Template template = freemarker.getTemplate(modelAndView.getView());
     StringWriter writer = new StringWriter();
+    render(ctx, modelAndView, writer);
+    return writer.toString();
+  }
+
+  @Override public void render(Context ctx, ModelAndView modelAndView, Writer writer)
+      throws Exception {
+    Template template = freemarker.getTemplate(modelAndView.getView());
     Map<String, Object> model = new HashMap<>(ctx.getAttributes());
     model.putAll(modelAndView.getModel());
     template.process(model, writer);
-    return writer.toString();
   }
 }
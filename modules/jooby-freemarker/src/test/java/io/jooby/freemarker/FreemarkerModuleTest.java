@@ -2,15 +2,22 @@ package io.jooby.freemarker;
 
 import com.typesafe.config.ConfigFactory;
 import com.typesafe.config.ConfigValueFactory;
+import freemarker.cache.MruCacheStorage;
+import freemarker.core.ParseException;
 import freemarker.template.Configuration;
 import io.jooby.Environment;
+import io.jooby.MediaType;
 import io.jooby.MockContext;
 import io.jooby.ModelAndView;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
 import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class FreemarkerModuleTest {
 
@@ -88,4 +95,52 @@ public class FreemarkerModuleTest {
         .render(ctx, new ModelAndView("index.ftl"));
     assertEquals("var\n", output);
   }
+
+  @Test
+  public void renderStreaming() throws Exception {
+    Configuration freemarker = FreemarkerModule.create()
+        .build(new Environment(getClass().getClassLoader(), ConfigFactory.empty(), "test"));
+    FreemarkerTemplateEngine engine = new FreemarkerTemplateEngine(freemarker,
+        Arrays.asList(".ftl"));
+    MockContext ctx = new MockContext();
+    ctx.getAttributes().put("local", "var");
+    ModelAndView view = new ModelAndView("index.ftl")
+        .put("user", new User("foo", "bar"))
+        .put("sign", "!");
+
+    StringWriter writer = new StringWriter();
+    engine.render(ctx, view, writer);
+    assertEquals("Hello foo bar var!\n", writer.toString());
+
+    /** Buffered: */
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    assertTrue(engine.encode(ctx, view, output));
+    assertEquals("Hello foo bar var!\n", output.toString("UTF-8"));
+    assertEquals(MediaType.html, ctx.getResponseType());
+
+    /** Streaming, rendered into the response stream: */
+    ctx = new MockContext();
+    ctx.getAttributes().put("local", "var");
+    output = new ByteArrayOutputStream();
+    assertTrue(engine.encode(ctx, view.setStreaming(true), output));
+    assertEquals(0, output.size());
+    assertEquals("Hello foo bar var!\n", ctx.getResponse().value().toString());
+  }
+
+  @Test
+  public void precompile() throws Exception {
+    Configuration freemarker = FreemarkerModule.create()
+        .setPrecompile(true)
+        .setCacheSize(10)
+        .build(new Environment(getClass().getClassLoader(), ConfigFactory.empty(), "prod"));
+    MruCacheStorage cache = (MruCacheStorage) freemarker.getCacheStorage();
+    assertEquals(10, cache.getStrongSizeLimit());
+    assertEquals(0, cache.getSoftSizeLimit());
+    assertEquals(1, cache.getStrongSize());
+
+    assertThrows(ParseException.class, () -> FreemarkerModule.create()
+        .setTemplatesPath("broken")
+        .setPrecompile(true)
+        .build(new Environment(getClass().getClassLoader(), ConfigFactory.empty(), "prod")));
+  }
 }
@@ -16,6 +16,7 @@ import io.jooby.Environment;
 import io.jooby.Extension;
 import io.jooby.Jooby;
 import io.jooby.ServiceRegistry;
+import io.jooby.SneakyThrows;
 import io.jooby.TemplateEngine;
 
 import javax.annotation.Nonnull;
@@ -98,6 +99,10 @@ public class HandlebarsModule implements Extension {
 
     private String templatesPath = TemplateEngine.PATH;
 
+    private boolean precompile;
+
+    private int cacheSize = TemplateEngine.CACHE_SIZE;
+
     /**
      * Set template cache.
      *
@@ -120,6 +125,35 @@ public class HandlebarsModule implements Extension {
       return this;
     }
 
+    /**
+     * Compile all the templates found at template path while building the handlebars instance
+     * (application startup time). Templates are compiled in parallel and pinned in a cache bounded
+     * by {@link #setCacheSize(int)}. A template with syntax errors fails the build method.
+     *
+     * Templates are validated but not kept in the <code>dev</code> and <code>test</code>
+     * environments, where cache is disabled. This option has no effect on cache when a custom
+     * template cache is set.
+     *
+     * @param precompile True for compiling templates at startup time.
+     * @return This builder.
+     */
+    public @Nonnull Builder setPrecompile(boolean precompile) {
+      this.precompile = precompile;
+      return this;
+    }
+
+    /**
+     * Max number of compiled templates to keep when {@link #setPrecompile(boolean)} is on.
+     * Default is: {@link TemplateEngine#CACHE_SIZE}.
+     *
+     * @param cacheSize Max number of compiled templates to keep.
+     * @return This builder.
+     */
+    public @Nonnull Builder setCacheSize(int cacheSize) {
+      this.cacheSize = cacheSize;
+      return this;
+    }
+
     /**
      * Template loader to use.
      *
@@ -138,19 +172,30 @@ public class HandlebarsModule implements Extension {
      * @return A new handlebars instance.
      */
     public @Nonnull Handlebars build(@Nonnull Environment env) {
+      String templatesPath = normalizePath(env.getProperty(TEMPLATE_PATH, this.templatesPath));
       if (loader == null) {
-        String templatesPath = normalizePath(env.getProperty(TEMPLATE_PATH, this.templatesPath));
         loader = defaultTemplateLoader(env, templatesPath);
       }
       handlebars.with(loader);
 
       if (cache == null) {
-        cache = env.isActive("dev", "test")
-            ? NullTemplateCache.INSTANCE
-            : new HighConcurrencyTemplateCache();
+        if (env.isActive("dev", "test")) {
+          cache = NullTemplateCache.INSTANCE;
+        } else {
+          cache = precompile
+              ? new PinnedTemplateCache(cacheSize)
+              : new HighConcurrencyTemplateCache();
+        }
       }
       handlebars.with(cache);
 
+      /** Compile templates: */
+      if (precompile) {
+        Handlebars handlebars = this.handlebars;
+        TemplateEngine.list(env.getClassLoader(), templatesPath, EXT).parallelStream()
+            .forEach(SneakyThrows.throwingConsumer(name -> handlebars.compile(name)));
+      }
+
       this.loader = null;
       this.cache = null;
       return handlebars;
@@ -12,6 +12,7 @@ import io.jooby.ModelAndView;
 import io.jooby.TemplateEngine;
 
 import javax.annotation.Nonnull;
+import java.io.Writer;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -33,8 +34,18 @@ class HbsTemplateEngine implements TemplateEngine {
 
   @Override public String render(Context ctx, ModelAndView modelAndView) throws Exception {
     Template template = handlebars.compile(modelAndView.getView());
+    return template.apply(model(ctx, modelAndView));
+  }
+
+  @Override public void render(Context ctx, ModelAndView modelAndView, Writer writer)
+      throws Exception {
+    Template template = handlebars.compile(modelAndView.getView());
+    template.apply(model(ctx, modelAndView), writer);
+  }
+
+  private static Map<String, Object> model(Context ctx, ModelAndView modelAndView) {
     Map<String, Object> model = new HashMap<>(ctx.getAttributes());
     model.putAll(modelAndView.getModel());
-    return template.apply(model);
+    return model;
   }
 }
@@ -0,0 +1,63 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.handlebars;
+
+import com.github.jknack.handlebars.Parser;
+import com.github.jknack.handlebars.Template;
+import com.github.jknack.handlebars.cache.TemplateCache;
+import com.github.jknack.handlebars.io.TemplateSource;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Template cache with strong references and a max number of entries. Templates are never evicted:
+ * once the cache is full, templates are compiled on every call. Precompiled templates are added
+ * first, so they stay in memory for the life of the application.
+ *
+ * Template reload is not supported.
+ */
+class PinnedTemplateCache implements TemplateCache {
+
+  private final ConcurrentMap<TemplateSource, Template> templates = new ConcurrentHashMap<>();
+
+  private final int maxSize;
+
+  PinnedTemplateCache(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  int size() {
+    return templates.size();
+  }
+
+  @Override public void clear() {
+    templates.clear();
+  }
+
+  @Override public void evict(TemplateSource source) {
+    templates.remove(source);
+  }
+
+  @Override public Template get(TemplateSource source, Parser parser) throws IOException {
+    Template template = templates.get(source);
+    if (template == null) {
+      template = parser.parse(source);
+      if (templates.size() < maxSize) {
+        Template existing = templates.putIfAbsent(source, template);
+        if (existing != null) {
+          template = existing;
+        }
+      }
+    }
+    return template;
+  }
+
+  @Override public TemplateCache setReload(boolean reload) {
+    return this;
+  }
+}
@@ -1,16 +1,22 @@
 package io.jooby.handlebars;
 
 import com.github.jknack.handlebars.Handlebars;
+import com.github.jknack.handlebars.HandlebarsException;
 import com.typesafe.config.ConfigFactory;
 import io.jooby.Environment;
+import io.jooby.MediaType;
 import io.jooby.MockContext;
 import io.jooby.ModelAndView;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
 import java.nio.file.Paths;
 import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class HandlebarsModuleTest {
   public static class User {
@@ -60,4 +66,48 @@ public class HandlebarsModuleTest {
             .put("sign", "!"));
     assertEquals("Hello foo bar var!\n", output);
   }
+
+  @Test
+  public void renderStreaming() throws Exception {
+    Handlebars handlebars = HandlebarsModule.create()
+        .build(new Environment(getClass().getClassLoader(), ConfigFactory.empty()));
+    HbsTemplateEngine engine = new HbsTemplateEngine(handlebars, Arrays.asList(".hbs"));
+    MockContext ctx = new MockContext();
+    ctx.getAttributes().put("local", "var");
+    ModelAndView view = new ModelAndView("index.hbs")
+        .put("user", new User("foo", "bar"))
+        .put("sign", "!");
+
+    StringWriter writer = new StringWriter();
+    engine.render(ctx, view, writer);
+    assertEquals("Hello foo bar var!\n", writer.toString());
+
+    /** Buffered: */
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    assertTrue(engine.encode(ctx, view, output));
+    assertEquals("Hello foo bar var!\n", output.toString("UTF-8"));
+    assertEquals(MediaType.html, ctx.getResponseType());
+
+    /** Streaming, rendered into the response stream: */
+    ctx = new MockContext();
+    ctx.getAttributes().put("local", "var");
+    output = new ByteArrayOutputStream();
+    assertTrue(engine.encode(ctx, view.setStreaming(true), output));
+    assertEquals(0, output.size());
+    assertEquals("Hello foo bar var!\n", ctx.getResponse().value().toString());
+  }
+
+  @Test
+  public void precompile() throws Exception {
+    Handlebars handlebars = HandlebarsModule.create()
+        .setPrecompile(true)
+        .build(new Environment(getClass().getClassLoader(), ConfigFactory.empty(), "prod"));
+    PinnedTemplateCache cache = (PinnedTemplateCache) handlebars.getCache();
+    assertEquals(1, cache.size());
+
+    assertThrows(HandlebarsException.class, () -> HandlebarsModule.create()
+        .setTemplatesPath("broken")
+        .setPrecompile(true)
+        .build(new Environment(getClass().getClassLoader(), ConfigFactory.empty(), "prod")));
+  }
 }
@@ -5,9 +5,12 @@
  */
 package io.jooby.json;
 
-import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
@@ -19,13 +22,29 @@ import io.jooby.Jooby;
 import io.jooby.MediaType;
 import io.jooby.MessageDecoder;
 import io.jooby.MessageEncoder;
+import io.jooby.Reified;
+import io.jooby.Route;
 import io.jooby.ServiceRegistry;
+import io.jooby.SneakyThrows;
+import io.reactivex.Flowable;
 
 import javax.annotation.Nonnull;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * JSON module using Jackson: https://jooby.io/modules/jackson.
@@ -65,16 +84,47 @@ import java.util.Set;
  * }
  * }</pre>
  *
+ * Large JSON arrays can be decoded one element at a time by asking for a {@link Stream},
+ * {@link Iterator}, <code>io.reactivex.Flowable</code> or <code>org.reactivestreams.Publisher</code>
+ * of elements. Elements are read from the request body on demand, the array is never
+ * materialized:
+ *
+ * <pre>{@code
+ * {
+ *   post("/import", ctx -> {
+ *     try (Stream<MyObject> stream = ctx.body(new Reified<Stream<MyObject>>() {})) {
+ *       stream.forEach(repository::save);
+ *     }
+ *     ...
+ *   });
+ * }
+ * }</pre>
+ *
+ * The reactive types require RxJava 2 in the project classpath.
+ *
+ * Object writers and object readers are resolved once per type and reused. Writers for route
+ * return types are resolved at application startup time.
+ *
  * Complete documentation is available at: https://jooby.io/modules/jackson.
  *
  * @author edgar
  * @since 2.0.0
  */
 public class JacksonModule implements Extension, MessageDecoder, MessageEncoder {
+  private static final String FLOWABLE = "io.reactivex.Flowable";
+
+  private static final String PUBLISHER = "org.reactivestreams.Publisher";
+
   private final ObjectMapper mapper;
 
   private final Set<Class<? extends Module>> modules = new HashSet<>();
 
+  /** Writer per runtime type. */
+  private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+  /** Reader per decoded type. */
+  private final ConcurrentMap<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+
   /**
    * Creates a Jackson module.
    *
@@ -115,26 +165,139 @@ public class JacksonModule implements Extension, MessageDecoder, MessageEncoder
         Module module = application.require(type);
         mapper.registerModule(module);
       }
+      /** Readers and writers keep a copy of mapper configuration, resolve them now: */
+      writers.clear();
+      readers.clear();
+      for (Route route : application.getRoutes()) {
+        Type returnType = route.getReturnType();
+        if (returnType != null) {
+          Class<?> rawType = Reified.rawType(returnType);
+          if (isConcrete(rawType)) {
+            writer(rawType);
+          }
+        }
+      }
     });
   }
 
   @Override public byte[] encode(@Nonnull Context ctx, @Nonnull Object value) throws Exception {
     ctx.setDefaultResponseType(MediaType.json);
-    return mapper.writeValueAsBytes(value);
+    return writer(value.getClass()).writeValueAsBytes(value);
+  }
+
+  @Override public boolean encode(@Nonnull Context ctx, @Nonnull Object value,
+      @Nonnull OutputStream output) throws Exception {
+    ctx.setDefaultResponseType(MediaType.json);
+    writer(value.getClass()).writeValue(output, value);
+    return true;
   }
 
   @Override public <T> T decode(Context ctx, Type type) throws Exception {
-    JavaType javaType = mapper.getTypeFactory().constructType(type);
+    Class<?> rawType = Reified.rawType(type);
+    if (rawType == Stream.class || rawType == Iterator.class
+        || rawType.getName().equals(FLOWABLE) || rawType.getName().equals(PUBLISHER)) {
+      return (T) decodeArray(ctx, rawType, elementType(type));
+    }
+    ObjectReader reader = reader(type);
     Body body = ctx.body();
     if (body.isInMemory()) {
-      return mapper.readValue(body.bytes(), javaType);
+      return reader.readValue(body.bytes());
     } else {
       try (InputStream stream = body.stream()) {
-        return mapper.readValue(stream, javaType);
+        return reader.readValue(stream);
       }
     }
   }
 
+  /**
+   * Decode a JSON array element by element. Elements are read from the request body as they are
+   * consumed.
+   *
+   * @param ctx Web context.
+   * @param rawType Requested type: a stream, iterator or reactive type.
+   * @param elementType Element type.
+   * @return Array elements.
+   * @throws Exception If something goes wrong.
+   */
+  private Object decodeArray(Context ctx, Class<?> rawType, Type elementType) throws Exception {
+    ObjectReader reader = reader(elementType);
+    Body body = ctx.body();
+    if (rawType == Iterator.class) {
+      return readValues(reader, body);
+    }
+    if (rawType == Stream.class) {
+      MappingIterator<Object> iterator = readValues(reader, body);
+      return StreamSupport
+          .stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+          .onClose(SneakyThrows.throwingRunnable(iterator::close));
+    }
+    /** Parsing starts on subscribe, each subscriber gets its own parser: */
+    return Rx.flowable(() -> readValues(reader, body));
+  }
+
+  /**
+   * Root array is unwrapped. Parser and body stream are closed once the array is consumed.
+   *
+   * @param reader Element reader.
+   * @param body Request body.
+   * @return Element iterator.
+   * @throws IOException If something goes wrong.
+   */
+  private static MappingIterator<Object> readValues(ObjectReader reader, Body body)
+      throws IOException {
+    return body.isInMemory()
+        ? reader.readValues(body.bytes())
+        : reader.readValues(body.stream());
+  }
+
+  private static Type elementType(Type type) {
+    if (type instanceof ParameterizedType) {
+      return ((ParameterizedType) type).getActualTypeArguments()[0];
+    }
+    return Object.class;
+  }
+
+  /**
+   * Writer for the given runtime type. Writer type is the exact runtime type of the value, so
+   * output is the same as {@link ObjectMapper#writeValueAsBytes(Object)}, but serializer lookup
+   * happens once.
+   *
+   * @param type Runtime type.
+   * @return Object writer.
+   */
+  private ObjectWriter writer(Class<?> type) {
+    ObjectWriter writer = writers.get(type);
+    if (writer == null) {
+      writer = mapper.writerFor(type).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      writers.putIfAbsent(type, writer);
+    }
+    return writer;
+  }
+
+  private ObjectReader reader(Type type) {
+    ObjectReader reader = readers.get(type);
+    if (reader == null) {
+      reader = mapper.readerFor(mapper.getTypeFactory().constructType(type));
+      readers.putIfAbsent(type, reader);
+    }
+    return reader;
+  }
+
+  private static boolean isConcrete(Class<?> type) {
+    return !type.isInterface() && !type.isPrimitive() && !type.isArray()
+        && !Modifier.isAbstract(type.getModifiers())
+        && type != Object.class && type != String.class && !Context.class.isAssignableFrom(type);
+  }
+
+  /** RxJava access, loaded when a reactive type is requested. */
+  private static class Rx {
+    static Object flowable(Callable<MappingIterator<Object>> parser) {
+      /** Parser is closed on complete, error or cancel: */
+      return Flowable.using(parser, iterator -> Flowable.fromIterable(() -> iterator),
+          MappingIterator::close);
+    }
+  }
+
   /**
    * Default object mapper. Install {@link Jdk8Module}, {@link JavaTimeModule},
    * {@link ParameterNamesModule} and {@link AfterburnerModule}.
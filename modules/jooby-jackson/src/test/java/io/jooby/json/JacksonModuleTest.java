@@ -3,19 +3,43 @@ package io.jooby.json;
 import io.jooby.Body;
 import io.jooby.Context;
 import io.jooby.MediaType;
+import io.jooby.Reified;
+import io.reactivex.Flowable;
 import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class JacksonModuleTest {
 
+  public static class Base {
+    public String id = "1";
+  }
+
+  public static class Sub extends Base {
+    public String name = "sub";
+  }
+
   @Test
   public void render() throws Exception {
     Context ctx = mock(Context.class);
@@ -28,6 +52,23 @@ public class JacksonModuleTest {
     verify(ctx).setDefaultResponseType(MediaType.json);
   }
 
+  @Test
+  public void renderToOutput() throws Exception {
+    Context ctx = mock(Context.class);
+
+    JacksonModule jackson = new JacksonModule();
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream() {
+      @Override public void close() {
+        throw new IllegalStateException("Output must be closed by caller");
+      }
+    };
+    assertTrue(jackson.encode(ctx, mapOf("k", "v"), output));
+    assertEquals("{\"k\":\"v\"}", new String(output.toByteArray(), StandardCharsets.UTF_8));
+
+    verify(ctx).setDefaultResponseType(MediaType.json);
+  }
+
   @Test
   public void parse() throws Exception {
     byte[] bytes = "{\"k\":\"v\"}".getBytes(StandardCharsets.UTF_8);
@@ -44,6 +85,134 @@ public class JacksonModuleTest {
     assertEquals(mapOf("k", "v"), result);
   }
 
+  @Test
+  public void cachedWritersAndReaders() throws Exception {
+    Context ctx = mock(Context.class);
+
+    JacksonModule jackson = new JacksonModule();
+
+    assertEquals("{\"id\":\"1\"}",
+        new String(jackson.encode(ctx, new Base()), StandardCharsets.UTF_8));
+    /** Writers are per runtime type: */
+    assertEquals("{\"id\":\"1\",\"name\":\"sub\"}",
+        new String(jackson.encode(ctx, new Sub()), StandardCharsets.UTF_8));
+    assertEquals("{\"id\":\"1\"}",
+        new String(jackson.encode(ctx, new Base()), StandardCharsets.UTF_8));
+
+    Body body = mock(Body.class);
+    when(body.isInMemory()).thenReturn(true);
+    when(body.bytes()).thenReturn("[{\"k\":\"v\"}]".getBytes(StandardCharsets.UTF_8));
+    when(ctx.body()).thenReturn(body);
+
+    Type type = Reified.list(Reified.map(String.class, String.class).getType()).getType();
+    for (int i = 0; i < 2; i++) {
+      List<Map<String, String>> result = jackson.decode(ctx, type);
+      assertEquals(Collections.singletonList(mapOf("k", "v")), result);
+    }
+  }
+
+  @Test
+  public void decodeArrayElementByElement() throws Exception {
+    Body body = mock(Body.class);
+    when(body.isInMemory()).thenReturn(false);
+    when(body.stream()).then(invocation -> new ByteArrayInputStream(
+        "[{\"k\":\"1\"},{\"k\":\"2\"},{\"k\":\"3\"}]".getBytes(StandardCharsets.UTF_8)));
+
+    Context ctx = mock(Context.class);
+    when(ctx.body()).thenReturn(body);
+
+    JacksonModule jackson = new JacksonModule();
+    Type map = Reified.map(String.class, String.class).getType();
+
+    Iterator<Map<String, String>> iterator = jackson
+        .decode(ctx, Reified.getParameterized(Iterator.class, map).getType());
+    assertEquals(mapOf("k", "1"), iterator.next());
+    assertEquals(mapOf("k", "2"), iterator.next());
+    assertEquals(mapOf("k", "3"), iterator.next());
+    assertFalse(iterator.hasNext());
+
+    Stream<Map<String, String>> stream = jackson
+        .decode(ctx, Reified.getParameterized(Stream.class, map).getType());
+    assertEquals("1,2,3", stream.map(it -> it.get("k")).collect(Collectors.joining(",")));
+
+    Flowable<Map<String, String>> flowable = jackson
+        .decode(ctx, Reified.getParameterized(Flowable.class, map).getType());
+    assertEquals(Arrays.asList("1", "2"),
+        flowable.map(it -> it.get("k")).take(2).toList().blockingGet());
+
+    Publisher<Map<String, String>> publisher = jackson
+        .decode(ctx, Reified.getParameterized(Publisher.class, map).getType());
+    assertEquals(3, Flowable.fromPublisher(publisher).count().blockingGet().intValue());
+  }
+
+  @Test
+  public void decodeFlowableOnSubscribe() throws Exception {
+    List<Closeable> streams = new ArrayList<>();
+    Body body = mock(Body.class);
+    when(body.isInMemory()).thenReturn(false);
+    when(body.stream()).then(invocation -> {
+      Closeable stream = new Closeable(
+          "[{\"k\":\"1\"},{\"k\":\"2\"}]".getBytes(StandardCharsets.UTF_8));
+      streams.add(stream);
+      return stream;
+    });
+
+    Context ctx = mock(Context.class);
+    when(ctx.body()).thenReturn(body);
+
+    JacksonModule jackson = new JacksonModule();
+    Type map = Reified.map(String.class, String.class).getType();
+
+    Flowable<Map<String, String>> flowable = jackson
+        .decode(ctx, Reified.getParameterized(Flowable.class, map).getType());
+    /** Nothing to close until subscribed: */
+    assertEquals(0, streams.size());
+
+    /** One parser per subscriber: */
+    assertEquals(Arrays.asList("1", "2"), flowable.map(it -> it.get("k")).toList().blockingGet());
+    assertEquals(Arrays.asList("1", "2"), flowable.map(it -> it.get("k")).toList().blockingGet());
+    assertEquals(2, streams.size());
+    assertTrue(streams.stream().allMatch(it -> it.closed));
+  }
+
+  @Test
+  public void decodeFlowableCloseOnError() throws Exception {
+    Closeable stream = new Closeable(
+        "[{\"k\":\"1\"},{\"k\":".getBytes(StandardCharsets.UTF_8));
+    Body body = mock(Body.class);
+    when(body.isInMemory()).thenReturn(false);
+    when(body.stream()).thenReturn(stream);
+
+    Context ctx = mock(Context.class);
+    when(ctx.body()).thenReturn(body);
+
+    JacksonModule jackson = new JacksonModule();
+    Type map = Reified.map(String.class, String.class).getType();
+
+    Flowable<Map<String, String>> flowable = jackson
+        .decode(ctx, Reified.getParameterized(Flowable.class, map).getType());
+    List<Map<String, String>> items = new ArrayList<>();
+    Throwable error = flowable
+        .doOnNext(items::add)
+        .ignoreElements()
+        .blockingGet();
+    assertNotNull(error);
+    assertEquals(Collections.singletonList(mapOf("k", "1")), items);
+    assertTrue(stream.closed);
+  }
+
+  private static class Closeable extends ByteArrayInputStream {
+    private boolean closed;
+
+    Closeable(byte[] bytes) {
+      super(bytes);
+    }
+
+    @Override public void close() {
+      closed = true;
+    }
+  }
+
   private Map<String, String> mapOf(String... values) {
     Map<String, String> hash = new HashMap<>();
     for (int i = 0; i < values.length; i += 2) {
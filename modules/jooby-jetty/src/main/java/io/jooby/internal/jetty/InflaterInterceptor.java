@@ -0,0 +1,96 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.jetty;
+
+import io.jooby.StatusCode;
+import io.jooby.StatusCodeException;
+import org.eclipse.jetty.server.HttpInput;
+import org.eclipse.jetty.util.component.Destroyable;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Inflate <code>Content-Encoding: deflate</code> request bodies. Jetty only provides a gzip
+ * interceptor. Like Netty, it accepts zlib wrapped and raw deflate data.
+ */
+public class InflaterInterceptor implements HttpInput.Interceptor, Destroyable {
+
+  private Inflater inflater;
+
+  private final byte[] buffer;
+
+  /** Bytes given to the inflater but not yet consumed from the current content. */
+  private int pending;
+
+  public InflaterInterceptor(int bufferSize) {
+    this.buffer = new byte[bufferSize];
+  }
+
+  @Override public HttpInput.Content readFrom(HttpInput.Content content) {
+    ByteBuffer in = content.getByteBuffer();
+    if (inflater == null) {
+      if (!in.hasRemaining()) {
+        return null;
+      }
+      inflater = new Inflater(!zlib(in));
+    }
+    try {
+      while (!inflater.finished()) {
+        if (inflater.needsInput()) {
+          if (!in.hasRemaining()) {
+            return null;
+          }
+          setInput(in);
+        }
+        int len = inflater.inflate(buffer);
+        int remaining = inflater.getRemaining();
+        in.position(in.position() + pending - remaining);
+        pending = remaining;
+        if (len > 0) {
+          // Content is consumed before next read, so it is safe to reuse the buffer
+          return new HttpInput.Content(ByteBuffer.wrap(buffer, 0, len));
+        }
+        if (inflater.needsDictionary()) {
+          throw new StatusCodeException(StatusCode.BAD_REQUEST, "Deflate dictionary not supported");
+        }
+      }
+      // trailing bytes
+      in.position(in.limit());
+      return null;
+    } catch (DataFormatException x) {
+      throw new StatusCodeException(StatusCode.BAD_REQUEST, "Malformed deflate body", x);
+    }
+  }
+
+  private void setInput(ByteBuffer in) {
+    int len = in.remaining();
+    if (in.hasArray()) {
+      inflater.setInput(in.array(), in.arrayOffset() + in.position(), len);
+    } else {
+      byte[] bytes = new byte[len];
+      in.duplicate().get(bytes);
+      inflater.setInput(bytes);
+    }
+    pending = len;
+  }
+
+  private static boolean zlib(ByteBuffer in) {
+    if (in.remaining() < 2) {
+      return true;
+    }
+    int cmf = in.get(in.position()) & 0xFF;
+    int flg = in.get(in.position() + 1) & 0xFF;
+    return (cmf & 0x0F) == 8 && (cmf << 8 | flg) % 31 == 0;
+  }
+
+  @Override public void destroy() {
+    if (inflater != null) {
+      inflater.end();
+    }
+  }
+}
@@ -24,16 +24,22 @@ import io.jooby.SessionStore;
 import io.jooby.SneakyThrows;
 import io.jooby.StatusCode;
 import io.jooby.Value;
+import io.jooby.WebSocket;
+import io.jooby.internal.CompletionListeners;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpHeaderValue;
 import org.eclipse.jetty.http.MimeTypes;
 import org.eclipse.jetty.http.MultiPartFormInputStream;
+import org.eclipse.jetty.io.EofException;
+import org.eclipse.jetty.server.HttpChannel;
 import org.eclipse.jetty.server.HttpOutput;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Response;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.MultiMap;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.eclipse.jetty.websocket.server.WebSocketServerFactory;
 import org.slf4j.Logger;
 
 import javax.annotation.Nonnull;
@@ -66,6 +72,31 @@ import static org.eclipse.jetty.http.HttpHeader.SET_COOKIE;
 import static org.eclipse.jetty.server.Request.__MULTIPART_CONFIG_ELEMENT;
 
 public class JettyContext implements Callback, DefaultContext {
+  /**
+   * Runs completion actions once Jetty is done with the request, no matter how the response was
+   * sent. Cancel actions run too when reading the request or writing the response failed. Must be
+   * registered as a connector bean.
+   */
+  public static final HttpChannel.Listener COMPLETION_LISTENER = new HttpChannel.Listener() {
+    @Override public void onRequestFailure(Request request, Throwable failure) {
+      JettyContext ctx = (JettyContext) request.getAttribute(JettyContext.class.getName());
+      if (ctx != null) {
+        ctx.listeners.abort(ctx);
+      }
+    }
+
+    @Override public void onResponseFailure(Request request, Throwable failure) {
+      onRequestFailure(request, failure);
+    }
+
+    @Override public void onComplete(Request request) {
+      JettyContext ctx = (JettyContext) request.getAttribute(JettyContext.class.getName());
+      if (ctx != null) {
+        ctx.listeners.complete(ctx);
+      }
+    }
+  };
+
   private final int bufferSize;
   private final long maxRequestSize;
   private Request request;
@@ -82,9 +113,13 @@ public class JettyContext implements Callback, DefaultContext {
   private MediaType responseType;
   private Map<String, String> cookies;
   private HashMap<String, String> responseCookies;
+  private volatile boolean completed;
+  private final CompletionListeners listeners = new CompletionListeners();
 
   public JettyContext(Request request, Router router, int bufferSize, long maxRequestSize) {
     this.request = request;
+    /** Completion actions run from COMPLETION_LISTENER: */
+    request.setAttribute(JettyContext.class.getName(), this);
     this.response = request.getResponse();
     this.router = router;
     this.bufferSize = bufferSize;
@@ -112,7 +147,7 @@ public class JettyContext implements Callback, DefaultContext {
   @Nonnull @Override public Body body() {
     try {
       InputStream in = request.getInputStream();
-      long len = request.getContentLengthLong();
+      long len = getRequestLength();
       if (maxRequestSize > 0) {
         in = new LimitedInputStream(in, maxRequestSize);
       }
@@ -229,13 +264,19 @@ public class JettyContext implements Callback, DefaultContext {
     return false;
   }
 
+  @Nonnull @Override public Executor getIoExecutor() {
+    /** There is no event loop, requests run in the server thread pool: */
+    return request.getHttpChannel().getConnector().getExecutor();
+  }
+
   @Nonnull @Override public Context dispatch(@Nonnull Runnable action) {
     return dispatch(router.getWorker(), action);
   }
 
   @Nonnull @Override
   public Context dispatch(@Nonnull Executor executor, @Nonnull Runnable action) {
-    if (router.getWorker() == executor) {
+    if (router.getWorker() == executor && executor instanceof ThreadPool) {
+      /** Already running in a jetty thread: */
       action.run();
     } else {
       ifStartAsync();
@@ -244,12 +285,35 @@ public class JettyContext implements Callback, DefaultContext {
     return this;
   }
 
+  @Nonnull @Override public Context onComplete(@Nonnull Runnable action) {
+    listeners.add(this, action);
+    return this;
+  }
+
+  @Nonnull @Override public Context onCancel(@Nonnull Runnable action) {
+    listeners.onCancel(this, action);
+    return this;
+  }
+
   @Nonnull @Override public Context detach(@Nonnull Route.Handler next) throws Exception {
     ifStartAsync();
     next.apply(this);
     return this;
   }
 
+  @Nonnull @Override public Context upgrade(@Nonnull WebSocket.Initializer handler) {
+    try {
+      WebSocketServerFactory factory = (WebSocketServerFactory) request.getServletContext()
+          .getAttribute(WebSocketServerFactory.class.getName());
+      JettyWebSocket ws = new JettyWebSocket(this);
+      handler.init(this, ws);
+      factory.acceptWebSocket((req, rsp) -> ws, request, response);
+      return this;
+    } catch (Exception x) {
+      throw SneakyThrows.propagate(x);
+    }
+  }
+
   @Nonnull @Override public StatusCode getResponseCode() {
     return StatusCode.valueOf(response.getStatus());
   }
@@ -362,6 +426,39 @@ public class JettyContext implements Callback, DefaultContext {
     return this;
   }
 
+  @Nonnull @Override public Context send(@Nonnull ByteBuffer[] data) {
+    if (data.length == 1) {
+      return send(data[0]);
+    }
+    long length = 0;
+    int last = 0;
+    for (int i = 0; i < data.length; i++) {
+      length += data[i].remaining();
+      if (data[i].hasRemaining()) {
+        last = i;
+      }
+    }
+    response.setLongContentLength(length);
+    if (length == 0) {
+      /** No buffers or only empty ones: */
+      return send(ByteBuffer.allocate(0));
+    }
+    try {
+      /**
+       * Buffer write doesn't aggregate, each buffer goes to the connection as it is. Output is
+       * completed once content length is reached, so last buffer must not be empty:
+       */
+      HttpOutput sender = response.getHttpOutput();
+      for (int i = 0; i < last; i++) {
+        sender.write(data[i]);
+      }
+      sender.sendContent(data[last], this);
+      return this;
+    } catch (IOException x) {
+      throw SneakyThrows.propagate(x);
+    }
+  }
+
   @Nonnull @Override public Context send(@Nonnull ReadableByteChannel channel) {
     ifSetChunked();
     ifStartAsync();
@@ -411,6 +508,16 @@ public class JettyContext implements Callback, DefaultContext {
     }
   }
 
+  @Nonnull @Override public Context abort() {
+    if (!completed) {
+      /** Close without finishing the response, so client sees a broken response: */
+      request.getHttpChannel().abort(new EofException("Response aborted"));
+      listeners.abort(this);
+      complete(null);
+    }
+    return this;
+  }
+
   @Override public boolean isResponseStarted() {
     return response.isCommitted();
   }
@@ -432,6 +539,7 @@ public class JettyContext implements Callback, DefaultContext {
   }
 
   void complete(Throwable x) {
+    completed = true;
     ifSaveSession();
 
     Logger log = router.getLog();
@@ -441,6 +549,7 @@ public class JettyContext implements Callback, DefaultContext {
       } else {
         log.error("exception found while sending response {} {}", getMethod(), pathString(), x);
       }
+      listeners.abort(this);
     }
     if (files != null) {
       for (FileUpload file : files) {
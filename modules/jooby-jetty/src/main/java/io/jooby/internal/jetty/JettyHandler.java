@@ -7,8 +7,12 @@ package io.jooby.internal.jetty;
 
 import io.jooby.Router;
 import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeaderValue;
+import org.eclipse.jetty.server.HttpInput;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.server.handler.gzip.GzipHttpInputInterceptor;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -33,7 +37,49 @@ public class JettyHandler extends AbstractHandler {
     if (defaultHeaders) {
       response.setHeader(HttpHeader.SERVER.asString(), "J");
     }
+    inflate(request);
     JettyContext context = new JettyContext(request, router, bufferSize, maxRequestSize);
-    router.match(context).execute(context);
+    Router.Match match = router.match(context);
+    if (HttpHeaderValue.CONTINUE.is(request.getHeader(HttpHeader.EXPECT.asString()))) {
+      // Close connection on rejection, client might be sending the body anyway
+      response.setHeader(HttpHeader.CONNECTION.asString(), HttpHeaderValue.CLOSE.asString());
+      match.expectContinue(context, maxRequestSize, () -> {
+        response.setHeader(HttpHeader.CONNECTION.asString(), null);
+        // Jetty sends the 100 Continue response on first body read.
+        match.execute(context);
+      });
+    } else {
+      match.execute(context);
+    }
+  }
+
+  /**
+   * Inflate gzip/deflate request bodies. Max request size is checked on inflated bytes.
+   *
+   * @param request HTTP request.
+   */
+  private void inflate(Request request) {
+    HttpFields headers = request.getHttpFields();
+    String encoding = headers.get(HttpHeader.CONTENT_ENCODING);
+    if (encoding == null) {
+      return;
+    }
+    HttpInput.Interceptor inflater;
+    switch (encoding.trim().toLowerCase()) {
+      case "gzip":
+      case "x-gzip":
+        inflater = new GzipHttpInputInterceptor(request.getHttpChannel().getByteBufferPool(),
+            bufferSize);
+        break;
+      case "deflate":
+      case "x-deflate":
+        inflater = new InflaterInterceptor(bufferSize);
+        break;
+      default:
+        return;
+    }
+    request.getHttpInput().addInterceptor(inflater);
+    headers.remove(HttpHeader.CONTENT_ENCODING);
+    headers.remove(HttpHeader.CONTENT_LENGTH);
   }
 }
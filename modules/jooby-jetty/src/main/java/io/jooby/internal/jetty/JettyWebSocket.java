@@ -0,0 +1,246 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.jetty;
+
+import io.jooby.Context;
+import io.jooby.Server;
+import io.jooby.SneakyThrows;
+import io.jooby.WebSocket;
+import io.jooby.WebSocketCloseStatus;
+import io.jooby.WebSocketConfigurer;
+import io.jooby.WebSocketMessage;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.SuspendToken;
+import org.eclipse.jetty.websocket.api.WebSocketListener;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.common.WebSocketFrame;
+import org.eclipse.jetty.websocket.common.WebSocketRemoteEndpoint;
+import org.eclipse.jetty.websocket.common.frames.BinaryFrame;
+import org.eclipse.jetty.websocket.common.frames.TextFrame;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class JettyWebSocket implements WebSocketListener, WebSocketConfigurer, WebSocket,
+    WriteCallback {
+
+  private final JettyContext ctx;
+  private final Executor worker;
+  private Session session;
+  private WebSocket.OnConnect onConnectCallback;
+  private WebSocket.OnMessage onMessageCallback;
+  private WebSocket.OnClose onCloseCallback;
+  private WebSocket.OnError onErrorCallback;
+  private int maxPending = MAX_PENDING;
+  private Overflow overflow = Overflow.DISCONNECT;
+  private final AtomicBoolean open = new AtomicBoolean(false);
+  private final AtomicInteger pending = new AtomicInteger();
+  /** Callbacks run one at a time, in order: */
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger taskCount = new AtomicInteger();
+  private volatile SuspendToken suspendToken;
+
+  public JettyWebSocket(JettyContext ctx) {
+    this.ctx = ctx;
+    this.worker = ctx.getRouter().getWorker();
+  }
+
+  /* **********************************************************************************************
+   * Configurer:
+   * **********************************************************************************************
+   */
+
+  @Nonnull @Override public WebSocketConfigurer onConnect(@Nonnull OnConnect callback) {
+    this.onConnectCallback = callback;
+    return this;
+  }
+
+  @Nonnull @Override public WebSocketConfigurer onMessage(@Nonnull OnMessage callback) {
+    this.onMessageCallback = callback;
+    return this;
+  }
+
+  @Nonnull @Override public WebSocketConfigurer onError(@Nonnull OnError callback) {
+    this.onErrorCallback = callback;
+    return this;
+  }
+
+  @Nonnull @Override public WebSocketConfigurer onClose(@Nonnull OnClose callback) {
+    this.onCloseCallback = callback;
+    return this;
+  }
+
+  @Nonnull @Override public WebSocketConfigurer setMaxPending(int maxPending) {
+    this.maxPending = maxPending;
+    return this;
+  }
+
+  @Nonnull @Override public WebSocketConfigurer setOverflow(@Nonnull Overflow overflow) {
+    this.overflow = overflow;
+    return this;
+  }
+
+  /* **********************************************************************************************
+   * WebSocket:
+   * **********************************************************************************************
+   */
+
+  @Nonnull @Override public Context getContext() {
+    return ctx;
+  }
+
+  @Override public boolean isOpen() {
+    return open.get();
+  }
+
+  @Nonnull @Override public WebSocket send(@Nonnull byte[] message, boolean binary) {
+    if (!isOpen()) {
+      return this;
+    }
+    if (pending.incrementAndGet() > maxPending) {
+      pending.decrementAndGet();
+      if (overflow == Overflow.DISCONNECT) {
+        close(WebSocketCloseStatus.SERVICE_OVERLOAD);
+      }
+      return this;
+    }
+    /** Array is wrapped, not copied. The same array might be shared by many sessions: */
+    ByteBuffer payload = ByteBuffer.wrap(message);
+    RemoteEndpoint remote = session.getRemote();
+    if (remote instanceof WebSocketRemoteEndpoint) {
+      /** Text payload is already UTF-8 encoded, send it as it is: */
+      WebSocketFrame frame = binary ? new BinaryFrame() : new TextFrame();
+      ((WebSocketRemoteEndpoint) remote).uncheckedSendFrame(frame.setPayload(payload), this);
+    } else if (binary) {
+      remote.sendBytes(payload, this);
+    } else {
+      remote.sendString(new String(message, StandardCharsets.UTF_8), this);
+    }
+    return this;
+  }
+
+  @Override public void close(@Nonnull WebSocketCloseStatus closeStatus) {
+    if (open.compareAndSet(true, false)) {
+      session.close(closeStatus.getCode(), closeStatus.getReason());
+      fireClose(closeStatus);
+    }
+  }
+
+  /** Write completed. */
+  @Override public void writeSuccess() {
+    pending.decrementAndGet();
+  }
+
+  /** Write failed. */
+  @Override public void writeFailed(Throwable cause) {
+    pending.decrementAndGet();
+    handleError(cause);
+  }
+
+  /* **********************************************************************************************
+   * Inbound:
+   * **********************************************************************************************
+   */
+
+  @Override public void onWebSocketConnect(Session session) {
+    this.session = session;
+    this.open.set(true);
+    submit(() -> {
+      if (onConnectCallback != null) {
+        onConnectCallback.onConnect(this);
+      }
+    });
+  }
+
+  @Override public void onWebSocketBinary(byte[] payload, int offset, int len) {
+    /** Aggregated message array is owned by us, wrap it: */
+    onMessage(WebSocketMessage.create(ctx, ByteBuffer.wrap(payload, offset, len), true));
+  }
+
+  @Override public void onWebSocketText(String message) {
+    onMessage(WebSocketMessage.create(ctx, message));
+  }
+
+  @Override public void onWebSocketClose(int statusCode, String reason) {
+    if (open.compareAndSet(true, false)) {
+      fireClose(WebSocketCloseStatus.valueOf(statusCode)
+          .orElseGet(() -> new WebSocketCloseStatus(statusCode, reason)));
+    }
+  }
+
+  @Override public void onWebSocketError(Throwable cause) {
+    handleError(cause);
+  }
+
+  private void onMessage(WebSocketMessage message) {
+    if (onMessageCallback == null || !isOpen()) {
+      return;
+    }
+    /** Stop reading until message is processed: */
+    if (suspendToken == null) {
+      suspendToken = session.suspend();
+    }
+    submit(() -> onMessageCallback.onMessage(this, message));
+  }
+
+  private void handleError(Throwable cause) {
+    if (Server.connectionLost(cause) || (session != null && !session.isOpen())) {
+      ctx.getRouter().getLog().debug("websocket connection lost {}", ctx.pathString(), cause);
+      if (open.compareAndSet(true, false)) {
+        fireClose(WebSocketCloseStatus.HARSH_DISCONNECT);
+      }
+    } else {
+      if (onErrorCallback == null) {
+        ctx.getRouter().getLog()
+            .error("websocket resulted in exception {}", ctx.pathString(), cause);
+      } else {
+        onErrorCallback.onError(this, cause);
+      }
+      if (SneakyThrows.isFatal(cause)) {
+        close(WebSocketCloseStatus.SERVER_ERROR);
+      }
+    }
+  }
+
+  private void fireClose(WebSocketCloseStatus closeStatus) {
+    submit(() -> {
+      if (onCloseCallback != null) {
+        onCloseCallback.onClose(this, closeStatus);
+      }
+    });
+  }
+
+  private void submit(Runnable task) {
+    tasks.offer(task);
+    if (taskCount.getAndIncrement() == 0) {
+      worker.execute(this::drain);
+    }
+  }
+
+  private void drain() {
+    do {
+      Runnable task = tasks.poll();
+      try {
+        task.run();
+      } catch (Throwable x) {
+        handleError(x);
+      }
+    } while (taskCount.decrementAndGet() > 0);
+    /** Queue is empty, resume reading: */
+    SuspendToken token = suspendToken;
+    if (token != null) {
+      suspendToken = null;
+      token.resume();
+    }
+  }
+}
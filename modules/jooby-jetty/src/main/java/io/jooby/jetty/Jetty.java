@@ -5,9 +5,13 @@
  */
 package io.jooby.jetty;
 
+import io.jooby.CompressionOptions;
 import io.jooby.Jooby;
 import io.jooby.ServerOptions;
 import io.jooby.SneakyThrows;
+import io.jooby.WebSocket;
+import io.jooby.internal.WebSocketHandler;
+import io.jooby.internal.jetty.JettyContext;
 import io.jooby.internal.jetty.JettyHandler;
 import org.eclipse.jetty.server.HttpConfiguration;
 import org.eclipse.jetty.server.HttpConnectionFactory;
@@ -15,8 +19,11 @@ import org.eclipse.jetty.server.MultiPartFormDataCompliance;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.gzip.GzipHandler;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.websocket.api.WebSocketPolicy;
+import org.eclipse.jetty.websocket.server.WebSocketServerFactory;
 
 import javax.annotation.Nonnull;
 import java.net.BindException;
@@ -85,18 +92,43 @@ public class Jetty extends io.jooby.Server.Base {
       connector.addConnectionFactory(new HttpConnectionFactory(httpConf));
       connector.setPort(options.getPort());
       connector.setHost("0.0.0.0");
+      connector.addBean(JettyContext.COMPLETION_LISTENER);
 
       server.addConnector(connector);
 
       AbstractHandler handler = new JettyHandler(applications.get(0), options.getBufferSize(),
           options.getMaxRequestSize(), options.isDefaultHeaders());
 
-      if (options.isGzip()) {
-        GzipHandler gzipHandler = new GzipHandler();
+      CompressionOptions compression = options.getCompression();
+      // Jetty only supports gzip
+      if (options.isGzip() && compression.getAlgorithms().contains(CompressionOptions.GZIP)) {
+        GzipHandler gzipHandler = new GzipHandler() {
+          @Override public boolean isMimeTypeGzipable(String mimeType) {
+            return compression.isCompressible(mimeType, -1);
+          }
+        };
+        gzipHandler.setMinGzipSize(compression.getMinSize());
+        gzipHandler.setCompressionLevel(compression.getLevel());
+        gzipHandler.setIncludedMethods("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS");
         gzipHandler.setHandler(handler);
         handler = gzipHandler;
       }
 
+      if (hasWebSockets(applications)) {
+        /** WebSocket factory requires a servlet context: */
+        ContextHandler context = new ContextHandler();
+        context.setHandler(handler);
+
+        WebSocketPolicy policy = WebSocketPolicy.newServerPolicy();
+        policy.setMaxTextMessageSize(WebSocket.MAX_MESSAGE_SIZE);
+        policy.setMaxBinaryMessageSize(WebSocket.MAX_MESSAGE_SIZE);
+        WebSocketServerFactory webSocketFactory = new WebSocketServerFactory(
+            context.getServletContext(), policy);
+        context.setAttribute(WebSocketServerFactory.class.getName(), webSocketFactory);
+        context.addManaged(webSocketFactory);
+        handler = context;
+      }
+
       server.setHandler(handler);
 
       server.start();
@@ -112,6 +144,12 @@ public class Jetty extends io.jooby.Server.Base {
     return this;
   }
 
+  private static boolean hasWebSockets(List<Jooby> applications) {
+    return applications.stream()
+        .flatMap(app -> app.getRoutes().stream())
+        .anyMatch(route -> route.getHandler() instanceof WebSocketHandler);
+  }
+
   @Nonnull @Override public synchronized io.jooby.Server stop() {
     fireStop(applications);
     if (server != null) {
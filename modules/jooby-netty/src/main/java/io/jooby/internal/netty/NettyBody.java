@@ -38,7 +38,8 @@ public class NettyBody implements Body {
   }
 
   @Override public long getSize() {
-    return length;
+    // inflated (or chunked) bodies have no content length
+    return length < 0 ? data.length() : length;
   }
 
   @Override public InputStream stream() {
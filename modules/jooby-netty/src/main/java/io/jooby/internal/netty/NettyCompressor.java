@@ -0,0 +1,50 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.netty;
+
+import io.jooby.CompressionOptions;
+import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
+
+public class NettyCompressor extends HttpContentCompressor {
+
+  private final CompressionOptions options;
+
+  public NettyCompressor(CompressionOptions options) {
+    super(options.getLevel());
+    this.options = options;
+  }
+
+  @Override protected Result beginEncode(HttpResponse response, String acceptEncoding)
+      throws Exception {
+    String encoding = encoding(options, response.headers(), acceptEncoding);
+    return encoding == null ? null : super.beginEncode(response, encoding);
+  }
+
+  /**
+   * Compression algorithm for response or <code>null</code> when response must be sent as it is.
+   *
+   * @param options Compression options or <code>null</code> when compression is off.
+   * @param headers Response headers.
+   * @param acceptEncoding Accept-Encoding header.
+   * @return Compression algorithm or <code>null</code>.
+   */
+  static String encoding(CompressionOptions options, HttpHeaders headers,
+      String acceptEncoding) {
+    if (options == null || headers.contains(HttpHeaderNames.CONTENT_ENCODING)
+        || headers.contains(HttpHeaderNames.CONTENT_RANGE)) {
+      return null;
+    }
+    String len = headers.get(HttpHeaderNames.CONTENT_LENGTH);
+    if (!options.isCompressible(headers.get(HttpHeaderNames.CONTENT_TYPE),
+        len == null ? -1 : Long.parseLong(len))) {
+      return null;
+    }
+    return options.negotiate(acceptEncoding);
+  }
+}
@@ -6,6 +6,7 @@
 package io.jooby.internal.netty;
 
 import io.jooby.Body;
+import io.jooby.CompressionOptions;
 import io.jooby.ByteRange;
 import io.jooby.Context;
 import io.jooby.Cookie;
@@ -13,6 +14,7 @@ import io.jooby.DefaultContext;
 import io.jooby.FileUpload;
 import io.jooby.Formdata;
 import io.jooby.MediaType;
+import io.jooby.MemoryBudget;
 import io.jooby.Multipart;
 import io.jooby.QueryString;
 import io.jooby.Route;
@@ -24,6 +26,8 @@ import io.jooby.SessionStore;
 import io.jooby.SneakyThrows;
 import io.jooby.StatusCode;
 import io.jooby.Value;
+import io.jooby.WebSocket;
+import io.jooby.internal.CompletionListeners;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
@@ -31,6 +35,8 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.DefaultHttpResponse;
@@ -40,12 +46,19 @@ import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
 import io.netty.handler.codec.http.multipart.HttpData;
 import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder;
 import io.netty.handler.codec.http.multipart.InterfaceHttpData;
 import io.netty.handler.codec.http.multipart.InterfaceHttpPostRequestDecoder;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
+import io.netty.handler.codec.http.websocketx.WebSocketHandshakeException;
+import io.netty.handler.codec.http.websocketx.WebSocketServerHandshaker;
+import io.netty.handler.codec.http.websocketx.WebSocketServerHandshakerFactory;
+import io.netty.handler.stream.ChunkedNioFile;
 import io.netty.handler.stream.ChunkedNioStream;
 import io.netty.handler.stream.ChunkedStream;
 import io.netty.handler.stream.ChunkedWriteHandler;
@@ -74,6 +87,7 @@ import java.util.concurrent.Executor;
 
 import static io.netty.buffer.Unpooled.copiedBuffer;
 import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static io.netty.handler.codec.http.HttpHeaderNames.ACCEPT_ENCODING;
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_LENGTH;
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
 import static io.netty.handler.codec.http.HttpHeaderNames.RANGE;
@@ -91,6 +105,10 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
   final DefaultHttpHeaders setHeaders = new DefaultHttpHeaders(false);
   private final int bufferSize;
   InterfaceHttpPostRequestDecoder decoder;
+  CompressionOptions compression;
+  MemoryBudget bodyMemory;
+  long bodyReserved;
+  long bodySpilled;
   private Router router;
   private Route route;
   private ChannelHandlerContext ctx;
@@ -108,6 +126,9 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
   private Map<String, Object> attributes = new HashMap<>();
   private long contentLength = -1;
   private boolean needsFlush;
+  private volatile boolean destroyed;
+  final CompletionListeners listeners = new CompletionListeners();
+  boolean reading;
   private Map<String, String> cookies;
   private Map<String, String> responseCookies;
 
@@ -163,6 +184,10 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
     return ctx.channel().eventLoop().inEventLoop();
   }
 
+  @Nonnull @Override public Executor getIoExecutor() {
+    return ctx.channel().eventLoop();
+  }
+
   @Nonnull @Override public Context dispatch(@Nonnull Runnable action) {
     return dispatch(router.getWorker(), action);
   }
@@ -172,11 +197,67 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
     return this;
   }
 
+  @Nonnull @Override public Context onComplete(@Nonnull Runnable action) {
+    listeners.add(this, action);
+    return this;
+  }
+
+  @Nonnull @Override public Context onCancel(@Nonnull Runnable action) {
+    listeners.onCancel(this, action);
+    return this;
+  }
+
   @Nonnull @Override public Context detach(@Nonnull Route.Handler next) throws Exception {
     next.apply(this);
     return this;
   }
 
+  @Nonnull @Override public Context upgrade(@Nonnull WebSocket.Initializer handler) {
+    String url = "ws://" + req.headers().get(HttpHeaderNames.HOST) + path;
+    WebSocketServerHandshakerFactory factory = new WebSocketServerHandshakerFactory(url, null,
+        true, WebSocket.MAX_MESSAGE_SIZE);
+    /** Request was already routed, handshake doesn't need a body: */
+    FullHttpRequest fullRequest = new DefaultFullHttpRequest(req.protocolVersion(), req.method(),
+        req.uri(), Unpooled.EMPTY_BUFFER, req.headers(), EmptyHttpHeaders.INSTANCE);
+    WebSocketServerHandshaker handshaker = factory.newHandshaker(fullRequest);
+    responseStarted = true;
+    if (handshaker == null) {
+      WebSocketServerHandshakerFactory.sendUnsupportedVersionResponse(ctx.channel());
+      return this;
+    }
+    NettyWebSocket ws = new NettyWebSocket(this, ctx.channel());
+    handler.init(this, ws);
+    Runnable handshake = () -> {
+      ChannelPipeline p = ctx.pipeline();
+      try {
+        handshaker.handshake(ctx.channel(), fullRequest).addListener(future -> {
+          if (future.isSuccess()) {
+            ws.fireConnect();
+          } else {
+            ctx.close();
+          }
+        });
+      } catch (WebSocketHandshakeException x) {
+        responseStarted = false;
+        sendError(x, StatusCode.BAD_REQUEST);
+        return;
+      }
+      /** Http handlers are no longer required: */
+      if (p.get("inflater") != null) {
+        p.remove("inflater");
+      }
+      p.replace("handler", "ws", ws);
+      p.addBefore("ws", "aggregator", new WebSocketFrameAggregator(WebSocket.MAX_MESSAGE_SIZE));
+    };
+    EventLoop eventLoop = ctx.channel().eventLoop();
+    if (eventLoop.inEventLoop()) {
+      handshake.run();
+    } else {
+      eventLoop.execute(handshake);
+    }
+    return this;
+  }
+
   @Nonnull @Override public QueryString query() {
     if (query == null) {
       String uri = req.uri();
@@ -359,21 +440,29 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
     return send(wrappedBuffer(data));
   }
 
+  @Nonnull @Override public Context send(@Nonnull ByteBuffer[] data) {
+    /** Composite buffer, no copy: */
+    return send(wrappedBuffer(data));
+  }
+
   @Nonnull @Override public Context send(@Nonnull ByteBuf data) {
     responseStarted = true;
     setHeaders.set(CONTENT_LENGTH, Long.toString(data.readableBytes()));
     DefaultFullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, status,
         data, setHeaders, NO_TRAILING);
-    if (ctx.channel().eventLoop().inEventLoop()) {
+    if (reading && ctx.channel().eventLoop().inEventLoop()) {
+      /** Flushed once all the pending reads are done: */
       needsFlush = true;
       ctx.write(response).addListener(this);
     } else {
+      /** Write straight from the event loop, or handed over to it from other threads: */
       ctx.writeAndFlush(response).addListener(this);
     }
     return this;
   }
 
   public void flush() {
+    reading = false;
     if (needsFlush) {
       needsFlush = false;
       ctx.flush();
@@ -388,10 +477,9 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
     ctx.channel().eventLoop().execute(() -> {
       // Headers
       ctx.write(rsp, ctx.voidPromise());
-      // Body
-      ctx.write(new ChunkedNioStream(channel, bufferSize), ctx.voidPromise());
-      // Finish
-      ctx.writeAndFlush(EMPTY_LAST_CONTENT).addListener(this);
+      // Body + Finish
+      ctx.writeAndFlush(new HttpChunkedInput(new ChunkedNioStream(channel, bufferSize)))
+          .addListener(this);
     });
     return this;
   }
@@ -413,10 +501,8 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
       ctx.channel().eventLoop().execute(() -> {
         // Headers
         ctx.write(rsp, ctx.voidPromise());
-        // Body
-        ctx.write(chunkedStream, ctx.voidPromise());
-        // Finish
-        ctx.writeAndFlush(EMPTY_LAST_CONTENT).addListener(this);
+        // Body + Finish
+        ctx.writeAndFlush(new HttpChunkedInput(chunkedStream)).addListener(this);
       });
       return this;
     } catch (Exception x) {
@@ -432,15 +518,31 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
       ByteRange range = ByteRange.parse(req.headers().get(RANGE), len)
           .apply(this);
 
+      boolean compress = NettyCompressor
+          .encoding(compression, setHeaders, req.headers().get(ACCEPT_ENCODING)) != null;
+      if (compress) {
+        // Compressed: file region (zero-copy) is not an option
+        prepareChunked();
+      }
+      HttpChunkedInput body = compress
+          ? new HttpChunkedInput(
+          new ChunkedNioFile(file, range.getStart(), range.getEnd(), bufferSize))
+          : null;
       DefaultHttpResponse rsp = new DefaultHttpResponse(HttpVersion.HTTP_1_1, status, setHeaders);
       responseStarted = true;
       ctx.channel().eventLoop().execute(() -> {
         // Headers
         ctx.write(rsp, ctx.voidPromise());
-        // Body
-        ctx.write(new DefaultFileRegion(file, range.getStart(), range.getEnd()), ctx.voidPromise());
-        // Finish
-        ctx.writeAndFlush(EMPTY_LAST_CONTENT).addListener(this);
+        if (body == null) {
+          // Body
+          ctx.write(new DefaultFileRegion(file, range.getStart(), range.getEnd()),
+              ctx.voidPromise());
+          // Finish
+          ctx.writeAndFlush(EMPTY_LAST_CONTENT).addListener(this);
+        } else {
+          // Body + Finish
+          ctx.writeAndFlush(body).addListener(this);
+        }
       });
     } catch (IOException x) {
       throw SneakyThrows.propagate(x);
@@ -448,6 +550,15 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
     return this;
   }
 
+  @Nonnull @Override public Context abort() {
+    if (!destroyed) {
+      responseStarted = true;
+      /** Close without the last chunk, so client sees a broken response: */
+      ctx.close().addListener(future -> destroy(null, true));
+    }
+    return this;
+  }
+
   @Override public boolean isResponseStarted() {
     return responseStarted;
   }
@@ -488,6 +599,21 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
   }
 
   void destroy(Throwable cause) {
+    destroy(cause, cause != null);
+  }
+
+  /**
+   * Release request resources and run completion actions.
+   *
+   * @param cause Write failure or <code>null</code>.
+   * @param abort True when the response wasn't sent (connection lost, aborted or failed). Runs
+   *     cancel actions too.
+   */
+  void destroy(Throwable cause, boolean abort) {
+    if (destroyed) {
+      return;
+    }
+    destroyed = true;
     if (cause != null) {
       if (Server.connectionLost(cause)) {
         router.getLog().debug("exception found while sending response {} {}", getMethod(), pathString(), cause);
@@ -513,7 +639,26 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
       }
       decoder = null;
     }
+    releaseBodyMemory();
     release(req);
+    if (abort) {
+      listeners.abort(this);
+    } else {
+      listeners.complete(this);
+    }
+  }
+
+  void spill(long bytes) {
+    bodySpilled += bytes;
+    bodyMemory.spill(bytes);
+  }
+
+  private void releaseBodyMemory() {
+    if (bodyMemory != null) {
+      bodyMemory.release(bodyReserved).releaseSpilled(bodySpilled);
+      bodyReserved = 0;
+      bodySpilled = 0;
+    }
   }
 
   private FileUpload register(FileUpload upload) {
@@ -567,7 +712,8 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
     // remove flusher, doesn't play well with streaming/chunked responses
     ChannelPipeline pipeline = ctx.pipeline();
     if (pipeline.get("chunker") == null) {
-      pipeline.addAfter("encoder", "chunker", new ChunkedWriteHandler());
+      // before compressor, so chunks can be compressed
+      pipeline.addBefore("handler", "chunker", new ChunkedWriteHandler());
     }
     if (!setHeaders.contains(CONTENT_LENGTH)) {
       setHeaders.set(TRANSFER_ENCODING, CHUNKED);
@@ -0,0 +1,96 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.handler.codec.http.HttpContentDecompressor;
+
+/**
+ * Inflate gzip/deflate request bodies with a bounded output. Compressed chunks are inflated in
+ * small slices, so a single chunk never inflates more than ~1000x the slice size in memory, and
+ * inflation stops with a {@link TooLongFrameException} once inflated bytes go over the max request
+ * size.
+ */
+public class NettyDecompressor extends HttpContentDecompressor {
+
+  /** Compressed bytes inflated at once. */
+  private static final int SLICE = 256;
+
+  private final long maxRequestSize;
+
+  public NettyDecompressor(long maxRequestSize) {
+    this.maxRequestSize = maxRequestSize;
+  }
+
+  @Override protected EmbeddedChannel newContentDecoder(String contentEncoding)
+      throws Exception {
+    EmbeddedChannel channel = super.newContentDecoder(contentEncoding);
+    if (channel != null && maxRequestSize > 0) {
+      Limit limit = new Limit(maxRequestSize);
+      channel.pipeline().addFirst(new Slicer(limit));
+      channel.pipeline().addLast(limit);
+    }
+    return channel;
+  }
+
+  private static class Slicer extends ChannelInboundHandlerAdapter {
+    private final Limit limit;
+
+    Slicer(Limit limit) {
+      this.limit = limit;
+    }
+
+    @Override public void channelRead(ChannelHandlerContext ctx, Object msg) {
+      if (!(msg instanceof ByteBuf)) {
+        ctx.fireChannelRead(msg);
+        return;
+      }
+      ByteBuf buf = (ByteBuf) msg;
+      try {
+        while (buf.isReadable() && !limit.exceeded) {
+          ctx.fireChannelRead(buf.readRetainedSlice(Math.min(SLICE, buf.readableBytes())));
+        }
+      } finally {
+        buf.release();
+      }
+    }
+  }
+
+  private static class Limit extends ChannelInboundHandlerAdapter {
+    private final long maxRequestSize;
+
+    private long size;
+
+    private boolean exceeded;
+
+    Limit(long maxRequestSize) {
+      this.maxRequestSize = maxRequestSize;
+    }
+
+    @Override public void channelRead(ChannelHandlerContext ctx, Object msg) {
+      if (!(msg instanceof ByteBuf)) {
+        ctx.fireChannelRead(msg);
+        return;
+      }
+      ByteBuf buf = (ByteBuf) msg;
+      if (exceeded) {
+        buf.release();
+        return;
+      }
+      size += buf.readableBytes();
+      if (size > maxRequestSize) {
+        exceeded = true;
+        buf.release();
+        throw new TooLongFrameException("Inflated request body is larger than " + maxRequestSize);
+      }
+      ctx.fireChannelRead(buf);
+    }
+  }
+}
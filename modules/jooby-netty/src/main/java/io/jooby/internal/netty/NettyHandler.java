@@ -6,23 +6,35 @@
 package io.jooby.internal.netty;
 
 import io.jooby.StatusCodeException;
+import io.jooby.CompressionOptions;
 import io.jooby.MediaType;
+import io.jooby.MemoryBudget;
 import io.jooby.Router;
 import io.jooby.Server;
 import io.jooby.StatusCode;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http.multipart.DefaultHttpDataFactory;
+import io.netty.handler.codec.http.multipart.DiskAttribute;
+import io.netty.handler.codec.http.multipart.HttpData;
 import io.netty.handler.codec.http.multipart.HttpDataFactory;
 import io.netty.handler.codec.http.multipart.HttpPostMultipartRequestDecoder;
 import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder;
 import io.netty.handler.codec.http.multipart.HttpPostStandardRequestDecoder;
 import io.netty.handler.codec.http.multipart.InterfaceHttpPostRequestDecoder;
+import io.netty.handler.codec.http.multipart.MemoryAttribute;
+import io.netty.handler.codec.http.multipart.MixedAttribute;
 import io.netty.util.AsciiString;
 import io.netty.util.concurrent.FastThreadLocal;
 import org.slf4j.Logger;
@@ -30,7 +42,9 @@ import org.slf4j.Logger;
 import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.Date;
+import java.util.Queue;
 import java.util.concurrent.ScheduledExecutorService;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -49,6 +63,10 @@ public class NettyHandler extends ChannelInboundHandlerAdapter {
 
   private static final int DATE_INTERVAL = 1000;
 
+  private static final HttpDataFactory MEMORY = new DefaultHttpDataFactory(false);
+
+  private static final HttpDataFactory DISK = new DefaultHttpDataFactory(true);
+
   private final Router router;
   private final int bufferSize;
   private final boolean defaultHeaders;
@@ -56,19 +74,26 @@ public class NettyHandler extends ChannelInboundHandlerAdapter {
   private Router.Match result;
 
   private final HttpDataFactory factory;
+  private final MemoryBudget bodyMemory;
+  private final CompressionOptions compression;
   private InterfaceHttpPostRequestDecoder decoder;
+  /** Body chunks received while an Expect: 100-continue request is being checked. */
+  private Queue<HttpContent> pending;
 
   private final long maxRequestSize;
   private long contentLength;
   private long chunkSize;
 
   public NettyHandler(ScheduledExecutorService scheduler, Router router, long maxRequestSize,
-      int bufferSize, HttpDataFactory factory, boolean defaultHeaders) {
+      int bufferSize, HttpDataFactory factory, MemoryBudget bodyMemory, CompressionOptions compression,
+      boolean defaultHeaders) {
     scheduler
         .scheduleWithFixedDelay(dateSync(FORMAT.get()), DATE_INTERVAL, DATE_INTERVAL, MILLISECONDS);
     this.router = router;
     this.maxRequestSize = maxRequestSize;
     this.factory = factory;
+    this.bodyMemory = bodyMemory;
+    this.compression = compression;
     this.bufferSize = bufferSize;
     this.defaultHeaders = defaultHeaders;
   }
@@ -82,6 +107,8 @@ public class NettyHandler extends ChannelInboundHandlerAdapter {
     if (msg instanceof HttpRequest) {
       HttpRequest req = (HttpRequest) msg;
       context = new NettyContext(ctx, req, router, pathOnly(req.uri()), bufferSize);
+      context.compression = compression;
+      context.reading = true;
 
       if (defaultHeaders) {
         context.setHeaders.set(HttpHeaderNames.DATE, date);
@@ -93,19 +120,33 @@ public class NettyHandler extends ChannelInboundHandlerAdapter {
 
       contentLength = contentLength(req);
       if (contentLength > 0 || HttpUtil.isTransferEncodingChunked(req)) {
-        decoder = newDecoder(req, factory);
+        if (HttpUtil.is100ContinueExpected(req)) {
+          expectContinue(ctx, req);
+        } else {
+          decoder = newDecoder(req);
+        }
       } else {
         result.execute(context);
       }
+    } else if (pending != null && msg instanceof HttpContent) {
+      // checks in progress, body is read once they pass
+      pending.add((HttpContent) msg);
     } else if (decoder != null && msg instanceof HttpContent) {
       HttpContent chunk = (HttpContent) msg;
-      chunkSize += chunk.content().readableBytes();
+      context.reading = true;
+      int len = chunk.content().readableBytes();
+      chunkSize += len;
       if (chunkSize > maxRequestSize) {
         resetDecoderState(true);
         chunk.release();
         context.sendError(new StatusCodeException(StatusCode.REQUEST_ENTITY_TOO_LARGE));
         return;
       }
+      /** Bytes over the reserved memory goes to disk: */
+      long spilled = Math.min(len, chunkSize - context.bodyReserved);
+      if (spilled > 0) {
+        context.spill(spilled);
+      }
 
       offer(chunk);
 
@@ -119,7 +160,67 @@ public class NettyHandler extends ChannelInboundHandlerAdapter {
         resetDecoderState(false);
         result.execute(context);
       }
+    } else if (msg instanceof HttpContent) {
+      // rejected or already answered request, ignore body
+      ((HttpContent) msg).release();
+    }
+  }
+
+  private void expectContinue(ChannelHandlerContext ctx, HttpRequest req) {
+    // Close connection on rejection, client might be sending the body anyway
+    boolean keepAlive = HttpUtil.isKeepAlive(req);
+    HttpUtil.setKeepAlive(req, false);
+    NettyContext context = this.context;
+    context.setHeaders.set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+    pending = new ArrayDeque<>();
+    result.expectContinue(context, maxRequestSize, () -> {
+      if (ctx.executor().inEventLoop()) {
+        onContinue(ctx, req, context, keepAlive);
+      } else {
+        // Before filters ran on route executor
+        ctx.executor().execute(() -> onContinue(ctx, req, context, keepAlive));
+      }
+    });
+    if (pending != null) {
+      // Before filters are running (or request was rejected): don't read the body
+      ctx.channel().config().setAutoRead(false);
+    }
+  }
+
+  private void onContinue(ChannelHandlerContext ctx, HttpRequest req, NettyContext context,
+      boolean keepAlive) {
+    Queue<HttpContent> chunks = pending;
+    if (chunks == null) {
+      // connection was closed
+      return;
+    }
+    pending = null;
+    HttpUtil.setKeepAlive(req, keepAlive);
+    context.setHeaders.remove(HttpHeaderNames.CONNECTION);
+    ctx.writeAndFlush(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+        HttpResponseStatus.CONTINUE, Unpooled.EMPTY_BUFFER));
+    decoder = newDecoder(req);
+    HttpContent chunk;
+    while ((chunk = chunks.poll()) != null) {
+      channelRead(ctx, chunk);
+    }
+    ctx.channel().config().setAutoRead(true);
+  }
+
+  @Override public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+    if (pending != null) {
+      pending.forEach(HttpContent::release);
+      pending = null;
+    }
+    if (decoder != null) {
+      // connection closed while reading the body
+      resetDecoderState(true);
+      context.destroy(null, true);
+    } else if (context != null) {
+      // connection closed while (or after) running the request, no-op once response was sent
+      context.listeners.abort(context);
     }
+    super.channelInactive(ctx);
   }
 
   @Override public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
@@ -140,6 +241,11 @@ public class NettyHandler extends ChannelInboundHandlerAdapter {
             log.debug("%s %s", context.getMethod(), context.pathString(), cause);
           }
         }
+      } else if (cause instanceof TooLongFrameException && decoder != null) {
+        /** Inflated body over max request size: */
+        resetDecoderState(true);
+        context.sendError(new StatusCodeException(StatusCode.REQUEST_ENTITY_TOO_LARGE));
+        context = null;
       } else {
         if (context == null) {
           log.error("execution resulted in exception", cause);
@@ -171,8 +277,26 @@ public class NettyHandler extends ChannelInboundHandlerAdapter {
     decoder = null;
   }
 
-  private static InterfaceHttpPostRequestDecoder newDecoder(HttpRequest request,
-      HttpDataFactory factory) {
+  private InterfaceHttpPostRequestDecoder newDecoder(HttpRequest request) {
+    /** Keep body in memory while there is budget for it, otherwise save it to disk: */
+    long size = contentLength > 0 ? contentLength : bufferSize;
+    context.bodyMemory = bodyMemory;
+    HttpDataFactory factory;
+    HttpData body;
+    if (bodyMemory.reserve(size)) {
+      context.bodyReserved = size;
+      if (contentLength > 0) {
+        factory = MEMORY;
+        body = new MemoryAttribute("body");
+      } else {
+        // chunked: unknown size, use memory up to buffer size
+        factory = this.factory;
+        body = new MixedAttribute("body", bufferSize);
+      }
+    } else {
+      factory = DISK;
+      body = new DiskAttribute("body");
+    }
     String contentType = request.headers().get(HttpHeaderNames.CONTENT_TYPE);
     if (contentType != null) {
       String lowerContentType = contentType.toLowerCase();
@@ -182,7 +306,7 @@ public class NettyHandler extends ChannelInboundHandlerAdapter {
         return new HttpPostStandardRequestDecoder(factory, request, StandardCharsets.UTF_8);
       }
     }
-    return new HttpRawPostRequestDecoder(factory.createAttribute(request, "body"));
+    return new HttpRawPostRequestDecoder(body);
   }
 
   static String pathOnly(String uri) {
@@ -6,6 +6,7 @@
 package io.jooby.internal.netty;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.DefaultHttpContent;
@@ -14,15 +15,18 @@ import io.netty.handler.codec.http.LastHttpContent;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.ClosedChannelException;
 
 public class NettyOutputStream extends OutputStream {
-  private final ByteBuf buffer;
+  private final int bufferSize;
   private final ChannelHandlerContext ctx;
   private final ChannelFutureListener closeListener;
+  private ByteBuf buffer;
   private HttpResponse headers;
 
   public NettyOutputStream(ChannelHandlerContext ctx, int bufferSize, HttpResponse headers,
       ChannelFutureListener closeListener) {
+    this.bufferSize = bufferSize;
     this.buffer = ctx.alloc().buffer(0, bufferSize);
     this.ctx = ctx;
     this.headers = headers;
@@ -30,7 +34,8 @@ public class NettyOutputStream extends OutputStream {
   }
 
   @Override
-  public void write(int b) {
+  public void write(int b) throws IOException {
+    ensureOpen();
     writeHeaders();
 
     if (buffer.maxWritableBytes() < 1) {
@@ -40,11 +45,13 @@ public class NettyOutputStream extends OutputStream {
   }
 
   @Override
-  public void write(byte[] src, int off, int len) {
+  public void write(byte[] src, int off, int len) throws IOException {
     write(src, off, len, null);
   }
 
-  public void write(byte[] src, int off, int len, ChannelFutureListener callback) {
+  public void write(byte[] src, int off, int len, ChannelFutureListener callback)
+      throws IOException {
+    ensureOpen();
     writeHeaders();
 
     int dataLengthLeftToWrite = len;
@@ -62,6 +69,13 @@ public class NettyOutputStream extends OutputStream {
     }
   }
 
+  private void ensureOpen() throws IOException {
+    if (buffer == null || !ctx.channel().isActive()) {
+      // Stop producing output once response was closed or client went away
+      throw new ClosedChannelException();
+    }
+  }
+
   private void writeHeaders() {
     if (headers != null) {
       ctx.write(headers, ctx.voidPromise());
@@ -70,35 +84,53 @@ public class NettyOutputStream extends OutputStream {
   }
 
   @Override public void flush() throws IOException {
-    flush(null, null);
+    if (buffer != null && buffer.readableBytes() > 0) {
+      flush(null, null);
+    }
+    ctx.flush();
   }
 
   private void flush(ChannelFutureListener callback, ChannelFutureListener listener) {
     int chunkSize = buffer.readableBytes();
     if (chunkSize > 0) {
+      // Netty owns (and releases) the chunk, so no copy is required
+      DefaultHttpContent chunk = new DefaultHttpContent(buffer);
       if (listener != null) {
+        buffer = null;
         if (callback == null) {
-          ctx.write(new DefaultHttpContent(buffer.copy()), ctx.voidPromise());
+          ctx.write(chunk, ctx.voidPromise());
         } else {
-          ctx.write(new DefaultHttpContent(buffer.copy())).addListener(callback);
+          ctx.write(chunk).addListener(callback);
         }
         ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT).addListener(listener);
-        buffer.release();
       } else {
-        if (callback == null) {
-          ctx.write(new DefaultHttpContent(buffer.copy()), ctx.voidPromise());
-        } else {
-          ctx.write(new DefaultHttpContent(buffer.copy())).addListener(callback);
+        buffer = ctx.alloc().buffer(0, bufferSize);
+        ChannelFuture future = ctx.write(chunk);
+        if (callback != null) {
+          future.addListener(callback);
+        }
+        if (!ctx.channel().isWritable()) {
+          // Outbound buffer is full (high water mark): flush it, so large responses aren't kept in
+          // memory. Otherwise, chunks go out on explicit flush or close.
+          ctx.flush();
+          if (!ctx.executor().inEventLoop()) {
+            // Slow client: block the producer (worker thread) until chunk is written
+            future.awaitUninterruptibly();
+          }
         }
-        buffer.clear();
       }
     } else {
+      buffer.release();
+      buffer = null;
       ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT).addListener(listener);
     }
   }
 
   @Override
   public void close() {
-    flush(null, closeListener);
+    if (buffer != null) {
+      writeHeaders();
+      flush(null, closeListener);
+    }
   }
 }
@@ -5,11 +5,12 @@
  */
 package io.jooby.internal.netty;
 
+import io.jooby.CompressionOptions;
+import io.jooby.MemoryBudget;
 import io.jooby.Router;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.handler.codec.http.HttpResponseEncoder;
 import io.netty.handler.codec.http.multipart.HttpDataFactory;
@@ -23,21 +24,24 @@ public class NettyPipeline extends ChannelInitializer<SocketChannel> {
 
   private final Router router;
   private final HttpDataFactory factory;
-  private final boolean gzip;
+  private final CompressionOptions compression;
   private final int bufferSize;
   private final long maxRequestSize;
   private final boolean defaultHeaders;
   private final ScheduledExecutorService service;
+  private final MemoryBudget bodyMemory;
 
   public NettyPipeline(ScheduledExecutorService service, Router router, HttpDataFactory factory,
-      boolean defaultHeaders, boolean gzip, int bufferSize, long maxRequestSize) {
+      boolean defaultHeaders, CompressionOptions compression, int bufferSize, long maxRequestSize,
+      MemoryBudget bodyMemory) {
     this.service = service;
     this.router = router;
     this.factory = factory;
     this.defaultHeaders = defaultHeaders;
-    this.gzip = gzip;
+    this.compression = compression;
     this.bufferSize = bufferSize;
     this.maxRequestSize = maxRequestSize;
+    this.bodyMemory = bodyMemory;
   }
 
   @Override
@@ -45,10 +49,12 @@ public class NettyPipeline extends ChannelInitializer<SocketChannel> {
     ChannelPipeline p = ch.pipeline();
     p.addLast("encoder", new HttpResponseEncoder());
     p.addLast("decoder", new HttpRequestDecoder(_4KB, _8KB, bufferSize, false));
-    if (gzip) {
-      p.addLast("gzip", new HttpContentCompressor());
+    /** Inflate gzip/deflate request bodies, max request size is checked on inflated bytes: */
+    p.addLast("inflater", new NettyDecompressor(maxRequestSize));
+    if (compression != null) {
+      p.addLast("gzip", new NettyCompressor(compression));
     }
     p.addLast("handler", new NettyHandler(service, router, maxRequestSize, bufferSize, factory,
-        defaultHeaders));
+        bodyMemory, compression, defaultHeaders));
   }
 }
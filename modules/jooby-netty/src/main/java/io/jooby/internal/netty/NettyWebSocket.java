@@ -0,0 +1,272 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.netty;
+
+import io.jooby.Context;
+import io.jooby.Server;
+import io.jooby.SneakyThrows;
+import io.jooby.WebSocket;
+import io.jooby.WebSocketCloseStatus;
+import io.jooby.WebSocketConfigurer;
+import io.jooby.WebSocketMessage;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.ReferenceCountUtil;
+
+import javax.annotation.Nonnull;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NettyWebSocket extends ChannelInboundHandlerAdapter
+    implements WebSocketConfigurer, WebSocket, ChannelFutureListener {
+
+  private final NettyContext netty;
+  private final Channel channel;
+  private final Executor worker;
+  private WebSocket.OnConnect onConnectCallback;
+  private WebSocket.OnMessage onMessageCallback;
+  private WebSocket.OnClose onCloseCallback;
+  private WebSocket.OnError onErrorCallback;
+  private int maxPending = MAX_PENDING;
+  private Overflow overflow = Overflow.DISCONNECT;
+  private final AtomicBoolean open = new AtomicBoolean(true);
+  private final AtomicInteger pending = new AtomicInteger();
+  /** Callbacks run one at a time, in order: */
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger taskCount = new AtomicInteger();
+
+  public NettyWebSocket(NettyContext netty, Channel channel) {
+    this.netty = netty;
+    this.channel = channel;
+    this.worker = netty.getRouter().getWorker();
+  }
+
+  /* **********************************************************************************************
+   * Configurer:
+   * **********************************************************************************************
+   */
+
+  @Nonnull @Override public WebSocketConfigurer onConnect(@Nonnull OnConnect callback) {
+    this.onConnectCallback = callback;
+    return this;
+  }
+
+  @Nonnull @Override public WebSocketConfigurer onMessage(@Nonnull OnMessage callback) {
+    this.onMessageCallback = callback;
+    return this;
+  }
+
+  @Nonnull @Override public WebSocketConfigurer onError(@Nonnull OnError callback) {
+    this.onErrorCallback = callback;
+    return this;
+  }
+
+  @Nonnull @Override public WebSocketConfigurer onClose(@Nonnull OnClose callback) {
+    this.onCloseCallback = callback;
+    return this;
+  }
+
+  @Nonnull @Override public WebSocketConfigurer setMaxPending(int maxPending) {
+    this.maxPending = maxPending;
+    return this;
+  }
+
+  @Nonnull @Override public WebSocketConfigurer setOverflow(@Nonnull Overflow overflow) {
+    this.overflow = overflow;
+    return this;
+  }
+
+  /* **********************************************************************************************
+   * WebSocket:
+   * **********************************************************************************************
+   */
+
+  @Nonnull @Override public Context getContext() {
+    return netty;
+  }
+
+  @Override public boolean isOpen() {
+    return open.get();
+  }
+
+  @Nonnull @Override public WebSocket send(@Nonnull byte[] message, boolean binary) {
+    if (!isOpen()) {
+      return this;
+    }
+    if (pending.incrementAndGet() > maxPending) {
+      pending.decrementAndGet();
+      if (overflow == Overflow.DISCONNECT) {
+        close(WebSocketCloseStatus.SERVICE_OVERLOAD);
+      }
+      return this;
+    }
+    /** Array is wrapped, not copied. The same array might be shared by many channels: */
+    WebSocketFrame frame = binary
+        ? new BinaryWebSocketFrame(Unpooled.wrappedBuffer(message))
+        : new TextWebSocketFrame(Unpooled.wrappedBuffer(message));
+    channel.writeAndFlush(frame).addListener(this);
+    return this;
+  }
+
+  @Override public void close(@Nonnull WebSocketCloseStatus closeStatus) {
+    if (open.compareAndSet(true, false)) {
+      channel.writeAndFlush(
+          new CloseWebSocketFrame(closeStatus.getCode(), closeStatus.getReason()))
+          .addListener(CLOSE);
+      fireClose(closeStatus);
+    }
+  }
+
+  /** Write completed. */
+  @Override public void operationComplete(ChannelFuture future) {
+    pending.decrementAndGet();
+    if (!future.isSuccess()) {
+      handleError(future.cause());
+    }
+  }
+
+  void fireConnect() {
+    submit(() -> {
+      if (onConnectCallback != null) {
+        onConnectCallback.onConnect(this);
+      }
+    });
+  }
+
+  /* **********************************************************************************************
+   * Inbound:
+   * **********************************************************************************************
+   */
+
+  @Override public void channelRead(ChannelHandlerContext ctx, Object msg) {
+    if (msg instanceof TextWebSocketFrame || msg instanceof BinaryWebSocketFrame) {
+      WebSocketFrame frame = (WebSocketFrame) msg;
+      if (onMessageCallback == null || !isOpen()) {
+        frame.release();
+        return;
+      }
+      boolean binary = frame instanceof BinaryWebSocketFrame;
+      /** Stop reading until message is processed: */
+      channel.config().setAutoRead(false);
+      submit(() -> {
+        try {
+          /** Frame buffer is exposed as it is, no copy: */
+          onMessageCallback.onMessage(this,
+              WebSocketMessage.create(netty, frame.content().nioBuffer(), binary));
+        } finally {
+          frame.release();
+        }
+      });
+    } else if (msg instanceof PingWebSocketFrame) {
+      ctx.writeAndFlush(new PongWebSocketFrame(((PingWebSocketFrame) msg).content()));
+    } else if (msg instanceof CloseWebSocketFrame) {
+      CloseWebSocketFrame frame = (CloseWebSocketFrame) msg;
+      try {
+        if (open.compareAndSet(true, false)) {
+          int code = frame.statusCode();
+          WebSocketCloseStatus closeStatus = code == -1
+              ? WebSocketCloseStatus.NORMAL
+              : WebSocketCloseStatus.valueOf(code)
+                  .orElseGet(() -> new WebSocketCloseStatus(code, frame.reasonText()));
+          // echo close frame
+          ctx.writeAndFlush(new CloseWebSocketFrame(closeStatus.getCode(),
+              closeStatus.getReason())).addListener(CLOSE);
+          fireClose(closeStatus);
+        } else {
+          // answer to our own close frame
+          channel.close();
+        }
+      } finally {
+        frame.release();
+      }
+    } else {
+      // pong or unexpected message
+      ReferenceCountUtil.release(msg);
+    }
+  }
+
+  @Override public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+    if (open.compareAndSet(true, false)) {
+      fireClose(WebSocketCloseStatus.HARSH_DISCONNECT);
+    }
+    super.channelInactive(ctx);
+  }
+
+  @Override public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+    if (cause instanceof TooLongFrameException) {
+      close(WebSocketCloseStatus.TOO_BIG_TO_PROCESS);
+    } else {
+      handleError(cause);
+    }
+  }
+
+  private void handleError(Throwable cause) {
+    if (Server.connectionLost(cause)) {
+      netty.getRouter().getLog()
+          .debug("websocket connection lost {}", netty.pathString(), cause);
+      if (open.compareAndSet(true, false)) {
+        channel.close();
+        fireClose(WebSocketCloseStatus.HARSH_DISCONNECT);
+      }
+    } else {
+      if (onErrorCallback == null) {
+        netty.getRouter().getLog()
+            .error("websocket resulted in exception {}", netty.pathString(), cause);
+      } else {
+        onErrorCallback.onError(this, cause);
+      }
+      if (SneakyThrows.isFatal(cause)) {
+        close(WebSocketCloseStatus.SERVER_ERROR);
+      }
+    }
+  }
+
+  private void fireClose(WebSocketCloseStatus closeStatus) {
+    submit(() -> {
+      if (onCloseCallback != null) {
+        onCloseCallback.onClose(this, closeStatus);
+      }
+    });
+  }
+
+  private void submit(Runnable task) {
+    tasks.offer(task);
+    if (taskCount.getAndIncrement() == 0) {
+      worker.execute(this::drain);
+    }
+  }
+
+  private void drain() {
+    do {
+      Runnable task = tasks.poll();
+      try {
+        task.run();
+      } catch (Throwable x) {
+        handleError(x);
+      }
+    } while (taskCount.decrementAndGet() > 0);
+    /** Queue is empty, resume reading from event loop: */
+    channel.eventLoop().execute(() -> {
+      if (taskCount.get() == 0 && channel.isActive()) {
+        channel.config().setAutoRead(true);
+      }
+    });
+  }
+}
@@ -106,9 +106,10 @@ public class Netty extends Server.Base {
               applications.get(0),
               factory,
               options.isDefaultHeaders(),
-              options.isGzip(),
+              options.isGzip() ? options.getCompression() : null,
               options.getBufferSize(),
-              options.getMaxRequestSize()))
+              options.getMaxRequestSize(),
+              options.getBodyMemory()))
           .childOption(ChannelOption.SO_REUSEADDR, true)
           .childOption(ChannelOption.TCP_NODELAY, true);
 
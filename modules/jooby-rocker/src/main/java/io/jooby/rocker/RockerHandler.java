@@ -12,6 +12,8 @@ import io.jooby.MediaType;
 import io.jooby.Route;
 
 import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 class RockerHandler implements Route.Handler {
   private final Route.Handler next;
@@ -25,8 +27,13 @@ class RockerHandler implements Route.Handler {
       RockerModel template = (RockerModel) next.apply(ctx);
       ArrayOfByteArraysOutput buff = template.render(ArrayOfByteArraysOutput.FACTORY);
       ctx.setResponseType(MediaType.html);
-      ctx.setResponseLength(buff.getByteLength());
-      ctx.send(buff.asReadableByteChannel());
+      /** Static template parts are shared arrays, send them as they are (no copy): */
+      List<byte[]> arrays = buff.getArrays();
+      ByteBuffer[] buffers = new ByteBuffer[arrays.size()];
+      for (int i = 0; i < buffers.length; i++) {
+        buffers[i] = ByteBuffer.wrap(arrays.get(i));
+      }
+      ctx.send(buffers);
       return ctx;
     } catch (Throwable x) {
       ctx.sendError(x);
@@ -26,6 +26,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
 
@@ -60,6 +61,8 @@ public class MockContext implements DefaultContext {
 
   private MockResponse response = new MockResponse();
 
+  private WebSocket.Initializer webSocket;
+
   private Map<String, String> cookies = new LinkedHashMap<>();
 
   private FlashMap flashMap = FlashMap.create(this, new Cookie("jooby.sid").setHttpOnly(true));
@@ -68,6 +71,10 @@ public class MockContext implements DefaultContext {
 
   private Router router;
 
+  private List<Runnable> completion = new ArrayList<>();
+
+  private boolean completed;
+
 
   @Nonnull @Override public String getMethod() {
     return method;
@@ -285,6 +292,10 @@ public class MockContext implements DefaultContext {
     return false;
   }
 
+  @Nonnull @Override public Executor getIoExecutor() {
+    return Runnable::run;
+  }
+
   @Nonnull @Override public MockContext dispatch(@Nonnull Runnable action) {
     action.run();
     return this;
@@ -301,6 +312,22 @@ public class MockContext implements DefaultContext {
     return this;
   }
 
+  @Nonnull @Override public MockContext upgrade(@Nonnull WebSocket.Initializer handler) {
+    this.webSocket = handler;
+    response.setStatusCode(StatusCode.SWITCHING_PROTOCOLS);
+    return this;
+  }
+
+  /**
+   * WebSocket initializer of an upgrade request, see {@link #upgrade(WebSocket.Initializer)}.
+   * Tests call it with their own {@link WebSocketConfigurer} to check the websocket callbacks.
+   *
+   * @return WebSocket initializer or <code>null</code> when the request wasn't upgraded.
+   */
+  public @Nullable WebSocket.Initializer getWebSocket() {
+    return webSocket;
+  }
+
   @Nonnull @Override public Map<String, Object> getAttributes() {
     return attributes;
   }
@@ -484,6 +511,35 @@ public class MockContext implements DefaultContext {
     return response.getContentType();
   }
 
+  @Nonnull @Override public MockContext onComplete(@Nonnull Runnable action) {
+    if (completed) {
+      action.run();
+    } else {
+      completion.add(action);
+    }
+    return this;
+  }
+
+  /**
+   * Run completion actions, see {@link #onComplete(Runnable)}. {@link MockRouter} calls it once
+   * the route handler returns.
+   *
+   * @return This context.
+   */
+  public @Nonnull MockContext complete() {
+    if (!completed) {
+      completed = true;
+      completion.forEach(Runnable::run);
+      completion.clear();
+    }
+    return this;
+  }
+
+  @Nonnull @Override public MockContext abort() {
+    response.setAborted(true);
+    return this;
+  }
+
   @Override public boolean isResponseStarted() {
     return response.value() != null;
   }
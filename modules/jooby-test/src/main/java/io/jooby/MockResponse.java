@@ -50,6 +50,8 @@ public class MockResponse implements MockValue {
 
   private long length = -1;
 
+  private boolean aborted;
+
   /**
    * Response headers.
    *
@@ -161,6 +163,26 @@ public class MockResponse implements MockValue {
     return this;
   }
 
+  /**
+   * True when the response was aborted, see {@link Context#abort()}.
+   *
+   * @return True when the response was aborted.
+   */
+  public boolean isAborted() {
+    return aborted;
+  }
+
+  /**
+   * Mark the response as aborted.
+   *
+   * @param aborted True for aborted response.
+   * @return This response.
+   */
+  public @Nonnull MockResponse setAborted(boolean aborted) {
+    this.aborted = aborted;
+    return this;
+  }
+
   @Nullable @Override public Object value() {
     return result;
   }
@@ -366,6 +366,10 @@ public class MockRouter {
       return new SingleMockValue(value);
     } catch (Exception x) {
       throw SneakyThrows.propagate(x);
+    } finally {
+      if (ctx instanceof MockContext) {
+        ((MockContext) ctx).complete();
+      }
     }
   }
 
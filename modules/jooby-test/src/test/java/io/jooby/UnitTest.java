@@ -5,7 +5,9 @@ import org.junit.jupiter.api.Test;
 
 import static io.jooby.StatusCode.NO_CONTENT;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class UnitTest {
@@ -56,6 +58,27 @@ public class UnitTest {
     });
   }
 
+  @Test
+  public void webSocket() {
+    Jooby app = new Jooby();
+
+    app.ws("/ws/{id}", (ctx, configurer) -> {
+      String id = ctx.path("id").value();
+      configurer.onConnect(ws -> ws.send("connected: " + id));
+    });
+
+    MockRouter router = new MockRouter(app);
+
+    MockContext ctx = new MockContext().setRequestHeader("Upgrade", "websocket");
+    router.get("/ws/1", ctx, result -> {
+      assertEquals(StatusCode.SWITCHING_PROTOCOLS, result.getStatusCode());
+    });
+
+    WebSocketConfigurer configurer = mock(WebSocketConfigurer.class);
+    ctx.getWebSocket().init(ctx, configurer);
+    verify(configurer).onConnect(any());
+  }
+
   @Test
   public void pipeline() {
     Jooby app = new Jooby();
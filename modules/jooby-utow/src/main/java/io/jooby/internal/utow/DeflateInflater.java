@@ -0,0 +1,79 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.utow;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * HTTP deflate is zlib wrapped, but some clients send raw deflate data. Undertow creates the
+ * inflater before reading the body, so this one picks the format from the first bytes of input,
+ * like Jetty and Netty do.
+ */
+class DeflateInflater extends Inflater {
+
+  private Inflater inflater;
+
+  DeflateInflater() {
+    /** Never used, all the calls go to the real inflater: */
+    super.end();
+  }
+
+  @Override public void setInput(byte[] input, int off, int len) {
+    if (inflater == null) {
+      inflater = new Inflater(!zlib(input, off, len));
+    }
+    inflater.setInput(input, off, len);
+  }
+
+  @Override public void setInput(byte[] input) {
+    setInput(input, 0, input.length);
+  }
+
+  @Override public int inflate(byte[] output, int off, int len) throws DataFormatException {
+    return inflater == null ? 0 : inflater.inflate(output, off, len);
+  }
+
+  @Override public int inflate(byte[] output) throws DataFormatException {
+    return inflate(output, 0, output.length);
+  }
+
+  @Override public boolean needsInput() {
+    return inflater == null || inflater.needsInput();
+  }
+
+  @Override public boolean needsDictionary() {
+    return inflater != null && inflater.needsDictionary();
+  }
+
+  @Override public boolean finished() {
+    return inflater != null && inflater.finished();
+  }
+
+  @Override public int getRemaining() {
+    return inflater == null ? 0 : inflater.getRemaining();
+  }
+
+  @Override public void reset() {
+    end();
+  }
+
+  @Override public void end() {
+    if (inflater != null) {
+      inflater.end();
+      inflater = null;
+    }
+  }
+
+  private static boolean zlib(byte[] input, int off, int len) {
+    if (len < 2) {
+      return true;
+    }
+    int cmf = input[off] & 0xFF;
+    int flg = input[off + 1] & 0xFF;
+    return (cmf & 0x0F) == 8 && (cmf << 8 | flg) % 31 == 0;
+  }
+}
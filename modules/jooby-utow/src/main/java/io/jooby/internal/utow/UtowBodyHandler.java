@@ -6,6 +6,7 @@
 package io.jooby.internal.utow;
 
 import io.jooby.Body;
+import io.jooby.MemoryBudget;
 import io.jooby.StatusCodeException;
 import io.jooby.Router;
 import io.jooby.StatusCode;
@@ -28,7 +29,7 @@ public class UtowBodyHandler
     implements Receiver.FullBytesCallback, Receiver.PartialBytesCallback,
     ExchangeCompletionListener {
 
-  private final int bufferSize;
+  private final MemoryBudget bodyMemory;
   private final long maxRequestSize;
   private Router.Match route;
   private UtowContext context;
@@ -37,15 +38,31 @@ public class UtowBodyHandler
   private Path file;
   private FileChannel channel;
   private long position;
+  private long reserved;
+  private long spilled;
 
-  public UtowBodyHandler(Router.Match route, UtowContext context, int bufferSize,
+  public UtowBodyHandler(Router.Match route, UtowContext context, MemoryBudget bodyMemory,
       long maxRequestSize) {
     this.route = route;
     this.context = context;
-    this.bufferSize = bufferSize;
+    this.bodyMemory = bodyMemory;
     this.maxRequestSize = maxRequestSize;
   }
 
+  /**
+   * Reserve memory for body bytes.
+   *
+   * @param bytes Number of bytes.
+   * @return True when there is budget for keeping the bytes in memory.
+   */
+  public boolean reserve(long bytes) {
+    if (bodyMemory.reserve(bytes)) {
+      reserved += bytes;
+      return true;
+    }
+    return false;
+  }
+
   @Override public void handle(HttpServerExchange exchange, byte[] bytes) {
     context.body = Body.of(bytes);
     route.execute(context);
@@ -53,7 +70,12 @@ public class UtowBodyHandler
 
   @Override public void exchangeEvent(HttpServerExchange exchange, NextListener next) {
     try {
-      Files.deleteIfExists(file);
+      bodyMemory.release(reserved).releaseSpilled(spilled);
+      reserved = 0;
+      spilled = 0;
+      if (file != null) {
+        Files.deleteIfExists(file);
+      }
     } catch (IOException x) {
       // ignore
     } finally {
@@ -62,11 +84,16 @@ public class UtowBodyHandler
   }
 
   @Override public void handle(HttpServerExchange exchange, byte[] chunk, boolean last) {
+    if (chunkSize > maxRequestSize) {
+      // rejected, ignore remaining chunks
+      return;
+    }
     try {
       if (chunk.length > 0) {
         chunkSize += chunk.length;
         if (chunkSize > maxRequestSize) {
           try {
+            chunks = null;
             context.sendError(new StatusCodeException(StatusCode.REQUEST_ENTITY_TOO_LARGE));
           } finally {
             closeChannel();
@@ -74,7 +101,7 @@ public class UtowBodyHandler
           }
           return;
         }
-        if (chunkSize <= bufferSize) {
+        if (file == null && reserve(chunk.length)) {
           if (chunks == null) {
             chunks = new ArrayList<>();
           }
@@ -94,14 +121,19 @@ public class UtowBodyHandler
               position += bytes.length;
             }
             source.clear();
+            // buffered bytes are now on disk
+            bodyMemory.release(reserved).spill(reserved);
+            spilled += reserved;
+            reserved = 0;
           }
           channel.write(ByteBuffer.wrap(chunk), position);
           position += chunk.length;
+          bodyMemory.spill(chunk.length);
+          spilled += chunk.length;
         }
       }
       if (last) {
         if (channel != null) {
-          exchange.addExchangeCompleteListener(this);
           forceAndClose();
           channel = null;
           context.body = Body.of(file);
@@ -143,6 +175,9 @@ public class UtowBodyHandler
 
   private byte[] bytes(int size) {
     byte[] bytes = new byte[size];
+    if (chunks == null) {
+      return bytes;
+    }
     int offset = 0;
     for (Object c : chunks) {
       byte[] chunk = (byte[]) c;
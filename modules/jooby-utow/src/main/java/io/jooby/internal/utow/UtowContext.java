@@ -22,8 +22,11 @@ import io.jooby.SessionStore;
 import io.jooby.SneakyThrows;
 import io.jooby.StatusCode;
 import io.jooby.Value;
+import io.jooby.WebSocket;
+import io.jooby.internal.CompletionListeners;
 import io.undertow.io.IoCallback;
 import io.undertow.io.Sender;
+import io.undertow.server.Connectors;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.server.handlers.form.FormData;
 import io.undertow.util.HeaderMap;
@@ -31,7 +34,10 @@ import io.undertow.util.HeaderValues;
 import io.undertow.util.Headers;
 import io.undertow.util.HttpString;
 import io.undertow.util.SameThreadExecutor;
+import io.undertow.websockets.WebSocketConnectionCallback;
+import io.undertow.websockets.WebSocketProtocolHandshakeHandler;
 import org.slf4j.Logger;
+import org.xnio.IoUtils;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -75,6 +81,9 @@ public class UtowContext implements DefaultContext, IoCallback {
   private MediaType responseType;
   private Map<String, String> cookies;
   private HashMap<String, String> responseCookies;
+  private final CompletionListeners listeners = new CompletionListeners();
+  /** Expect: 100-continue request waiting for route checks, client doesn't send the body yet. */
+  boolean expectContinue;
 
   public UtowContext(HttpServerExchange exchange, Router router) {
     this.exchange = exchange;
@@ -139,6 +148,10 @@ public class UtowContext implements DefaultContext, IoCallback {
     return exchange.isInIoThread();
   }
 
+  @Nonnull @Override public Executor getIoExecutor() {
+    return exchange.getIoThread();
+  }
+
   @Nonnull @Override public String getRemoteAddress() {
     return exchange.getSourceAddress().getHostName();
   }
@@ -204,6 +217,35 @@ public class UtowContext implements DefaultContext, IoCallback {
     return this;
   }
 
+  @Nonnull @Override public Context onComplete(@Nonnull Runnable action) {
+    if (listeners.add(this, action)) {
+      listen();
+    }
+    return this;
+  }
+
+  @Nonnull @Override public Context onCancel(@Nonnull Runnable action) {
+    if (listeners.onCancel(this, action)) {
+      listen();
+    }
+    return this;
+  }
+
+  private void listen() {
+    try {
+      exchange.addExchangeCompleteListener((ex, next) -> {
+        try {
+          listeners.complete(this);
+        } finally {
+          next.proceed();
+        }
+      });
+    } catch (IllegalStateException x) {
+      /** Exchange is complete already: */
+      listeners.complete(this);
+    }
+  }
+
   @Nonnull @Override public Context detach(@Nonnull Route.Handler next) {
     exchange.dispatch(SameThreadExecutor.INSTANCE, () -> {
       try {
@@ -215,6 +257,18 @@ public class UtowContext implements DefaultContext, IoCallback {
     return this;
   }
 
+  @Nonnull @Override public Context upgrade(@Nonnull WebSocket.Initializer handler) {
+    try {
+      UtowWebSocket ws = new UtowWebSocket(this);
+      handler.init(this, ws);
+      WebSocketConnectionCallback callback = (exchange, channel) -> ws.fireConnect(channel);
+      new WebSocketProtocolHandshakeHandler(callback).handleRequest(exchange);
+      return this;
+    } catch (Exception x) {
+      throw SneakyThrows.propagate(x);
+    }
+  }
+
   @Nonnull @Override public StatusCode getResponseCode() {
     return StatusCode.valueOf(exchange.getStatusCode());
   }
@@ -318,6 +372,16 @@ public class UtowContext implements DefaultContext, IoCallback {
     return this;
   }
 
+  @Nonnull @Override public Context send(@Nonnull ByteBuffer[] data) {
+    long length = 0;
+    for (ByteBuffer buffer : data) {
+      length += buffer.remaining();
+    }
+    exchange.setResponseContentLength(length);
+    exchange.getResponseSender().send(data, this);
+    return this;
+  }
+
   @Nonnull @Override public Context send(StatusCode statusCode) {
     exchange.setResponseContentLength(0);
     exchange.setStatusCode(statusCode.value());
@@ -358,6 +422,16 @@ public class UtowContext implements DefaultContext, IoCallback {
     }
   }
 
+  @Nonnull @Override public Context abort() {
+    if (!exchange.isComplete()) {
+      /** Close without finishing the response, so client sees a broken response: */
+      IoUtils.safeClose(exchange.getConnection());
+      listeners.abort(this);
+      destroy(null);
+    }
+    return this;
+  }
+
   @Override public boolean isResponseStarted() {
     return exchange.isResponseStarted();
   }
@@ -395,8 +469,13 @@ public class UtowContext implements DefaultContext, IoCallback {
           log.error("exception found while sending response {} {}", getMethod(), pathString(),
               cause);
         }
+        listeners.abort(this);
       }
     } finally {
+      if (expectContinue) {
+        /** Rejected Expect: 100-continue request, don't wait for a body client isn't sending: */
+        Connectors.terminateRequest(exchange);
+      }
       this.exchange.endExchange();
     }
   }
@@ -6,31 +6,54 @@
 package io.jooby.internal.utow;
 
 import io.jooby.Context;
+import io.jooby.MemoryBudget;
 import io.jooby.StatusCodeException;
 import io.jooby.Router;
 import io.jooby.StatusCode;
+import io.undertow.conduits.GzipStreamSourceConduit;
+import io.undertow.conduits.InflatingStreamSourceConduit;
+import io.undertow.io.IoCallback;
 import io.undertow.io.Receiver;
+import io.undertow.io.Sender;
+import io.undertow.server.ConduitWrapper;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.server.handlers.form.FormDataParser;
 import io.undertow.server.handlers.form.FormEncodedDataDefinition;
 import io.undertow.server.handlers.form.FormParserFactory;
 import io.undertow.server.handlers.form.MultiPartParserDefinition;
+import io.undertow.server.protocol.http.HttpContinue;
 import io.undertow.util.HeaderMap;
 import io.undertow.util.Headers;
+import io.undertow.util.NewInstanceObjectPool;
+import io.undertow.util.ObjectPool;
+import io.undertow.util.SameThreadExecutor;
+import org.xnio.conduits.StreamSourceConduit;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.zip.Inflater;
 
 public class UtowHandler implements HttpHandler {
+  /** HTTP deflate is zlib wrapped (or raw, from some clients), Undertow expects raw data. */
+  private static final ObjectPool<Inflater> DEFLATER = new NewInstanceObjectPool<>(
+      DeflateInflater::new, Inflater::end);
+
+  private static final ConduitWrapper<StreamSourceConduit> DEFLATE = (factory, exchange) ->
+      new InflatingStreamSourceConduit(exchange, factory.create(), DEFLATER);
+
   protected final Router router;
   private final long maxRequestSize;
   private final int bufferSize;
   private final boolean defaultHeaders;
+  private final MemoryBudget bodyMemory;
 
-  public UtowHandler(Router router, int bufferSize, long maxRequestSize, boolean defaultHeaders) {
+  public UtowHandler(Router router, int bufferSize, long maxRequestSize, MemoryBudget bodyMemory,
+      boolean defaultHeaders) {
     this.router = router;
     this.maxRequestSize = maxRequestSize;
     this.bufferSize = bufferSize;
+    this.bodyMemory = bodyMemory;
     this.defaultHeaders = defaultHeaders;
   }
 
@@ -47,7 +70,12 @@ public class UtowHandler implements HttpHandler {
     HeaderMap headers = exchange.getRequestHeaders();
     long len = parseLen(headers.getFirst(Headers.CONTENT_LENGTH));
     String chunked = headers.getFirst(Headers.TRANSFER_ENCODING);
-    if (len > 0 || chunked != null) {
+    boolean inflate = inflate(exchange, headers);
+    if (inflate) {
+      /** Inflated size is unknown, max request size is checked on inflated bytes: */
+      len = -1;
+    }
+    if (len > 0 || chunked != null || inflate) {
       if (len > maxRequestSize) {
         context.sendError(new StatusCodeException(StatusCode.REQUEST_ENTITY_TOO_LARGE));
         return;
@@ -57,35 +85,92 @@ public class UtowHandler implements HttpHandler {
         route.execute(context);
         return;
       }
-      /** Eager body parsing: */
-      FormDataParser parser = FormParserFactory.builder(false)
-          .addParser(new MultiPartParserDefinition(router.getTmpdir())
-              .setDefaultEncoding(StandardCharsets.UTF_8.name()))
-          .addParser(new FormEncodedDataDefinition()
-              .setDefaultEncoding(StandardCharsets.UTF_8.name()))
-          .build()
-          .createParser(exchange);
-      if (parser == null) {
-        // Read raw body
-        Receiver receiver = exchange.getRequestReceiver();
-        UtowBodyHandler reader = new UtowBodyHandler(route, context, bufferSize, maxRequestSize);
-        if (len > 0 && len <= bufferSize) {
-          receiver.receiveFullBytes(reader);
-        } else {
-          receiver.receivePartialBytes(reader);
-        }
+      if (HttpContinue.requiresContinueResponse(exchange)) {
+        expectContinue(exchange, context, route, len);
       } else {
-        try {
-          parser.parse(execute(route, context));
-        } catch (Exception x) {
-          context.sendError(x, StatusCode.BAD_REQUEST);
-        }
+        handleBody(exchange, context, route, len);
       }
     } else {
       route.execute(context);
     }
   }
 
+  private void expectContinue(HttpServerExchange exchange, UtowContext context,
+      Router.Match route, long len) {
+    // Close connection on rejection, client might be sending the body anyway
+    boolean persistent = exchange.isPersistent();
+    exchange.setPersistent(false);
+    context.expectContinue = true;
+    route.expectContinue(context, maxRequestSize, () -> {
+      context.expectContinue = false;
+      exchange.setPersistent(persistent);
+      exchange.dispatch(SameThreadExecutor.INSTANCE, () ->
+          HttpContinue.sendContinueResponse(exchange, new IoCallback() {
+            @Override public void onComplete(HttpServerExchange exchange, Sender sender) {
+              handleBody(exchange, context, route, len);
+            }
+
+            @Override public void onException(HttpServerExchange exchange, Sender sender,
+                IOException x) {
+              context.destroy(x);
+            }
+          }));
+    });
+  }
+
+  private void handleBody(HttpServerExchange exchange, UtowContext context, Router.Match route,
+      long len) {
+    /** Eager body parsing: */
+    FormDataParser parser = FormParserFactory.builder(false)
+        .addParser(new MultiPartParserDefinition(router.getTmpdir())
+            .setDefaultEncoding(StandardCharsets.UTF_8.name()))
+        .addParser(new FormEncodedDataDefinition()
+            .setDefaultEncoding(StandardCharsets.UTF_8.name()))
+        .build()
+        .createParser(exchange);
+    if (parser == null) {
+      // Read raw body
+      Receiver receiver = exchange.getRequestReceiver();
+      UtowBodyHandler reader = new UtowBodyHandler(route, context, bodyMemory, maxRequestSize);
+      exchange.addExchangeCompleteListener(reader);
+      if (len > 0 && len <= bufferSize && reader.reserve(len)) {
+        receiver.receiveFullBytes(reader);
+      } else {
+        receiver.receivePartialBytes(reader);
+      }
+    } else {
+      try {
+        parser.parse(execute(route, context));
+      } catch (Exception x) {
+        context.sendError(x, StatusCode.BAD_REQUEST);
+      }
+    }
+  }
+
+  private static boolean inflate(HttpServerExchange exchange, HeaderMap headers) {
+    String encoding = headers.getFirst(Headers.CONTENT_ENCODING);
+    if (encoding == null) {
+      return false;
+    }
+    ConduitWrapper<StreamSourceConduit> inflater;
+    switch (encoding.trim().toLowerCase()) {
+      case "gzip":
+      case "x-gzip":
+        inflater = GzipStreamSourceConduit.WRAPPER;
+        break;
+      case "deflate":
+      case "x-deflate":
+        inflater = DEFLATE;
+        break;
+      default:
+        return false;
+    }
+    exchange.addRequestWrapper(inflater);
+    headers.remove(Headers.CONTENT_ENCODING);
+    headers.remove(Headers.CONTENT_LENGTH);
+    return true;
+  }
+
   private static long parseLen(String value) {
     try {
       return value == null ? -1 : Long.parseLong(value);
@@ -0,0 +1,280 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.utow;
+
+import io.jooby.Context;
+import io.jooby.Server;
+import io.jooby.SneakyThrows;
+import io.jooby.WebSocket;
+import io.jooby.WebSocketCloseStatus;
+import io.jooby.WebSocketConfigurer;
+import io.jooby.WebSocketMessage;
+import io.undertow.websockets.core.AbstractReceiveListener;
+import io.undertow.websockets.core.BufferedBinaryMessage;
+import io.undertow.websockets.core.CloseMessage;
+import io.undertow.websockets.core.StreamSourceFrameChannel;
+import io.undertow.websockets.core.WebSocketCallback;
+import io.undertow.websockets.core.WebSocketChannel;
+import io.undertow.websockets.core.WebSockets;
+import org.xnio.IoUtils;
+import org.xnio.Pooled;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class UtowWebSocket extends AbstractReceiveListener
+    implements WebSocketConfigurer, WebSocket, WebSocketCallback<Void> {
+
+  private final UtowContext ctx;
+  private final Executor worker;
+  private WebSocketChannel channel;
+  private WebSocket.OnConnect onConnectCallback;
+  private WebSocket.OnMessage onMessageCallback;
+  private WebSocket.OnClose onCloseCallback;
+  private WebSocket.OnError onErrorCallback;
+  private int maxPending = MAX_PENDING;
+  private Overflow overflow = Overflow.DISCONNECT;
+  private final AtomicBoolean open = new AtomicBoolean(false);
+  private final AtomicInteger pending = new AtomicInteger();
+  /** Callbacks run one at a time, in order: */
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger taskCount = new AtomicInteger();
+
+  public UtowWebSocket(UtowContext ctx) {
+    this.ctx = ctx;
+    this.worker = ctx.getRouter().getWorker();
+  }
+
+  /* **********************************************************************************************
+   * Configurer:
+   * **********************************************************************************************
+   */
+
+  @Nonnull @Override public WebSocketConfigurer onConnect(@Nonnull OnConnect callback) {
+    this.onConnectCallback = callback;
+    return this;
+  }
+
+  @Nonnull @Override public WebSocketConfigurer onMessage(@Nonnull OnMessage callback) {
+    this.onMessageCallback = callback;
+    return this;
+  }
+
+  @Nonnull @Override public WebSocketConfigurer onError(@Nonnull OnError callback) {
+    this.onErrorCallback = callback;
+    return this;
+  }
+
+  @Nonnull @Override public WebSocketConfigurer onClose(@Nonnull OnClose callback) {
+    this.onCloseCallback = callback;
+    return this;
+  }
+
+  @Nonnull @Override public WebSocketConfigurer setMaxPending(int maxPending) {
+    this.maxPending = maxPending;
+    return this;
+  }
+
+  @Nonnull @Override public WebSocketConfigurer setOverflow(@Nonnull Overflow overflow) {
+    this.overflow = overflow;
+    return this;
+  }
+
+  /* **********************************************************************************************
+   * WebSocket:
+   * **********************************************************************************************
+   */
+
+  @Nonnull @Override public Context getContext() {
+    return ctx;
+  }
+
+  @Override public boolean isOpen() {
+    return open.get();
+  }
+
+  @Nonnull @Override public WebSocket send(@Nonnull byte[] message, boolean binary) {
+    if (!isOpen()) {
+      return this;
+    }
+    if (pending.incrementAndGet() > maxPending) {
+      pending.decrementAndGet();
+      if (overflow == Overflow.DISCONNECT) {
+        close(WebSocketCloseStatus.SERVICE_OVERLOAD);
+      }
+      return this;
+    }
+    /** Array is wrapped, not copied. The same array might be shared by many channels: */
+    ByteBuffer buffer = ByteBuffer.wrap(message);
+    if (binary) {
+      WebSockets.sendBinary(buffer, channel, this);
+    } else {
+      WebSockets.sendText(buffer, channel, this);
+    }
+    return this;
+  }
+
+  @Override public void close(@Nonnull WebSocketCloseStatus closeStatus) {
+    if (open.compareAndSet(true, false)) {
+      String reason = closeStatus.getReason();
+      WebSockets.sendClose(closeStatus.getCode(), reason == null ? "" : reason, channel, null);
+      fireClose(closeStatus);
+    }
+  }
+
+  /** Write completed. */
+  @Override public void complete(WebSocketChannel channel, Void context) {
+    pending.decrementAndGet();
+  }
+
+  /** Write failed. */
+  @Override public void onError(WebSocketChannel channel, Void context, Throwable cause) {
+    pending.decrementAndGet();
+    handleError(cause);
+  }
+
+  void fireConnect(WebSocketChannel channel) {
+    this.channel = channel;
+    this.open.set(true);
+    channel.getCloseSetter().set(closed -> {
+      if (open.compareAndSet(true, false)) {
+        fireClose(WebSocketCloseStatus.HARSH_DISCONNECT);
+      }
+    });
+    channel.getReceiveSetter().set(this);
+    channel.resumeReceives();
+    submit(() -> {
+      if (onConnectCallback != null) {
+        onConnectCallback.onConnect(this);
+      }
+    });
+  }
+
+  /* **********************************************************************************************
+   * Inbound:
+   * **********************************************************************************************
+   */
+
+  @Override protected void onText(WebSocketChannel channel, StreamSourceFrameChannel frame) {
+    /** Keep text messages as UTF-8 bytes, they are decoded on demand: */
+    readMessage(frame, false);
+  }
+
+  @Override protected void onBinary(WebSocketChannel channel, StreamSourceFrameChannel frame) {
+    readMessage(frame, true);
+  }
+
+  @Override protected void onCloseMessage(CloseMessage message, WebSocketChannel channel) {
+    if (open.compareAndSet(true, false)) {
+      int code = message.getCode();
+      fireClose(WebSocketCloseStatus.valueOf(code)
+          .orElseGet(() -> new WebSocketCloseStatus(code, message.getReason())));
+    }
+  }
+
+  @Override protected void onError(WebSocketChannel channel, Throwable cause) {
+    handleError(cause);
+  }
+
+  @Override protected long getMaxTextBufferSize() {
+    return MAX_MESSAGE_SIZE;
+  }
+
+  @Override protected long getMaxBinaryBufferSize() {
+    return MAX_MESSAGE_SIZE;
+  }
+
+  private void readMessage(StreamSourceFrameChannel frame, boolean binary) {
+    BufferedBinaryMessage message = new BufferedBinaryMessage(MAX_MESSAGE_SIZE, true);
+    message.read(frame, new WebSocketCallback<BufferedBinaryMessage>() {
+      @Override public void complete(WebSocketChannel channel, BufferedBinaryMessage message) {
+        onFullMessage(message.getData(), binary);
+      }
+
+      @Override public void onError(WebSocketChannel channel, BufferedBinaryMessage message,
+          Throwable cause) {
+        IoUtils.safeClose(channel);
+      }
+    });
+  }
+
+  private void onFullMessage(Pooled<ByteBuffer[]> data, boolean binary) {
+    if (onMessageCallback == null || !isOpen()) {
+      data.free();
+      return;
+    }
+    /** Stop reading until message is processed: */
+    channel.suspendReceives();
+    submit(() -> {
+      try {
+        ByteBuffer[] buffers = data.getResource();
+        /** Single frame buffer is exposed as it is, no copy: */
+        ByteBuffer payload = buffers.length == 1 ? buffers[0] : WebSockets.mergeBuffers(buffers);
+        onMessageCallback.onMessage(this, WebSocketMessage.create(ctx, payload, binary));
+      } finally {
+        data.free();
+      }
+    });
+  }
+
+  private void handleError(Throwable cause) {
+    if (Server.connectionLost(cause) || cause instanceof IOException && !channel.isOpen()) {
+      ctx.getRouter().getLog().debug("websocket connection lost {}", ctx.pathString(), cause);
+      if (open.compareAndSet(true, false)) {
+        IoUtils.safeClose(channel);
+        fireClose(WebSocketCloseStatus.HARSH_DISCONNECT);
+      }
+    } else {
+      if (onErrorCallback == null) {
+        ctx.getRouter().getLog()
+            .error("websocket resulted in exception {}", ctx.pathString(), cause);
+      } else {
+        onErrorCallback.onError(this, cause);
+      }
+      if (SneakyThrows.isFatal(cause)) {
+        close(WebSocketCloseStatus.SERVER_ERROR);
+      }
+    }
+  }
+
+  private void fireClose(WebSocketCloseStatus closeStatus) {
+    submit(() -> {
+      if (onCloseCallback != null) {
+        onCloseCallback.onClose(this, closeStatus);
+      }
+    });
+  }
+
+  private void submit(Runnable task) {
+    tasks.offer(task);
+    if (taskCount.getAndIncrement() == 0) {
+      worker.execute(this::drain);
+    }
+  }
+
+  private void drain() {
+    do {
+      Runnable task = tasks.poll();
+      try {
+        task.run();
+      } catch (Throwable x) {
+        handleError(x);
+      }
+    } while (taskCount.decrementAndGet() > 0);
+    /** Queue is empty, resume reading from io thread: */
+    channel.getIoThread().execute(() -> {
+      if (taskCount.get() == 0 && channel.isOpen()) {
+        channel.resumeReceives();
+      }
+    });
+  }
+}
@@ -5,6 +5,7 @@
  */
 package io.jooby.utow;
 
+import io.jooby.CompressionOptions;
 import io.jooby.Jooby;
 import io.jooby.Server;
 import io.jooby.ServerOptions;
@@ -13,7 +14,15 @@ import io.jooby.internal.utow.UtowHandler;
 import io.undertow.Undertow;
 import io.undertow.UndertowOptions;
 import io.undertow.server.HttpHandler;
+import io.undertow.predicate.Predicate;
+import io.undertow.server.handlers.encoding.ContentEncodingProvider;
+import io.undertow.server.handlers.encoding.ContentEncodingRepository;
+import io.undertow.server.handlers.encoding.DeflateEncodingProvider;
 import io.undertow.server.handlers.encoding.EncodingHandler;
+import io.undertow.server.handlers.encoding.GzipEncodingProvider;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.Headers;
+import io.undertow.util.NewInstanceObjectPool;
 import org.xnio.Options;
 
 import javax.annotation.Nonnull;
@@ -22,6 +31,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.Deflater;
 
 /**
  * Web server implementation using <a href="http://undertow.io/">Undertow</a>.
@@ -59,10 +69,11 @@ public class Utow extends Server.Base {
 
       HttpHandler handler = new UtowHandler(applications.get(0), options.getBufferSize(),
           options.getMaxRequestSize(),
+          options.getBodyMemory(),
           options.isDefaultHeaders());
 
       if (options.isGzip()) {
-        handler = new EncodingHandler.Builder().build(null).wrap(handler);
+        handler = new EncodingHandler(encodings(options.getCompression())).setNext(handler);
       }
 
       Undertow.Builder builder = Undertow.builder()
@@ -115,4 +126,28 @@ public class Utow extends Server.Base {
     return this;
   }
 
+
+  private static ContentEncodingRepository encodings(CompressionOptions compression) {
+    Predicate compressible = exchange -> {
+      HeaderMap headers = exchange.getResponseHeaders();
+      if (headers.contains(Headers.CONTENT_ENCODING) || headers.contains(Headers.CONTENT_RANGE)) {
+        return false;
+      }
+      return compression.isCompressible(headers.getFirst(Headers.CONTENT_TYPE),
+          exchange.getResponseContentLength());
+    };
+    ContentEncodingRepository repository = new ContentEncodingRepository();
+    List<String> algorithms = compression.getAlgorithms();
+    for (int i = 0; i < algorithms.size(); i++) {
+      String algorithm = algorithms.get(i);
+      ContentEncodingProvider provider = algorithm.equals(CompressionOptions.GZIP)
+          ? new GzipEncodingProvider(compression.getLevel())
+          // zlib wrapped, like the other servers and RFC 7230 deflate
+          : new DeflateEncodingProvider(new NewInstanceObjectPool<>(
+          () -> new Deflater(compression.getLevel()), Deflater::end));
+      // higher priority wins on same quality
+      repository.addEncodingHandler(algorithm, provider, algorithms.size() - i, compressible);
+    }
+    return repository;
+  }
 }
@@ -0,0 +1,36 @@
+package examples;
+
+import io.jooby.Context;
+import io.jooby.annotations.GET;
+
+import java.util.function.Supplier;
+
+public class BlockingRoutes {
+
+  private Supplier<String> repository = () -> "repository";
+
+  @GET("/mvc/nonblocking")
+  public boolean nonblocking(Context ctx) {
+    return ctx.isInIoThread();
+  }
+
+  @GET("/mvc/blocking")
+  public boolean blocking(Context ctx) throws InterruptedException {
+    load();
+    return ctx.isInIoThread();
+  }
+
+  @GET("/mvc/unknown")
+  public String unknown(Context ctx) {
+    return repository.get() + ":" + ctx.isInIoThread();
+  }
+
+  @GET("/mvc/object")
+  public Object object(Context ctx) {
+    return ctx.isInIoThread();
+  }
+
+  private void load() throws InterruptedException {
+    Thread.sleep(10);
+  }
+}
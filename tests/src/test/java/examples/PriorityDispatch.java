@@ -0,0 +1,19 @@
+package examples;
+
+import io.jooby.Context;
+import io.jooby.Priority;
+import io.jooby.annotations.Dispatch;
+import io.jooby.annotations.GET;
+
+public class PriorityDispatch {
+  @GET("/low")
+  @Dispatch(priority = Priority.LOW)
+  public String low(Context ctx) {
+    return ctx.getRoute().getPriority() + ":" + Thread.currentThread().getName();
+  }
+
+  @GET("/normal")
+  public String normal(Context ctx) {
+    return ctx.getRoute().getPriority() + ":" + Thread.currentThread().getName();
+  }
+}
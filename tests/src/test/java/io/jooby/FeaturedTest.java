@@ -2,6 +2,7 @@ package io.jooby;
 
 import io.jooby.freemarker.FreemarkerModule;
 import io.jooby.handlebars.HandlebarsModule;
+import io.jooby.internal.VirtualThreadExecutor;
 import io.jooby.jetty.Jetty;
 import io.jooby.json.JacksonModule;
 import io.jooby.netty.Netty;
@@ -17,6 +18,8 @@ import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.ByteString;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Flux;
@@ -24,11 +27,17 @@ import reactor.core.publisher.Mono;
 
 import javax.annotation.Nonnull;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.Writer;
 import java.lang.reflect.Type;
+import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -38,8 +47,12 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -47,18 +60,31 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Scanner;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
 
 import static io.jooby.MediaType.text;
 import static io.jooby.MediaType.xml;
 import static java.util.concurrent.CompletableFuture.supplyAsync;
 import static okhttp3.RequestBody.create;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static reactor.core.scheduler.Schedulers.elastic;
 
@@ -168,6 +194,502 @@ public class FeaturedTest {
     }, Jetty::new);
   }
 
+  @Test
+  public void virtualExecutionMode() {
+    new JoobyRunner(app -> {
+      app.decorator(next -> ctx -> {
+        RequestScope.bind("user", ctx.query("user").value("anonymous"));
+        try {
+          return next.apply(ctx);
+        } finally {
+          RequestScope.unbind("user");
+        }
+      });
+      app.get("/blocking", ctx -> RequestScope.get("user") + ":" + Thread.currentThread().getName()
+          .startsWith("virtual-"));
+      app.get("/future", ctx -> CompletableFuture.supplyAsync(() -> "non-blocking"));
+    }).mode(ExecutionMode.VIRTUAL).ready(client -> {
+      boolean virtual = VirtualThreadExecutor.get() != null;
+      client.get("/blocking?user=edgar", rsp -> {
+        assertEquals("edgar:" + virtual, rsp.body().string());
+      });
+      client.get("/future", rsp -> {
+        assertEquals("non-blocking", rsp.body().string());
+      });
+    });
+  }
+
+  @Test
+  public void ioExecutor() {
+    new JoobyRunner(app -> {
+      app.get("/io", ctx -> supplyAsync(() -> "io")
+          .thenApplyAsync(value -> value + ":" + ctx.isInIoThread(), ctx.getIoExecutor()));
+      app.post("/io", ctx -> supplyAsync(() -> ctx.body().value())
+          .thenApplyAsync(value -> value + ":" + ctx.isInIoThread(), ctx.getIoExecutor()));
+    }).ready((client, server) -> {
+      /** Jetty has no event loop: */
+      boolean eventLoop = !server.getClass().getSimpleName().equals("Jetty");
+      for (int i = 0; i < 10; i++) {
+        client.get("/io", rsp -> {
+          assertEquals("io:" + eventLoop, rsp.body().string());
+        });
+        client.post("/io", create(MediaType.get("text/plain"), "body"), rsp -> {
+          assertEquals("body:" + eventLoop, rsp.body().string());
+        });
+      }
+    });
+  }
+
+  @Test
+  public void batcher() {
+    new JoobyRunner(app -> {
+      Batcher<Integer, String> items = new Batcher<Integer, String>(app.getWorker(), ids -> {
+        Map<Integer, String> result = new HashMap<>();
+        ids.stream().filter(id -> id > 0).forEach(id -> result.put(id, "item" + id));
+        return result;
+      }).setMaxDelay(Duration.ofMillis(20));
+      app.get("/items/{id}", ctx -> items.load(ctx.path("id").intValue()));
+      app.get("/batches", ctx -> items.getRequests() + ":" + items.getBatches());
+    }).ready(client -> {
+      List<CompletableFuture<String>> responses = new ArrayList<>();
+      for (int i = 1; i <= 5; i++) {
+        String path = "/items/" + i;
+        responses.add(CompletableFuture.supplyAsync(() -> {
+          CompletableFuture<String> result = new CompletableFuture<>();
+          client.get(path, rsp -> result.complete(rsp.body().string()));
+          return result.join();
+        }));
+      }
+      for (int i = 1; i <= 5; i++) {
+        assertEquals("item" + i, responses.get(i - 1).get(5, TimeUnit.SECONDS));
+      }
+      client.get("/items/0", rsp -> {
+        assertEquals(404, rsp.code());
+      });
+      client.get("/batches", rsp -> {
+        String[] stats = rsp.body().string().split(":");
+        assertEquals("6", stats[0]);
+        assertTrue(Integer.parseInt(stats[1]) <= 6);
+      });
+    });
+  }
+
+  @Test
+  public void singleFlight() {
+    new JoobyRunner(app -> {
+      AtomicInteger calls = new AtomicInteger();
+      CompletableFuture<String> release = new CompletableFuture<>();
+      SingleFlight singleFlight = new SingleFlight().setQueryParams("lang");
+      app.get("/catalog", ctx -> {
+        calls.incrementAndGet();
+        return "catalog:" + ctx.query("lang").value() + ":" + release.join();
+      }).setSingleFlight(singleFlight);
+      app.get("/async", ctx -> {
+        calls.incrementAndGet();
+        return release.thenApply(value -> "async:" + value);
+      }).setSingleFlight(singleFlight);
+      app.get("/private", ctx -> {
+        calls.incrementAndGet();
+        ctx.setResponseHeader("Cache-Control", "private");
+        return "private:" + release.join();
+      }).setSingleFlight(singleFlight);
+      app.get("/stats", ctx -> calls.get() + ":" + singleFlight.getInFlight() + ":"
+          + singleFlight.getShared());
+      app.get("/release", ctx -> release.complete("done"));
+    }).ready(client -> {
+      List<CompletableFuture<String>> responses = new ArrayList<>();
+      for (String path : Arrays.asList("/catalog", "/async", "/private")) {
+        for (int i = 0; i < 3; i++) {
+          String url = path + "?lang=en&page=" + i;
+          responses.add(CompletableFuture.supplyAsync(() -> {
+            CompletableFuture<String> result = new CompletableFuture<>();
+            client.get(url, rsp -> result.complete(rsp.body().string()));
+            return result.join();
+          }));
+        }
+      }
+      /** One leader per route: */
+      long timeout = System.currentTimeMillis() + 5000;
+      String[] stats;
+      do {
+        Thread.sleep(50);
+        CompletableFuture<String> result = new CompletableFuture<>();
+        client.get("/stats", rsp -> result.complete(rsp.body().string()));
+        stats = result.join().split(":");
+      } while (!stats[0].equals("3") && System.currentTimeMillis() < timeout);
+      assertEquals("3", stats[0]);
+      assertEquals("3", stats[1]);
+      /** Give time to waiting requests: */
+      Thread.sleep(200);
+      client.get("/release", rsp -> {
+        assertEquals("true", rsp.body().string());
+      });
+      for (int i = 0; i < 9; i++) {
+        String expected = i < 3 ? "catalog:en:done" : i < 6 ? "async:done" : "private:done";
+        assertEquals(expected, responses.get(i).get(5, TimeUnit.SECONDS));
+      }
+      /** Private responses aren't shared, waiting requests run the route: */
+      client.get("/stats", rsp -> {
+        assertEquals("5:0:4", rsp.body().string());
+      });
+    });
+  }
+
+  @Test
+  public void singleFlightPrivateAndTimeout() {
+    new JoobyRunner(app -> {
+      AtomicInteger calls = new AtomicInteger();
+      AtomicInteger wedged = new AtomicInteger();
+      CompletableFuture<String> release = new CompletableFuture<>();
+      SingleFlight singleFlight = new SingleFlight().setTimeout(Duration.ofMillis(200));
+      app.get("/user", ctx -> {
+        calls.incrementAndGet();
+        return "user:" + release.join();
+      }).setSingleFlight(singleFlight);
+      CompletableFuture<String> fallback = CompletableFuture.completedFuture("fallback");
+      List<String> threads = new CopyOnWriteArrayList<>();
+      app.get("/wedged", ctx -> {
+        threads.add(Thread.currentThread().getName());
+        return (wedged.incrementAndGet() == 1 ? release : fallback).thenApply(value -> value);
+      }).setSingleFlight(singleFlight);
+      app.get("/threads", ctx -> threads.toString());
+      app.get("/stats", ctx -> calls.get() + ":" + wedged.get() + ":"
+          + singleFlight.getInFlight());
+      app.get("/release", ctx -> release.complete("done"));
+    }).ready(client -> {
+      List<CompletableFuture<String>> responses = new ArrayList<>();
+      for (int i = 0; i < 2; i++) {
+        responses.add(CompletableFuture.supplyAsync(() -> {
+          CompletableFuture<String> result = new CompletableFuture<>();
+          client.get("/user")
+              .prepare(req -> req.header("Authorization", "Bearer token"))
+              .execute(rsp -> result.complete(rsp.body().string()));
+          return result.join();
+        }));
+      }
+      responses.add(CompletableFuture.supplyAsync(() -> {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        client.get("/wedged", rsp -> result.complete(rsp.body().string()));
+        return result.join();
+      }));
+      /** Requests with credentials aren't coalesced: */
+      long timeout = System.currentTimeMillis() + 5000;
+      String stats;
+      do {
+        Thread.sleep(50);
+        CompletableFuture<String> result = new CompletableFuture<>();
+        client.get("/stats", rsp -> result.complete(rsp.body().string()));
+        stats = result.join();
+      } while (!stats.startsWith("2:1:") && System.currentTimeMillis() < timeout);
+      assertTrue(stats.startsWith("2:1:"), stats);
+      /** Leader never completes, waiting request runs the route after timeout: */
+      client.get("/wedged", rsp -> {
+        assertEquals("fallback", rsp.body().string());
+      });
+      client.get("/stats", rsp -> {
+        assertEquals("2:2:0", rsp.body().string());
+      });
+      /** Never on the timer thread: */
+      client.get("/threads", rsp -> {
+        String threads = rsp.body().string();
+        assertFalse(threads.contains("jooby-timer"), threads);
+      });
+      client.get("/release", rsp -> {
+        assertEquals("true", rsp.body().string());
+      });
+      assertEquals("user:done", responses.get(0).get(5, TimeUnit.SECONDS));
+      assertEquals("user:done", responses.get(1).get(5, TimeUnit.SECONDS));
+      assertEquals("done", responses.get(2).get(5, TimeUnit.SECONDS));
+    });
+  }
+
+  @Test
+  public void blockingCallDetector() {
+    new JoobyRunner(app -> {
+      List<String> reports = new CopyOnWriteArrayList<>();
+      app.setRouterOptions(new RouterOptions()
+          .setBlockingCallDetector(new BlockingCallDetector()
+              .setThreshold(Duration.ofMillis(50))
+              .setStrict(true)
+              .setListener((route, thread, elapsed, stackTrace) -> reports.add(route.getPattern()))
+          ));
+      app.get("/sleep", ctx -> {
+        Thread.sleep(200);
+        return "sleep";
+      });
+      app.get("/fast", ctx -> "fast");
+      app.get("/reports", ctx -> reports.toString());
+    }).mode(ExecutionMode.EVENT_LOOP).ready((client, server) -> {
+      /** Jetty has no event loop: */
+      boolean eventLoop = !server.getClass().getSimpleName().equals("Jetty");
+      client.get("/fast", rsp -> {
+        assertEquals(200, rsp.code());
+        assertEquals("fast", rsp.body().string());
+      });
+      client.get("/sleep", rsp -> {
+        assertEquals(eventLoop ? 500 : 200, rsp.code());
+      });
+      client.get("/reports", rsp -> {
+        assertEquals(eventLoop ? "[/sleep]" : "[]", rsp.body().string());
+      });
+    });
+  }
+
+  @Test
+  public void bulkhead() {
+    new JoobyRunner(app -> {
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+      Bulkhead reports = new Bulkhead(app.getWorker())
+          .setMaxConcurrency(1)
+          .setMaxQueueSize(0)
+          .setRetryAfter(Duration.ofSeconds(3));
+      app.dispatch(reports, () -> {
+        app.get("/reports", ctx -> {
+          started.countDown();
+          release.await();
+          return "report";
+        });
+      });
+      app.get("/checkout", ctx -> "checkout");
+      app.get("/release", ctx -> {
+        started.await();
+        return reports.getRunning() + ":" + reports.getRejected();
+      });
+      app.get("/done", ctx -> {
+        release.countDown();
+        return "done";
+      });
+    }).ready(client -> {
+      CompletableFuture<String> slow = new CompletableFuture<>();
+      CompletableFuture.runAsync(() -> client.get("/reports", rsp -> {
+        slow.complete(rsp.body().string());
+      }));
+      client.get("/release", rsp -> {
+        assertEquals("1:0", rsp.body().string());
+      });
+      client.get("/reports", rsp -> {
+        assertEquals(503, rsp.code());
+        assertEquals("3", rsp.header("Retry-After"));
+      });
+      client.get("/checkout", rsp -> {
+        assertEquals("checkout", rsp.body().string());
+      });
+      client.get("/release", rsp -> {
+        assertEquals("1:1", rsp.body().string());
+      });
+      client.get("/done", rsp -> {
+        assertEquals("done", rsp.body().string());
+      });
+      assertEquals("report", slow.get(5, TimeUnit.SECONDS));
+    });
+  }
+
+  @Test
+  public void bulkheadAsync() {
+    new JoobyRunner(app -> {
+      CompletableFuture<String> report = new CompletableFuture<>();
+      Bulkhead reports = new Bulkhead(app.getWorker())
+          .setMaxConcurrency(1)
+          .setMaxQueueSize(0);
+      app.dispatch(reports, () -> {
+        app.get("/reports", ctx -> report);
+      });
+      app.get("/running", ctx -> reports.getRunning());
+      app.get("/done", ctx -> {
+        report.complete("report");
+        return "done";
+      });
+    }).ready(client -> {
+      CompletableFuture<String> slow = new CompletableFuture<>();
+      CompletableFuture.runAsync(() -> client.get("/reports", rsp -> {
+        slow.complete(rsp.body().string());
+      }));
+      awaitRunning(client, "1");
+      /** Handler returned, but response is still pending: */
+      client.get("/reports", rsp -> {
+        assertEquals(503, rsp.code());
+      });
+      client.get("/done", rsp -> {
+        assertEquals("done", rsp.body().string());
+      });
+      assertEquals("report", slow.get(5, TimeUnit.SECONDS));
+      awaitRunning(client, "0");
+    });
+  }
+
+  @Test
+  public void concurrencyLimit() {
+    new JoobyRunner(app -> {
+      app.setRouterOptions(new RouterOptions()
+          .setConcurrencyLimit(ConcurrencyLimit.fixed(1))
+          .setRetryAfter(Duration.ofSeconds(3)));
+      CompletableFuture<String> report = new CompletableFuture<>();
+      AtomicInteger running = new AtomicInteger();
+      app.get("/reports", ctx -> {
+        running.incrementAndGet();
+        return report;
+      });
+      /** Own limit, outside the global one: */
+      ConcurrencyLimit admin = ConcurrencyLimit.fixed(10);
+      app.get("/running", ctx -> running.get()).setConcurrencyLimit(admin);
+      app.get("/done", ctx -> {
+        report.complete("report");
+        return "done";
+      }).setConcurrencyLimit(admin);
+    }).ready(client -> {
+      CompletableFuture<String> slow = new CompletableFuture<>();
+      CompletableFuture.runAsync(() -> client.get("/reports", rsp -> {
+        slow.complete(rsp.body().string());
+      }));
+      awaitRunning(client, "1");
+      /** Global limit is taken by the pending response: */
+      client.get("/reports", rsp -> {
+        assertEquals(503, rsp.code());
+        assertEquals("3", rsp.header("Retry-After"));
+      });
+      client.get("/done", rsp -> {
+        assertEquals("done", rsp.body().string());
+      });
+      assertEquals("report", slow.get(5, TimeUnit.SECONDS));
+    });
+  }
+
+  private static void awaitRunning(WebClient client, String expected) throws Exception {
+    AtomicReference<String> running = new AtomicReference<>();
+    for (int i = 0; i < 100 && !expected.equals(running.get()); i++) {
+      client.get("/running", rsp -> running.set(rsp.body().string()));
+      Thread.sleep(20);
+    }
+    assertEquals(expected, running.get());
+  }
+
+  @Test
+  public void deadline() {
+    new JoobyRunner(app -> {
+      app.setRouterOptions(new RouterOptions().setDeadlineHeader("Request-Timeout"));
+      AtomicInteger executed = new AtomicInteger();
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+      Bulkhead single = new Bulkhead(app.getWorker()).setMaxConcurrency(1);
+      app.dispatch(single, () -> {
+        app.get("/block", ctx -> {
+          started.countDown();
+          release.await();
+          return "block";
+        });
+        app.get("/queued", ctx -> executed.incrementAndGet())
+            .setTimeout(Duration.ofMillis(100));
+      });
+      app.get("/started", ctx -> started.await(5, TimeUnit.SECONDS));
+      app.get("/release", ctx -> {
+        release.countDown();
+        return "released";
+      });
+      app.get("/executed", ctx -> executed.get());
+
+      app.get("/future", ctx -> new CompletableFuture<String>())
+          .setTimeout(Duration.ofMillis(100));
+      app.get("/flowable", ctx -> Flowable.never())
+          .setTimeout(Duration.ofMillis(100));
+      app.get("/single", ctx -> Single.never())
+          .setTimeout(Duration.ofMillis(100));
+      app.get("/remaining", ctx -> {
+        Duration remaining = ctx.getRemainingTime();
+        return remaining == null ? "none" : String.valueOf(remaining.toMillis() <= 5000);
+      });
+    }).ready(client -> {
+      client.get("/future", rsp -> {
+        assertEquals(504, rsp.code());
+      });
+      client.get("/flowable", rsp -> {
+        assertEquals(504, rsp.code());
+      });
+      client.get("/single", rsp -> {
+        assertEquals(504, rsp.code());
+      });
+      client.get("/remaining", rsp -> {
+        assertEquals("none", rsp.body().string());
+      });
+      client.header("Request-Timeout", "5000");
+      client.get("/remaining", rsp -> {
+        assertEquals("true", rsp.body().string());
+      });
+      /** Client deadline is shorter than route timeout: */
+      client.header("Request-Timeout", "0");
+      client.get("/future", rsp -> {
+        assertEquals(504, rsp.code());
+      });
+
+      /** Queued work past its deadline is dropped: */
+      CompletableFuture<String> block = new CompletableFuture<>();
+      CompletableFuture.runAsync(() -> client.get("/block", rsp -> {
+        block.complete(rsp.body().string());
+      }));
+      client.get("/started", rsp -> {
+        assertEquals("true", rsp.body().string());
+      });
+      CompletableFuture<Integer> queued = new CompletableFuture<>();
+      CompletableFuture.runAsync(() -> client.get("/queued", rsp -> {
+        queued.complete(rsp.code());
+      }));
+      Thread.sleep(300);
+      client.get("/release", rsp -> {
+        assertEquals("released", rsp.body().string());
+      });
+      assertEquals("block", block.get(5, TimeUnit.SECONDS));
+      assertEquals(504, queued.get(5, TimeUnit.SECONDS).intValue());
+      client.get("/executed", rsp -> {
+        assertEquals("0", rsp.body().string());
+      });
+    });
+  }
+
+  @Test
+  public void cancelOnConnectionLost() {
+    new JoobyRunner(app -> {
+      Map<String, CountDownLatch> started = new ConcurrentHashMap<>();
+      Map<String, CountDownLatch> cancelled = new ConcurrentHashMap<>();
+      for (String path : Arrays.asList("/future", "/flowable")) {
+        started.put(path, new CountDownLatch(1));
+        cancelled.put(path, new CountDownLatch(1));
+      }
+      app.get("/future", ctx -> {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.whenComplete((value, x) -> {
+          if (future.isCancelled()) {
+            cancelled.get("/future").countDown();
+          }
+        });
+        started.get("/future").countDown();
+        return future;
+      });
+      app.get("/flowable", ctx -> Flowable.never()
+          .doOnSubscribe(s -> started.get("/flowable").countDown())
+          .doOnCancel(() -> cancelled.get("/flowable").countDown()));
+      app.get("/started", ctx -> started.get(ctx.query("path").value())
+          .await(5, TimeUnit.SECONDS));
+      app.get("/cancelled", ctx -> cancelled.get(ctx.query("path").value())
+          .await(5, TimeUnit.SECONDS));
+    }).ready(client -> {
+      for (String path : Arrays.asList("/future", "/flowable")) {
+        try (Socket socket = new Socket("localhost", client.getPort())) {
+          socket.getOutputStream().write(("GET " + path + " HTTP/1.1\r\n"
+              + "Host: localhost\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+          socket.getOutputStream().flush();
+          client.get("/started?path=" + path, rsp -> {
+            assertEquals("true", rsp.body().string());
+          });
+        }
+        /** Connection closed before any response, no deadline involved: */
+        client.get("/cancelled?path=" + path, rsp -> {
+          assertEquals("true", rsp.body().string(), path);
+        });
+      }
+    }, Netty::new /* Undertow and Jetty don't read while request is in progress, they find out
+    on next write */);
+  }
+
   @Test
   public void sayHiFromWorker() {
     new JoobyRunner(app -> {
@@ -336,6 +858,90 @@ public class FeaturedTest {
     });
   }
 
+  @Test
+  public void compression() throws IOException {
+    byte[] png = new byte[2048];
+    new JoobyRunner(app -> {
+      app.setServerOptions(new ServerOptions().setGzip(true)
+          .setCompression(new CompressionOptions().setAlgorithms("deflate", "gzip")));
+      app.get("/small", ctx -> "small");
+      app.get("/large", ctx -> _19kb);
+      app.get("/png", ctx -> ctx.setResponseType(io.jooby.MediaType.valueOf("image/png"))
+          .send(png));
+      app.get("/problem", ctx -> ctx
+          .setResponseType(io.jooby.MediaType.valueOf("application/problem+json"))
+          .send(_19kb));
+      app.get("/encoded", ctx -> ctx.setResponseHeader("Content-Encoding", "gzip")
+          .setResponseType(io.jooby.MediaType.text)
+          .send(gzip(_19kb.getBytes(StandardCharsets.UTF_8))));
+      app.get("/file", ctx -> userdir("src", "test", "resources", "files", "19kb.txt"));
+    }).ready((client, server) -> {
+      String name = server.getClass().getSimpleName();
+      client.get("/small").prepare(req -> req.addHeader("Accept-Encoding", "gzip"))
+          .execute(rsp -> {
+            assertEquals(null, rsp.header("content-encoding"), name);
+            assertEquals("small", rsp.body().string(), name);
+          });
+
+      client.get("/png").prepare(req -> req.addHeader("Accept-Encoding", "gzip"))
+          .execute(rsp -> {
+            assertEquals(null, rsp.header("content-encoding"), name);
+            assertEquals(png.length, rsp.body().bytes().length, name);
+          });
+
+      client.get("/problem").prepare(req -> req.addHeader("Accept-Encoding", "gzip"))
+          .execute(rsp -> {
+            assertEquals("gzip", rsp.header("content-encoding"), name);
+            assertEquals(_19kb, decode("gzip", rsp.body().bytes()), name);
+          });
+
+      client.get("/encoded").prepare(req -> req.addHeader("Accept-Encoding", "gzip"))
+          .execute(rsp -> {
+            assertEquals("gzip", rsp.header("content-encoding"), name);
+            assertEquals(_19kb, decode("gzip", rsp.body().bytes()), name);
+          });
+
+      client.get("/file").prepare(req -> req.addHeader("Accept-Encoding", "gzip"))
+          .execute(rsp -> {
+            assertEquals("gzip", rsp.header("content-encoding"), name);
+            assertEquals(_19kb, decode("gzip", rsp.body().bytes()), name);
+          });
+
+      client.get("/file").prepare(req -> req.addHeader("Accept-Encoding", ""))
+          .execute(rsp -> {
+            assertEquals(null, rsp.header("content-encoding"), name);
+            assertEquals(Integer.toString(_19kb.length()), rsp.header("content-length"), name);
+            assertEquals(_19kb, rsp.body().string(), name);
+          });
+
+      // Jetty only supports gzip
+      String preferred = name.equals("Jetty") ? "gzip" : "deflate";
+      client.get("/large").prepare(req -> req.addHeader("Accept-Encoding", "gzip, deflate"))
+          .execute(rsp -> {
+            assertEquals(preferred, rsp.header("content-encoding"), name);
+            assertEquals(_19kb, decode(preferred, rsp.body().bytes()), name);
+          });
+
+      client.get("/large").prepare(req -> req.addHeader("Accept-Encoding", "gzip, deflate;q=0.5"))
+          .execute(rsp -> {
+            assertEquals("gzip", rsp.header("content-encoding"), name);
+            assertEquals(_19kb, decode("gzip", rsp.body().bytes()), name);
+          });
+    });
+  }
+
+  private static String decode(String encoding, byte[] bytes) throws IOException {
+    InputStream in = new ByteArrayInputStream(bytes);
+    in = encoding.equals("gzip") ? new GZIPInputStream(in) : new InflaterInputStream(in);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int len;
+    while ((len = in.read(buffer)) != -1) {
+      out.write(buffer, 0, len);
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
   private String ungzip(byte[] buff) throws IOException {
     GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(buff));
     Scanner scanner = new Scanner(gzip);
@@ -760,6 +1366,293 @@ public class FeaturedTest {
     });
   }
 
+  @Test
+  public void streamingEncoder() {
+    List<Map<String, Object>> report = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      Map<String, Object> item = new LinkedHashMap<>();
+      item.put("id", i);
+      item.put("name", "item-" + i);
+      report.add(item);
+    }
+    new JoobyRunner(app -> {
+      app.install(new JacksonModule());
+
+      app.get("/small", ctx -> report.subList(0, 2));
+
+      app.get("/large", ctx -> report);
+
+      app.get("/broken", ctx -> new AbstractList<Map<String, Object>>() {
+        @Override public Map<String, Object> get(int index) {
+          if (index == 1500) {
+            throw new IllegalStateException("Broken item");
+          }
+          return report.get(index);
+        }
+
+        @Override public int size() {
+          return report.size();
+        }
+      });
+    }).ready(client -> {
+      client.get("/small", rsp -> {
+        assertEquals("application/json;charset=utf-8", rsp.header("content-type").toLowerCase());
+        assertEquals(null, rsp.header("transfer-encoding"));
+        assertEquals("[{\"id\":0,\"name\":\"item-0\"},{\"id\":1,\"name\":\"item-1\"}]",
+            rsp.body().string());
+      });
+
+      client.get("/large", rsp -> {
+        assertEquals("application/json;charset=utf-8", rsp.header("content-type").toLowerCase());
+        assertEquals("chunked", rsp.header("transfer-encoding").toLowerCase());
+        assertEquals(null, rsp.header("content-length"));
+        String json = rsp.body().string();
+        assertTrue(json.startsWith("[{\"id\":0,\"name\":\"item-0\"}"));
+        assertTrue(json.endsWith("{\"id\":1999,\"name\":\"item-1999\"}]"));
+      });
+
+      /** Encoder failed after the response went chunked, response is aborted: */
+      assertThrows(IOException.class, () -> client.get("/broken", rsp -> rsp.body().string()));
+    });
+  }
+
+  @Test
+  public void decodeJsonArrayElementByElement() {
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < 5000; i++) {
+      json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append("}");
+    }
+    json.append("]");
+    new JoobyRunner(app -> {
+      app.install(new JacksonModule());
+
+      app.post("/stream", ctx -> {
+        try (Stream<Map<String, Integer>> stream = ctx
+            .body(new Reified<Stream<Map<String, Integer>>>() {
+            })) {
+          return stream.mapToInt(it -> it.get("id")).sum();
+        }
+      });
+    }).ready(client -> {
+      client.header("Content-Type", "application/json");
+      client.post("/stream", RequestBody.create(MediaType.get("application/json"),
+          json.toString()), rsp -> {
+        assertEquals("12497500", rsp.body().string());
+      });
+    });
+  }
+
+  @Test
+  public void streamIterator() {
+    AtomicInteger closed = new AtomicInteger();
+    new JoobyRunner(app -> {
+      app.install(new JacksonModule());
+
+      app.get("/stream", ctx -> IntStream.range(0, 5000)
+          .mapToObj(i -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", i);
+            return item;
+          })
+          .onClose(closed::incrementAndGet));
+
+      app.get("/empty", ctx -> Stream.empty())
+          .produces(io.jooby.MediaType.json);
+
+      app.get("/iterator", ctx -> Arrays.asList("a", "b", "c").iterator());
+
+      Iterable<String> iterable = () -> Arrays.asList("x", "y").iterator();
+      app.get("/iterable", ctx -> iterable);
+
+      app.get("/broken", ctx -> IntStream.range(0, 5000)
+          .mapToObj(i -> {
+            if (i == 4000) {
+              throw new IllegalStateException("Broken item");
+            }
+            return "item-" + i;
+          }));
+    }).ready(client -> {
+      int expected = closed.get() + 1;
+      client.get("/stream", rsp -> {
+        assertEquals("application/json;charset=utf-8", rsp.header("content-type").toLowerCase());
+        assertEquals("chunked", rsp.header("transfer-encoding").toLowerCase());
+        String json = rsp.body().string();
+        assertTrue(json.startsWith("[{\"id\":0},{\"id\":1},"));
+        assertTrue(json.endsWith(",{\"id\":4999}]"));
+      });
+      // stream is closed once the response has been sent
+      long timeout = System.currentTimeMillis() + 5000;
+      while (closed.get() < expected && System.currentTimeMillis() < timeout) {
+        Thread.sleep(10);
+      }
+      assertEquals(expected, closed.get());
+
+      client.get("/empty", rsp -> {
+        assertEquals("application/json;charset=utf-8", rsp.header("content-type").toLowerCase());
+        assertEquals("[]", rsp.body().string());
+      });
+
+      client.get("/iterator", rsp -> {
+        assertEquals("abc", rsp.body().string());
+      });
+
+      client.get("/iterable", rsp -> {
+        assertEquals("xy", rsp.body().string());
+      });
+
+      /** Failed after response started, response is aborted: */
+      assertThrows(IOException.class, () -> client.get("/broken", rsp -> rsp.body().string()));
+    });
+  }
+
+  @Test
+  public void serverSentEvents() {
+    new JoobyRunner(app -> {
+      app.install(new JacksonModule());
+
+      app.sse("/sse", sse -> {
+        sse.send(new ServerSentMessage("line 1\nline 2")
+            .setId(1)
+            .setEvent("lines")
+            .setRetry(1000L));
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", 2);
+        sse.send(new ServerSentMessage(json).setId(2));
+        sse.close();
+      });
+
+      ServerSentHub hub = new ServerSentHub();
+      app.sse("/hub/{topic}", sse -> {
+        hub.add(sse);
+        sse.send("welcome " + sse.getContext().path("topic").value());
+      });
+
+      app.post("/publish", ctx -> {
+        hub.broadcast(new ServerSentMessage("news").setEvent("update"));
+        hub.close();
+        return hub.size();
+      });
+    }).ready(client -> {
+      client.get("/sse", rsp -> {
+        assertEquals("text/event-stream;charset=utf-8",
+            rsp.header("content-type").toLowerCase());
+        assertEquals("no-cache", rsp.header("cache-control"));
+        assertEquals("id:1\nevent:lines\nretry:1000\ndata:line 1\ndata:line 2\n\n"
+            + "id:2\ndata:{\"id\":2}\n\n", rsp.body().string());
+      });
+
+      client.get("/hub/news", rsp -> {
+        BufferedSource events = rsp.body().source();
+        assertEquals("data:welcome news", events.readUtf8Line());
+        assertEquals("", events.readUtf8Line());
+        client.post("/publish", publish -> {
+          assertEquals("0", publish.body().string());
+        });
+        assertEquals("event:update\ndata:news\n\n", events.readUtf8());
+      });
+    });
+  }
+
+  @Test
+  public void gatheringWrites() {
+    byte[] header = "<header>".getBytes(StandardCharsets.UTF_8);
+    new JoobyRunner(app -> {
+      app.get("/array", ctx -> ctx.send(new ByteBuffer[]{
+          ByteBuffer.wrap(header),
+          ByteBuffer.wrap("body".getBytes(StandardCharsets.UTF_8)),
+          ByteBuffer.allocate(0)
+      }));
+
+      app.get("/list", ctx -> ctx.send(Arrays.asList(
+          ByteBuffer.wrap(header),
+          ByteBuffer.wrap("<".getBytes(StandardCharsets.UTF_8)),
+          ByteBuffer.wrap("/header>".getBytes(StandardCharsets.UTF_8))
+      )));
+
+      app.get("/empty", ctx -> ctx.send(new ByteBuffer[0]));
+
+      app.get("/all-empty", ctx -> ctx.send(new ByteBuffer[]{
+          ByteBuffer.allocate(0),
+          ByteBuffer.allocate(0)
+      }));
+    }).ready(client -> {
+      client.get("/array", rsp -> {
+        assertEquals("12", rsp.header("content-length"));
+        assertEquals("<header>body", rsp.body().string());
+      });
+      client.get("/list", rsp -> {
+        assertEquals("17", rsp.header("content-length"));
+        assertEquals("<header></header>", rsp.body().string());
+      });
+      client.get("/empty", rsp -> {
+        assertEquals(200, rsp.code());
+        assertEquals("0", rsp.header("content-length"));
+        assertEquals("", rsp.body().string());
+      });
+      client.get("/all-empty", rsp -> {
+        assertEquals(200, rsp.code());
+        assertEquals("0", rsp.header("content-length"));
+        assertEquals("", rsp.body().string());
+      });
+    });
+  }
+
+  @Test
+  public void webSocket() {
+    new JoobyRunner(app -> {
+      app.install(new JacksonModule());
+
+      app.ws("/ws/{key}", (ctx, configurer) -> {
+        String key = ctx.path("key").value();
+        configurer.onConnect(ws -> {
+          ws.send("connected " + key);
+        });
+
+        configurer.onMessage((ws, message) -> {
+          if (message.isBinary()) {
+            ws.send(message.buffer());
+          } else if (message.value().equals("json")) {
+            ws.render(Collections.singletonMap("key", key));
+          } else if (message.value().equals("bye")) {
+            ws.close();
+          } else {
+            ws.send(key + ": " + message.value());
+          }
+        });
+      });
+
+      WebSocketHub hub = new WebSocketHub();
+      app.ws("/hub", (ctx, configurer) -> {
+        configurer.onConnect(ws -> {
+          hub.add(ws);
+          ws.send("joined");
+        });
+        configurer.onMessage((ws, message) -> hub.broadcast(message.value()));
+      });
+    }).ready(client -> {
+      WebClient.BlockingWebSocket ws = client.webSocket("/ws/abc");
+      assertEquals("connected abc", ws.receive());
+      assertEquals("abc: hello", ws.send("hello").receive());
+      assertEquals("{\"key\":\"abc\"}", ws.send("json").receive());
+      assertEquals(ByteString.of(new byte[]{1, 2, 3}), ws.send(new byte[]{1, 2, 3}).receive());
+      assertEquals(1000, ws.send("bye").receive());
+
+      WebClient.BlockingWebSocket ws1 = client.webSocket("/hub");
+      WebClient.BlockingWebSocket ws2 = client.webSocket("/hub");
+      assertEquals("joined", ws1.receive());
+      assertEquals("joined", ws2.receive());
+      ws1.send("to all");
+      assertEquals("to all", ws1.receive());
+      assertEquals("to all", ws2.receive());
+      ws1.close();
+      ws2.close();
+
+      client.get("/hub", rsp -> {
+        assertEquals(426, rsp.code());
+      });
+    });
+  }
+
   @Test
   public void defaultAndExplicitAcceptableResponses() {
     class Message {
@@ -898,6 +1791,99 @@ public class FeaturedTest {
     });
   }
 
+  @Test
+  public void expectContinue() {
+    AtomicInteger counter = new AtomicInteger();
+    AtomicInteger handled = new AtomicInteger();
+    new JoobyRunner(app -> {
+      app.before(ctx -> {
+        counter.incrementAndGet();
+        if (ctx.header("Authorization").isMissing()) {
+          throw new StatusCodeException(StatusCode.UNAUTHORIZED);
+        }
+      });
+
+      app.post("/continue", ctx -> {
+        handled.incrementAndGet();
+        return ctx.body().value();
+      }).consumes(io.jooby.MediaType.json);
+    }).ready(client -> {
+      /** Rejected by Before filter without sending a single body byte: */
+      counter.set(0);
+      handled.set(0);
+      try (Socket socket = new Socket("localhost", client.getPort())) {
+        socket.setSoTimeout(5000);
+        socket.getOutputStream().write(("POST /continue HTTP/1.1\r\n"
+            + "Host: localhost\r\n"
+            + "Content-Type: application/json\r\n"
+            + "Content-Length: 1048576\r\n"
+            + "Expect: 100-continue\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        socket.getOutputStream().flush();
+        InputStream in = socket.getInputStream();
+        /** Final status, no 100 Continue asking for the body: */
+        String head = responseHead(in);
+        assertTrue(head.startsWith("HTTP/1.1 401"), head);
+        /** Server closes the connection instead of waiting for the body: */
+        while (in.read() != -1) {
+        }
+      }
+      assertEquals(1, counter.get());
+      assertEquals(0, handled.get());
+
+      /** Accepted: 100 Continue once Before filter passes, filter doesn't run again: */
+      counter.set(0);
+      try (Socket socket = new Socket("localhost", client.getPort())) {
+        socket.setSoTimeout(5000);
+        OutputStream out = socket.getOutputStream();
+        out.write(("POST /continue HTTP/1.1\r\n"
+            + "Host: localhost\r\n"
+            + "Authorization: Basic\r\n"
+            + "Content-Type: application/json\r\n"
+            + "Content-Length: 7\r\n"
+            + "Expect: 100-continue\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        InputStream in = socket.getInputStream();
+        String head = responseHead(in);
+        assertTrue(head.startsWith("HTTP/1.1 100"), head);
+        assertEquals(1, counter.get());
+        out.write("{\"k\":1}".getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        head = responseHead(in);
+        assertTrue(head.startsWith("HTTP/1.1 200"), head);
+      }
+      assertEquals(1, counter.get());
+      assertEquals(1, handled.get());
+
+      counter.set(0);
+      client.header("Expect", "100-continue");
+      client.post("/continue", create("{}", MediaType.parse("application/json")), rsp -> {
+        assertEquals(401, rsp.code());
+        assertEquals(1, counter.get());
+      });
+
+      counter.set(0);
+      client.header("Expect", "100-continue");
+      client.header("Authorization", "Basic");
+      client.post("/continue", create("{}", MediaType.parse("text/plain")), rsp -> {
+        assertEquals(415, rsp.code());
+      });
+
+      counter.set(0);
+      client.header("Expect", "100-continue");
+      client.header("Authorization", "Basic");
+      client.post("/continue", create("{\"k\":1}", MediaType.parse("application/json")), rsp -> {
+        assertEquals(200, rsp.code());
+        assertEquals("{\"k\":1}", rsp.body().string());
+        assertEquals(1, counter.get());
+      });
+
+      client.header("Expect", "100-continue");
+      client.post("/missing", create("{}", MediaType.parse("application/json")), rsp -> {
+        assertEquals(404, rsp.code());
+      });
+    });
+  }
+
   @Test
   public void errorHandler() {
     new JoobyRunner(app -> {
@@ -957,6 +1943,12 @@ public class FeaturedTest {
               .subscribeOn(Schedulers.io())
               .observeOn(Schedulers.computation())
       );
+      app.get("/rx/flowable/large", ctx ->
+          Flowable.range(0, 20000)
+              .map(i -> i + ",")
+              .subscribeOn(Schedulers.io())
+              .observeOn(Schedulers.computation())
+      );
       app.get("/rx/observable", ctx ->
           Observable.range(1, 10)
               .map(i -> i + ",")
@@ -998,6 +1990,13 @@ public class FeaturedTest {
         assertEquals("chunked", rsp.header("transfer-encoding").toLowerCase());
         assertEquals("1,2,3,4,5,6,7,8,9,10,", rsp.body().string());
       });
+      client.get("/rx/flowable/large", rsp -> {
+        assertEquals("chunked", rsp.header("transfer-encoding").toLowerCase());
+        String[] items = rsp.body().string().split(",");
+        assertEquals(20000, items.length);
+        assertEquals("0", items[0]);
+        assertEquals("19999", items[19999]);
+      });
       client.get("/rx/observable", rsp -> {
         assertEquals("chunked", rsp.header("transfer-encoding").toLowerCase());
         assertEquals("1,2,3,4,5,6,7,8,9,10,", rsp.body().string());
@@ -1225,6 +2224,91 @@ public class FeaturedTest {
     });
   }
 
+  @Test
+  public void maxBodyMemory() {
+    new JoobyRunner(app -> {
+      ServerOptions options = new ServerOptions()
+          .setMaxBodyMemory(ServerOptions._16KB);
+      app.setServerOptions(options);
+      app.post("/body-memory", ctx -> {
+        Body body = ctx.body();
+        MemoryBudget budget = options.getBodyMemory();
+        return body.isInMemory() + ":" + budget.getSpilled() + ":" + body.value().length();
+      });
+    }).ready((client, server) -> {
+      if (server.getClass().getSimpleName().equals("Jetty")) {
+        // Jetty streams the body, no buffering
+        return;
+      }
+      client.post("/body-memory", RequestBody.create(_8kb, MediaType.get("text/plain")), rsp -> {
+        assertEquals("true:0:" + _8kb.length(), rsp.body().string(),
+            server.getClass().getSimpleName());
+      });
+      client.post("/body-memory", RequestBody.create(_19kb, MediaType.get("text/plain")), rsp -> {
+        assertEquals("false:" + _19kb.length() + ":" + _19kb.length(), rsp.body().string(),
+            server.getClass().getSimpleName());
+      });
+    });
+  }
+
+  @Test
+  public void inflateRequest() {
+    new JoobyRunner(app -> {
+      app.setServerOptions(new ServerOptions()
+          .setMaxRequestSize(ServerOptions._16KB * 2));
+      app.install(new JacksonModule());
+
+      app.post("/inflate", ctx -> ctx.body().value());
+
+      app.post("/inflate/json", ctx -> ctx.body(Map.class));
+
+      app.post("/inflate/headers", ctx ->
+          ctx.header("Content-Encoding").value("identity") + ":" + ctx.body().value().length());
+    }).ready((client, server) -> {
+      String name = server.getClass().getSimpleName();
+      MediaType textplain = MediaType.get("text/plain");
+      client.header("Content-Encoding", "gzip");
+      client.post("/inflate", create(gzip(_19kb.getBytes(StandardCharsets.UTF_8)), textplain),
+          rsp -> {
+            assertEquals(200, rsp.code(), name);
+            assertEquals(_19kb, rsp.body().string(), name);
+          });
+
+      client.header("Content-Encoding", "deflate");
+      client.post("/inflate", create(deflate(_19kb.getBytes(StandardCharsets.UTF_8)), textplain),
+          rsp -> {
+            assertEquals(200, rsp.code(), name);
+            assertEquals(_19kb, rsp.body().string(), name);
+          });
+
+      /** Raw deflate, without zlib wrapper: */
+      client.header("Content-Encoding", "deflate");
+      client.post("/inflate", create(rawDeflate(_19kb.getBytes(StandardCharsets.UTF_8)),
+          textplain), rsp -> {
+        assertEquals(200, rsp.code(), name);
+        assertEquals(_19kb, rsp.body().string(), name);
+      });
+
+      client.header("Content-Encoding", "gzip");
+      client.post("/inflate/json", create(gzip("{\"foo\": \"bar\"}".getBytes(StandardCharsets.UTF_8)),
+          MediaType.get("application/json")), rsp -> {
+        assertEquals("{\"foo\":\"bar\"}", rsp.body().string(), name);
+      });
+
+      client.header("Content-Encoding", "gzip");
+      client.post("/inflate/headers", create(gzip(_8kb.getBytes(StandardCharsets.UTF_8)), textplain),
+          rsp -> {
+            assertEquals("identity:" + _8kb.length(), rsp.body().string(), name);
+          });
+
+      /** Zip bomb: */
+      client.header("Content-Encoding", "gzip");
+      client.post("/inflate", create(gzip(new byte[ServerOptions._10MB]), textplain), rsp -> {
+        assertEquals(413, rsp.code(), name);
+      });
+    });
+  }
+
   @Test
   public void maxRequestSize() {
     new JoobyRunner(app -> {
@@ -2301,6 +3385,87 @@ public class FeaturedTest {
     });
   }
 
+  @Test
+  public void assetCache() throws IOException {
+    Path dir = Files.createTempDirectory("assets");
+    byte[] js = _19kb.getBytes(StandardCharsets.UTF_8);
+    byte[] br = "brotli".getBytes(StandardCharsets.UTF_8);
+    Files.write(dir.resolve("app.js"), js);
+    Files.write(dir.resolve("app.js.gz"), gzip(js));
+    Files.write(dir.resolve("app.js.br"), br);
+    Files.write(dir.resolve("plain.txt"), js);
+    try {
+      new JoobyRunner(app -> {
+        app.assets("/cache/*", new AssetHandler(AssetSource.create(dir),
+            AssetSource.create(app.getClassLoader(), "/META-INF/resources/webjars/vue/2.5.22"))
+            .setCacheSize(1024 * 1024)
+            .setPrecompressed(true));
+      }).ready((client, server) -> {
+        String name = server.getClass().getSimpleName();
+        client.get("/cache/app.js").prepare(req -> req.addHeader("Accept-Encoding", ""))
+            .execute(rsp -> {
+              assertEquals(null, rsp.header("Content-Encoding"), name);
+              assertEquals("Accept-Encoding", rsp.header("Vary"), name);
+              assertEquals(Integer.toString(js.length), rsp.header("Content-Length"), name);
+              assertEquals(_19kb, rsp.body().string(), name);
+            });
+        client.get("/cache/app.js").prepare(req -> req.addHeader("Accept-Encoding", "gzip"))
+            .execute(rsp -> {
+              assertEquals("gzip", rsp.header("Content-Encoding"), name);
+              assertEquals("application/javascript;charset=utf-8",
+                  rsp.header("Content-Type").toLowerCase(), name);
+              assertEquals(_19kb, decode("gzip", rsp.body().bytes()), name);
+            });
+        client.get("/cache/app.js").prepare(req -> req.addHeader("Accept-Encoding", "gzip, br"))
+            .execute(rsp -> {
+              assertEquals("br", rsp.header("Content-Encoding"), name);
+              assertEquals("brotli", rsp.body().string(), name);
+            });
+
+        // cached content, same headers
+        client.get("/cache/plain.txt").prepare(req -> req.addHeader("Accept-Encoding", "gzip"))
+            .execute(rsp -> {
+              assertEquals(null, rsp.header("Content-Encoding"), name);
+              assertEquals(null, rsp.header("Vary"), name);
+              assertEquals(_19kb, rsp.body().string(), name);
+              String etag = rsp.header("ETag");
+              String lastModified = rsp.header("Last-Modified");
+              client.get("/cache/plain.txt", again -> {
+                assertEquals(etag, again.header("ETag"), name);
+                assertEquals(lastModified, again.header("Last-Modified"), name);
+                assertEquals(_19kb, again.body().string(), name);
+              });
+              client.get("/cache/plain.txt").prepare(req -> req.addHeader("If-None-Match", etag))
+                  .execute(notModified -> {
+                    assertEquals(304, notModified.code(), name);
+                  });
+            });
+
+        // from jar: small cached and large streamed
+        client.get("/cache/package.json", rsp -> {
+          assertEquals(200, rsp.code(), name);
+          assertTrue(rsp.body().string().contains("\"name\": \"vue\""), name);
+        });
+        client.get("/cache/dist/vue.js", rsp -> {
+          assertEquals("310837", rsp.header("Content-Length"), name);
+          assertEquals(310837, rsp.body().bytes().length, name);
+        });
+
+        client.get("/cache/nope.js", rsp -> {
+          assertEquals(404, rsp.code(), name);
+        });
+        client.get("/cache/nope.js", rsp -> {
+          assertEquals(404, rsp.code(), name);
+        });
+      });
+    } finally {
+      try (Stream<Path> files = Files.list(dir)) {
+        files.forEach(file -> file.toFile().delete());
+      }
+      Files.delete(dir);
+    }
+  }
+
   @Test
   public void services() {
     new JoobyRunner(app -> {
@@ -2451,13 +3616,34 @@ public class FeaturedTest {
 
       app.get("/1", ctx -> new ModelAndView("index.hbs").put("name", "Handlebars"));
       app.get("/2", ctx -> new ModelAndView("index.ftl").put("name", "Freemarker"));
+      app.get("/stream/1", ctx -> new ModelAndView("index.hbs").put("name", "Handlebars")
+          .setStreaming(true));
+      app.get("/stream/2", ctx -> new ModelAndView("index.ftl").put("name", "Freemarker")
+          .setStreaming(true));
+      app.get("/stream/broken", ctx -> new ModelAndView("broken.ftl").put("name", "Freemarker")
+          .setStreaming(true));
     }).ready(client -> {
       client.get("/1", rsp -> {
         assertEquals("Hello Handlebars!", rsp.body().string().trim());
+        assertEquals("text/html;charset=utf-8",
+            rsp.header("Content-Type").toLowerCase().replace(" ", ""));
       });
       client.get("/2", rsp -> {
         assertEquals("Hello Freemarker!", rsp.body().string().trim());
       });
+      client.get("/stream/1", rsp -> {
+        assertEquals("chunked", rsp.header("Transfer-Encoding"));
+        assertEquals("Hello Handlebars!", rsp.body().string().trim());
+      });
+      client.get("/stream/2", rsp -> {
+        assertEquals("chunked", rsp.header("Transfer-Encoding"));
+        assertEquals("Hello Freemarker!", rsp.body().string().trim());
+      });
+      /** Failed after first flush, response is aborted: */
+      assertThrows(IOException.class, () -> client.get("/stream/broken", rsp -> {
+        assertEquals(200, rsp.code());
+        rsp.body().string();
+      }));
     });
   }
 
@@ -2478,6 +3664,50 @@ public class FeaturedTest {
     });
   }
 
+  private static byte[] gzip(byte[] bytes) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(bytes);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] deflate(byte[] bytes) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DeflaterOutputStream deflate = new DeflaterOutputStream(out)) {
+      deflate.write(bytes);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Read status line and headers of a response.
+   */
+  private static String responseHead(InputStream in) throws IOException {
+    ByteArrayOutputStream head = new ByteArrayOutputStream();
+    int matched = 0;
+    while (matched < 4) {
+      int b = in.read();
+      if (b == -1) {
+        throw new EOFException(head.toString("US-ASCII"));
+      }
+      head.write(b);
+      matched = b == "\r\n\r\n".charAt(matched) ? matched + 1 : (b == '\r' ? 1 : 0);
+    }
+    return head.toString("US-ASCII");
+  }
+
+  private static byte[] rawDeflate(byte[] bytes) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater)) {
+      deflate.write(bytes);
+    } finally {
+      deflater.end();
+    }
+    return out.toByteArray();
+  }
+
   private static String readText(Path file) {
     try {
       return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
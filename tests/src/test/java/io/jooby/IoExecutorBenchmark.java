@@ -0,0 +1,137 @@
+package io.jooby;
+
+import io.jooby.netty.Netty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of an async route whose result comes from a non-blocking client completing in the
+ * event loop, served by Netty. Compares continuing on the worker executor, where the response
+ * write is handed over to the event loop, with continuing on {@link Context#getIoExecutor()},
+ * where the write happens inline.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class IoExecutorBenchmark {
+
+  private static final int PORT = Integer
+      .parseInt(System.getenv().getOrDefault("BUILD_PORT", "9999"));
+
+  private Server server;
+
+  @Setup
+  public void setup() {
+    System.setProperty("jooby.useShutdownHook", "false");
+    Jooby app = new Jooby();
+    app.get("/worker", ctx -> fetch(ctx)
+        .thenApplyAsync(String::toUpperCase, ctx.getRouter().getWorker()));
+    app.get("/io", ctx -> fetch(ctx)
+        .thenApplyAsync(String::toUpperCase, ctx.getIoExecutor()));
+
+    server = new Netty().setOptions(new ServerOptions().setPort(PORT));
+    server.start(app);
+  }
+
+  @TearDown
+  public void tearDown() {
+    server.stop();
+  }
+
+  @Benchmark
+  public String worker(Client client) throws IOException {
+    return client.get("/worker");
+  }
+
+  @Benchmark
+  public String ioExecutor(Client client) throws IOException {
+    return client.get("/io");
+  }
+
+  /** Non-blocking client, completes in the event loop. */
+  private static CompletableFuture<String> fetch(Context ctx) {
+    CompletableFuture<String> result = new CompletableFuture<>();
+    ctx.getIoExecutor().execute(() -> result.complete("hello"));
+    return result;
+  }
+
+  /** Keep-alive connection, one request at a time. */
+  @State(Scope.Thread)
+  public static class Client {
+
+    private Socket socket;
+
+    private InputStream in;
+
+    private OutputStream out;
+
+    @Setup
+    public void connect() throws IOException {
+      socket = new Socket("localhost", PORT);
+      socket.setTcpNoDelay(true);
+      in = socket.getInputStream();
+      out = socket.getOutputStream();
+    }
+
+    @TearDown
+    public void close() throws IOException {
+      socket.close();
+    }
+
+    public String get(String path) throws IOException {
+      out.write(("GET " + path + " HTTP/1.1\r\nHost: localhost\r\n\r\n")
+          .getBytes(StandardCharsets.US_ASCII));
+      out.flush();
+      String head = head().toLowerCase(Locale.ROOT);
+      int i = head.indexOf("content-length:");
+      int len = Integer.parseInt(head.substring(i + 15, head.indexOf('\r', i)).trim());
+      byte[] body = new byte[len];
+      int offset = 0;
+      while (offset < len) {
+        int n = in.read(body, offset, len - offset);
+        if (n == -1) {
+          throw new EOFException(path);
+        }
+        offset += n;
+      }
+      return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private String head() throws IOException {
+      ByteArrayOutputStream head = new ByteArrayOutputStream();
+      int matched = 0;
+      while (matched < 4) {
+        int b = in.read();
+        if (b == -1) {
+          throw new EOFException(head.toString("US-ASCII"));
+        }
+        head.write(b);
+        matched = b == "\r\n\r\n".charAt(matched) ? matched + 1 : (b == '\r' ? 1 : 0);
+      }
+      return head.toString("US-ASCII");
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package io.jooby;
 
+import examples.BlockingRoutes;
 import examples.InstanceRouter;
 import examples.JAXRS;
 import examples.LoopDispatch;
@@ -7,16 +8,20 @@ import examples.Message;
 import examples.MvcBody;
 import examples.NoTopLevelPath;
 import examples.NullInjection;
+import examples.PriorityDispatch;
 import examples.ProducesConsumes;
 import examples.Provisioning;
 import examples.TopDispatch;
 import io.jooby.json.JacksonModule;
+import io.jooby.netty.Netty;
+import io.jooby.utow.Utow;
 import okhttp3.FormBody;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import org.junit.jupiter.api.Test;
 
 import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
@@ -383,4 +388,74 @@ public class MvcTest {
     });
   }
 
+  @Test
+  public void mvcPriority() {
+    new JoobyRunner(app -> {
+      app.setWorker(new PriorityExecutor(2, "priority"));
+
+      app.mvc(new PriorityDispatch());
+
+      app.get("/high", ctx -> ctx.getRoute().getPriority() + ":" + Thread.currentThread().getName())
+          .setPriority(Priority.HIGH);
+    }).ready(client -> {
+      client.get("/low", rsp -> {
+        String body = rsp.body().string();
+        assertTrue(body.startsWith("LOW:priority-"), body);
+      });
+
+      client.get("/normal", rsp -> {
+        String body = rsp.body().string();
+        assertTrue(body.startsWith("NORMAL:priority-"), body);
+      });
+
+      client.get("/high", rsp -> {
+        String body = rsp.body().string();
+        assertTrue(body.startsWith("HIGH:priority-"), body);
+      });
+    });
+  }
+
+  @Test
+  public void blockingAnalysis() {
+    new JoobyRunner(app -> {
+      app.setRouterOptions(new RouterOptions().setBlockingAnalysis(true));
+      app.get("/nonblocking", ctx -> ctx.isInIoThread());
+      app.get("/blocking", ctx -> {
+        Thread.sleep(10);
+        return ctx.isInIoThread();
+      });
+      app.get("/stream", ctx -> new ByteArrayInputStream(
+          String.valueOf(ctx.isInIoThread()).getBytes(StandardCharsets.UTF_8)));
+      app.post("/body", ctx -> ctx.body().value() + ":" + ctx.isInIoThread());
+      app.mvc(new BlockingRoutes());
+    }).mode(ExecutionMode.DEFAULT).ready(client -> {
+      client.get("/nonblocking", rsp -> {
+        assertEquals("true", rsp.body().string());
+      });
+      client.get("/blocking", rsp -> {
+        assertEquals("false", rsp.body().string());
+      });
+      client.get("/stream", rsp -> {
+        assertEquals("false", rsp.body().string());
+      });
+      /** Request body might be on disk: */
+      client.post("/body", create("body", MediaType.get("text/plain")), rsp -> {
+        assertEquals("body:false", rsp.body().string());
+      });
+      client.get("/mvc/nonblocking", rsp -> {
+        assertEquals("true", rsp.body().string());
+      });
+      /** Might be anything, like a view or a file: */
+      client.get("/mvc/object", rsp -> {
+        assertEquals("false", rsp.body().string());
+      });
+      client.get("/mvc/blocking", rsp -> {
+        assertEquals("false", rsp.body().string());
+      });
+      /** Calls to interfaces count as blocking: */
+      client.get("/mvc/unknown", rsp -> {
+        assertEquals("repository:false", rsp.body().string());
+      });
+    }, Netty::new, Utow::new);
+  }
 }
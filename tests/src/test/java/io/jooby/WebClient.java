@@ -4,11 +4,16 @@ import okhttp3.Headers;
 import okhttp3.OkHttpClient;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okio.ByteString;
 
 import java.io.IOException;
 import java.net.SocketTimeoutException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 public class WebClient {
@@ -39,6 +44,64 @@ public class WebClient {
     }
   }
 
+  public class BlockingWebSocket {
+    private final WebSocket ws;
+    private final BlockingQueue<Object> messages = new LinkedBlockingQueue<>();
+
+    public BlockingWebSocket(okhttp3.Request req) {
+      ws = client.newWebSocket(req, new WebSocketListener() {
+        @Override public void onMessage(WebSocket ws, String text) {
+          messages.offer(text);
+        }
+
+        @Override public void onMessage(WebSocket ws, ByteString bytes) {
+          messages.offer(bytes);
+        }
+
+        @Override public void onClosing(WebSocket ws, int code, String reason) {
+          messages.offer(code);
+          ws.close(code, null);
+        }
+
+        @Override public void onFailure(WebSocket ws, Throwable cause, Response response) {
+          messages.offer(cause);
+        }
+      });
+    }
+
+    public BlockingWebSocket send(String message) {
+      ws.send(message);
+      return this;
+    }
+
+    public BlockingWebSocket send(byte[] message) {
+      ws.send(ByteString.of(message));
+      return this;
+    }
+
+    /**
+     * Next message: a string for text messages, a byte string for binary messages or close code.
+     */
+    public Object receive() {
+      try {
+        Object message = messages.poll(10, TimeUnit.SECONDS);
+        if (message == null) {
+          throw new SocketTimeoutException("websocket message");
+        }
+        if (message instanceof Throwable) {
+          throw (Throwable) message;
+        }
+        return message;
+      } catch (Throwable x) {
+        throw SneakyThrows.propagate(x);
+      }
+    }
+
+    public void close() {
+      ws.close(1000, null);
+    }
+  }
+
   private static RequestBody EMPTY_BODY = RequestBody.create(new byte[0], null);
   private final int port;
   private OkHttpClient client;
@@ -127,6 +190,12 @@ public class WebClient {
     patch(path).execute(callback);
   }
 
+  public BlockingWebSocket webSocket(String path) {
+    return new BlockingWebSocket(new okhttp3.Request.Builder()
+        .url("ws://localhost:" + port + path)
+        .build());
+  }
+
   public int getPort() {
     return port;
   }
@@ -72,6 +72,26 @@ class FeaturedKotlinTest {
     }
   }
 
+  @Test
+  fun coroutineEventLoop() {
+    JoobyRunner { ->
+      Kooby {
+        coroutine {
+          eventLoop = true
+          get("/") {
+            delay(10)
+            ctx.pathString() + ctx.isInIoThread
+          }
+        }
+      }
+    }.ready { client, server ->
+      val eventLoop = server.javaClass.simpleName != "Jetty"
+      client.get("/") { rsp ->
+        assertEquals("/$eventLoop", rsp.body!!.string())
+      }
+    }
+  }
+
   @Test
   fun javaApiWithReactiveType() {
     JoobyRunner { ->
@@ -0,0 +1,3 @@
+Hello ${name}!
+<#flush>
+${missing.value}